@@ -2,35 +2,68 @@ package com.aliyun.speedpix;
 
 import com.aliyun.speedpix.exception.PredictionException;
 import com.aliyun.speedpix.exception.SpeedPixException;
+import com.aliyun.speedpix.http.BufferPool;
+import com.aliyun.speedpix.http.BufferPool.PooledBuffer;
+import com.aliyun.speedpix.http.HttpTransport;
+import com.aliyun.speedpix.http.JsonRequestBody;
+import com.aliyun.speedpix.http.OutputCache;
+import com.aliyun.speedpix.http.OutputPrefetchConfig;
+import com.aliyun.speedpix.http.OutputPrefetcher;
+import com.aliyun.speedpix.http.OutputDownloader;
+import com.aliyun.speedpix.http.RangedDownloadConfig;
+import com.aliyun.speedpix.http.StreamSpool;
 import com.aliyun.speedpix.model.ComfyPromptRequest;
 import com.aliyun.speedpix.model.Prediction;
+import com.aliyun.speedpix.service.AdaptivePollingPolicy;
 import com.aliyun.speedpix.service.FilesService;
+import com.aliyun.speedpix.service.FixedIntervalPollingPolicy;
+import com.aliyun.speedpix.service.MultipartUploadConfig;
+import com.aliyun.speedpix.service.PollingEngine;
+import com.aliyun.speedpix.service.PollingPolicy;
 import com.aliyun.speedpix.service.PredictionsService;
-import com.aliyun.speedpix.util.AuthUtils;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.aliyun.speedpix.service.UploadCache;
+import com.aliyun.speedpix.util.JsonEncodingUtils;
+import com.aliyun.speedpix.util.JsonEngine;
+import com.aliyun.speedpix.util.OutputBindingModule;
+import com.aliyun.speedpix.util.RequestSigner;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import okhttp3.*;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * SpeedPix API 客户端
  */
-public class SpeedPixClient {
+public class SpeedPixClient implements Closeable {
+
+    private static final int DEFAULT_MAX_CONCURRENT_POLLS = 64;
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
     private final String endpoint;
     private final String appKey;
     private final String appSecret;
     private final String userAgent;
+    private final RequestSigner signer;
+    private final BufferPool bufferPool = new BufferPool();
+    private final HttpTransport transport;
     private final OkHttpClient httpClient;
-    private final ObjectMapper objectMapper;
+    private final JsonEngine jsonEngine;
 
     // 服务实例
     private final PredictionsService predictionsService;
     private final FilesService filesService;
+    private final PollingEngine pollingEngine;
+    private final OutputCache outputCache;
+    private final OutputPrefetcher outputPrefetcher;
 
     /**
      * 默认构造函数 - 从环境变量读取所有配置
@@ -72,18 +105,30 @@ public class SpeedPixClient {
      * @param timeoutSeconds 超时时间秒数 (默认: 30)
      */
     public SpeedPixClient(String endpoint, String appKey, String appSecret, String userAgent, int timeoutSeconds) {
+        this(builder()
+            .endpoint(endpoint)
+            .appKey(appKey)
+            .appSecret(appSecret)
+            .userAgent(userAgent)
+            .timeoutSeconds(timeoutSeconds));
+    }
+
+    /**
+     * 按 Builder 的配置构造客户端
+     */
+    private SpeedPixClient(Builder builder) {
         // 设置 endpoint，支持 null 和空字符串都使用默认值
         String envEndpoint = System.getenv("SPEEDPIX_ENDPOINT");
-        if (endpoint != null && !endpoint.trim().isEmpty()) {
-            this.endpoint = endpoint;
+        if (builder.endpoint != null && !builder.endpoint.trim().isEmpty()) {
+            this.endpoint = builder.endpoint;
         } else if (envEndpoint != null && !envEndpoint.trim().isEmpty()) {
             this.endpoint = envEndpoint;
         } else {
             this.endpoint = "https://openai.edu-aliyun.com";
         }
-        this.appKey = appKey != null ? appKey : System.getenv("SPEEDPIX_APP_KEY");
-        this.appSecret = appSecret != null ? appSecret : System.getenv("SPEEDPIX_APP_SECRET");
-        this.userAgent = userAgent != null ? userAgent : "speedpix-java/1.0.0";
+        this.appKey = builder.appKey != null ? builder.appKey : System.getenv("SPEEDPIX_APP_KEY");
+        this.appSecret = builder.appSecret != null ? builder.appSecret : System.getenv("SPEEDPIX_APP_SECRET");
+        this.userAgent = builder.userAgent != null ? builder.userAgent : "speedpix-java/1.0.0";
 
         // 验证必需参数 (endpoint 现在有默认值，不再必需)
         if (this.appKey == null || this.appKey.trim().isEmpty()) {
@@ -95,18 +140,41 @@ public class SpeedPixClient {
                 "appSecret is required, set SPEEDPIX_APP_SECRET env var or pass appSecret parameter");
         }
 
-        // 创建 HTTP 客户端
-        this.httpClient = new OkHttpClient.Builder()
-            .connectTimeout(timeoutSeconds, TimeUnit.SECONDS)
-            .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
-            .writeTimeout(timeoutSeconds, TimeUnit.SECONDS)
+        // 签名器在所有请求间复用
+        this.signer = new RequestSigner(this.appKey, this.appSecret);
+
+        // 共享的 HTTP 传输层，API 调用、上传和下载共用同一个连接池
+        this.transport = builder.httpClient != null
+            ? HttpTransport.wrap(builder.httpClient) : builder.transportBuilder.build();
+        this.httpClient = transport.getHttpClient();
+
+        // 所有 JSON 读写共用一个引擎，反序列化出的 FileOutput 绑定到同一传输层、输出缓存（以及可选的分段下载器）
+        this.outputCache = builder.outputCache != null ? builder.outputCache : OutputCache.defaultCache();
+        RangedDownloadConfig rangedDownloadConfig = builder.rangedDownloadConfig;
+        this.jsonEngine = JsonEngine.builder()
+            .objectMapper(builder.objectMapper)
+            .accelerated(builder.jsonAcceleration)
+            .module(new OutputBindingModule(transport,
+                rangedDownloadConfig != null ? new OutputDownloader(transport, rangedDownloadConfig) : null,
+                outputCache))
             .build();
-
-        this.objectMapper = new ObjectMapper();
+        this.outputPrefetcher = builder.outputPrefetchConfig != null
+            ? new OutputPrefetcher(builder.outputPrefetchConfig) : null;
 
         // 初始化服务
-        this.predictionsService = new PredictionsService(this);
-        this.filesService = new FilesService(this);
+        JsonEncodingUtils.EncodeOptions encodeOptions = JsonEncodingUtils.EncodeOptions.builder()
+            .uploadParallelism(builder.inputUploadParallelism)
+            .detectStringPaths(builder.detectStringPaths)
+            .maxInlineSize(builder.maxInlineFileSize)
+            .strategy(builder.fileEncodingStrategy)
+            .autoInlineThreshold(builder.autoInlineThreshold)
+            .adaptiveInlineThreshold(builder.adaptiveInlineThreshold)
+            .build();
+        this.predictionsService = new PredictionsService(this, builder.speculativeProgressThreshold, encodeOptions);
+        this.filesService = new FilesService(this, builder.uploadSpoolThreshold, builder.multipartUploadConfig,
+            builder.uploadCache);
+        this.pollingEngine = new PollingEngine(predictionsService, builder.maxConcurrentPolls,
+            builder.pollingPolicy != null ? builder.pollingPolicy : AdaptivePollingPolicy.defaults());
     }
 
     /**
@@ -127,6 +195,103 @@ public class SpeedPixClient {
         return filesService;
     }
 
+    /**
+     * 获取轮询引擎
+     *
+     * @return PollingEngine实例
+     */
+    public PollingEngine polling() {
+        return pollingEngine;
+    }
+
+    /**
+     * 等待所有预测任务完成
+     *
+     * @param <T> 结果类型
+     * @param predictions 预测任务集合
+     * @return 按输入顺序排列的完成后预测任务
+     */
+    public <T> CompletableFuture<List<Prediction<T>>> awaitAll(Collection<Prediction<T>> predictions) {
+        return pollingEngine.awaitAll(predictions);
+    }
+
+    /**
+     * 等待任一预测任务完成
+     *
+     * @param <T> 结果类型
+     * @param predictions 预测任务集合
+     * @return 最先完成的预测任务
+     */
+    public <T> CompletableFuture<Prediction<T>> awaitAny(Collection<Prediction<T>> predictions) {
+        return pollingEngine.awaitAny(predictions);
+    }
+
+    /**
+     * 获取客户端共享的传输层
+     *
+     * @return HttpTransport实例
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * 获取预测结果中文件输出共用的内容缓存
+     *
+     * @return OutputCache实例
+     */
+    public OutputCache getOutputCache() {
+        return outputCache;
+    }
+
+    /**
+     * 获取结果文件预取器
+     *
+     * @return OutputPrefetcher实例，未启用预取时为 null
+     */
+    public OutputPrefetcher getOutputPrefetcher() {
+        return outputPrefetcher;
+    }
+
+    /**
+     * 获取客户端共享的 HTTP 客户端
+     *
+     * @return OkHttpClient实例
+     */
+    public OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * 获取客户端使用的 ObjectMapper
+     *
+     * @return ObjectMapper实例
+     */
+    public ObjectMapper getObjectMapper() {
+        return jsonEngine.getObjectMapper();
+    }
+
+    /**
+     * 获取客户端使用的 JSON 引擎
+     *
+     * @return JsonEngine实例
+     */
+    public JsonEngine getJsonEngine() {
+        return jsonEngine;
+    }
+
+    /**
+     * 关闭客户端，释放连接池和调度器线程
+     */
+    @Override
+    public void close() {
+        pollingEngine.close();
+        if (filesService.getUploadCache() != null) {
+            filesService.getUploadCache().flush();
+        }
+        transport.close();
+    }
+
     /**
      * 运行模型并返回结果
      *
@@ -141,7 +306,11 @@ public class SpeedPixClient {
     public <T> Prediction<T> run(String workflowId, Map<String, Object> input, Class<T> targetClass)
         throws SpeedPixException,
         InterruptedException {
-        return run(workflowId, input, true, null, "main", null, null, "default", 1.0, targetClass);
+        ComfyPromptRequest request = ComfyPromptRequest.builder(workflowId)
+            .inputs(input)
+            .aliasId("main")
+            .build();
+        return run(request, "default", true, (PollingPolicy)null, targetClass);
     }
 
     /**
@@ -156,7 +325,7 @@ public class SpeedPixClient {
      */
     public <T> Prediction<T> run(ComfyPromptRequest request, Class<T> targetClass)
         throws SpeedPixException, InterruptedException {
-        return run(request, "default", true, 1.0, targetClass);
+        return run(request, "default", true, (PollingPolicy)null, targetClass);
     }
 
     /**
@@ -172,7 +341,7 @@ public class SpeedPixClient {
      */
     public <T> Prediction<T> run(ComfyPromptRequest request, String resourceConfigId, Class<T> targetClass)
         throws SpeedPixException, InterruptedException {
-        return run(request, resourceConfigId, true, 1.0, targetClass);
+        return run(request, resourceConfigId, true, (PollingPolicy)null, targetClass);
     }
 
     /**
@@ -182,7 +351,7 @@ public class SpeedPixClient {
      * @param request ComfyPrompt请求对象
      * @param resourceConfigId 资源配置ID
      * @param wait 是否等待结果完成
-     * @param pollingInterval 轮询间隔（秒）
+     * @param pollingInterval 固定轮询间隔（秒）
      * @param targetClass 目标结果类型
      * @return 预测结果
      * @throws SpeedPixException SpeedPix业务异常
@@ -191,6 +360,25 @@ public class SpeedPixClient {
     public <T> Prediction<T> run(ComfyPromptRequest request, String resourceConfigId, boolean wait,
         double pollingInterval, Class<T> targetClass)
         throws SpeedPixException, InterruptedException {
+        return run(request, resourceConfigId, wait, new FixedIntervalPollingPolicy(pollingInterval), targetClass);
+    }
+
+    /**
+     * 运行模型并返回结果（使用指定轮询策略）
+     *
+     * @param <T> 返回结果的类型
+     * @param request ComfyPrompt请求对象
+     * @param resourceConfigId 资源配置ID
+     * @param wait 是否等待结果完成
+     * @param pollingPolicy 轮询策略，为 null 时使用客户端默认策略
+     * @param targetClass 目标结果类型
+     * @return 预测结果
+     * @throws SpeedPixException SpeedPix业务异常
+     * @throws InterruptedException 线程中断异常
+     */
+    public <T> Prediction<T> run(ComfyPromptRequest request, String resourceConfigId, boolean wait,
+        PollingPolicy pollingPolicy, Class<T> targetClass)
+        throws SpeedPixException, InterruptedException {
         // 创建预测任务
         Prediction<T> prediction = predictionsService.create(request, resourceConfigId, targetClass);
 
@@ -198,10 +386,19 @@ public class SpeedPixClient {
             return prediction;
         }
 
-        // 等待完成 - 直接在客户端中实现等待逻辑
-        while (!prediction.isFinished()) {
-            Thread.sleep((long)(pollingInterval * 1000));
-            prediction = predictionsService.get(prediction.getId(), targetClass);
+        // 等待完成 - 由轮询引擎统一调度，调用线程只阻塞在 Future 上
+        CompletableFuture<Prediction<T>> future = pollingEngine.await(prediction, pollingPolicy);
+        try {
+            prediction = future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof SpeedPixException) {
+                throw (SpeedPixException)cause;
+            }
+            throw new SpeedPixException("Failed to wait for prediction: " + cause.getMessage(), cause);
         }
 
         if (prediction.getError() != null) {
@@ -211,6 +408,71 @@ public class SpeedPixClient {
         return prediction;
     }
 
+    /**
+     * 异步运行模型并返回结果
+     *
+     * @param <T> 返回结果的类型
+     * @param request ComfyPrompt请求对象
+     * @param targetClass 目标结果类型
+     * @return 预测结果的 CompletableFuture，任务失败时以 PredictionException 异常完成
+     */
+    public <T> CompletableFuture<Prediction<T>> runAsync(ComfyPromptRequest request, Class<T> targetClass) {
+        return runAsync(request, "default", (PollingPolicy)null, targetClass);
+    }
+
+    /**
+     * 异步运行模型并返回结果（支持resourceConfigId）
+     *
+     * @param <T> 返回结果的类型
+     * @param request ComfyPrompt请求对象
+     * @param resourceConfigId 资源配置ID
+     * @param targetClass 目标结果类型
+     * @return 预测结果的 CompletableFuture，任务失败时以 PredictionException 异常完成
+     */
+    public <T> CompletableFuture<Prediction<T>> runAsync(ComfyPromptRequest request, String resourceConfigId,
+        Class<T> targetClass) {
+        return runAsync(request, resourceConfigId, (PollingPolicy)null, targetClass);
+    }
+
+    /**
+     * 异步运行模型并返回结果（支持完整参数）
+     *
+     * 轮询由客户端的轮询引擎统一调度，等待期间不占用任何调用线程。
+     *
+     * @param <T> 返回结果的类型
+     * @param request ComfyPrompt请求对象
+     * @param resourceConfigId 资源配置ID
+     * @param pollingInterval 固定轮询间隔（秒）
+     * @param targetClass 目标结果类型
+     * @return 预测结果的 CompletableFuture，任务失败时以 PredictionException 异常完成
+     */
+    public <T> CompletableFuture<Prediction<T>> runAsync(ComfyPromptRequest request, String resourceConfigId,
+        double pollingInterval, Class<T> targetClass) {
+        return runAsync(request, resourceConfigId, new FixedIntervalPollingPolicy(pollingInterval), targetClass);
+    }
+
+    /**
+     * 异步运行模型并返回结果（使用指定轮询策略）
+     *
+     * @param <T> 返回结果的类型
+     * @param request ComfyPrompt请求对象
+     * @param resourceConfigId 资源配置ID
+     * @param pollingPolicy 轮询策略，为 null 时使用客户端默认策略
+     * @param targetClass 目标结果类型
+     * @return 预测结果的 CompletableFuture，任务失败时以 PredictionException 异常完成
+     */
+    public <T> CompletableFuture<Prediction<T>> runAsync(ComfyPromptRequest request, String resourceConfigId,
+        PollingPolicy pollingPolicy, Class<T> targetClass) {
+        return predictionsService.createAsync(request, resourceConfigId, targetClass)
+            .thenCompose(prediction -> pollingEngine.await(prediction, pollingPolicy))
+            .thenApply(prediction -> {
+                if (prediction.getError() != null) {
+                    throw new CompletionException(new PredictionException(prediction));
+                }
+                return prediction;
+            });
+    }
+
     /**
      * 运行模型并返回结果（兼容性方法）
      */
@@ -243,7 +505,7 @@ public class SpeedPixClient {
      * 发送 POST 请求
      */
     public <T> T post(String path, Object requestBody, Class<T> responseClass) throws SpeedPixException {
-        return request("POST", path, requestBody, responseClass);
+        return post(path, requestBody, responseClass, null);
     }
 
     /**
@@ -251,182 +513,308 @@ public class SpeedPixClient {
      */
     public <T> T post(String path, Object requestBody, Class<T> responseClass, Map<String, String> headers)
         throws SpeedPixException {
+        SignedRequest signed = prepare("POST", path, headers, requestBody);
+        try (Response response = execute(signed.request)) {
+            return readResponse(response, responseClass);
+        } catch (IOException e) {
+            throw new SpeedPixException("Request failed", e);
+        } finally {
+            signed.release();
+        }
+    }
+
+    /**
+     * 执行 HTTP 请求（支持自定义请求体）
+     */
+    public Response executeRequest(String method, String path, Map<String, String> additionalHeaders,
+        RequestBody requestBody) throws SpeedPixException {
         try {
-            String requestBodyJson = null;
-            if (requestBody != null) {
-                requestBodyJson = objectMapper.writeValueAsString(requestBody);
-            }
+            return execute(buildRequest(method, path, additionalHeaders, requestBody, null));
+        } catch (IOException e) {
+            throw new SpeedPixException("Request failed", e);
+        }
+    }
 
-            RequestBody body = requestBodyJson != null ?
-                RequestBody.create(requestBodyJson, MediaType.get("application/json; charset=utf-8")) :
-                RequestBody.create("", MediaType.get("application/json; charset=utf-8"));
+    /**
+     * 异步发送 POST 请求（基于 OkHttp enqueue，不占用调用线程）
+     *
+     * @param <T> 响应类型
+     * @param path 请求路径
+     * @param requestBody 请求体对象
+     * @param responseClass 响应类型
+     * @param headers 额外请求头
+     * @return 响应结果的 CompletableFuture，失败时以 SpeedPixException 异常完成
+     */
+    public <T> CompletableFuture<T> postAsync(String path, Object requestBody, Class<T> responseClass,
+        Map<String, String> headers) {
+        return postAsync(path, requestBody, jsonEngine.getObjectMapper().constructType(responseClass), headers);
+    }
 
-            try (Response response = executeRequest("POST", path, headers, body)) {
-                if (response.body() == null) {
-                    throw new SpeedPixException("Empty response body");
-                }
+    /**
+     * 异步发送 POST 请求，响应按参数化类型直接从字节流反序列化
+     *
+     * @param <T> 响应类型
+     * @param path 请求路径
+     * @param requestBody 请求体对象
+     * @param responseType 响应类型，例如 TypedComfyResultResponse&lt;ResultDTO&gt;
+     * @param headers 额外请求头
+     * @return 响应结果的 CompletableFuture，失败时以 SpeedPixException 异常完成
+     */
+    public <T> CompletableFuture<T> postAsync(String path, Object requestBody, JavaType responseType,
+        Map<String, String> headers) {
+        SignedRequest signed;
+        try {
+            signed = prepare("POST", path, headers, requestBody);
+        } catch (SpeedPixException e) {
+            return failedFuture(e);
+        }
+        return send(signed, responseType);
+    }
 
-                String responseBody = response.body().string();
-                return objectMapper.readValue(responseBody, responseClass);
-            }
+    /**
+     * 以流式请求体发送 POST 请求
+     *
+     * 请求体在发送时直接序列化到连接上，不预先缓冲，内存占用与请求体大小无关，适用于含有 Base64 内联文件的请求。
+     * 由于请求体不预先缓冲，不发送 content-md5 头。
+     *
+     * @param <T> 响应类型
+     * @param path 请求路径
+     * @param requestBody 请求体对象，不能为 null
+     * @param responseClass 响应类型
+     * @param headers 额外请求头
+     * @param oneShot 请求体是否只能发送一次（例如内容来自输入流）
+     * @return 响应结果
+     * @throws SpeedPixException 请求失败
+     */
+    public <T> T postStreaming(String path, Object requestBody, Class<T> responseClass, Map<String, String> headers,
+        boolean oneShot) throws SpeedPixException {
+        Request request = buildRequest("POST", path, headers, new JsonRequestBody(jsonEngine, requestBody, oneShot),
+            null);
+        try (Response response = execute(request)) {
+            return readResponse(response, responseClass);
         } catch (IOException e) {
             throw new SpeedPixException("Request failed", e);
         }
     }
 
     /**
-     * 发送 HTTP 请求
+     * 以流式请求体异步发送 POST 请求
+     *
+     * @param <T> 响应类型
+     * @param path 请求路径
+     * @param requestBody 请求体对象，不能为 null
+     * @param responseClass 响应类型
+     * @param headers 额外请求头
+     * @param oneShot 请求体是否只能发送一次（例如内容来自输入流）
+     * @return 响应结果的 CompletableFuture，失败时以 SpeedPixException 异常完成
+     * @see #postStreaming(String, Object, Class, Map, boolean)
+     */
+    public <T> CompletableFuture<T> postStreamingAsync(String path, Object requestBody, Class<T> responseClass,
+        Map<String, String> headers, boolean oneShot) {
+        Request request = buildRequest("POST", path, headers, new JsonRequestBody(jsonEngine, requestBody, oneShot),
+            null);
+        return send(new SignedRequest(request, null), jsonEngine.getObjectMapper().constructType(responseClass));
+    }
+
+    /**
+     * 异步发送已签名的请求，结束后归还请求体缓冲区
      */
-    private <T> T request(String method, String path, Object requestBody, Class<T> responseClass)
+    private <T> CompletableFuture<T> send(SignedRequest signed, JavaType responseType) {
+        CompletableFuture<Response> call = transport.enqueue(signed.request);
+        call.whenComplete((response, error) -> signed.release());
+        return call.handle((response, error) -> {
+            if (error != null) {
+                throw new CompletionException(new SpeedPixException("Request failed", unwrap(error)));
+            }
+            try (Response r = response) {
+                if (!r.isSuccessful()) {
+                    throw toException(r);
+                }
+                return this.<T>readResponse(r, responseType);
+            } catch (SpeedPixException e) {
+                throw new CompletionException(e);
+            } catch (IOException e) {
+                throw new CompletionException(new SpeedPixException("Request failed", e));
+            }
+        });
+    }
+
+    /**
+     * 序列化并签名 JSON 请求
+     *
+     * 请求体只序列化一次，写入池化缓冲区；同一块字节既用于计算 content-md5，也直接作为 HTTP 请求体发送。
+     * 请求结束后须调用 {@link SignedRequest#release()} 归还缓冲区。
+     */
+    private SignedRequest prepare(String method, String path, Map<String, String> headers, Object requestBody)
         throws SpeedPixException {
+        PooledBuffer buffer = bufferPool.acquire();
         try {
-            String url = buildUrl(path);
-            String requestBodyJson = null;
-
             if (requestBody != null) {
-                requestBodyJson = objectMapper.writeValueAsString(requestBody);
+                jsonEngine.write(buffer, requestBody);
             }
-
-            // 生成认证头
-            Map<String, String> authHeaders = AuthUtils.generateAuthHeaders(
-                method, path, appKey, appSecret, requestBodyJson, null
-            );
-
-            // 构建请求
-            Request.Builder requestBuilder = new Request.Builder()
-                .url(url)
-                .addHeader("User-Agent", userAgent);
-
-            // 添加认证头
-            for (Map.Entry<String, String> header : authHeaders.entrySet()) {
-                requestBuilder.addHeader(header.getKey(), header.getValue());
+            String contentMd5 = buffer.size() > 0
+                ? RequestSigner.contentMd5(buffer.array(), 0, buffer.size()) : null;
+            RequestBody body = RequestBody.create(buffer.array(), JSON, 0, buffer.size());
+            return new SignedRequest(buildRequest(method, path, headers, body, contentMd5), buffer);
+        } catch (IOException | RuntimeException e) {
+            buffer.release();
+            if (e instanceof IOException) {
+                throw new SpeedPixException("Failed to serialize request body", e);
             }
+            throw (RuntimeException)e;
+        }
+    }
 
-            // 设置请求体
-            if ("POST".equals(method) && requestBodyJson != null) {
-                RequestBody body = RequestBody.create(
-                    requestBodyJson,
-                    MediaType.get("application/json; charset=utf-8")
-                );
-                requestBuilder.post(body);
-            } else if ("GET".equals(method)) {
-                requestBuilder.get();
+    /**
+     * 同步执行请求，失败的响应转换为 SpeedPixException
+     */
+    private Response execute(Request request) throws SpeedPixException, IOException {
+        Response response = httpClient.newCall(request).execute();
+        if (!response.isSuccessful()) {
+            try {
+                throw toException(response);
+            } finally {
+                response.close();
             }
+        }
+        return response;
+    }
 
-            Request request = requestBuilder.build();
-
-            // 发送请求
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String errorMessage = "HTTP " + response.code() + ": " + response.message();
-                    if (response.body() != null) {
-                        try {
-                            String errorBody = response.body().string();
-                            // 尝试解析错误响应
-                            Map<?, ?> errorData = objectMapper.readValue(errorBody, Map.class);
-                            String subErrMessage = (String)errorData.get("subErrMessage");
-                            String errMessage = (String)errorData.get("errMessage");
-                            String apiInvokeId = (String)errorData.get("apiInvokeId");
-
-                            if (subErrMessage != null) {
-                                errorMessage = subErrMessage;
-                            } else if (errMessage != null) {
-                                errorMessage = errMessage;
-                            }
-
-                            throw new SpeedPixException(errorMessage, null, apiInvokeId);
-                        } catch (JsonProcessingException e) {
-                            // 如果解析失败，使用原始错误信息
-                        }
-                    }
-                    throw new SpeedPixException(errorMessage);
-                }
+    /**
+     * 从响应流直接反序列化
+     */
+    private <T> T readResponse(Response response, Class<T> responseClass) throws SpeedPixException, IOException {
+        if (response.body() == null) {
+            throw new SpeedPixException("Empty response body");
+        }
+        return jsonEngine.read(response.body().byteStream(), responseClass);
+    }
 
-                if (response.body() == null) {
-                    throw new SpeedPixException("Empty response body");
-                }
+    private <T> T readResponse(Response response, JavaType responseType) throws SpeedPixException, IOException {
+        if (response.body() == null) {
+            throw new SpeedPixException("Empty response body");
+        }
+        return jsonEngine.read(response.body().byteStream(), responseType);
+    }
+
+    /**
+     * 构建带认证头的请求
+     */
+    private Request buildRequest(String method, String path, Map<String, String> additionalHeaders,
+        RequestBody requestBody, String contentMd5) {
+        String url = buildUrl(path);
+
+        // 构建请求
+        Request.Builder requestBuilder = new Request.Builder()
+            .url(url)
+            .addHeader("User-Agent", userAgent);
+
+        // 添加认证和其他默认头部
+        Map<String, String> headers = signer.signWithMd5(method, path, contentMd5);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            requestBuilder.addHeader(header.getKey(), header.getValue());
+        }
 
-                String responseBody = response.body().string();
-                return objectMapper.readValue(responseBody, responseClass);
+        // 添加额外的头部
+        if (additionalHeaders != null) {
+            for (Map.Entry<String, String> header : additionalHeaders.entrySet()) {
+                // 跳过 Content-Type，由请求体决定
+                if (!"Content-Type".equalsIgnoreCase(header.getKey())) {
+                    requestBuilder.addHeader(header.getKey(), header.getValue());
+                }
             }
+        }
 
-        } catch (IOException e) {
-            throw new SpeedPixException("Request failed", e);
+        // 设置请求方法和请求体
+        if ("POST".equals(method) && requestBody != null) {
+            requestBuilder.post(requestBody);
+        } else if ("PUT".equals(method) && requestBody != null) {
+            requestBuilder.put(requestBody);
+        } else if ("GET".equals(method)) {
+            requestBuilder.get();
+        } else if ("DELETE".equals(method)) {
+            requestBuilder.delete();
         }
+
+        return requestBuilder.build();
     }
 
     /**
-     * 执行 HTTP 请求（支持自定义请求体）
+     * 已签名的请求及其占用的请求体缓冲区，流式请求体没有缓冲区
      */
-    public Response executeRequest(String method, String path, Map<String, String> additionalHeaders,
-        RequestBody requestBody) throws SpeedPixException {
-        try {
-            String url = buildUrl(path);
+    private static final class SignedRequest {
+        final Request request;
+        final PooledBuffer buffer;
 
-            // 构建请求
-            Request.Builder requestBuilder = new Request.Builder().url(url);
+        SignedRequest(Request request, PooledBuffer buffer) {
+            this.request = request;
+            this.buffer = buffer;
+        }
 
-            // 添加认证和其他默认头部
-            Map<String, String> headers = AuthUtils.generateAuthHeaders(method, path, appKey, appSecret, null, null);
-            for (Map.Entry<String, String> header : headers.entrySet()) {
-                requestBuilder.addHeader(header.getKey(), header.getValue());
+        void release() {
+            if (buffer != null) {
+                buffer.release();
             }
+        }
+    }
 
-            // 添加额外的头部
-            if (additionalHeaders != null) {
-                for (Map.Entry<String, String> header : additionalHeaders.entrySet()) {
-                    // 跳过 Content-Type，因为 MultipartBody 会自动设置
-                    if (!"Content-Type".equalsIgnoreCase(header.getKey())) {
-                        requestBuilder.addHeader(header.getKey(), header.getValue());
-                    }
+    /**
+     * 将失败的 HTTP 响应转换为 SpeedPixException
+     */
+    private SpeedPixException toException(Response response) {
+        String errorMessage = "HTTP " + response.code() + ": " + response.message();
+        if (response.body() != null) {
+            try {
+                String errorBody = response.body().string();
+                // 尝试解析错误响应
+                Map<?, ?> errorData = jsonEngine.read(errorBody, Map.class);
+                String subErrMessage = (String)errorData.get("subErrMessage");
+                String errMessage = (String)errorData.get("errMessage");
+                String apiInvokeId = (String)errorData.get("apiInvokeId");
+                Object subErrCode = errorData.get("subErrCode");
+                Object errCode = errorData.get("errCode");
+
+                if (subErrMessage != null) {
+                    errorMessage = subErrMessage;
+                } else if (errMessage != null) {
+                    errorMessage = errMessage;
                 }
-            }
-
-            // 设置请求方法和请求体
-            if ("POST".equals(method) && requestBody != null) {
-                requestBuilder.post(requestBody);
-            } else if ("PUT".equals(method) && requestBody != null) {
-                requestBuilder.put(requestBody);
-            } else if ("GET".equals(method)) {
-                requestBuilder.get();
-            } else if ("DELETE".equals(method)) {
-                requestBuilder.delete();
-            }
 
-            Request request = requestBuilder.build();
-
-            // 发送请求
-            Response response = httpClient.newCall(request).execute();
-            if (!response.isSuccessful()) {
-                String errorMessage = "HTTP " + response.code() + ": " + response.message();
-                if (response.body() != null) {
-                    try {
-                        String errorBody = response.body().string();
-                        // 尝试解析错误响应
-                        Map<?, ?> errorData = objectMapper.readValue(errorBody, Map.class);
-                        String subErrMessage = (String)errorData.get("subErrMessage");
-                        String errMessage = (String)errorData.get("errMessage");
-                        String apiInvokeId = (String)errorData.get("apiInvokeId");
-
-                        if (subErrMessage != null) {
-                            errorMessage = subErrMessage;
-                        } else if (errMessage != null) {
-                            errorMessage = errMessage;
-                        }
-
-                        throw new SpeedPixException(errorMessage, null, apiInvokeId);
-                    } catch (JsonProcessingException e) {
-                        // 如果解析失败，使用原始错误信息
-                    }
-                }
-                throw new SpeedPixException(errorMessage);
+                String errorCode = subErrCode != null ? String.valueOf(subErrCode)
+                    : errCode != null ? String.valueOf(errCode) : null;
+                return new SpeedPixException(errorMessage, errorCode, apiInvokeId, response.code());
+            } catch (IOException | RuntimeException e) {
+                // 如果解析失败，使用原始错误信息
             }
+        }
+        return new SpeedPixException(errorMessage, null, null, response.code());
+    }
 
-            return response;
+    /**
+     * 创建以指定异常完成的 CompletableFuture
+     *
+     * @param <T> 结果类型
+     * @param error 异常
+     * @return 已失败的 CompletableFuture
+     */
+    public static <T> CompletableFuture<T> failedFuture(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
 
-        } catch (IOException e) {
-            throw new SpeedPixException("Request failed", e);
+    /**
+     * 解开 CompletableFuture 包装的异常
+     *
+     * @param error 异常
+     * @return 原始异常
+     */
+    public static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+            && error.getCause() != null) {
+            error = error.getCause();
         }
+        return error;
     }
 
     /**
@@ -447,6 +835,7 @@ public class SpeedPixClient {
      *     .endpoint("https://custom-endpoint.com")  // 可选
      *     .userAgent("my-app/1.0.0")               // 可选
      *     .timeoutSeconds(60)                      // 可选
+     *     .maxRequestsPerHost(64)                  // 可选，连接池与调度器配置
      *     .build();
      * </pre>
      */
@@ -455,7 +844,25 @@ public class SpeedPixClient {
         private String appKey;
         private String appSecret;
         private String userAgent;
-        private int timeoutSeconds = 30;
+        private final HttpTransport.Builder transportBuilder = HttpTransport.builder();
+        private OkHttpClient httpClient;
+        private int maxConcurrentPolls = DEFAULT_MAX_CONCURRENT_POLLS;
+        private PollingPolicy pollingPolicy = AdaptivePollingPolicy.defaults();
+        private double speculativeProgressThreshold = PredictionsService.DEFAULT_SPECULATIVE_PROGRESS_THRESHOLD;
+        private ObjectMapper objectMapper;
+        private boolean jsonAcceleration;
+        private int uploadSpoolThreshold = StreamSpool.DEFAULT_MEMORY_THRESHOLD;
+        private MultipartUploadConfig multipartUploadConfig;
+        private UploadCache uploadCache;
+        private int inputUploadParallelism = JsonEncodingUtils.DEFAULT_UPLOAD_PARALLELISM;
+        private boolean detectStringPaths;
+        private long maxInlineFileSize = JsonEncodingUtils.DEFAULT_MAX_INLINE_SIZE;
+        private JsonEncodingUtils.FileEncodingStrategy fileEncodingStrategy = JsonEncodingUtils.FileEncodingStrategy.URL;
+        private long autoInlineThreshold = JsonEncodingUtils.DEFAULT_AUTO_INLINE_THRESHOLD;
+        private boolean adaptiveInlineThreshold;
+        private RangedDownloadConfig rangedDownloadConfig;
+        private OutputCache outputCache;
+        private OutputPrefetchConfig outputPrefetchConfig;
 
         /**
          * 设置API端点
@@ -503,7 +910,280 @@ public class SpeedPixClient {
          * @return Builder实例
          */
         public Builder timeoutSeconds(int timeoutSeconds) {
-            this.timeoutSeconds = timeoutSeconds;
+            transportBuilder.timeoutSeconds(timeoutSeconds);
+            return this;
+        }
+
+        /**
+         * 设置连接超时
+         * @param connectTimeoutSeconds 连接超时(秒)
+         * @return Builder实例
+         */
+        public Builder connectTimeoutSeconds(long connectTimeoutSeconds) {
+            transportBuilder.connectTimeoutSeconds(connectTimeoutSeconds);
+            return this;
+        }
+
+        /**
+         * 设置读超时
+         * @param readTimeoutSeconds 读超时(秒)
+         * @return Builder实例
+         */
+        public Builder readTimeoutSeconds(long readTimeoutSeconds) {
+            transportBuilder.readTimeoutSeconds(readTimeoutSeconds);
+            return this;
+        }
+
+        /**
+         * 设置写超时
+         * @param writeTimeoutSeconds 写超时(秒)
+         * @return Builder实例
+         */
+        public Builder writeTimeoutSeconds(long writeTimeoutSeconds) {
+            transportBuilder.writeTimeoutSeconds(writeTimeoutSeconds);
+            return this;
+        }
+
+        /**
+         * 设置整个调用的超时，0 表示不限制
+         * @param callTimeoutSeconds 调用超时(秒)
+         * @return Builder实例
+         */
+        public Builder callTimeoutSeconds(long callTimeoutSeconds) {
+            transportBuilder.callTimeoutSeconds(callTimeoutSeconds);
+            return this;
+        }
+
+        /**
+         * 设置连接池最大空闲连接数
+         * @param maxIdleConnections 最大空闲连接数 (默认: 16)
+         * @return Builder实例
+         */
+        public Builder maxIdleConnections(int maxIdleConnections) {
+            transportBuilder.maxIdleConnections(maxIdleConnections);
+            return this;
+        }
+
+        /**
+         * 设置空闲连接保活时间
+         * @param keepAliveSeconds 保活时间(秒) (默认: 300)
+         * @return Builder实例
+         */
+        public Builder keepAliveSeconds(long keepAliveSeconds) {
+            transportBuilder.keepAliveSeconds(keepAliveSeconds);
+            return this;
+        }
+
+        /**
+         * 设置最大并发请求数
+         * @param maxRequests 最大并发请求数 (默认: 128)
+         * @return Builder实例
+         */
+        public Builder maxRequests(int maxRequests) {
+            transportBuilder.maxRequests(maxRequests);
+            return this;
+        }
+
+        /**
+         * 设置单主机最大并发请求数
+         * @param maxRequestsPerHost 单主机最大并发请求数 (默认: 32)
+         * @return Builder实例
+         */
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            transportBuilder.maxRequestsPerHost(maxRequestsPerHost);
+            return this;
+        }
+
+        /**
+         * 设置轮询引擎同时在途的状态查询数上限
+         * @param maxConcurrentPolls 最大并发轮询数 (默认: 64)
+         * @return Builder实例
+         */
+        public Builder maxConcurrentPolls(int maxConcurrentPolls) {
+            this.maxConcurrentPolls = maxConcurrentPolls;
+            return this;
+        }
+
+        /**
+         * 设置默认轮询策略，未显式指定轮询间隔的 run/runAsync/waitForCompletion 使用该策略
+         * @param pollingPolicy 轮询策略 (默认: 基于 ETA 的 AdaptivePollingPolicy)
+         * @return Builder实例
+         */
+        public Builder pollingPolicy(PollingPolicy pollingPolicy) {
+            this.pollingPolicy = pollingPolicy;
+            return this;
+        }
+
+        /**
+         * 设置推测性获取结果的进度阈值：任务进度达到该值后，下一次状态查询会并行发出结果查询，
+         * 任务完成时省去一次串行往返
+         * @param speculativeProgressThreshold 进度阈值 (默认: 0.9)
+         * @return Builder实例
+         */
+        public Builder speculativeProgressThreshold(double speculativeProgressThreshold) {
+            this.speculativeProgressThreshold = speculativeProgressThreshold;
+            return this;
+        }
+
+        /**
+         * 关闭推测性获取结果，任务完成后再串行查询结果
+         * @return Builder实例
+         */
+        public Builder disableSpeculativeResultFetch() {
+            this.speculativeProgressThreshold = Double.POSITIVE_INFINITY;
+            return this;
+        }
+
+        /**
+         * 使用外部调优好的 ObjectMapper，客户端会复制一份再注册自身需要的模块
+         * @param objectMapper 外部 ObjectMapper
+         * @return Builder实例
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        /**
+         * 启用 Jackson 字节码加速模块（Blackbird 或 Afterburner），需自行引入对应依赖，不在类路径上时忽略
+         * @param jsonAcceleration 是否启用 (默认: false)
+         * @return Builder实例
+         */
+        public Builder jsonAcceleration(boolean jsonAcceleration) {
+            this.jsonAcceleration = jsonAcceleration;
+            return this;
+        }
+
+        /**
+         * 设置上传输入流时的内存暂存上限，超过后转存到临时文件再流式上传
+         * @param uploadSpoolThreshold 字节数 (默认: 1MB)
+         * @return Builder实例
+         */
+        public Builder uploadSpoolThreshold(int uploadSpoolThreshold) {
+            this.uploadSpoolThreshold = uploadSpoolThreshold;
+            return this;
+        }
+
+        /**
+         * 启用分片上传：大于阈值的 File / Path 按分片并行上传，失败分片单独重试，可选持久化分片状态以便续传
+         * @param multipartUploadConfig 分片上传配置 (默认: 不启用)
+         * @return Builder实例
+         */
+        public Builder multipartUpload(MultipartUploadConfig multipartUploadConfig) {
+            this.multipartUploadConfig = multipartUploadConfig;
+            return this;
+        }
+
+        /**
+         * 启用按内容寻址的上传缓存：内容相同的文件在 expireTime 之前只上传一次，可在多个客户端间共享
+         * @param uploadCache 上传缓存 (默认: 不启用)
+         * @return Builder实例
+         */
+        public Builder uploadCache(UploadCache uploadCache) {
+            this.uploadCache = uploadCache;
+            return this;
+        }
+
+        /**
+         * 设置创建任务时同时上传的输入文件数
+         * @param inputUploadParallelism 并行度 (默认: 4)
+         * @return Builder实例
+         */
+        public Builder inputUploadParallelism(int inputUploadParallelism) {
+            this.inputUploadParallelism = inputUploadParallelism;
+            return this;
+        }
+
+        /**
+         * 恢复旧版行为：把指向已存在文件的字符串输入当作文件上传，每个字符串输入都会访问一次文件系统。
+         * 默认只上传 FileInput / StreamInput / BytesInput 以及 File、Path、InputStream 对象
+         * @param detectStringPaths 是否探测字符串路径 (默认: false)
+         * @return Builder实例
+         */
+        public Builder detectStringPaths(boolean detectStringPaths) {
+            this.detectStringPaths = detectStringPaths;
+            return this;
+        }
+
+        /**
+         * 设置以 Base64 内联到请求中的文件的大小上限。内联内容在发送时流式编码，内存占用与文件大小无关，
+         * 该上限只用于约束请求体大小
+         * @param maxInlineFileSize 字节数，小于等于 0 表示不限制 (默认: 1MB)
+         * @return Builder实例
+         */
+        public Builder maxInlineFileSize(long maxInlineFileSize) {
+            this.maxInlineFileSize = maxInlineFileSize;
+            return this;
+        }
+
+        /**
+         * 设置创建任务时输入文件的默认编码策略，也可以在 {@code predictions().create} 中按次指定
+         * @param fileEncodingStrategy 编码策略 (默认: URL)
+         * @return Builder实例
+         */
+        public Builder fileEncodingStrategy(JsonEncodingUtils.FileEncodingStrategy fileEncodingStrategy) {
+            this.fileEncodingStrategy = fileEncodingStrategy;
+            return this;
+        }
+
+        /**
+         * 设置 AUTO 策略的内联阈值，不超过该大小的文件按 Base64 内联，更大的文件上传
+         * @param autoInlineThreshold 字节数 (默认: 64KB)
+         * @return Builder实例
+         */
+        public Builder autoInlineThreshold(long autoInlineThreshold) {
+            this.autoInlineThreshold = autoInlineThreshold;
+            return this;
+        }
+
+        /**
+         * 设置 AUTO 策略是否按测得的上传往返延迟和传输速率调整内联阈值
+         * @param adaptiveInlineThreshold 是否自适应 (默认: false)
+         * @return Builder实例
+         */
+        public Builder adaptiveInlineThreshold(boolean adaptiveInlineThreshold) {
+            this.adaptiveInlineThreshold = adaptiveInlineThreshold;
+            return this;
+        }
+
+        /**
+         * 启用分段并行下载：预测结果中的文件输出保存到本地时，服务端支持 Range 的文件按分段并行下载
+         * @param rangedDownloadConfig 分段下载配置 (默认: 不启用)
+         * @return Builder实例
+         */
+        public Builder rangedDownload(RangedDownloadConfig rangedDownloadConfig) {
+            this.rangedDownloadConfig = rangedDownloadConfig;
+            return this;
+        }
+
+        /**
+         * 设置文件输出的内容缓存，{@code read()} 下载的内容按 URL 保存在其中，可在多个客户端间共享
+         * @param outputCache 输出缓存 (默认: 进程内共享的 {@link OutputCache#defaultCache()})
+         * @return Builder实例
+         */
+        public Builder outputCache(OutputCache outputCache) {
+            this.outputCache = outputCache;
+            return this;
+        }
+
+        /**
+         * 启用结果文件预取：轮询观察到任务成功时，立即在后台下载结果中的全部文件输出，
+         * 之后的 {@code read()} / {@code save()} 直接使用预取的内容或等待进行中的下载
+         * @param outputPrefetchConfig 预取配置 (默认: 不启用)
+         * @return Builder实例
+         */
+        public Builder outputPrefetch(OutputPrefetchConfig outputPrefetchConfig) {
+            this.outputPrefetchConfig = outputPrefetchConfig;
+            return this;
+        }
+
+        /**
+         * 使用外部 OkHttpClient，设置后上述连接池、调度器和超时配置均不生效
+         * @param httpClient 外部 OkHttpClient，客户端关闭时不会释放它
+         * @return Builder实例
+         */
+        public Builder httpClient(OkHttpClient httpClient) {
+            this.httpClient = httpClient;
             return this;
         }
 
@@ -526,7 +1206,7 @@ public class SpeedPixClient {
          * @return SpeedPixClient实例
          */
         public SpeedPixClient build() {
-            return new SpeedPixClient(endpoint, appKey, appSecret, userAgent, timeoutSeconds);
+            return new SpeedPixClient(this);
         }
     }
 
@@ -5,6 +5,7 @@ import com.aliyun.speedpix.SpeedPixClient;
 import com.aliyun.speedpix.exception.PredictionException;
 import com.aliyun.speedpix.exception.SpeedPixException;
 import com.aliyun.speedpix.model.ComfyPromptRequest;
+import com.aliyun.speedpix.model.FileInput;
 import com.aliyun.speedpix.model.ImageOutput;
 import com.aliyun.speedpix.model.Prediction;
 import com.aliyun.speedpix.util.OutputConverterUtils;
@@ -67,7 +68,7 @@ public class BasicUsageExample {
 
         // 准备输入参数
         Map<String, Object> input = new HashMap<>();
-        input.put("image", "/Users/libin/Downloads/p850622.png");
+        input.put("image", FileInput.of("/Users/libin/Downloads/p850622.png"));
 
         // 直接运行并获取结果
         Prediction<ResultDTO> r = client.run(ComfyPromptRequest.builder()
@@ -88,7 +89,7 @@ public class BasicUsageExample {
 
         // 准备输入参数
         Map<String, Object> input = new HashMap<>();
-        input.put("image", "/Users/libin/Downloads/p850622.png");
+        input.put("image", FileInput.of("/Users/libin/Downloads/p850622.png"));
 
         // 使用全局 run 函数
         Prediction<ResultDTO> output = SpeedPix.run(ComfyPromptRequest.builder()
@@ -110,7 +111,7 @@ public class BasicUsageExample {
 
         // 准备输入参数
         Map<String, Object> input = new HashMap<>();
-        input.put("image", "/Users/libin/Downloads/p850622.png");
+        input.put("image", FileInput.of("/Users/libin/Downloads/p850622.png"));
 
         try {
             // 创建预测任务
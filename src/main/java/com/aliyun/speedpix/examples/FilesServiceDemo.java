@@ -1,6 +1,7 @@
 package com.aliyun.speedpix.examples;
 
 import com.aliyun.speedpix.SpeedPixClient;
+import com.aliyun.speedpix.model.FileInput;
 import com.aliyun.speedpix.model.FileObject;
 import com.aliyun.speedpix.model.FileOutput;
 import com.aliyun.speedpix.model.FileUploadOptions;
@@ -210,7 +211,7 @@ public class FilesServiceDemo {
         try {
             // 创建包含文件路径的输入
             Map<String, Object> input = new HashMap<>();
-            input.put("image", "test_image.jpg");  // 文件路径会自动上传
+            input.put("image", FileInput.of("test_image.jpg"));  // 显式标记的文件会自动上传
             input.put("prompt", "处理这张图片");
             input.put("style", "artistic");
 
@@ -7,6 +7,7 @@ public class SpeedPixException extends Exception {
 
     private String errorCode;
     private String apiInvokeId;
+    private int statusCode;
 
     public SpeedPixException(String message) {
         super(message);
@@ -27,6 +28,16 @@ public class SpeedPixException extends Exception {
         this.apiInvokeId = apiInvokeId;
     }
 
+    /**
+     * @param statusCode 失败响应的 HTTP 状态码
+     */
+    public SpeedPixException(String message, String errorCode, String apiInvokeId, int statusCode) {
+        super(message);
+        this.errorCode = errorCode;
+        this.apiInvokeId = apiInvokeId;
+        this.statusCode = statusCode;
+    }
+
     public String getErrorCode() {
         return errorCode;
     }
@@ -35,12 +46,22 @@ public class SpeedPixException extends Exception {
         return apiInvokeId;
     }
 
+    /**
+     * 获取失败响应的 HTTP 状态码
+     *
+     * @return HTTP 状态码，异常并非由失败的 HTTP 响应引起时为 0
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
     @Override
     public String toString() {
         return "SpeedPixException{" +
             "message='" + getMessage() + '\'' +
             ", errorCode='" + errorCode + '\'' +
             ", apiInvokeId='" + apiInvokeId + '\'' +
+            ", statusCode=" + statusCode +
             '}';
     }
 }
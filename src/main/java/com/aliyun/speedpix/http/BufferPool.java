@@ -0,0 +1,114 @@
+package com.aliyun.speedpix.http;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求体缓冲区池
+ *
+ * 请求体序列化到池中取出的缓冲区，摘要计算和 HTTP 发送直接使用同一块字节数组，
+ * 请求结束后归还复用。超过 maxRetainedCapacity 的缓冲区不回收，避免长期占用大块内存。
+ */
+public class BufferPool {
+
+    private static final int DEFAULT_MAX_POOLED = 32;
+    private static final int DEFAULT_INITIAL_CAPACITY = 4 * 1024;
+    private static final int DEFAULT_MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private final ConcurrentLinkedQueue<PooledBuffer> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final int maxPooled;
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+
+    public BufferPool() {
+        this(DEFAULT_MAX_POOLED, DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_RETAINED_CAPACITY);
+    }
+
+    /**
+     * @param maxPooled 池中最多保留的缓冲区数
+     * @param initialCapacity 新建缓冲区的初始容量
+     * @param maxRetainedCapacity 可归还的缓冲区最大容量
+     */
+    public BufferPool(int maxPooled, int initialCapacity, int maxRetainedCapacity) {
+        this.maxPooled = maxPooled;
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+
+    /**
+     * 取出一个空缓冲区，用完后调用 {@link PooledBuffer#release()} 归还
+     *
+     * @return 缓冲区
+     */
+    public PooledBuffer acquire() {
+        PooledBuffer buffer = pool.poll();
+        if (buffer == null) {
+            return new PooledBuffer(this, initialCapacity);
+        }
+        pooled.decrementAndGet();
+        buffer.released = false;
+        return buffer;
+    }
+
+    /**
+     * 获取池中空闲缓冲区数
+     *
+     * @return 空闲缓冲区数
+     */
+    public int getPooledCount() {
+        return pooled.get();
+    }
+
+    private void recycle(PooledBuffer buffer) {
+        if (buffer.capacity() > maxRetainedCapacity) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        buffer.reset();
+        pool.offer(buffer);
+    }
+
+    /**
+     * 可归还的字节缓冲区，直接暴露内部数组以避免 toByteArray 复制
+     */
+    public static class PooledBuffer extends ByteArrayOutputStream {
+        private final BufferPool owner;
+        private volatile boolean released;
+
+        PooledBuffer(BufferPool owner, int initialCapacity) {
+            super(initialCapacity);
+            this.owner = owner;
+        }
+
+        /**
+         * 内部数组，有效数据为 [0, size())
+         *
+         * @return 内部数组
+         */
+        public byte[] array() {
+            return buf;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        /**
+         * 归还缓冲区，重复调用无效；归还后不得再访问 {@link #array()}
+         */
+        public void release() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            owner.recycle(this);
+        }
+    }
+}
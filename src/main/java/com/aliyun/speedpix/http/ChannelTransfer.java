@@ -0,0 +1,138 @@
+package com.aliyun.speedpix.http;
+
+import okhttp3.Response;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 响应体到通道的传输
+ *
+ * 响应体按块读入 {@link DirectBufferPool} 中的直接缓冲区后写入目标，调用之间不分配新的缓冲区。
+ */
+public final class ChannelTransfer {
+
+    private ChannelTransfer() {
+    }
+
+    /**
+     * 将 source 中最多 limit 字节写入 target，直到 source 结束
+     *
+     * @param source 数据来源
+     * @param target 目标通道，应为阻塞模式
+     * @param limit 最多传输的字节数
+     * @param pool 缓冲区池
+     * @return 实际传输的字节数
+     * @throws IOException 读取或写入失败
+     */
+    public static long copy(ReadableByteChannel source, WritableByteChannel target, long limit,
+        DirectBufferPool pool) throws IOException {
+        ByteBuffer buffer = pool.acquire();
+        try {
+            long copied = 0;
+            while (copied < limit) {
+                buffer.clear();
+                if (limit - copied < buffer.capacity()) {
+                    buffer.limit((int)(limit - copied));
+                }
+                if (source.read(buffer) == -1) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    copied += target.write(buffer);
+                }
+            }
+            return copied;
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * 将响应体按目标的可写状态分批写入，目标不可写时释放当前线程，可写回调到来后继续
+     *
+     * @param response 成功的响应，传输结束后关闭
+     * @param sink 支持背压的输出目标
+     * @param pool 缓冲区池
+     * @return 传输的字节数；取消该 Future 会关闭响应并停止传输
+     */
+    public static CompletableFuture<Long> copyAsync(Response response, NonBlockingSink sink, DirectBufferPool pool) {
+        Pump pump = new Pump(response, sink, pool);
+        try {
+            sink.setReadyListener(pump);
+        } catch (RuntimeException e) {
+            pump.done.completeExceptionally(e);
+            return pump.done;
+        }
+        pump.run();
+        return pump.done;
+    }
+
+    /**
+     * 读一块、写一块，目标不可写时返回，等待可写回调再次调用
+     */
+    private static final class Pump implements Runnable {
+        private final Response response;
+        private final NonBlockingSink sink;
+        private final DirectBufferPool pool;
+        private final CompletableFuture<Long> done = new CompletableFuture<>();
+        private ByteBuffer buffer;
+        private long transferred;
+
+        Pump(Response response, NonBlockingSink sink, DirectBufferPool pool) {
+            this.response = response;
+            this.sink = sink;
+            this.pool = pool;
+            this.buffer = pool.acquire();
+            // 初始为空，第一次运行时读取
+            buffer.flip();
+            done.whenComplete((result, error) -> release());
+        }
+
+        @Override
+        public synchronized void run() {
+            if (buffer == null) {
+                // 已结束或被取消
+                return;
+            }
+            try {
+                BufferedSource source = response.body().source();
+                while (true) {
+                    if (!buffer.hasRemaining()) {
+                        buffer.clear();
+                        if (source.read(buffer) == -1) {
+                            done.complete(transferred);
+                            return;
+                        }
+                        buffer.flip();
+                    }
+                    if (!sink.isReady()) {
+                        return;
+                    }
+                    // 未写完的部分留在缓冲区，下一轮在可写时继续写
+                    int remaining = buffer.remaining();
+                    sink.write(buffer);
+                    transferred += remaining - buffer.remaining();
+                }
+            } catch (IOException | RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        private void release() {
+            // 先关闭响应，打断其他线程上可能阻塞的读取
+            response.close();
+            synchronized (this) {
+                if (buffer != null) {
+                    pool.release(buffer);
+                    buffer = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.aliyun.speedpix.http;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 直接内存缓冲区池
+ *
+ * 下载内容从响应体读入池中取出的直接缓冲区后写入目标通道，写入 Socket 或文件通道时 JDK 不需要再复制到临时直接缓冲区。
+ * 所有缓冲区大小相同，用完后归还复用；池中最多保留 maxPooled 个，超出的交给 GC 回收。
+ */
+public class DirectBufferPool {
+
+    private static final int DEFAULT_MAX_POOLED = 16;
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static volatile DirectBufferPool defaultPool;
+
+    private final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicLong allocated = new AtomicLong();
+    private final int maxPooled;
+    private final int bufferSize;
+
+    public DirectBufferPool() {
+        this(DEFAULT_MAX_POOLED, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param maxPooled 池中最多保留的缓冲区数
+     * @param bufferSize 缓冲区大小
+     */
+    public DirectBufferPool(int maxPooled, int bufferSize) {
+        this.maxPooled = maxPooled;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * 获取进程内共享的默认缓冲区池
+     *
+     * @return 默认缓冲区池（64KB 缓冲区，最多保留 16 个）
+     */
+    public static DirectBufferPool defaultPool() {
+        DirectBufferPool pool = defaultPool;
+        if (pool == null) {
+            synchronized (DirectBufferPool.class) {
+                pool = defaultPool;
+                if (pool == null) {
+                    pool = new DirectBufferPool();
+                    defaultPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 取出一个已清空的缓冲区，用完后调用 {@link #release(ByteBuffer)} 归还
+     *
+     * @return 直接缓冲区
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            allocated.incrementAndGet();
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区，归还后不得再访问
+     *
+     * @param buffer 从本池取出的缓冲区
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.capacity() != bufferSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        pool.offer(buffer);
+    }
+
+    /**
+     * 获取池中空闲缓冲区数
+     *
+     * @return 空闲缓冲区数
+     */
+    public int getPooledCount() {
+        return pooled.get();
+    }
+
+    /**
+     * 获取累计新分配的缓冲区数
+     *
+     * @return 分配次数
+     */
+    public long getAllocatedCount() {
+        return allocated.get();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,115 @@
+package com.aliyun.speedpix.http;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Source;
+import okio.Timeout;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 文件请求体
+ *
+ * 通过 {@link FileChannel} 和 Okio Source 将文件分块写入连接，内存占用与文件大小无关。
+ * 长度在创建时确定并作为 Content-Length 发送；每次 {@link #writeTo} 都重新打开文件，
+ * 因此 OkHttp 在连接失败后重试时可以重复发送。
+ */
+public class FileRequestBody extends RequestBody {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final MediaType contentType;
+    private final long offset;
+    private final long contentLength;
+
+    /**
+     * @param path 文件路径
+     * @param contentType 内容类型
+     * @param contentLength 文件大小，上传过程中文件被截断时写入失败
+     */
+    public FileRequestBody(Path path, MediaType contentType, long contentLength) {
+        this(path, contentType, 0, contentLength);
+    }
+
+    /**
+     * 发送文件的一段，用于分片上传
+     *
+     * @param path 文件路径
+     * @param contentType 内容类型
+     * @param offset 起始位置
+     * @param contentLength 发送长度
+     */
+    public FileRequestBody(Path path, MediaType contentType, long offset, long contentLength) {
+        this.path = path;
+        this.contentType = contentType;
+        this.offset = offset;
+        this.contentLength = contentLength;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             Source source = new FileChannelSource(channel.position(offset), contentLength)) {
+            sink.writeAll(source);
+        }
+    }
+
+    /**
+     * 从 FileChannel 读取固定长度的 Okio Source，复用一块直接缓冲区
+     */
+    static final class FileChannelSource implements Source {
+        private final FileChannel channel;
+        private final ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        private long remaining;
+
+        FileChannelSource(FileChannel channel, long length) {
+            this.channel = channel;
+            this.remaining = length;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            chunk.clear();
+            chunk.limit((int)Math.min(chunk.capacity(), Math.min(byteCount, remaining)));
+            int read = channel.read(chunk);
+            if (read < 0) {
+                throw new EOFException("文件在上传过程中被截断，剩余 " + remaining + " 字节未读取");
+            }
+            chunk.flip();
+            sink.write(chunk);
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+            // 通道由调用方关闭
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.aliyun.speedpix.http;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.HashingSink;
+import okio.Okio;
+
+import java.io.IOException;
+
+/**
+ * 发送时顺带计算 SHA-256 的请求体
+ *
+ * 数据写入连接的同时更新摘要，不需要为计算内容哈希额外读取一遍。
+ * OkHttp 重试时会重新发送，摘要以最后一次完整发送为准。
+ */
+public class HashingRequestBody extends RequestBody {
+
+    private final RequestBody delegate;
+    private volatile String sha256Hex;
+
+    /**
+     * @param delegate 实际发送的请求体
+     */
+    public HashingRequestBody(RequestBody delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        HashingSink hashing = HashingSink.sha256(sink);
+        BufferedSink buffered = Okio.buffer(hashing);
+        delegate.writeTo(buffered);
+        // 只推送到下层，不关闭连接的 sink
+        buffered.emit();
+        sha256Hex = hashing.hash().hex();
+    }
+
+    /**
+     * 获取已发送内容的 SHA-256
+     *
+     * @return 十六进制小写摘要，尚未完整发送时为 null
+     */
+    public String getSha256Hex() {
+        return sha256Hex;
+    }
+}
@@ -0,0 +1,252 @@
+package com.aliyun.speedpix.http;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP 传输层
+ *
+ * 持有一个共享的 {@link OkHttpClient}（连接池 + 调度器），供 API 调用、文件上传和结果下载共同使用，
+ * 避免每次上传/下载都新建客户端导致的重复 TLS 握手和线程抖动。
+ */
+public class HttpTransport implements Closeable {
+
+    private static volatile HttpTransport defaultTransport;
+
+    private final OkHttpClient httpClient;
+    private final boolean owned;
+
+    private HttpTransport(OkHttpClient httpClient, boolean owned) {
+        this.httpClient = httpClient;
+        this.owned = owned;
+    }
+
+    /**
+     * 使用外部提供的 OkHttpClient 创建传输层，关闭时不会释放该客户端的资源
+     *
+     * @param httpClient 外部 OkHttpClient
+     * @return HttpTransport实例
+     */
+    public static HttpTransport wrap(OkHttpClient httpClient) {
+        if (httpClient == null) {
+            throw new IllegalArgumentException("httpClient is required");
+        }
+        return new HttpTransport(httpClient, false);
+    }
+
+    /**
+     * 获取进程级默认传输层，用于未绑定客户端的 FileOutput 等场景
+     *
+     * @return 默认HttpTransport实例
+     */
+    public static HttpTransport defaultTransport() {
+        HttpTransport transport = defaultTransport;
+        if (transport == null) {
+            synchronized (HttpTransport.class) {
+                transport = defaultTransport;
+                if (transport == null) {
+                    transport = builder().readTimeoutSeconds(100).build();
+                    defaultTransport = transport;
+                }
+            }
+        }
+        return transport;
+    }
+
+    /**
+     * 获取底层 OkHttpClient
+     *
+     * @return OkHttpClient实例
+     */
+    public OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * 异步执行请求（基于 OkHttp enqueue），不占用调用线程
+     *
+     * 返回的 Response 由调用方负责关闭；取消 Future 会同时取消底层调用。
+     *
+     * @param request HTTP 请求
+     * @return 响应的 CompletableFuture，网络失败时以 IOException 异常完成
+     */
+    public CompletableFuture<Response> enqueue(Request request) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        Call call = httpClient.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                if (!future.complete(response)) {
+                    response.close();
+                }
+            }
+        });
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 释放连接池和调度器线程（仅对自行创建的客户端生效）
+     */
+    @Override
+    public void close() {
+        if (owned && this != defaultTransport) {
+            httpClient.dispatcher().executorService().shutdown();
+            httpClient.connectionPool().evictAll();
+        }
+    }
+
+    /**
+     * 创建Builder实例
+     *
+     * @return Builder实例
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * HttpTransport Builder
+     */
+    public static class Builder {
+        private int maxIdleConnections = 16;
+        private long keepAliveSeconds = 300;
+        private int maxRequests = 128;
+        private int maxRequestsPerHost = 32;
+        private long connectTimeoutSeconds = 30;
+        private long readTimeoutSeconds = 30;
+        private long writeTimeoutSeconds = 30;
+        private long callTimeoutSeconds = 0;
+
+        /**
+         * 同时设置连接、读、写超时
+         * @param timeoutSeconds 超时时间(秒)
+         * @return Builder实例
+         */
+        public Builder timeoutSeconds(long timeoutSeconds) {
+            this.connectTimeoutSeconds = timeoutSeconds;
+            this.readTimeoutSeconds = timeoutSeconds;
+            this.writeTimeoutSeconds = timeoutSeconds;
+            return this;
+        }
+
+        /**
+         * 设置连接池最大空闲连接数
+         * @param maxIdleConnections 最大空闲连接数 (默认: 16)
+         * @return Builder实例
+         */
+        public Builder maxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * 设置空闲连接保活时间
+         * @param keepAliveSeconds 保活时间(秒) (默认: 300)
+         * @return Builder实例
+         */
+        public Builder keepAliveSeconds(long keepAliveSeconds) {
+            this.keepAliveSeconds = keepAliveSeconds;
+            return this;
+        }
+
+        /**
+         * 设置调度器最大并发请求数
+         * @param maxRequests 最大并发请求数 (默认: 128)
+         * @return Builder实例
+         */
+        public Builder maxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * 设置调度器单主机最大并发请求数
+         * @param maxRequestsPerHost 单主机最大并发请求数 (默认: 32)
+         * @return Builder实例
+         */
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * 设置连接超时
+         * @param connectTimeoutSeconds 连接超时(秒)
+         * @return Builder实例
+         */
+        public Builder connectTimeoutSeconds(long connectTimeoutSeconds) {
+            this.connectTimeoutSeconds = connectTimeoutSeconds;
+            return this;
+        }
+
+        /**
+         * 设置读超时
+         * @param readTimeoutSeconds 读超时(秒)
+         * @return Builder实例
+         */
+        public Builder readTimeoutSeconds(long readTimeoutSeconds) {
+            this.readTimeoutSeconds = readTimeoutSeconds;
+            return this;
+        }
+
+        /**
+         * 设置写超时
+         * @param writeTimeoutSeconds 写超时(秒)
+         * @return Builder实例
+         */
+        public Builder writeTimeoutSeconds(long writeTimeoutSeconds) {
+            this.writeTimeoutSeconds = writeTimeoutSeconds;
+            return this;
+        }
+
+        /**
+         * 设置整个调用的超时，0 表示不限制
+         * @param callTimeoutSeconds 调用超时(秒) (默认: 0)
+         * @return Builder实例
+         */
+        public Builder callTimeoutSeconds(long callTimeoutSeconds) {
+            this.callTimeoutSeconds = callTimeoutSeconds;
+            return this;
+        }
+
+        /**
+         * 构建HttpTransport实例
+         * @return HttpTransport实例
+         */
+        public HttpTransport build() {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+            OkHttpClient httpClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(writeTimeoutSeconds, TimeUnit.SECONDS)
+                .callTimeout(callTimeoutSeconds, TimeUnit.SECONDS)
+                .build();
+            return new HttpTransport(httpClient, true);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.aliyun.speedpix.http;
+
+import com.aliyun.speedpix.util.JsonEngine;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 发送时才序列化的 JSON 请求体
+ *
+ * 对象直接序列化到连接上，不预先缓冲完整的请求体，长度未知时以分块方式发送。
+ * 适用于含有大块内联内容（例如 Base64 文件）的请求；一次性请求体不会被 OkHttp 重试。
+ */
+public class JsonRequestBody extends RequestBody {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final JsonEngine jsonEngine;
+    private final Object value;
+    private final boolean oneShot;
+
+    /**
+     * @param jsonEngine 序列化使用的 JSON 引擎
+     * @param value 待序列化的值，不能为 null
+     * @param oneShot 是否只能发送一次（例如内容来自输入流）
+     */
+    public JsonRequestBody(JsonEngine jsonEngine, Object value, boolean oneShot) {
+        this.jsonEngine = jsonEngine;
+        this.value = value;
+        this.oneShot = oneShot;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return oneShot;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        // 序列化结束时 Jackson 会关闭目标流，这里只刷新，不关闭连接的 sink
+        OutputStream out = new FilterOutputStream(sink.outputStream()) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        jsonEngine.write(out, value);
+        sink.emit();
+    }
+}
@@ -0,0 +1,51 @@
+package com.aliyun.speedpix.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 支持背压的非阻塞输出目标
+ *
+ * 语义与 Servlet 3.1 非阻塞 IO 一致，可以直接包装 ServletOutputStream：
+ * <pre>
+ * ServletOutputStream out = response.getOutputStream();
+ * NonBlockingSink sink = new NonBlockingSink() {
+ *     public boolean isReady() { return out.isReady(); }
+ *     public void write(ByteBuffer buffer) throws IOException {
+ *         byte[] chunk = new byte[buffer.remaining()];
+ *         buffer.get(chunk);
+ *         out.write(chunk);
+ *     }
+ *     public void setReadyListener(Runnable listener) {
+ *         out.setWriteListener(new WriteListener() {
+ *             public void onWritePossible() { listener.run(); }
+ *             public void onError(Throwable t) { asyncContext.complete(); }
+ *         });
+ *     }
+ * };
+ * </pre>
+ */
+public interface NonBlockingSink {
+
+    /**
+     * 当前是否可以写入；返回 false 后，可写时应调用 {@link #setReadyListener(Runnable)} 注册的回调
+     *
+     * @return 是否可写
+     */
+    boolean isReady();
+
+    /**
+     * 写入缓冲区中的剩余内容，只在 {@link #isReady()} 返回 true 后调用；未写完的部分在下次可写时重试
+     *
+     * @param buffer 待写入的内容，写入的字节通过 position 前移体现，方法返回后不再保留引用
+     * @throws IOException 写入失败
+     */
+    void write(ByteBuffer buffer) throws IOException;
+
+    /**
+     * 注册可写回调，在开始传输时调用一次
+     *
+     * @param listener 由可写时的线程调用，继续传输；可以被多次、在任意线程调用
+     */
+    void setReadyListener(Runnable listener);
+}
@@ -0,0 +1,642 @@
+package com.aliyun.speedpix.http;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 文件输出内容缓存
+ *
+ * 以 URL（或 object_key）为键缓存 {@link com.aliyun.speedpix.model.FileOutput#read()} 下载的内容，
+ * 同一文件的多个 FileOutput 共享一份内容，同一键的并发下载合并为一次请求。
+ *
+ * 内存层按总字节数限制，超出时按 LRU 淘汰；配置了磁盘目录时，被淘汰的条目和超过单条上限的大文件写入磁盘层，
+ * 磁盘层同样按字节数 LRU 淘汰，命中时通过内存映射读取。磁盘文件以键的 SHA-256 命名，构建时扫描目录，
+ * 按文件修改时间（命中时更新）恢复之前进程留下的条目，超出预算的旧文件和残留的临时文件被删除。
+ * 未在客户端上单独配置时，所有客户端共用 {@link #defaultCache()}，内存预算在整个进程内生效。
+ *
+ * 返回的数组是共享的缓存内容，调用方不应修改。
+ */
+public class OutputCache {
+
+    private static final String DISK_SUFFIX = ".bin";
+    private static final String TEMP_PREFIX = "output";
+    // SHA-256 十六进制加后缀
+    private static final int DISK_NAME_LENGTH = 64 + DISK_SUFFIX.length();
+
+    private static volatile OutputCache defaultCache;
+
+    private final long maxMemoryBytes;
+    private final long maxEntryBytes;
+    private final Path diskDirectory;
+    private final long maxDiskBytes;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    // 键的 SHA-256 -> 磁盘文件
+    private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+    private final Map<String, CompletableFuture<byte[]>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private OutputCache(Builder builder) {
+        this.maxMemoryBytes = builder.maxMemoryBytes;
+        this.maxEntryBytes = Math.min(builder.maxEntryBytes, builder.maxMemoryBytes);
+        this.diskDirectory = builder.diskDirectory;
+        this.maxDiskBytes = builder.maxDiskBytes;
+        if (diskDirectory != null) {
+            loadDisk();
+        }
+    }
+
+    /**
+     * 获取进程内共享的默认缓存，未配置输出缓存的客户端和未绑定客户端的 FileOutput 使用它
+     *
+     * @return 默认缓存（64MB 内存预算，无磁盘层）
+     */
+    public static OutputCache defaultCache() {
+        OutputCache cache = defaultCache;
+        if (cache == null) {
+            synchronized (OutputCache.class) {
+                cache = defaultCache;
+                if (cache == null) {
+                    cache = builder().build();
+                    defaultCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 读取缓存内容，未命中时调用 loader 下载并写入缓存
+     *
+     * @param key 缓存键
+     * @param loader 下载内容的回调
+     * @return 文件内容
+     * @throws IOException 下载失败
+     */
+    public byte[] get(String key, Loader loader) throws IOException {
+        byte[] cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<byte[]> pending = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = loading.putIfAbsent(key, pending);
+        if (existing != null) {
+            // 同一键正在下载，等待其结果；对方放弃缓存时自行下载
+            byte[] content = await(existing);
+            return content != null ? content : get(key, loader);
+        }
+        try {
+            byte[] content = loader.load();
+            put(key, content);
+            pending.complete(content);
+            return content;
+        } catch (IOException | RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, pending);
+        }
+    }
+
+    /**
+     * 异步读取缓存内容，未命中时调用 loader 下载并写入缓存
+     *
+     * loader 可以以 null 完成，表示内容不适合缓存（见 {@link #canHold(long)}）：不写入缓存，同一键上等待的调用各自重新下载。
+     *
+     * @param key 缓存键
+     * @param loader 发起异步下载的回调
+     * @return 文件内容的 CompletableFuture，loader 以 null 完成时为 null
+     */
+    public CompletableFuture<byte[]> getAsync(String key, Supplier<CompletableFuture<byte[]>> loader) {
+        byte[] cached = lookup(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<byte[]> pending = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = loading.putIfAbsent(key, pending);
+        if (existing != null) {
+            return existing.thenCompose(content -> content != null
+                ? CompletableFuture.completedFuture(content) : getAsync(key, loader));
+        }
+        CompletableFuture<byte[]> download;
+        try {
+            download = loader.get();
+        } catch (RuntimeException e) {
+            loading.remove(key, pending);
+            pending.completeExceptionally(e);
+            return pending;
+        }
+        download.whenComplete((content, error) -> {
+            if (error == null && content != null) {
+                put(key, content);
+            }
+            loading.remove(key, pending);
+            if (error != null) {
+                pending.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+            } else {
+                pending.complete(content);
+            }
+        });
+        return pending;
+    }
+
+    /**
+     * 以只读 ByteBuffer 读取缓存内容：磁盘层的条目直接返回内存映射，不复制到堆内
+     *
+     * @param key 缓存键
+     * @param loader 下载内容的回调
+     * @return 只读的文件内容
+     * @throws IOException 下载失败
+     */
+    public ByteBuffer getBuffer(String key, Loader loader) throws IOException {
+        byte[] content;
+        synchronized (lock) {
+            content = memory.get(key);
+        }
+        if (content != null) {
+            hits.incrementAndGet();
+            return ByteBuffer.wrap(content).asReadOnlyBuffer();
+        }
+        DiskEntry entry = diskEntry(key);
+        if (entry != null) {
+            try {
+                ByteBuffer mapped = map(entry);
+                hits.incrementAndGet();
+                diskHits.incrementAndGet();
+                return mapped;
+            } catch (IOException e) {
+                // 文件已被并发淘汰，按未命中处理
+            }
+        }
+        return ByteBuffer.wrap(get(key, loader)).asReadOnlyBuffer();
+    }
+
+    /**
+     * 写入缓存：不超过单条上限的内容放入内存层，更大的内容在配置了磁盘层时写入磁盘
+     *
+     * @param key 缓存键
+     * @param content 文件内容
+     */
+    public void put(String key, byte[] content) {
+        List<Map.Entry<String, byte[]>> spilled = new ArrayList<>();
+        synchronized (lock) {
+            byte[] previous = memory.remove(key);
+            if (previous != null) {
+                memoryBytes -= previous.length;
+            }
+            if (content.length > maxEntryBytes) {
+                spilled.add(new AbstractMap.SimpleImmutableEntry<>(key, content));
+            } else {
+                memory.put(key, content);
+                memoryBytes += content.length;
+                Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+                while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+                    Map.Entry<String, byte[]> eldest = it.next();
+                    it.remove();
+                    memoryBytes -= eldest.getValue().length;
+                    evictions.incrementAndGet();
+                    if (diskDirectory != null && !disk.containsKey(diskKey(eldest.getKey()))) {
+                        spilled.add(new AbstractMap.SimpleImmutableEntry<>(eldest));
+                    }
+                }
+            }
+        }
+        if (diskDirectory != null) {
+            for (Map.Entry<String, byte[]> entry : spilled) {
+                spill(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 移除缓存条目
+     *
+     * @param key 缓存键
+     */
+    public void invalidate(String key) {
+        String diskKey = diskDirectory != null ? diskKey(key) : null;
+        DiskEntry removed = null;
+        synchronized (lock) {
+            byte[] previous = memory.remove(key);
+            if (previous != null) {
+                memoryBytes -= previous.length;
+            }
+            if (diskKey != null) {
+                removed = disk.remove(diskKey);
+            }
+            if (removed != null) {
+                diskBytes -= removed.size;
+            }
+        }
+        if (removed != null) {
+            delete(removed);
+        }
+    }
+
+    /**
+     * 清空内存层和磁盘层，统计数据保留
+     */
+    public void clear() {
+        List<DiskEntry> removed;
+        synchronized (lock) {
+            memory.clear();
+            memoryBytes = 0;
+            removed = new ArrayList<>(disk.values());
+            disk.clear();
+            diskBytes = 0;
+        }
+        for (DiskEntry entry : removed) {
+            delete(entry);
+        }
+    }
+
+    /**
+     * 获取缓存条目数（内存层和磁盘层去重后）
+     *
+     * @return 条目数
+     */
+    public int size() {
+        synchronized (lock) {
+            int size = disk.size();
+            for (String key : memory.keySet()) {
+                if (disk.isEmpty() || !disk.containsKey(diskKey(key))) {
+                    size++;
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * 获取命中次数，包括磁盘层命中
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * 获取从内存层淘汰的条目数
+     *
+     * @return 淘汰次数
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * 获取命中率
+     *
+     * @return 命中率，尚无查询时为 0
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double)hitCount / total;
+    }
+
+    /**
+     * 获取内存层占用的字节数
+     *
+     * @return 字节数
+     */
+    public long getMemoryBytes() {
+        synchronized (lock) {
+            return memoryBytes;
+        }
+    }
+
+    /**
+     * 获取磁盘层占用的字节数
+     *
+     * @return 字节数
+     */
+    public long getDiskBytes() {
+        synchronized (lock) {
+            return diskBytes;
+        }
+    }
+
+    public long getMaxMemoryBytes() {
+        return maxMemoryBytes;
+    }
+
+    /**
+     * 判断给定大小的内容写入后能否保留：不超过单条上限时放入内存层，配置了磁盘层时不超过磁盘层上限即可
+     *
+     * @param size 内容字节数
+     * @return 能保留时为 true
+     */
+    public boolean canHold(long size) {
+        return size <= maxEntryBytes || (diskDirectory != null && size <= maxDiskBytes);
+    }
+
+    /**
+     * 依次查找内存层和磁盘层，磁盘层命中的条目提升回内存层
+     */
+    private byte[] lookup(String key) {
+        synchronized (lock) {
+            byte[] content = memory.get(key);
+            if (content != null) {
+                hits.incrementAndGet();
+                return content;
+            }
+        }
+        DiskEntry entry = diskEntry(key);
+        if (entry != null) {
+            try {
+                ByteBuffer mapped = map(entry);
+                byte[] content = new byte[mapped.remaining()];
+                mapped.get(content);
+                hits.incrementAndGet();
+                diskHits.incrementAndGet();
+                if (content.length <= maxEntryBytes) {
+                    put(key, content);
+                }
+                return content;
+            } catch (IOException e) {
+                // 文件已被并发淘汰，按未命中处理
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 将条目写入磁盘层：先写临时文件再原子改名，超出预算时按 LRU 删除旧文件
+     */
+    private void spill(String key, byte[] content) {
+        if (content.length > maxDiskBytes) {
+            return;
+        }
+        String diskKey = diskKey(key);
+        Path file = diskDirectory.resolve(diskKey + DISK_SUFFIX);
+        try {
+            Files.createDirectories(diskDirectory);
+            Path temp = Files.createTempFile(diskDirectory, TEMP_PREFIX, ".tmp");
+            try {
+                Files.write(temp, content);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // 磁盘层写入失败只影响缓存命中率
+            return;
+        }
+        addDiskEntry(diskKey, new DiskEntry(file, content.length));
+    }
+
+    /**
+     * 登记磁盘层条目，超出预算时按 LRU 删除旧文件
+     */
+    private void addDiskEntry(String diskKey, DiskEntry entry) {
+        List<DiskEntry> removed = new ArrayList<>();
+        synchronized (lock) {
+            DiskEntry previous = disk.put(diskKey, entry);
+            if (previous != null) {
+                diskBytes -= previous.size;
+            }
+            diskBytes += entry.size;
+            Iterator<DiskEntry> it = disk.values().iterator();
+            while (diskBytes > maxDiskBytes && it.hasNext()) {
+                DiskEntry eldest = it.next();
+                it.remove();
+                diskBytes -= eldest.size;
+                removed.add(eldest);
+            }
+        }
+        for (DiskEntry removedEntry : removed) {
+            delete(removedEntry);
+        }
+    }
+
+    /**
+     * 扫描磁盘目录，按修改时间从旧到新登记之前进程写入的文件，删除残留的临时文件
+     */
+    private void loadDisk() {
+        if (!Files.isDirectory(diskDirectory)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(diskDirectory)) {
+            listing.forEach(files::add);
+        } catch (IOException e) {
+            // 目录无法读取时从空的磁盘层开始
+            return;
+        }
+        List<Map.Entry<Path, FileTime>> found = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            try {
+                if (name.startsWith(TEMP_PREFIX) && name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.length() == DISK_NAME_LENGTH && name.endsWith(DISK_SUFFIX) && Files.isRegularFile(file)) {
+                    found.add(new AbstractMap.SimpleImmutableEntry<>(file, Files.getLastModifiedTime(file)));
+                }
+            } catch (IOException e) {
+                // 单个文件无法访问时跳过
+            }
+        }
+        found.sort(Comparator.comparing(Map.Entry::getValue));
+        for (Map.Entry<Path, FileTime> item : found) {
+            Path file = item.getKey();
+            String name = file.getFileName().toString();
+            try {
+                addDiskEntry(name.substring(0, name.length() - DISK_SUFFIX.length()),
+                    new DiskEntry(file, Files.size(file)));
+            } catch (IOException e) {
+                // 文件已被删除时跳过
+            }
+        }
+    }
+
+    /**
+     * 查找磁盘层条目，命中时更新文件修改时间，重启后据此恢复访问顺序
+     */
+    private DiskEntry diskEntry(String key) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        String diskKey = diskKey(key);
+        DiskEntry entry;
+        synchronized (lock) {
+            entry = disk.get(diskKey);
+        }
+        if (entry != null) {
+            try {
+                Files.setLastModifiedTime(entry.file, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                // 只影响重启后的淘汰顺序
+            }
+        }
+        return entry;
+    }
+
+    private static String diskKey(String key) {
+        return DigestUtils.sha256Hex(key);
+    }
+
+    private static ByteBuffer map(DiskEntry entry) throws IOException {
+        try (FileChannel channel = FileChannel.open(entry.file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, entry.size).asReadOnlyBuffer();
+        }
+    }
+
+    private static void delete(DiskEntry entry) {
+        try {
+            Files.deleteIfExists(entry.file);
+        } catch (IOException e) {
+            // 残留文件不影响缓存正确性
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException("Failed to download file: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 同步下载回调
+     */
+    public interface Loader {
+        byte[] load() throws IOException;
+    }
+
+    /**
+     * 磁盘层条目
+     */
+    private static final class DiskEntry {
+        final Path file;
+        final long size;
+
+        DiskEntry(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 创建Builder实例
+     *
+     * @return Builder实例
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * OutputCache Builder
+     */
+    public static class Builder {
+        private long maxMemoryBytes = 64L * 1024 * 1024;
+        private long maxEntryBytes = 16L * 1024 * 1024;
+        private Path diskDirectory;
+        private long maxDiskBytes = 1024L * 1024 * 1024;
+
+        /**
+         * 设置内存层的总字节数上限
+         * @param maxMemoryBytes 字节数，0 表示不使用内存层 (默认: 64MB)
+         * @return Builder实例
+         */
+        public Builder maxMemoryBytes(long maxMemoryBytes) {
+            if (maxMemoryBytes < 0) {
+                throw new IllegalArgumentException("maxMemoryBytes must not be negative");
+            }
+            this.maxMemoryBytes = maxMemoryBytes;
+            return this;
+        }
+
+        /**
+         * 设置可放入内存层的单个文件上限，更大的文件只写入磁盘层
+         * @param maxEntryBytes 字节数 (默认: 16MB，且不超过内存层上限)
+         * @return Builder实例
+         */
+        public Builder maxEntryBytes(long maxEntryBytes) {
+            if (maxEntryBytes < 0) {
+                throw new IllegalArgumentException("maxEntryBytes must not be negative");
+            }
+            this.maxEntryBytes = maxEntryBytes;
+            return this;
+        }
+
+        /**
+         * 启用磁盘层，从内存层淘汰的条目写入该目录
+         * @param diskDirectory 缓存目录 (默认: 不启用)
+         * @return Builder实例
+         */
+        public Builder diskDirectory(Path diskDirectory) {
+            this.diskDirectory = diskDirectory;
+            return this;
+        }
+
+        /**
+         * 设置磁盘层的总字节数上限
+         * @param maxDiskBytes 字节数 (默认: 1GB)
+         * @return Builder实例
+         */
+        public Builder maxDiskBytes(long maxDiskBytes) {
+            if (maxDiskBytes <= 0) {
+                throw new IllegalArgumentException("maxDiskBytes must be positive");
+            }
+            this.maxDiskBytes = maxDiskBytes;
+            return this;
+        }
+
+        /**
+         * 构建OutputCache实例
+         * @return OutputCache实例
+         */
+        public OutputCache build() {
+            return new OutputCache(this);
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.aliyun.speedpix.http;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 分段并行下载器
+ *
+ * 第一个请求即携带第一个分段的 Range：服务端返回 206 时从 Content-Range 得到总大小，预先分配临时文件，
+ * 剩余分段以有限并发度下载，各自通过 {@link FileChannel#transferFrom} 按位置写入；返回 200 时说明不支持 Range，
+ * 直接单连接写完整个文件。分段失败或中途断开时只从断点用 Range 续传该分段，续传请求携带 If-Range，
+ * 文件在下载期间被替换时不会拼接出混合内容。全部完成后将临时文件原子地改名为目标文件，
+ * 失败时删除临时文件，目标文件保持原样。
+ */
+public class OutputDownloader {
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+    // 单次 transferFrom 的上限，进度按此粒度记录
+    private static final long TRANSFER_SIZE = 1024 * 1024;
+
+    private final HttpTransport transport;
+    private final RangedDownloadConfig config;
+
+    /**
+     * @param transport 下载使用的传输层
+     * @param config 分段下载配置
+     */
+    public OutputDownloader(HttpTransport transport, RangedDownloadConfig config) {
+        this.transport = transport;
+        this.config = config;
+    }
+
+    public RangedDownloadConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 下载文件到本地
+     *
+     * @param url 文件地址
+     * @param target 目标路径，已存在时在下载完成后被替换
+     * @throws IOException 下载或写入失败
+     */
+    public void download(String url, Path target) throws IOException {
+        try {
+            downloadAsync(url, target).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            throw new IOException("Failed to download file: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 异步下载文件到本地
+     *
+     * @param url 文件地址
+     * @param target 目标路径，已存在时在下载完成后被替换
+     * @return 下载完成的 CompletableFuture，失败时以 IOException 异常完成
+     */
+    public CompletableFuture<Path> downloadAsync(String url, Path target) {
+        Path temp = null;
+        FileChannel channel;
+        try {
+            // 临时文件与目标文件在同一目录，保证改名是原子的
+            Path directory = target.toAbsolutePath().getParent();
+            temp = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+            channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            CompletableFuture<Path> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return new Download(url, target, temp, channel).start();
+    }
+
+    /**
+     * 构造 Range 请求，end 为负数表示直到文件末尾
+     */
+    private static Request rangeRequest(String url, long start, long end, String validator) {
+        Request.Builder builder = new Request.Builder()
+            .url(url)
+            .header("Range", "bytes=" + start + "-" + (end >= 0 ? String.valueOf(end) : ""));
+        if (validator != null) {
+            builder.header("If-Range", validator);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 续传使用的校验值：强 ETag，没有时使用 Last-Modified
+     */
+    private static String validator(Response response) {
+        String etag = response.header("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.header("Last-Modified");
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // 残留的临时文件不影响报告原始错误
+        }
+    }
+
+    private static IOException httpError(Response response) {
+        return new IOException("Failed to download file: HTTP " + response.code());
+    }
+
+    /**
+     * 一次下载：探测、分段调度和写入
+     */
+    private class Download {
+        private final String url;
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final Queue<Range> pending = new ConcurrentLinkedQueue<>();
+        private final CompletableFuture<Path> done = new CompletableFuture<>();
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private AtomicInteger remaining;
+        private volatile String validator;
+
+        Download(String url, Path target, Path temp, FileChannel channel) {
+            this.url = url;
+            this.target = target;
+            this.temp = temp;
+            this.channel = channel;
+        }
+
+        CompletableFuture<Path> start() {
+            long firstEnd = config.getRangeSize() == Long.MAX_VALUE ? -1 : config.getRangeSize() - 1;
+            transport.enqueue(rangeRequest(url, 0, firstEnd, null)).whenComplete((response, error) -> {
+                if (error != null) {
+                    fail(error);
+                    return;
+                }
+                try {
+                    probe(response);
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                }
+            });
+            return done;
+        }
+
+        /**
+         * 处理第一个分段的响应，决定分段下载还是单连接下载
+         */
+        private void probe(Response response) throws IOException {
+            long total;
+            Range first;
+            try (Response r = response) {
+                if (r.code() == 200) {
+                    // 不支持 Range：响应即完整文件
+                    write(r, 0, Long.MAX_VALUE, null);
+                    finish();
+                    return;
+                }
+                Matcher range = r.code() == 206 ? CONTENT_RANGE.matcher(nullToEmpty(r.header("Content-Range")))
+                    : null;
+                if (range == null || !range.matches() || Long.parseLong(range.group(1)) != 0) {
+                    if (r.code() == 206 || r.code() == 416) {
+                        // 总大小未知或文件为空，退回单连接下载
+                        single();
+                        return;
+                    }
+                    throw httpError(r);
+                }
+                total = Long.parseLong(range.group(3));
+                validator = validator(r);
+                if (total > 0) {
+                    // 预先分配文件大小，各分段按位置写入
+                    channel.write(ByteBuffer.allocate(1), total - 1);
+                }
+                first = new Range(0, Math.min(total, config.getRangeSize()) - 1);
+                try {
+                    write(r, 0, first.length(), first);
+                } catch (IOException e) {
+                    // 第一个分段中途断开时，剩余部分与其他分段一起下载
+                }
+            }
+
+            if (first.written < first.length()) {
+                pending.add(first);
+            }
+            for (long start = first.end + 1; start < total; start += config.getRangeSize()) {
+                pending.add(new Range(start, Math.min(start + config.getRangeSize(), total) - 1));
+            }
+            if (pending.isEmpty()) {
+                finish();
+                return;
+            }
+            remaining = new AtomicInteger(pending.size());
+            int workers = Math.min(config.getParallelism(), pending.size());
+            for (int i = 0; i < workers; i++) {
+                next();
+            }
+        }
+
+        /**
+         * 单连接下载整个文件
+         */
+        private void single() {
+            Request request = new Request.Builder().url(url).build();
+            transport.enqueue(request).whenComplete((response, error) -> {
+                if (error != null) {
+                    fail(error);
+                    return;
+                }
+                try (Response r = response) {
+                    if (!r.isSuccessful()) {
+                        throw httpError(r);
+                    }
+                    channel.truncate(0);
+                    write(r, 0, Long.MAX_VALUE, null);
+                    finish();
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                }
+            });
+        }
+
+        private void next() {
+            if (settled.get()) {
+                return;
+            }
+            Range range = pending.poll();
+            if (range == null) {
+                return;
+            }
+            fetch(range, 1);
+        }
+
+        /**
+         * 下载一个分段，失败时从已写入的位置重试；有进展的尝试不计入重试次数
+         */
+        private void fetch(Range range, int attempt) {
+            long before = range.written;
+            transport.enqueue(rangeRequest(url, range.start + range.written, range.end, validator))
+                .whenComplete((response, error) -> {
+                    if (settled.get()) {
+                        if (response != null) {
+                            response.close();
+                        }
+                        return;
+                    }
+                    Throwable failure = error;
+                    if (failure == null) {
+                        try (Response r = response) {
+                            if (r.code() == 200 && validator != null) {
+                                throw new IOException("File changed during download: " + url);
+                            }
+                            if (r.code() != 206) {
+                                throw httpError(r);
+                            }
+                            Matcher matcher = CONTENT_RANGE.matcher(nullToEmpty(r.header("Content-Range")));
+                            if (!matcher.matches() || Long.parseLong(matcher.group(1)) != range.start + range.written) {
+                                throw new IOException("Unexpected Content-Range: " + r.header("Content-Range"));
+                            }
+                            write(r, range.start + range.written, range.length() - range.written, range);
+                            if (range.written < range.length()) {
+                                throw new IOException("Incomplete range " + range + ": " + range.written + " bytes");
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            failure = e;
+                        }
+                    }
+                    if (failure == null) {
+                        if (remaining.decrementAndGet() == 0) {
+                            finish();
+                        } else {
+                            next();
+                        }
+                    } else if (range.written > before) {
+                        // 连接中途断开但已写入部分内容，重新计数
+                        fetch(range, 1);
+                    } else if (attempt < config.getMaxRangeAttempts()) {
+                        fetch(range, attempt + 1);
+                    } else {
+                        fail(failure);
+                    }
+                });
+        }
+
+        /**
+         * 将响应体通过 transferFrom 按位置写入文件，最多写入 limit 字节，返回实际写入的字节数；
+         * 指定分段时随写随记录进度，中途失败后可从断点重试
+         */
+        private long write(Response response, long position, long limit, Range range) throws IOException {
+            if (response.body() == null) {
+                throw new IOException("Empty response body");
+            }
+            BufferedSource source = response.body().source();
+            long written = 0;
+            while (written < limit) {
+                // 连接中途断开时 transferFrom 先返回已写入的字节数，下一次调用再抛出异常
+                long n = channel.transferFrom(source, position + written, Math.min(limit - written, TRANSFER_SIZE));
+                if (n <= 0) {
+                    break;
+                }
+                written += n;
+                if (range != null) {
+                    range.written += n;
+                }
+            }
+            return written;
+        }
+
+        private void finish() {
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                channel.close();
+                try {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                done.complete(target);
+            } catch (IOException e) {
+                deleteQuietly(temp);
+                done.completeExceptionally(e);
+            }
+        }
+
+        private void fail(Throwable error) {
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            // 先删除临时文件再通知调用方，等待方返回时不会看到残留文件
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // 关闭失败不影响报告原始错误
+            }
+            deleteQuietly(temp);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            done.completeExceptionally(cause instanceof IOException ? cause
+                : new IOException("Failed to download file: " + cause.getMessage(), cause));
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * 闭区间分段及已写入的字节数
+     */
+    private static final class Range {
+        final long start;
+        final long end;
+        volatile long written;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long length() {
+            return end - start + 1;
+        }
+
+        @Override
+        public String toString() {
+            return "bytes " + start + "-" + end;
+        }
+    }
+}
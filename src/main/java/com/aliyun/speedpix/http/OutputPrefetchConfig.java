@@ -0,0 +1,90 @@
+package com.aliyun.speedpix.http;
+
+import java.nio.file.Path;
+
+/**
+ * 结果文件预取配置
+ *
+ * 轮询观察到任务成功时，在后台下载结果中的全部文件输出：未指定目录时读入输出缓存，之后的 {@code read()} 直接命中
+ * 或等待进行中的下载，缓存无法保留的大文件不预取；指定目录时保存到 {@code 目录/任务ID/文件名}，之后的 {@code read()} 和 {@code save()} 使用本地文件。
+ */
+public class OutputPrefetchConfig {
+
+    private final int parallelism;
+    private final Path directory;
+
+    private OutputPrefetchConfig(Builder builder) {
+        this.parallelism = builder.parallelism;
+        this.directory = builder.directory;
+    }
+
+    /**
+     * 使用默认参数创建配置：预取到输出缓存，最多同时下载 4 个文件
+     *
+     * @return OutputPrefetchConfig实例
+     */
+    public static OutputPrefetchConfig defaults() {
+        return builder().build();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 获取保存目录
+     *
+     * @return 保存目录，为 null 时预取到输出缓存
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 创建Builder实例
+     *
+     * @return Builder实例
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * OutputPrefetchConfig Builder
+     */
+    public static class Builder {
+        private int parallelism = 4;
+        private Path directory;
+
+        /**
+         * 设置同时预取的文件数，同一客户端的所有任务共用该上限
+         * @param parallelism 并行度 (默认: 4)
+         * @return Builder实例
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * 设置保存目录，文件保存到该目录下以任务ID命名的子目录中
+         * @param directory 保存目录 (默认: 不保存到磁盘，读入输出缓存)
+         * @return Builder实例
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * 构建OutputPrefetchConfig实例
+         * @return OutputPrefetchConfig实例
+         */
+        public OutputPrefetchConfig build() {
+            return new OutputPrefetchConfig(this);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.aliyun.speedpix.http;
+
+import com.aliyun.speedpix.model.FileOutput;
+import okhttp3.HttpUrl;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 结果文件预取器
+ *
+ * 在类型化的预测结果中查找全部 {@link FileOutput}（包括集合、Map、数组和嵌套对象中的），按配置的并行度在后台下载。
+ * 下载通过 OkHttp 异步调用完成，不占用调用线程；所有任务共用一个等待队列。
+ */
+public class OutputPrefetcher {
+
+    // 查找文件输出时的最大嵌套深度
+    private static final int MAX_DEPTH = 16;
+    // 记录已保存文件的最大数量，同一文件重复预取时复用
+    private static final int MAX_TRACKED_FILES = 4096;
+    // 文件名中缓存键摘要的长度
+    private static final int KEY_HASH_LENGTH = 12;
+
+    private final OutputPrefetchConfig config;
+    private final Queue<Supplier<CompletableFuture<?>>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger active = new AtomicInteger();
+    // 缓存键 -> 保存到本地的文件
+    private final Map<String, CompletableFuture<Path>> saved = Collections.synchronizedMap(
+        new LinkedHashMap<String, CompletableFuture<Path>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Path>> eldest) {
+                return size() > MAX_TRACKED_FILES;
+            }
+        });
+    // 类型 -> 需要查找的字段
+    private final Map<Class<?>, List<Field>> fields = new ConcurrentHashMap<>();
+
+    public OutputPrefetcher(OutputPrefetchConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("config is required");
+        }
+        this.config = config;
+    }
+
+    public OutputPrefetchConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 在后台下载结果中的全部文件输出
+     *
+     * 未配置目录时读入输出缓存，缓存无法保留的文件（按 Content-Length 判断）不下载；配置了目录时保存到 {@code 目录/taskId/文件名}，并将本地文件绑定到对应的 FileOutput。
+     * 文件名由 URL 路径的最后一段和 {@link FileOutput#cacheKey()} 的摘要组成，同一文件每次预取得到相同的路径。
+     * 下载失败不会抛出，之后的读取按常规方式重新下载。
+     *
+     * @param taskId 任务ID，保存到目录时作为子目录名
+     * @param result 类型化的预测结果
+     * @return 找到的文件输出数量
+     */
+    public int prefetch(String taskId, Object result) {
+        List<FileOutput> outputs = new ArrayList<>();
+        collect(result, outputs, Collections.newSetFromMap(new IdentityHashMap<>()), 0);
+
+        Path directory = config.getDirectory();
+        for (FileOutput output : outputs) {
+            String url = output.getUrl();
+            if (url == null) {
+                continue;
+            }
+            if (directory == null) {
+                submit(output::prefetchAsync);
+                continue;
+            }
+            String cacheKey = output.cacheKey();
+            Path target = (taskId != null ? directory.resolve(taskId) : directory).resolve(fileName(url, cacheKey));
+            CompletableFuture<Path> copy = saved.computeIfAbsent(cacheKey, key -> {
+                CompletableFuture<Path> future = new CompletableFuture<>();
+                submit(() -> saveTo(output, target).whenComplete((path, error) -> {
+                    if (error != null) {
+                        // 失败的文件不保留，下次预取时重试
+                        saved.remove(key, future);
+                        future.completeExceptionally(error);
+                    } else {
+                        future.complete(path);
+                    }
+                }));
+                return future;
+            });
+            output.bindLocalCopy(copy);
+        }
+        return outputs.size();
+    }
+
+    /**
+     * 创建任务子目录后保存文件
+     */
+    private static CompletableFuture<Path> saveTo(FileOutput output, Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+        } catch (IOException e) {
+            CompletableFuture<Path> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return output.saveAsync(target);
+    }
+
+    /**
+     * 获取正在下载的文件数
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * 获取等待下载的文件数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void submit(Supplier<CompletableFuture<?>> task) {
+        pending.add(task);
+        drain();
+    }
+
+    /**
+     * 在并行度允许的范围内启动等待中的下载，每个下载结束后再次调用
+     */
+    private void drain() {
+        while (true) {
+            int current = active.get();
+            if (current >= config.getParallelism()) {
+                return;
+            }
+            if (!active.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Supplier<CompletableFuture<?>> task = pending.poll();
+            if (task == null) {
+                active.decrementAndGet();
+                // 释放名额前可能有新任务入队
+                if (pending.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            CompletableFuture<?> download;
+            try {
+                download = task.get();
+            } catch (RuntimeException e) {
+                download = CompletableFuture.completedFuture(null);
+            }
+            download.whenComplete((value, error) -> {
+                active.decrementAndGet();
+                drain();
+            });
+        }
+    }
+
+    /**
+     * 由 URL 路径的最后一段得到文件名，扩展名前加上缓存键的摘要，同名的不同文件不会互相覆盖
+     */
+    private static String fileName(String url, String cacheKey) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        String name = null;
+        if (parsed != null) {
+            List<String> segments = parsed.pathSegments();
+            name = segments.get(segments.size() - 1);
+        }
+        if (name == null || name.isEmpty() || name.equals(".") || name.equals("..")) {
+            name = "output";
+        }
+        String hash = DigestUtils.sha256Hex(cacheKey).substring(0, KEY_HASH_LENGTH);
+        int dot = name.lastIndexOf('.');
+        if (dot <= 0) {
+            return name + "-" + hash;
+        }
+        return name.substring(0, dot) + "-" + hash + name.substring(dot);
+    }
+
+    private void collect(Object value, List<FileOutput> found, Set<Object> seen, int depth) {
+        if (value == null || depth > MAX_DEPTH || !seen.add(value)) {
+            return;
+        }
+        if (value instanceof FileOutput) {
+            found.add((FileOutput)value);
+        } else if (value instanceof Iterable) {
+            for (Object element : (Iterable<?>)value) {
+                collect(element, found, seen, depth + 1);
+            }
+        } else if (value instanceof Map) {
+            for (Object element : ((Map<?, ?>)value).values()) {
+                collect(element, found, seen, depth + 1);
+            }
+        } else if (value instanceof Object[]) {
+            for (Object element : (Object[])value) {
+                collect(element, found, seen, depth + 1);
+            }
+        } else {
+            for (Field field : fields(value.getClass())) {
+                try {
+                    collect(field.get(value), found, seen, depth + 1);
+                } catch (IllegalAccessException e) {
+                    // 无法访问的字段跳过
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取结果类型中可能包含文件输出的实例字段；JDK 类型（字符串、数字等）不展开
+     */
+    private List<Field> fields(Class<?> type) {
+        return fields.computeIfAbsent(type, key -> {
+            List<Field> result = new ArrayList<>();
+            for (Class<?> c = key; c != null && !isJdkType(c); c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()
+                        || field.getType().isPrimitive() || isJdkLeaf(field.getType())) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        result.add(field);
+                    } catch (RuntimeException e) {
+                        // 模块系统禁止访问时跳过
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.");
+    }
+
+    private static boolean isJdkLeaf(Class<?> type) {
+        return CharSequence.class.isAssignableFrom(type) || Number.class.isAssignableFrom(type)
+            || type == Boolean.class || type == Character.class || type.isEnum();
+    }
+}
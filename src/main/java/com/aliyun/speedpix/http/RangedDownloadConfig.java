@@ -0,0 +1,115 @@
+package com.aliyun.speedpix.http;
+
+/**
+ * 分段并行下载配置
+ *
+ * 下载时先请求第一个分段，服务端支持 Range 时从响应中得到文件总大小，剩余分段通过共享连接池并行下载，
+ * 按位置写入预先分配大小的目标文件；单个分段失败时只从断点重试该分段。服务端不支持 Range 时退回单连接下载。
+ */
+public class RangedDownloadConfig {
+
+    private final long rangeSize;
+    private final int parallelism;
+    private final int maxRangeAttempts;
+
+    private RangedDownloadConfig(Builder builder) {
+        this.rangeSize = builder.rangeSize;
+        this.parallelism = builder.parallelism;
+        this.maxRangeAttempts = builder.maxRangeAttempts;
+    }
+
+    /**
+     * 使用默认参数创建配置
+     *
+     * @return RangedDownloadConfig实例
+     */
+    public static RangedDownloadConfig defaults() {
+        return builder().build();
+    }
+
+    /**
+     * 单连接下载配置：整个文件作为一个分段，连接中断时用 Range 从断点续传
+     *
+     * @return RangedDownloadConfig实例
+     */
+    public static RangedDownloadConfig singleStream() {
+        return builder().rangeSize(Long.MAX_VALUE).parallelism(1).build();
+    }
+
+    public long getRangeSize() {
+        return rangeSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getMaxRangeAttempts() {
+        return maxRangeAttempts;
+    }
+
+    /**
+     * 创建Builder实例
+     *
+     * @return Builder实例
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * RangedDownloadConfig Builder
+     */
+    public static class Builder {
+        private long rangeSize = 8L * 1024 * 1024;
+        private int parallelism = 4;
+        private int maxRangeAttempts = 3;
+
+        /**
+         * 设置分段大小，不超过该大小的文件只需一次请求
+         * @param rangeSize 字节数，Long.MAX_VALUE 表示不分段 (默认: 8MB)
+         * @return Builder实例
+         */
+        public Builder rangeSize(long rangeSize) {
+            if (rangeSize <= 0) {
+                throw new IllegalArgumentException("rangeSize must be positive");
+            }
+            this.rangeSize = rangeSize;
+            return this;
+        }
+
+        /**
+         * 设置同时下载的分段数
+         * @param parallelism 并行度 (默认: 4)
+         * @return Builder实例
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * 设置单个分段连续失败的最大尝试次数，写入了部分内容的尝试不计入
+         * @param maxRangeAttempts 次数 (默认: 3)
+         * @return Builder实例
+         */
+        public Builder maxRangeAttempts(int maxRangeAttempts) {
+            if (maxRangeAttempts <= 0) {
+                throw new IllegalArgumentException("maxRangeAttempts must be positive");
+            }
+            this.maxRangeAttempts = maxRangeAttempts;
+            return this;
+        }
+
+        /**
+         * 构建RangedDownloadConfig实例
+         * @return RangedDownloadConfig实例
+         */
+        public RangedDownloadConfig build() {
+            return new RangedDownloadConfig(this);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.aliyun.speedpix.http;
+
+import com.aliyun.speedpix.util.MimeTypeDetector;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * 输入流暂存区
+ *
+ * 上传签名需要预先知道文件大小，因此长度未知的输入流必须先完整读取一遍。
+ * 暂存区一次读取输入流：较小的流保存在内存中，超过阈值后转存到临时文件；
+ * 读取过程中同时统计大小、保留用于内容类型检测的文件头，并可选地计算摘要。
+ * 之后的上传直接从暂存区流式发送，关闭时删除临时文件。
+ */
+public class StreamSpool implements Closeable {
+
+    /**
+     * 默认内存阈值，超过后转存到临时文件
+     */
+    public static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    /**
+     * 保留的文件头长度，用于内容类型检测
+     */
+    public static final int HEADER_SIZE = MimeTypeDetector.HEADER_SIZE;
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private final byte[] memory;
+    private final Path file;
+    private final long size;
+    private final byte[] header;
+    private final byte[] digest;
+
+    private StreamSpool(byte[] memory, Path file, long size, byte[] header, byte[] digest) {
+        this.memory = memory;
+        this.file = file;
+        this.size = size;
+        this.header = header;
+        this.digest = digest;
+    }
+
+    /**
+     * 使用默认配置暂存输入流，不计算摘要
+     *
+     * @param in 输入流，读取到末尾但不关闭
+     * @return 暂存区
+     * @throws IOException 读取或写入临时文件失败
+     */
+    public static StreamSpool spool(InputStream in) throws IOException {
+        return builder().spool(in);
+    }
+
+    /**
+     * 获取数据大小
+     *
+     * @return 字节数
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 数据是否保存在内存中
+     *
+     * @return 未转存到临时文件时为 true
+     */
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    /**
+     * 获取文件头，长度不超过 {@link #HEADER_SIZE}
+     *
+     * @return 文件头字节
+     */
+    public byte[] getHeader() {
+        return header;
+    }
+
+    /**
+     * 获取读取过程中计算的摘要
+     *
+     * @return 摘要字节，未指定摘要算法时为 null
+     */
+    public byte[] getDigest() {
+        return digest;
+    }
+
+    /**
+     * 获取内存中数据的只读视图
+     *
+     * @return 只读 ByteBuffer
+     * @throws IllegalStateException 数据已转存到临时文件
+     */
+    public ByteBuffer asByteBuffer() {
+        if (memory == null) {
+            throw new IllegalStateException("数据已转存到临时文件");
+        }
+        return ByteBuffer.wrap(memory, 0, (int)size).asReadOnlyBuffer();
+    }
+
+    /**
+     * 打开一个从头读取暂存数据的输入流
+     *
+     * @return 输入流
+     * @throws IOException 打开临时文件失败
+     */
+    public InputStream openStream() throws IOException {
+        if (memory != null) {
+            return new ByteArrayInputStream(memory, 0, (int)size);
+        }
+        return Files.newInputStream(file);
+    }
+
+    /**
+     * 构造从暂存区流式发送的请求体，可重复发送；请求完成前不得关闭暂存区
+     *
+     * @param contentType 内容类型
+     * @return 请求体
+     */
+    public RequestBody requestBody(MediaType contentType) {
+        if (memory != null) {
+            return RequestBody.create(memory, contentType, 0, (int)size);
+        }
+        return new FileRequestBody(file, contentType, size);
+    }
+
+    /**
+     * 删除临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 创建Builder实例
+     *
+     * @return Builder实例
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 输入流超过允许的最大长度
+     */
+    public static class SizeLimitExceededException extends IOException {
+        private final long maxSize;
+
+        public SizeLimitExceededException(long maxSize) {
+            super("输入流超过大小上限: " + maxSize + " 字节");
+            this.maxSize = maxSize;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+    }
+
+    /**
+     * StreamSpool Builder
+     */
+    public static class Builder {
+        private int memoryThreshold = DEFAULT_MEMORY_THRESHOLD;
+        private long maxSize = Long.MAX_VALUE;
+        private String digestAlgorithm;
+        private Path tempDirectory;
+
+        /**
+         * 设置内存阈值，超过后转存到临时文件
+         * @param memoryThreshold 字节数 (默认: 1MB)
+         * @return Builder实例
+         */
+        public Builder memoryThreshold(int memoryThreshold) {
+            this.memoryThreshold = memoryThreshold;
+            return this;
+        }
+
+        /**
+         * 设置允许的最大长度，超过时抛出 {@link SizeLimitExceededException}
+         * @param maxSize 字节数 (默认: 不限制)
+         * @return Builder实例
+         */
+        public Builder maxSize(long maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * 读取时同时计算摘要
+         * @param digestAlgorithm 摘要算法，例如 "SHA-256"
+         * @return Builder实例
+         */
+        public Builder digestAlgorithm(String digestAlgorithm) {
+            this.digestAlgorithm = digestAlgorithm;
+            return this;
+        }
+
+        /**
+         * 设置临时文件目录
+         * @param tempDirectory 目录 (默认: java.io.tmpdir)
+         * @return Builder实例
+         */
+        public Builder tempDirectory(Path tempDirectory) {
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        /**
+         * 读取输入流直到末尾，输入流不会被关闭
+         * @param in 输入流
+         * @return 暂存区
+         * @throws IOException 读取失败、写入临时文件失败或超过大小上限
+         */
+        public StreamSpool spool(InputStream in) throws IOException {
+            MessageDigest messageDigest = newDigest();
+            byte[] chunk = new byte[CHUNK_SIZE];
+            byte[] memory = new byte[Math.max(0, Math.min(memoryThreshold, CHUNK_SIZE))];
+            byte[] header = new byte[HEADER_SIZE];
+            int headerLength = 0;
+            long size = 0;
+            Path file = null;
+            OutputStream out = null;
+
+            try {
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    if (read == 0) {
+                        continue;
+                    }
+                    if (size + read > maxSize) {
+                        throw new SizeLimitExceededException(maxSize);
+                    }
+                    if (headerLength < HEADER_SIZE) {
+                        int copy = Math.min(read, HEADER_SIZE - headerLength);
+                        System.arraycopy(chunk, 0, header, headerLength, copy);
+                        headerLength += copy;
+                    }
+                    if (messageDigest != null) {
+                        messageDigest.update(chunk, 0, read);
+                    }
+
+                    if (out == null && size + read > memoryThreshold) {
+                        // 超过内存阈值，已读数据转存到临时文件，之后直接写文件
+                        file = tempDirectory != null
+                            ? Files.createTempFile(tempDirectory, "speedpix-spool", ".tmp")
+                            : Files.createTempFile("speedpix-spool", ".tmp");
+                        out = Files.newOutputStream(file);
+                        out.write(memory, 0, (int)size);
+                        memory = null;
+                    }
+                    if (out != null) {
+                        out.write(chunk, 0, read);
+                    } else {
+                        if (size + read > memory.length) {
+                            memory = Arrays.copyOf(memory,
+                                (int)Math.min(memoryThreshold, Math.max(size + read, memory.length * 2L)));
+                        }
+                        System.arraycopy(chunk, 0, memory, (int)size, read);
+                    }
+                    size += read;
+                }
+                if (out != null) {
+                    out.close();
+                    out = null;
+                }
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(out);
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+                throw e;
+            }
+
+            return new StreamSpool(memory, file, size, Arrays.copyOf(header, headerLength),
+                messageDigest != null ? messageDigest.digest() : null);
+        }
+
+        private MessageDigest newDigest() throws IOException {
+            if (digestAlgorithm == null) {
+                return null;
+            }
+            try {
+                return MessageDigest.getInstance(digestAlgorithm);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("不支持的摘要算法: " + digestAlgorithm, e);
+            }
+        }
+
+        private static void closeQuietly(Closeable closeable) {
+            if (closeable == null) {
+                return;
+            }
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // 已在处理更早的异常
+            }
+        }
+    }
+}
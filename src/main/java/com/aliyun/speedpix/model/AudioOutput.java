@@ -2,6 +2,8 @@ package com.aliyun.speedpix.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import java.io.IOException;
+
 /**
  * 音频文件输出，包含音频特有的元信息
  */
@@ -9,12 +11,13 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 public class AudioOutput extends FileOutput {
     private static final long serialVersionUID = 1L;
 
-    private final long duration; // 时长，单位：毫秒
-    private final String format;
-    private final int bitrate; // 比特率
-    private final int sampleRate; // 采样率
-    private final int channels; // 声道数
-    private final long fileSize;
+    private long duration; // 时长，单位：毫秒
+    private String format;
+    private String codec; // 编解码器
+    private int bitrate; // 比特率
+    private int sampleRate; // 采样率
+    private int channels; // 声道数
+    private long fileSize;
 
     /**
      * 无参构造函数，用于反序列化
@@ -23,6 +26,7 @@ public class AudioOutput extends FileOutput {
         super();
         this.duration = 0;
         this.format = null;
+        this.codec = null;
         this.bitrate = 0;
         this.sampleRate = 0;
         this.channels = 0;
@@ -40,6 +44,40 @@ public class AudioOutput extends FileOutput {
         this.fileSize = fileSize;
     }
 
+    /**
+     * 只读取文件头解析时长、编解码器、比特率、采样率和声道数，填充到当前对象，不下载音频内容
+     *
+     * 支持 WAV、MP3 和 M4A；解析出的字段覆盖服务端返回的值，未能解析的字段保持不变。
+     *
+     * @return 当前对象
+     * @see FileOutput#probeMedia()
+     */
+    public AudioOutput probe() throws IOException {
+        MediaInfo info = probeMedia();
+        if (info.getDuration() > 0) {
+            duration = info.getDuration();
+        }
+        if (info.getFormat() != null) {
+            format = info.getFormat();
+        }
+        if (info.getCodec() != null) {
+            codec = info.getCodec();
+        }
+        if (info.getBitrate() > 0) {
+            bitrate = info.getBitrate();
+        }
+        if (info.getSampleRate() > 0) {
+            sampleRate = info.getSampleRate();
+        }
+        if (info.getChannels() > 0) {
+            channels = info.getChannels();
+        }
+        if (info.getFileSize() >= 0) {
+            fileSize = info.getFileSize();
+        }
+        return this;
+    }
+
     public long getDuration() {
         return duration;
     }
@@ -48,6 +86,10 @@ public class AudioOutput extends FileOutput {
         return format;
     }
 
+    public String getCodec() {
+        return codec;
+    }
+
     public int getBitrate() {
         return bitrate;
     }
@@ -70,6 +112,7 @@ public class AudioOutput extends FileOutput {
                 "url='" + getUrl() + '\'' +
                 ", duration=" + duration +
                 ", format='" + format + '\'' +
+                ", codec='" + codec + '\'' +
                 ", bitrate=" + bitrate +
                 ", sampleRate=" + sampleRate +
                 ", channels=" + channels +
@@ -0,0 +1,51 @@
+package com.aliyun.speedpix.model;
+
+/**
+ * 以字节数组提供内容的文件输入，创建任务时上传
+ */
+public final class BytesInput {
+
+    private final byte[] bytes;
+    private final String filename;
+    private final String contentType;
+
+    private BytesInput(byte[] bytes, String filename, String contentType) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("bytes is required");
+        }
+        this.bytes = bytes;
+        this.filename = filename;
+        this.contentType = contentType;
+    }
+
+    public static BytesInput of(byte[] bytes, String filename) {
+        return new BytesInput(bytes, filename, null);
+    }
+
+    /**
+     * @param bytes 文件内容，不会被复制，上传完成前不要修改
+     * @param filename 文件名
+     * @param contentType 内容类型，为空时自动检测
+     * @return BytesInput实例
+     */
+    public static BytesInput of(byte[] bytes, String filename, String contentType) {
+        return new BytesInput(bytes, filename, contentType);
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public String toString() {
+        return "BytesInput(" + filename + ", " + bytes.length + " bytes)";
+    }
+}
@@ -96,6 +96,23 @@ public class ComfyPromptRequest {
         this.returnTempFiles = returnTempFiles;
     }
 
+    /**
+     * 创建替换了输入的浅拷贝，原请求不变
+     *
+     * @param inputs 新的输入
+     * @return 请求副本
+     */
+    public ComfyPromptRequest withInputs(Map<String, Object> inputs) {
+        ComfyPromptRequest copy = new ComfyPromptRequest();
+        copy.setWorkflowId(workflowId);
+        copy.setVersionId(versionId);
+        copy.setInputs(inputs);
+        copy.setAliasId(aliasId);
+        copy.setRandomiseSeeds(randomiseSeeds);
+        copy.setReturnTempFiles(returnTempFiles);
+        return copy;
+    }
+
     /**
      * Builder 模式支持链式调用
      */
@@ -0,0 +1,43 @@
+package com.aliyun.speedpix.model;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 显式标记为本地文件的输入
+ *
+ * 创建任务时上传该文件（或按 Base64 内联），不依赖对字符串输入的路径探测。
+ */
+public final class FileInput {
+
+    private final Path path;
+
+    private FileInput(Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("path is required");
+        }
+        this.path = path;
+    }
+
+    public static FileInput of(Path path) {
+        return new FileInput(path);
+    }
+
+    public static FileInput of(File file) {
+        return new FileInput(file != null ? file.toPath() : null);
+    }
+
+    public static FileInput of(String path) {
+        return new FileInput(path != null ? Paths.get(path) : null);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return "FileInput(" + path + ")";
+    }
+}
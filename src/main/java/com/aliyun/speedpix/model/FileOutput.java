@@ -1,17 +1,36 @@
 package com.aliyun.speedpix.model;
 
+import com.aliyun.speedpix.http.ChannelTransfer;
+import com.aliyun.speedpix.http.DirectBufferPool;
+import com.aliyun.speedpix.http.HttpTransport;
+import com.aliyun.speedpix.http.NonBlockingSink;
+import com.aliyun.speedpix.http.OutputCache;
+import com.aliyun.speedpix.http.OutputDownloader;
+import com.aliyun.speedpix.http.RangedDownloadConfig;
+import com.aliyun.speedpix.util.MediaProbe;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSource;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.TimeUnit;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 文件输出包装器，支持从 URL 下载和保存文件
@@ -19,12 +38,15 @@ import java.util.concurrent.TimeUnit;
 public class FileOutput implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes \\d+-\\d+/(\\d+)");
+    // 探测时文件头之后每次 Range 请求的最小长度，连续的小段读取共用一次请求
+    private static final int PROBE_BLOCK_SIZE = 4096;
+
     protected final String url;
-    protected transient byte[] content;
-    protected static final OkHttpClient httpClient = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(100, TimeUnit.SECONDS)
-            .build();
+    private transient HttpTransport transport;
+    private transient OutputDownloader downloader;
+    private transient OutputCache cache;
+    private transient volatile CompletableFuture<Path> localCopy;
 
     /**
      * 无参构造函数，用于反序列化
@@ -44,35 +66,244 @@ public class FileOutput implements Serializable {
         return url;
     }
 
+    /**
+     * 绑定下载使用的传输层，由客户端在反序列化预测结果时调用
+     *
+     * @param transport 客户端的传输层
+     */
+    public void bindTransport(HttpTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * 绑定分段并行下载器，绑定后 {@link #save(Path)} 和 {@link #saveAsync(Path)} 按分段并行下载
+     *
+     * @param downloader 分段下载器，为 null 时使用单连接下载
+     */
+    public void bindDownloader(OutputDownloader downloader) {
+        this.downloader = downloader;
+    }
+
+    /**
+     * 绑定内容缓存，{@link #read()} 和 {@link #readAsync()} 读取的内容保存在该缓存中
+     *
+     * @param cache 客户端的输出缓存，为 null 时使用 {@link OutputCache#defaultCache()}
+     */
+    public void bindCache(OutputCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * 绑定后台保存的本地文件，由预取器调用；之后的读取和保存等待其完成后使用本地文件，失败时按常规方式下载
+     *
+     * @param localCopy 保存完成时得到本地路径的 CompletableFuture
+     */
+    public void bindLocalCopy(CompletableFuture<Path> localCopy) {
+        this.localCopy = localCopy;
+    }
+
+    /**
+     * 获取后台保存的本地文件
+     *
+     * @return 保存完成时得到本地路径的 CompletableFuture，未预取到目录时为 null
+     */
+    public CompletableFuture<Path> getLocalCopy() {
+        return localCopy;
+    }
+
+    /**
+     * 等待后台保存完成并返回本地文件；未预取、预取失败或文件已被删除时返回 null
+     */
+    private Path awaitLocalCopy() {
+        CompletableFuture<Path> copy = localCopy;
+        if (copy == null) {
+            return null;
+        }
+        try {
+            Path path = copy.join();
+            return Files.isRegularFile(path) ? path : null;
+        } catch (CompletionException | CancellationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取读取内容使用的缓存，未绑定时使用默认缓存
+     */
+    protected OutputCache cache() {
+        OutputCache bound = cache;
+        return bound != null ? bound : OutputCache.defaultCache();
+    }
+
+    /**
+     * 获取缓存键，默认为文件 URL；输出缓存和预取器以此判断是否为同一文件
+     */
+    public String cacheKey() {
+        return url;
+    }
+
+    /**
+     * 获取下载使用的传输层，未绑定时使用默认传输层
+     */
+    protected HttpTransport transport() {
+        HttpTransport bound = transport;
+        return bound != null ? bound : HttpTransport.defaultTransport();
+    }
+
+    /**
+     * 获取保存文件使用的下载器，未绑定分段下载器时使用可续传的单连接下载
+     */
+    protected OutputDownloader downloader() {
+        OutputDownloader bound = downloader;
+        return bound != null ? bound : new OutputDownloader(transport(), RangedDownloadConfig.singleStream());
+    }
+
+    /**
+     * 获取下载使用的 HTTP 客户端
+     */
+    protected OkHttpClient httpClient() {
+        return transport().getHttpClient();
+    }
+
     /**
      * 读取文件内容
+     *
+     * 内容保存在客户端的输出缓存中，同一文件的多个 FileOutput 共享一份内容，返回的数组不应修改。
      */
     public byte[] read() throws IOException {
-        if (content == null) {
-            if (url == null) {
-                throw new IllegalStateException("URL cannot be null");
-            }
-            Request request = new Request.Builder()
-                    .url(url)
-                    .build();
+        if (url == null) {
+            throw new IllegalStateException("URL cannot be null");
+        }
+        return cache().get(cacheKey(), this::fetch);
+    }
 
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    throw new IOException("Failed to download file: HTTP " + response.code());
+    /**
+     * 以只读 ByteBuffer 读取文件内容，缓存在磁盘层时直接返回内存映射，不复制到堆内
+     */
+    public ByteBuffer readBuffer() throws IOException {
+        if (url == null) {
+            throw new IllegalStateException("URL cannot be null");
+        }
+        return cache().getBuffer(cacheKey(), this::fetch);
+    }
+
+    /**
+     * 异步读取文件内容（基于 OkHttp enqueue，不占用调用线程）
+     *
+     * @return 文件内容的 CompletableFuture，失败时以 IOException 异常完成
+     */
+    public CompletableFuture<byte[]> readAsync() {
+        if (url == null) {
+            throw new IllegalStateException("URL cannot be null");
+        }
+        CompletableFuture<Path> copy = localCopy;
+        if (copy == null) {
+            return cache().getAsync(cacheKey(), () -> download(response -> response.body().bytes()));
+        }
+        return cache().getAsync(cacheKey(), () -> copy.handle((path, error) -> path)
+            .thenCompose(path -> {
+                if (path == null || !Files.isRegularFile(path)) {
+                    return download(response -> response.body().bytes());
                 }
-                if (response.body() == null) {
-                    throw new IOException("Empty response body");
+                try {
+                    return CompletableFuture.completedFuture(Files.readAllBytes(path));
+                } catch (IOException e) {
+                    throw new CompletionException(e);
                 }
-                content = response.body().bytes();
+            }));
+    }
+
+    /**
+     * 在后台将内容读入输出缓存，供之后的 {@link #read()} 直接使用，由预取器调用
+     *
+     * 响应的 Content-Length 超出缓存可保留的大小时（见 {@link OutputCache#canHold(long)}）不读取响应体，以 null 完成，
+     * 之后的读取按常规方式下载。
+     *
+     * @return 文件内容的 CompletableFuture，内容不会被缓存时为 null
+     */
+    public CompletableFuture<byte[]> prefetchAsync() {
+        if (url == null) {
+            throw new IllegalStateException("URL cannot be null");
+        }
+        OutputCache target = cache();
+        return target.getAsync(cacheKey(), () -> download(response -> {
+            long length = response.body().contentLength();
+            return length >= 0 && !target.canHold(length) ? null : response.body().bytes();
+        }));
+    }
+
+    /**
+     * 在调用线程上下载完整内容，已预取到本地时读取本地文件
+     */
+    private byte[] fetch() throws IOException {
+        Path local = awaitLocalCopy();
+        if (local != null) {
+            return Files.readAllBytes(local);
+        }
+        Request request = new Request.Builder()
+                .url(url)
+                .build();
+
+        try (Response response = httpClient().newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Failed to download file: HTTP " + response.code());
+            }
+            if (response.body() == null) {
+                throw new IOException("Empty response body");
             }
+            return response.body().bytes();
         }
-        return content;
     }
 
     /**
-     * 获取文件输入流（零拷贝）
+     * 异步保存文件到本地
+     *
+     * @param path 目标路径，已存在时在下载完成后被替换
+     * @return 保存完成的 CompletableFuture，失败时以 IOException 异常完成
+     * @see #save(Path)
      */
-    public InputStream getInputStream() throws IOException {
+    public CompletableFuture<Path> saveAsync(Path path) {
+        if (url == null) {
+            throw new IllegalStateException("URL cannot be null");
+        }
+        CompletableFuture<Path> copy = localCopy;
+        if (copy == null) {
+            return downloader().downloadAsync(url, path);
+        }
+        return copy.handle((local, error) -> local).thenCompose(local -> {
+            if (local == null || !Files.isRegularFile(local)) {
+                return downloader().downloadAsync(url, path);
+            }
+            try {
+                return CompletableFuture.completedFuture(copyLocal(local, path));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * 将预取的本地文件复制到目标路径，先写入同目录的临时文件再改名，与下载保存的语义一致
+     */
+    private static Path copyLocal(Path source, Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        if (Files.exists(absolute) && Files.isSameFile(source, absolute)) {
+            return target;
+        }
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".part");
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return target;
+    }
+
+    /**
+     * 异步下载并在 OkHttp 回调线程上处理响应体
+     */
+    private <R> CompletableFuture<R> download(ResponseHandler<R> handler) {
         if (url == null) {
             throw new IllegalStateException("URL cannot be null");
         }
@@ -80,16 +311,277 @@ public class FileOutput implements Serializable {
                 .url(url)
                 .build();
 
-        Response response = httpClient.newCall(request).execute();
+        return transport().enqueue(request).thenApply(response -> {
+            try (Response r = response) {
+                if (!r.isSuccessful()) {
+                    throw new IOException("Failed to download file: HTTP " + r.code());
+                }
+                if (r.body() == null) {
+                    throw new IOException("Empty response body");
+                }
+                return handler.handle(r);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * 响应处理回调
+     */
+    private interface ResponseHandler<R> {
+        R handle(Response response) throws IOException;
+    }
+
+    /**
+     * 获取文件输入流（零拷贝）
+     */
+    public InputStream getInputStream() throws IOException {
+        return execute(null).body().byteStream();
+    }
+
+    /**
+     * 在调用线程上发起下载，返回成功的响应，调用方负责关闭
+     *
+     * @param range Range 请求头，为 null 时下载完整文件
+     */
+    private Response execute(String range) throws IOException {
+        Response response = call(range);
         if (!response.isSuccessful()) {
             response.close();
             throw new IOException("Failed to download file: HTTP " + response.code());
         }
+        return response;
+    }
+
+    /**
+     * 在调用线程上发起下载，返回任意状态码的响应
+     */
+    private Response call(String range) throws IOException {
+        if (url == null) {
+            throw new IllegalStateException("URL cannot be null");
+        }
+        Request.Builder builder = new Request.Builder()
+                .url(url);
+        if (range != null) {
+            builder.header("Range", range);
+        }
+
+        Response response = httpClient().newCall(builder.build()).execute();
         if (response.body() == null) {
             response.close();
             throw new IOException("Empty response body");
         }
-        return response.body().byteStream();
+        return response;
+    }
+
+    /**
+     * 将文件内容写入通道，经由共享的直接缓冲区池传输，不分配堆内缓冲区
+     *
+     * @param channel 目标通道，应为阻塞模式
+     * @return 写入的字节数
+     */
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        try (Response response = execute(null)) {
+            return ChannelTransfer.copy(response.body().source(), channel, Long.MAX_VALUE,
+                DirectBufferPool.defaultPool());
+        }
+    }
+
+    /**
+     * 将文件中从 position 开始的最多 count 字节写入通道，语义与 {@link java.nio.channels.FileChannel#transferTo} 一致
+     *
+     * 通过 Range 请求只下载所需部分；服务端不支持 Range 时跳过前面的内容。
+     *
+     * @param position 起始位置
+     * @param count 最多传输的字节数
+     * @param channel 目标通道，应为阻塞模式
+     * @return 实际写入的字节数，position 超出文件大小时为 0
+     */
+    public long transferTo(long position, long count, WritableByteChannel channel) throws IOException {
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException("position and count must not be negative");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long end = position + count - 1 < 0 ? Long.MAX_VALUE - 1 : position + count - 1;
+        try (Response r = call("bytes=" + position + "-" + end)) {
+            if (r.code() == 416) {
+                return 0;
+            }
+            if (!r.isSuccessful()) {
+                throw new IOException("Failed to download file: HTTP " + r.code());
+            }
+            BufferedSource source = r.body().source();
+            if (r.code() != 206 && position > 0) {
+                try {
+                    source.skip(position);
+                } catch (EOFException e) {
+                    return 0;
+                }
+            }
+            return ChannelTransfer.copy(source, channel, count, DirectBufferPool.defaultPool());
+        }
+    }
+
+    /**
+     * 将文件内容异步写入支持背压的目标，例如 Servlet 异步响应
+     *
+     * 目标不可写时不占用线程，可写回调到来后继续传输；取消返回的 Future 会中断下载。
+     *
+     * @param sink 输出目标
+     * @return 写入的字节数，失败时以 IOException 异常完成
+     */
+    public CompletableFuture<Long> writeToAsync(NonBlockingSink sink) {
+        if (url == null) {
+            throw new IllegalStateException("URL cannot be null");
+        }
+        Request request = new Request.Builder()
+                .url(url)
+                .build();
+
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        transport().enqueue(request).whenComplete((response, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (!response.isSuccessful() || response.body() == null || result.isDone()) {
+                response.close();
+                result.completeExceptionally(new IOException(response.isSuccessful() ? "Empty response body"
+                    : "Failed to download file: HTTP " + response.code()));
+                return;
+            }
+            CompletableFuture<Long> transfer = ChannelTransfer.copyAsync(response, sink,
+                DirectBufferPool.defaultPool());
+            // 调用方取消时停止传输并关闭响应
+            result.whenComplete((count, failure) -> transfer.cancel(false));
+            transfer.whenComplete((count, failure) -> {
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(count);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * 只读取文件头解析媒体元信息，不下载文件内容
+     *
+     * 先用 Range 请求读取开头的 {@link MediaProbe#HEADER_SIZE} 字节；MP4 的 moov 位于文件末尾、JPEG 的 SOF
+     * 位于较大的 EXIF 段之后时，再按偏移读取所需的部分。服务端不支持 Range 时只读取响应的开头部分。
+     *
+     * @return 解析出的元信息，无法识别的格式只包含 MIME 类型和文件大小
+     * @throws IOException 请求失败，或所需部分超出文件头而服务端不支持 Range
+     */
+    public MediaInfo probeMedia() throws IOException {
+        return MediaProbe.probe(new RangeSource());
+    }
+
+    /**
+     * 以 Range 请求按位置读取文件，缓存文件头和最近一次读取的块
+     */
+    private final class RangeSource implements MediaProbe.Source {
+        private long size = -1;
+        private boolean ranged;
+        private byte[] head;
+        private byte[] block;
+        private long blockStart;
+
+        @Override
+        public byte[] read(long position, int length) throws IOException {
+            if (head == null) {
+                readHead(Math.max(length, MediaProbe.HEADER_SIZE));
+            }
+            byte[] cached = slice(head, 0, position, length);
+            if (cached == null) {
+                cached = slice(block, blockStart, position, length);
+            }
+            if (cached != null) {
+                return cached;
+            }
+            if (size >= 0 && position >= size) {
+                return new byte[0];
+            }
+            if (!ranged) {
+                throw new IOException("Server does not support range requests");
+            }
+
+            int fetch = Math.max(length, PROBE_BLOCK_SIZE);
+            try (Response r = call("bytes=" + position + "-" + (position + fetch - 1))) {
+                if (r.code() == 416) {
+                    return new byte[0];
+                }
+                if (r.code() != 206) {
+                    throw new IOException("Failed to download file: HTTP " + r.code());
+                }
+                block = readUpTo(r.body().source(), fetch);
+                blockStart = position;
+            }
+            return Arrays.copyOf(block, Math.min(length, block.length));
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        private void readHead(int length) throws IOException {
+            try (Response r = call("bytes=0-" + (length - 1))) {
+                if (r.code() == 416) {
+                    head = new byte[0];
+                    size = 0;
+                    return;
+                }
+                if (!r.isSuccessful()) {
+                    throw new IOException("Failed to download file: HTTP " + r.code());
+                }
+                ranged = r.code() == 206;
+                if (ranged) {
+                    Matcher matcher = CONTENT_RANGE.matcher(String.valueOf(r.header("Content-Range")));
+                    size = matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+                } else {
+                    size = r.body().contentLength();
+                }
+                // 不支持 Range 时只读取开头部分，关闭响应放弃其余内容
+                head = readUpTo(r.body().source(), length);
+                if (head.length < length) {
+                    size = head.length;
+                }
+            }
+        }
+
+        /**
+         * 从缓存的块中取出 [position, position + length)，块已到达文件末尾时允许截短
+         */
+        private byte[] slice(byte[] data, long start, long position, int length) {
+            if (data == null || position < start || position - start > data.length) {
+                return null;
+            }
+            int offset = (int) (position - start);
+            if (offset + length <= data.length) {
+                return Arrays.copyOfRange(data, offset, offset + length);
+            }
+            if (size >= 0 && start + data.length >= size) {
+                return Arrays.copyOfRange(data, offset, data.length);
+            }
+            return null;
+        }
+
+        private byte[] readUpTo(BufferedSource source, int length) throws IOException {
+            Buffer buffer = new Buffer();
+            while (buffer.size() < length) {
+                if (source.read(buffer, length - buffer.size()) == -1) {
+                    break;
+                }
+            }
+            return buffer.readByteArray();
+        }
     }
 
     /**
@@ -129,11 +621,23 @@ public class FileOutput implements Serializable {
 
     /**
      * 保存文件到本地（零拷贝版本）
+     *
+     * 内容通过 FileChannel.transferFrom 写入同目录的临时文件，连接中断时用 Range 从断点续传，
+     * 完成后原子地改名为目标文件；失败时目标文件保持原样。绑定了分段下载器时，服务端支持 Range 的大文件按分段并行下载。
+     * 文件已预取到本地目录时等待预取完成后复制本地文件。
+     *
+     * @param path 目标路径，已存在时在下载完成后被替换
      */
     public void save(Path path) throws IOException {
-        try (InputStream inputStream = getInputStream()) {
-            Files.copy(inputStream, path);
+        if (url == null) {
+            throw new IllegalStateException("URL cannot be null");
+        }
+        Path local = awaitLocalCopy();
+        if (local != null) {
+            copyLocal(local, path);
+            return;
         }
+        downloader().download(url, path);
     }
 
     @Override
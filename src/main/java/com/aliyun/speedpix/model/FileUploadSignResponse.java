@@ -26,6 +26,10 @@ public class FileUploadSignResponse extends GatewayResponse {
         @JsonProperty("objectKey")
         private String objectKey;
 
+        // 分片上传会话ID，仅分片上传初始化时返回
+        @JsonProperty("uploadId")
+        private String uploadId;
+
         // Getters and setters
         public String getPath() {
             return path;
@@ -66,6 +70,14 @@ public class FileUploadSignResponse extends GatewayResponse {
         public void setObjectKey(String objectKey) {
             this.objectKey = objectKey;
         }
+
+        public String getUploadId() {
+            return uploadId;
+        }
+
+        public void setUploadId(String uploadId) {
+            this.uploadId = uploadId;
+        }
     }
 
     @JsonProperty("data")
@@ -3,6 +3,8 @@ package com.aliyun.speedpix.model;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.io.IOException;
+
 /**
  * 图片文件输出，包含图片特有的元信息
  */
@@ -48,6 +50,24 @@ public class ImageOutput extends FileOutput {
         this.format = format;
     }
 
+    /**
+     * 只读取文件头（PNG IHDR、JPEG SOF、WebP VP8X 等）解析宽高和格式，填充到当前对象，不下载图片内容
+     *
+     * @return 当前对象
+     * @see FileOutput#probeMedia()
+     */
+    public ImageOutput probe() throws IOException {
+        MediaInfo info = probeMedia();
+        if (info.getWidth() > 0 && info.getHeight() > 0) {
+            width = info.getWidth();
+            height = info.getHeight();
+        }
+        if (info.getFormat() != null) {
+            format = info.getFormat();
+        }
+        return this;
+    }
+
     public int getWidth() {
         return width;
     }
@@ -60,6 +80,18 @@ public class ImageOutput extends FileOutput {
         return format;
     }
 
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    /**
+     * 有 object_key 时以其为缓存键，同一对象的不同签名 URL 共享缓存
+     */
+    @Override
+    public String cacheKey() {
+        return objectKey != null ? objectKey : super.cacheKey();
+    }
+
     @Override
     public String toString() {
         return "ImageOutput{" +
@@ -0,0 +1,175 @@
+package com.aliyun.speedpix.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 按 Base64 内联到请求 JSON 中的文件
+ *
+ * 只保存文件的来源，序列化时才读取内容，通过 {@link JsonGenerator#writeBinary(InputStream, int)}
+ * 边读边编码写入输出流，内存占用与文件大小无关。路径和字节数组来源可重复序列化；
+ * 输入流来源只能序列化一次，包含它的请求体不能被重发。
+ */
+@JsonSerialize(using = InlineFile.Serializer.class)
+public final class InlineFile {
+
+    private final Path path;
+    private final byte[] bytes;
+    private final InputStream inputStream;
+    private final long length;
+    private final long maxSize;
+
+    private InlineFile(Path path, byte[] bytes, InputStream inputStream, long length, long maxSize) {
+        this.path = path;
+        this.bytes = bytes;
+        this.inputStream = inputStream;
+        this.length = length;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param path 文件路径
+     * @param maxSize 允许的最大字节数，小于等于 0 表示不限制
+     * @return InlineFile实例
+     * @throws IOException 文件不存在或超过上限
+     */
+    public static InlineFile of(Path path, long maxSize) throws IOException {
+        long size = Files.size(path);
+        checkSize(size, maxSize);
+        return new InlineFile(path, null, null, size, maxSize);
+    }
+
+    /**
+     * @param bytes 文件内容，不会被复制
+     * @param maxSize 允许的最大字节数，小于等于 0 表示不限制
+     * @return InlineFile实例
+     * @throws IOException 超过上限
+     */
+    public static InlineFile of(byte[] bytes, long maxSize) throws IOException {
+        checkSize(bytes.length, maxSize);
+        return new InlineFile(null, bytes, null, bytes.length, maxSize);
+    }
+
+    /**
+     * 长度未知的输入流，超过上限时在序列化过程中失败
+     *
+     * @param inputStream 输入流
+     * @param maxSize 允许的最大字节数，小于等于 0 表示不限制
+     * @return InlineFile实例
+     */
+    public static InlineFile of(InputStream inputStream, long maxSize) {
+        return new InlineFile(null, null, inputStream, -1, maxSize);
+    }
+
+    /**
+     * 获取内容长度
+     *
+     * @return 字节数，输入流来源为 -1
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * 是否可以重复序列化
+     *
+     * @return 输入流来源为 false
+     */
+    public boolean isRepeatable() {
+        return inputStream == null;
+    }
+
+    /**
+     * 打开内容流，输入流来源只能打开一次
+     */
+    InputStream openStream() throws IOException {
+        if (path != null) {
+            return Files.newInputStream(path);
+        }
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        return maxSize > 0 ? new LimitedInputStream(inputStream, maxSize) : inputStream;
+    }
+
+    private static void checkSize(long size, long maxSize) throws IOException {
+        if (maxSize > 0 && size > maxSize) {
+            throw new IOException("文件过大，base64 内联仅支持不超过 " + maxSize + " 字节的文件");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InlineFile(" + (path != null ? path : length >= 0 ? length + " bytes" : "stream") + ")";
+    }
+
+    /**
+     * 读取超过上限时抛出异常的输入流
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long maxSize;
+        private long count;
+
+        LimitedInputStream(InputStream in, long maxSize) {
+            super(in);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            count += n;
+            checkSize(count, maxSize);
+        }
+    }
+
+    /**
+     * 将内容以 Base64 字符串写入 JSON，不在内存中构造完整的字符串
+     */
+    public static class Serializer extends StdSerializer<InlineFile> {
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(InlineFile.class);
+        }
+
+        @Override
+        public void serialize(InlineFile value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int length = value.length >= 0 && value.length <= Integer.MAX_VALUE ? (int)value.length : -1;
+            InputStream in = value.openStream();
+            try {
+                gen.writeBinary(in, length);
+            } finally {
+                // 调用方传入的输入流由调用方关闭
+                if (value.isRepeatable()) {
+                    in.close();
+                }
+            }
+        }
+    }
+}
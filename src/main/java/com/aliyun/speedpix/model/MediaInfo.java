@@ -0,0 +1,206 @@
+package com.aliyun.speedpix.model;
+
+/**
+ * 从文件头解析出的媒体元信息，未能解析的字段为 0 或 null
+ */
+public class MediaInfo {
+
+    private final String mimeType;
+    private final String format;
+    private final int width;
+    private final int height;
+    private final long duration; // 时长，单位：毫秒
+    private final String codec;
+    private final double frameRate;
+    private final int bitrate; // 比特率，单位：bit/s
+    private final int sampleRate;
+    private final int channels;
+    private final long fileSize;
+    private final boolean hasAudio;
+
+    private MediaInfo(Builder builder) {
+        this.mimeType = builder.mimeType;
+        this.format = builder.format;
+        this.width = builder.width;
+        this.height = builder.height;
+        this.duration = builder.duration;
+        this.codec = builder.codec;
+        this.frameRate = builder.frameRate;
+        this.bitrate = builder.bitrate;
+        this.sampleRate = builder.sampleRate;
+        this.channels = builder.channels;
+        this.fileSize = builder.fileSize;
+        this.hasAudio = builder.hasAudio;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * 获取格式简称，如 png、jpeg、mp4、wav、mp3
+     *
+     * @return 格式简称
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public double getFrameRate() {
+        return frameRate;
+    }
+
+    public int getBitrate() {
+        return bitrate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * 获取文件大小，服务端未返回时为 -1
+     *
+     * @return 字节数
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public boolean hasAudio() {
+        return hasAudio;
+    }
+
+    @Override
+    public String toString() {
+        return "MediaInfo{" +
+                "mimeType='" + mimeType + '\'' +
+                ", format='" + format + '\'' +
+                ", width=" + width +
+                ", height=" + height +
+                ", duration=" + duration +
+                ", codec='" + codec + '\'' +
+                ", frameRate=" + frameRate +
+                ", bitrate=" + bitrate +
+                ", sampleRate=" + sampleRate +
+                ", channels=" + channels +
+                ", fileSize=" + fileSize +
+                ", hasAudio=" + hasAudio +
+                '}';
+    }
+
+    /**
+     * 创建Builder实例
+     *
+     * @return Builder实例
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * MediaInfo Builder
+     */
+    public static class Builder {
+        private String mimeType;
+        private String format;
+        private int width;
+        private int height;
+        private long duration;
+        private String codec;
+        private double frameRate;
+        private int bitrate;
+        private int sampleRate;
+        private int channels;
+        private long fileSize = -1;
+        private boolean hasAudio;
+
+        public Builder mimeType(String mimeType) {
+            this.mimeType = mimeType;
+            return this;
+        }
+
+        public Builder format(String format) {
+            this.format = format;
+            return this;
+        }
+
+        public Builder width(int width) {
+            this.width = width;
+            return this;
+        }
+
+        public Builder height(int height) {
+            this.height = height;
+            return this;
+        }
+
+        public Builder duration(long duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        public Builder codec(String codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        public Builder frameRate(double frameRate) {
+            this.frameRate = frameRate;
+            return this;
+        }
+
+        public Builder bitrate(int bitrate) {
+            this.bitrate = bitrate;
+            return this;
+        }
+
+        public Builder sampleRate(int sampleRate) {
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        public Builder channels(int channels) {
+            this.channels = channels;
+            return this;
+        }
+
+        public Builder fileSize(long fileSize) {
+            this.fileSize = fileSize;
+            return this;
+        }
+
+        public Builder hasAudio(boolean hasAudio) {
+            this.hasAudio = hasAudio;
+            return this;
+        }
+
+        /**
+         * 构建MediaInfo实例
+         * @return MediaInfo实例
+         */
+        public MediaInfo build() {
+            return new MediaInfo(this);
+        }
+    }
+}
@@ -3,8 +3,9 @@ package com.aliyun.speedpix.model;
 import com.aliyun.speedpix.exception.SpeedPixException;
 import com.aliyun.speedpix.util.OutputConverterUtils;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * SpeedPix 预测任务对象
@@ -23,11 +24,16 @@ public class Prediction<T> {
     private String error;
     private String errorCode;
     private String invokeId;
+    private Double progress;
+    private Double etaRelative;
 
     // 内部使用字段
     private transient Object client; // 使用 Object 类型避免循环依赖，transient 避免序列化
     private transient String workflowId;
     private transient String aliasId;
+    private transient Double estimatedDurationInSeconds;
+    private transient long createdAtMillis;
+    private transient int pollCount;
 
     // Constructors
     public Prediction() {}
@@ -108,6 +114,61 @@ public class Prediction<T> {
         this.invokeId = invokeId;
     }
 
+    /**
+     * 最近一次查询得到的进度（0~1）
+     */
+    public Double getProgress() {
+        return progress;
+    }
+
+    public void setProgress(Double progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * 最近一次查询得到的剩余时间估计（秒）
+     */
+    public Double getEtaRelative() {
+        return etaRelative;
+    }
+
+    public void setEtaRelative(Double etaRelative) {
+        this.etaRelative = etaRelative;
+    }
+
+    /**
+     * 创建任务时服务端给出的预计耗时（秒）
+     */
+    public Double getEstimatedDurationInSeconds() {
+        return estimatedDurationInSeconds;
+    }
+
+    public void setEstimatedDurationInSeconds(Double estimatedDurationInSeconds) {
+        this.estimatedDurationInSeconds = estimatedDurationInSeconds;
+    }
+
+    /**
+     * 任务提交时间（毫秒时间戳），未知时为 0
+     */
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public void setCreatedAtMillis(long createdAtMillis) {
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    /**
+     * 等待该任务完成所花费的状态查询次数
+     */
+    public int getPollCount() {
+        return pollCount;
+    }
+
+    public void setPollCount(int pollCount) {
+        this.pollCount = pollCount;
+    }
+
     public Object getClient() {
         return client;
     }
@@ -152,7 +213,7 @@ public class Prediction<T> {
      * 注意：建议使用 waitForOutput() 方法替代
      */
     public Prediction<T> waitForCompletion() throws InterruptedException {
-        return waitForCompletion(1.0);
+        return waitFor(new Class<?>[] {Prediction.class}, this);
     }
 
     /**
@@ -163,16 +224,41 @@ public class Prediction<T> {
      */
 
     public Prediction<T> waitForCompletion(double pollingInterval) throws InterruptedException {
+        return waitFor(new Class<?>[] {Prediction.class, double.class}, this, pollingInterval);
+    }
+
+    /**
+     * 通过客户端轮询引擎的 await 方法等待完成
+     */
+    private Prediction<T> waitFor(Class<?>[] parameterTypes, Object... args) throws InterruptedException {
+        if (isFinished()) {
+            return this;
+        }
         try {
-            while (!isFinished()) {
-                Thread.sleep((long)(pollingInterval * 1000));
-                reload();
+            if (client == null || id == null) {
+                throw new SpeedPixException("Cannot reload prediction without client and ID");
             }
-        } catch (SpeedPixException e) {
+
+            // 交给客户端的轮询引擎统一调度，避免每个等待者各自循环轮询
+            Object pollingEngine = client.getClass().getMethod("polling").invoke(client);
+            Future<?> future = (Future<?>)pollingEngine.getClass()
+                .getMethod("await", parameterTypes)
+                .invoke(pollingEngine, args);
+            future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            SpeedPixException error = cause instanceof SpeedPixException ? (SpeedPixException)cause
+                : new SpeedPixException("Failed to reload prediction: " + cause.getMessage(), cause);
             // 对于兼容性方法，不抛出异常，而是设置错误状态
+            this.error = error.getMessage();
+            this.errorCode = error.getErrorCode();
+            this.invokeId = error.getApiInvokeId();
+        } catch (SpeedPixException e) {
             this.error = e.getMessage();
             this.errorCode = e.getErrorCode();
             this.invokeId = e.getApiInvokeId();
+        } catch (ReflectiveOperationException e) {
+            this.error = "Failed to reload prediction: " + e.getMessage();
         }
         return this;
     }
@@ -200,17 +286,28 @@ public class Prediction<T> {
                 .invoke(predictionsService, this.id, typeClass);
 
             // 更新当前对象的状态
-            this.status = updated.getStatus();
-            this.error = updated.getError();
-            this.errorCode = updated.getErrorCode();
-            this.invokeId = updated.getInvokeId();
-            this.setOutput(updated.getOutput());
+            updateFrom(updated);
 
         } catch (Exception e) {
             throw new SpeedPixException("Failed to reload prediction: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 用另一次查询得到的预测任务更新当前对象的状态和输出
+     *
+     * @param updated 最新的预测任务
+     */
+    public void updateFrom(Prediction<T> updated) {
+        this.status = updated.getStatus();
+        this.error = updated.getError();
+        this.errorCode = updated.getErrorCode();
+        this.invokeId = updated.getInvokeId();
+        this.progress = updated.getProgress();
+        this.etaRelative = updated.getEtaRelative();
+        this.setOutput(updated.getOutput());
+    }
+
     @Override
     public String toString() {
         return String.format("Prediction{id='%s', status='%s', error='%s'}",
@@ -0,0 +1,55 @@
+package com.aliyun.speedpix.model;
+
+import java.io.InputStream;
+
+/**
+ * 以输入流提供内容的文件输入，创建任务时读取并上传，只能使用一次
+ */
+public final class StreamInput {
+
+    private final InputStream inputStream;
+    private final FileUploadOptions options;
+
+    private StreamInput(InputStream inputStream, String filename, String contentType) {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("inputStream is required");
+        }
+        this.inputStream = inputStream;
+        this.options = new FileUploadOptions(filename, contentType);
+    }
+
+    public static StreamInput of(InputStream inputStream, String filename) {
+        return new StreamInput(inputStream, filename, null);
+    }
+
+    /**
+     * @param inputStream 输入流
+     * @param filename 文件名
+     * @param contentType 内容类型，为空时自动检测
+     * @return StreamInput实例
+     */
+    public static StreamInput of(InputStream inputStream, String filename, String contentType) {
+        return new StreamInput(inputStream, filename, contentType);
+    }
+
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    public String getFilename() {
+        return options.getFilename();
+    }
+
+    public String getContentType() {
+        return options.getContentType();
+    }
+
+    public FileUploadOptions toUploadOptions() {
+        return new FileUploadOptions(options.getFilename(), options.getContentType());
+    }
+
+    @Override
+    public String toString() {
+        return "StreamInput(" + options.getFilename() + ")";
+    }
+}
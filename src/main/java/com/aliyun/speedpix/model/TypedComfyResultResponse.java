@@ -0,0 +1,30 @@
+package com.aliyun.speedpix.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 查询结果的响应（result 直接绑定为目标类型）
+ *
+ * 配合参数化的 JavaType 使用，响应流一次性反序列化为目标类型，不经过中间的 Map。
+ *
+ * @param <T> 结果类型
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TypedComfyResultResponse<T> extends GatewayResponse {
+
+    @JsonProperty("data")
+    private TypedComfyResultResponseData<T> data;
+
+    // Constructors
+    public TypedComfyResultResponse() {}
+
+    // Getters and Setters
+    public TypedComfyResultResponseData<T> getData() {
+        return data;
+    }
+
+    public void setData(TypedComfyResultResponseData<T> data) {
+        this.data = data;
+    }
+}
@@ -0,0 +1,54 @@
+package com.aliyun.speedpix.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 查询结果响应的数据部分（result 直接绑定为目标类型）
+ *
+ * @param <T> 结果类型
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TypedComfyResultResponseData<T> {
+
+    @JsonProperty("taskId")
+    private String taskId;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("result")
+    private T result;
+
+    // Constructors
+    public TypedComfyResultResponseData() {}
+
+    // Getters and Setters
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public TaskStatus getTaskStatus() {
+        return TaskStatus.fromValue(status);
+    }
+
+    public T getResult() {
+        return result;
+    }
+
+    public void setResult(T result) {
+        this.result = result;
+    }
+}
@@ -2,6 +2,8 @@ package com.aliyun.speedpix.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import java.io.IOException;
+
 /**
  * 视频文件输出，包含视频特有的元信息
  */
@@ -9,15 +11,15 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 public class VideoOutput extends FileOutput {
     private static final long serialVersionUID = 1L;
 
-    private final int width;
-    private final int height;
-    private final long duration; // 时长，单位：毫秒
-    private final String format;
-    private final String codec; // 编解码器
-    private final double frameRate; // 帧率
-    private final int bitrate; // 比特率
-    private final long fileSize;
-    private final boolean hasAudio; // 是否包含音频
+    private int width;
+    private int height;
+    private long duration; // 时长，单位：毫秒
+    private String format;
+    private String codec; // 编解码器
+    private double frameRate; // 帧率
+    private int bitrate; // 比特率
+    private long fileSize;
+    private boolean hasAudio; // 是否包含音频
 
     /**
      * 无参构造函数，用于反序列化
@@ -49,6 +51,45 @@ public class VideoOutput extends FileOutput {
         this.hasAudio = hasAudio;
     }
 
+    /**
+     * 只读取文件头（MP4 的 moov）解析宽高、时长、编解码器、帧率和音轨，填充到当前对象，不下载视频内容
+     *
+     * 解析出的字段覆盖服务端返回的值，未能解析的字段保持不变。
+     *
+     * @return 当前对象
+     * @see FileOutput#probeMedia()
+     */
+    public VideoOutput probe() throws IOException {
+        MediaInfo info = probeMedia();
+        if (info.getWidth() > 0 && info.getHeight() > 0) {
+            width = info.getWidth();
+            height = info.getHeight();
+        }
+        if (info.getDuration() > 0) {
+            duration = info.getDuration();
+        }
+        if (info.getFormat() != null) {
+            format = info.getFormat();
+        }
+        if (info.getCodec() != null) {
+            codec = info.getCodec();
+        }
+        if (info.getFrameRate() > 0) {
+            frameRate = info.getFrameRate();
+        }
+        if (info.getBitrate() > 0) {
+            bitrate = info.getBitrate();
+        }
+        if (info.getFileSize() >= 0) {
+            fileSize = info.getFileSize();
+        }
+        if (info.getDuration() > 0) {
+            // 解析到 moov 时音轨信息才可靠
+            hasAudio = info.hasAudio();
+        }
+        return this;
+    }
+
     public int getWidth() {
         return width;
     }
@@ -0,0 +1,192 @@
+package com.aliyun.speedpix.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于 ETA 的自适应轮询策略（默认策略）
+ *
+ * <ul>
+ *   <li>有剩余时间估计时（优先使用 etaRelative，其次是创建时的 estimatedDurationInSeconds 减去已耗时，
+ *       再次是按进度外推），先等待剩余时间的一部分，越接近完成间隔越短；</li>
+ *   <li>进入最后的 finalApproach 窗口后按最小间隔快速逼近；</li>
+ *   <li>超过预计完成时间或没有任何估计时，按指数退避放慢查询，避免长任务浪费网关配额；</li>
+ *   <li>每次间隔叠加随机抖动，避免大量任务同步轮询。</li>
+ * </ul>
+ */
+public class AdaptivePollingPolicy implements PollingPolicy {
+
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final long initialIntervalMillis;
+    private final double backoffMultiplier;
+    private final double jitter;
+    private final long finalApproachMillis;
+    private final double etaFraction;
+
+    private AdaptivePollingPolicy(Builder builder) {
+        this.minIntervalMillis = builder.minIntervalMillis;
+        this.maxIntervalMillis = builder.maxIntervalMillis;
+        this.initialIntervalMillis = builder.initialIntervalMillis;
+        this.backoffMultiplier = builder.backoffMultiplier;
+        this.jitter = builder.jitter;
+        this.finalApproachMillis = builder.finalApproachMillis;
+        this.etaFraction = builder.etaFraction;
+    }
+
+    /**
+     * 使用默认参数创建策略
+     *
+     * @return AdaptivePollingPolicy实例
+     */
+    public static AdaptivePollingPolicy defaults() {
+        return builder().build();
+    }
+
+    @Override
+    public long nextDelayMillis(PollingState state) {
+        Double remainingMillis = estimateRemainingMillis(state);
+        double delay;
+
+        if (remainingMillis == null) {
+            // 没有任何估计：从初始间隔开始指数退避
+            delay = initialIntervalMillis * Math.pow(backoffMultiplier, state.getPollCount());
+        } else if (remainingMillis > finalApproachMillis) {
+            // 距离完成还远：只等待剩余时间的一部分（最多到逼近窗口起点），随后用新的估计修正
+            delay = Math.min(remainingMillis * etaFraction, remainingMillis - finalApproachMillis);
+        } else if (remainingMillis >= 0) {
+            // 最后逼近阶段：按最小间隔快速查询
+            delay = minIntervalMillis;
+        } else {
+            // 已超过预计完成时间：间隔与超时时长成正比（随时间线性增长）；超时时长每次累加上一个间隔，
+            // 因此按查询次数看，相邻两次间隔按 backoffMultiplier 倍增长
+            delay = minIntervalMillis + (-remainingMillis) * (backoffMultiplier - 1);
+        }
+
+        delay = Math.min(Math.max(delay, minIntervalMillis), maxIntervalMillis);
+        if (jitter > 0) {
+            delay *= 1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        }
+        return Math.max(minIntervalMillis / 2, (long)delay);
+    }
+
+    /**
+     * 估计剩余耗时（毫秒），无法估计时返回 null
+     */
+    private Double estimateRemainingMillis(PollingState state) {
+        // etaRelative 为 0 但任务仍未结束时不可信，退回到按预计耗时判断是否超时
+        if (state.getEtaRelative() != null && state.getEtaRelative() > 0) {
+            return state.getEtaRelative() * 1000;
+        }
+        if (state.getEstimatedDurationInSeconds() != null && state.getEstimatedDurationInSeconds() > 0) {
+            return state.getEstimatedDurationInSeconds() * 1000 - state.getElapsedMillis();
+        }
+        Double progress = state.getProgress();
+        if (progress != null && progress > 0 && progress < 1.0 && state.getElapsedMillis() > 0) {
+            return state.getElapsedMillis() * (1 - progress) / progress;
+        }
+        return null;
+    }
+
+    /**
+     * 创建Builder实例
+     *
+     * @return Builder实例
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * AdaptivePollingPolicy Builder
+     */
+    public static class Builder {
+        private long minIntervalMillis = 250;
+        private long maxIntervalMillis = 15_000;
+        private long initialIntervalMillis = 1_000;
+        private double backoffMultiplier = 1.5;
+        private double jitter = 0.1;
+        private long finalApproachMillis = 2_000;
+        private double etaFraction = 0.5;
+
+        /**
+         * 设置最小轮询间隔
+         * @param minIntervalMillis 最小间隔(毫秒) (默认: 250)
+         * @return Builder实例
+         */
+        public Builder minIntervalMillis(long minIntervalMillis) {
+            this.minIntervalMillis = minIntervalMillis;
+            return this;
+        }
+
+        /**
+         * 设置最大轮询间隔
+         * @param maxIntervalMillis 最大间隔(毫秒) (默认: 15000)
+         * @return Builder实例
+         */
+        public Builder maxIntervalMillis(long maxIntervalMillis) {
+            this.maxIntervalMillis = maxIntervalMillis;
+            return this;
+        }
+
+        /**
+         * 设置无 ETA 信息时的初始轮询间隔
+         * @param initialIntervalMillis 初始间隔(毫秒) (默认: 1000)
+         * @return Builder实例
+         */
+        public Builder initialIntervalMillis(long initialIntervalMillis) {
+            this.initialIntervalMillis = initialIntervalMillis;
+            return this;
+        }
+
+        /**
+         * 设置退避倍数
+         * @param backoffMultiplier 退避倍数 (默认: 1.5)
+         * @return Builder实例
+         */
+        public Builder backoffMultiplier(double backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+            return this;
+        }
+
+        /**
+         * 设置随机抖动比例
+         * @param jitter 抖动比例，0 表示不抖动 (默认: 0.1，即 ±10%)
+         * @return Builder实例
+         */
+        public Builder jitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * 设置最后逼近窗口，剩余时间小于该值时按最小间隔查询
+         * @param finalApproachMillis 逼近窗口(毫秒) (默认: 2000)
+         * @return Builder实例
+         */
+        public Builder finalApproachMillis(long finalApproachMillis) {
+            this.finalApproachMillis = finalApproachMillis;
+            return this;
+        }
+
+        /**
+         * 设置距离完成较远时每次等待剩余时间的比例
+         * @param etaFraction 等待比例 (默认: 0.5)
+         * @return Builder实例
+         */
+        public Builder etaFraction(double etaFraction) {
+            this.etaFraction = etaFraction;
+            return this;
+        }
+
+        /**
+         * 构建AdaptivePollingPolicy实例
+         * @return AdaptivePollingPolicy实例
+         */
+        public AdaptivePollingPolicy build() {
+            if (minIntervalMillis <= 0 || maxIntervalMillis < minIntervalMillis) {
+                throw new IllegalArgumentException("invalid polling interval bounds");
+            }
+            return new AdaptivePollingPolicy(this);
+        }
+    }
+}
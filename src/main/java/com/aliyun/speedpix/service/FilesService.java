@@ -2,18 +2,26 @@ package com.aliyun.speedpix.service;
 
 import com.aliyun.speedpix.SpeedPixClient;
 import com.aliyun.speedpix.exception.SpeedPixException;
+import com.aliyun.speedpix.http.FileRequestBody;
+import com.aliyun.speedpix.http.HashingRequestBody;
+import com.aliyun.speedpix.http.StreamSpool;
 import com.aliyun.speedpix.model.FileObject;
 import com.aliyun.speedpix.model.FileUploadOptions;
 import com.aliyun.speedpix.model.FileUploadSignResponse;
 import com.aliyun.speedpix.util.MimeTypeDetector;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.*;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 文件服务类
@@ -21,14 +29,45 @@ import java.util.Map;
  */
 public class FilesService {
 
+    private static final String SIGN_PATH = "/scc/sp_create_temp_file_upload_sign";
+
+    // 异步上传时计算整文件哈希的线程池：读取整个文件是阻塞操作，不能放在调用线程或 OkHttp 回调线程上
+    private static final ExecutorService DIGEST_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "speedpix-upload-digest");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final SpeedPixClient client;
+    private final int spoolMemoryThreshold;
+    private final MultipartUploader multipartUploader;
+    private final UploadCache uploadCache;
+    private final UploadLatencyTracker uploadLatency = new UploadLatencyTracker();
 
     public FilesService(SpeedPixClient client) {
+        this(client, StreamSpool.DEFAULT_MEMORY_THRESHOLD, null, null);
+    }
+
+    /**
+     * @param client 客户端
+     * @param spoolMemoryThreshold 上传输入流时内存暂存的上限，超过后转存到临时文件
+     * @param multipartUploadConfig 分片上传配置，为 null 时所有文件都使用单次 PUT 上传
+     * @param uploadCache 上传缓存，为 null 时每次都重新上传
+     */
+    public FilesService(SpeedPixClient client, int spoolMemoryThreshold, MultipartUploadConfig multipartUploadConfig,
+        UploadCache uploadCache) {
         this.client = client;
+        this.spoolMemoryThreshold = spoolMemoryThreshold;
+        this.multipartUploader = multipartUploadConfig != null
+            ? new MultipartUploader(client, multipartUploadConfig) : null;
+        this.uploadCache = uploadCache;
     }
 
     /**
      * 上传文件（使用 File 对象）
+     *
+     * 文件大小取自文件元数据，内容类型由文件头和文件名判断，文件内容通过 FileChannel 流式上传，不整体读入内存。
+     * 启用分片上传且文件大小超过阈值时，按分片并行上传。
      */
     public FileObject create(File file) throws SpeedPixException {
         if (!file.exists()) {
@@ -36,9 +75,19 @@ public class FilesService {
         }
 
         try {
-            byte[] fileBytes = Files.readAllBytes(file.toPath());
-            String contentType = MimeTypeDetector.guessMimeTypeFromFilename(file.getName());
-            return uploadFileWithTwoStepProcess(file.getName(), fileBytes, contentType);
+            Path path = file.toPath();
+            String contentType = detectContentType(path, file.getName());
+            long size = Files.size(path);
+            String digest = prefilteredDigest(size, () -> UploadCache.sha256Hex(path));
+            FileObject cached = lookupCache(size, digest, file.getName());
+            if (cached != null) {
+                return cached;
+            }
+            if (multipartUploader != null && multipartUploader.accepts(size)) {
+                return join(uploadFileAsync(path, file.getName(), contentType, size, digest));
+            }
+            RequestBody body = cacheableBody(fileRequestBody(path, contentType), digest);
+            return remember(uploadFileWithTwoStepProcess(file.getName(), body, contentType), digest, body);
         } catch (IOException e) {
             throw new SpeedPixException("读取文件失败: " + e.getMessage(), e);
         }
@@ -53,15 +102,11 @@ public class FilesService {
 
     /**
      * 上传文件（使用 InputStream，需要提供文件名）
+     *
+     * 输入流先读入暂存区（小流在内存中，大流转存临时文件）以确定大小和内容类型，再从暂存区流式上传。
      */
     public FileObject create(InputStream inputStream, String filename) throws SpeedPixException {
-        try {
-            byte[] fileBytes = inputStreamToByteArray(inputStream);
-            String contentType = detectContentTypeFromStream(fileBytes, filename);
-            return uploadFileWithTwoStepProcess(filename, fileBytes, contentType);
-        } catch (IOException e) {
-            throw new SpeedPixException("读取输入流失败: " + e.getMessage(), e);
-        }
+        return create(inputStream, new FileUploadOptions(filename, null));
     }
 
     /**
@@ -79,16 +124,26 @@ public class FilesService {
             filename = "file";
         }
 
+        StreamSpool spool;
         try {
-            byte[] fileBytes = inputStreamToByteArray(inputStream);
+            spool = spool(inputStream);
+        } catch (IOException e) {
+            throw new SpeedPixException("读取输入流失败: " + e.getMessage(), e);
+        }
 
+        try {
+            String digest = spoolDigest(spool);
+            FileObject cached = lookupCache(spool.getSize(), digest, filename);
+            if (cached != null) {
+                return cached;
+            }
             if (contentType == null || contentType.trim().isEmpty()) {
-                contentType = detectContentTypeFromStream(fileBytes, filename);
+                contentType = detectContentTypeFromStream(spool.getHeader(), filename);
             }
-
-            return uploadFileWithTwoStepProcess(filename, fileBytes, contentType);
-        } catch (IOException e) {
-            throw new SpeedPixException("读取输入流失败: " + e.getMessage(), e);
+            RequestBody body = spool.requestBody(MediaType.parse(contentType));
+            return remember(uploadFileWithTwoStepProcess(filename, body, contentType), digest, body);
+        } finally {
+            closeQuietly(spool);
         }
     }
 
@@ -104,22 +159,211 @@ public class FilesService {
             filename = "file";
         }
 
+        String digest = bytesDigest(fileBytes);
+        FileObject cached = lookupCache(fileBytes.length, digest, filename);
+        if (cached != null) {
+            return cached;
+        }
+
         if (contentType == null || contentType.trim().isEmpty()) {
             contentType = MimeTypeDetector.detectMimeType(fileBytes);
         }
 
-        return uploadFileWithTwoStepProcess(filename, fileBytes, contentType);
+        RequestBody body = cacheableBody(RequestBody.create(fileBytes, MediaType.parse(contentType)), digest);
+        return remember(uploadFileWithTwoStepProcess(filename, body, contentType), digest, body);
     }
 
     /**
-     * 实际执行两步上传流程
+     * 异步上传文件（使用 File 对象）
+     *
+     * 调用线程只读取文件元数据和文件头，签名和 PUT 上传通过 OkHttp enqueue 异步执行，文件内容流式发送。
+     * 启用上传缓存时需要的整文件哈希在独立的线程池上计算。
+     *
+     * @param file 要上传的文件
+     * @return 文件对象的 CompletableFuture
+     */
+    public CompletableFuture<FileObject> createAsync(File file) {
+        if (!file.exists()) {
+            return SpeedPixClient.failedFuture(new SpeedPixException("文件不存在: " + file.getAbsolutePath()));
+        }
+
+        Path path = file.toPath();
+        String filename = file.getName();
+        String contentType;
+        long size;
+        try {
+            contentType = detectContentType(path, filename);
+            size = Files.size(path);
+        } catch (IOException e) {
+            return SpeedPixClient.failedFuture(new SpeedPixException("读取文件失败: " + e.getMessage(), e));
+        }
+        if (uploadCache == null || !uploadCache.mayContain(size)) {
+            return uploadFileAsync(path, filename, contentType, size, null);
+        }
+        // 缓存中有同样大小的条目，先算出哈希再查找缓存
+        return digestAsync(path).thenCompose(digest -> {
+            FileObject cached = lookupCache(size, digest, filename);
+            return cached != null
+                ? CompletableFuture.completedFuture(cached) : uploadFileAsync(path, filename, contentType, size, digest);
+        });
+    }
+
+    /**
+     * 异步上传未命中缓存的文件
+     *
+     * @param digest 已算出的哈希，为 null 时单次 PUT 在发送过程中顺带计算，分片上传在后台另行计算
+     */
+    private CompletableFuture<FileObject> uploadFileAsync(Path path, String filename, String contentType, long size,
+        String digest) {
+        if (multipartUploader != null && multipartUploader.accepts(size)) {
+            CompletableFuture<FileObject> upload = uploadMultipartAsync(path, filename, contentType, size);
+            if (uploadCache != null) {
+                // 分片并行发送无法顺带计算整体哈希，与上传同时在后台读取文件；哈希算出前上传结果不等待
+                CompletableFuture<String> sha256 = digest != null
+                    ? CompletableFuture.completedFuture(digest) : digestAsync(path);
+                upload.thenAcceptBoth(sha256,
+                    (fileObject, hash) -> uploadCache.put(fileObject.getSize(), hash, fileObject));
+            }
+            return upload;
+        }
+        RequestBody body;
+        try {
+            body = cacheableBody(fileRequestBody(path, contentType), digest);
+        } catch (IOException e) {
+            return SpeedPixClient.failedFuture(new SpeedPixException("读取文件失败: " + e.getMessage(), e));
+        }
+        return uploadFileWithTwoStepProcessAsync(filename, body, contentType)
+            .thenApply(fileObject -> remember(fileObject, digest, body));
+    }
+
+    /**
+     * 在哈希线程池上计算文件的 SHA-256
+     */
+    private static CompletableFuture<String> digestAsync(Path path) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return UploadCache.sha256Hex(path);
+            } catch (IOException e) {
+                throw new CompletionException(new SpeedPixException("读取文件失败: " + e.getMessage(), e));
+            }
+        }, DIGEST_EXECUTOR);
+    }
+
+    /**
+     * 异步上传文件（使用 Path 对象）
+     *
+     * @param path 要上传的文件路径
+     * @return 文件对象的 CompletableFuture
+     */
+    public CompletableFuture<FileObject> createAsync(Path path) {
+        return createAsync(path.toFile());
+    }
+
+    /**
+     * 异步上传文件（使用 InputStream 和选项），输入流在调用线程上读入暂存区，上传结束后释放
+     *
+     * @param inputStream 输入流
+     * @param options 上传选项
+     * @return 文件对象的 CompletableFuture
+     */
+    public CompletableFuture<FileObject> createAsync(InputStream inputStream, FileUploadOptions options) {
+        if (options == null) {
+            return SpeedPixClient.failedFuture(new SpeedPixException("FileUploadOptions 不能为空"));
+        }
+
+        String filename = options.getFilename();
+        String contentType = options.getContentType();
+
+        if (filename == null || filename.trim().isEmpty()) {
+            filename = "file";
+        }
+
+        StreamSpool spool;
+        try {
+            spool = spool(inputStream);
+        } catch (IOException e) {
+            return SpeedPixClient.failedFuture(new SpeedPixException("读取输入流失败: " + e.getMessage(), e));
+        }
+
+        String digest = spoolDigest(spool);
+        FileObject cached = lookupCache(spool.getSize(), digest, filename);
+        if (cached != null) {
+            closeQuietly(spool);
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (contentType == null || contentType.trim().isEmpty()) {
+            contentType = detectContentTypeFromStream(spool.getHeader(), filename);
+        }
+        // 上传结束后才能删除临时文件
+        RequestBody body = spool.requestBody(MediaType.parse(contentType));
+        return uploadFileWithTwoStepProcessAsync(filename, body, contentType)
+            .thenApply(fileObject -> remember(fileObject, digest, body))
+            .whenComplete((fileObject, error) -> closeQuietly(spool));
+    }
+
+    /**
+     * 异步上传文件（使用字节数组）
+     *
+     * @param fileBytes 文件内容
+     * @param filename 文件名
+     * @param contentType 内容类型，为空时自动检测
+     * @return 文件对象的 CompletableFuture
+     */
+    public CompletableFuture<FileObject> createAsync(byte[] fileBytes, String filename, String contentType) {
+        if (fileBytes == null || fileBytes.length == 0) {
+            return SpeedPixClient.failedFuture(new SpeedPixException("文件内容不能为空"));
+        }
+
+        if (filename == null || filename.trim().isEmpty()) {
+            filename = "file";
+        }
+
+        String digest = bytesDigest(fileBytes);
+        FileObject cached = lookupCache(fileBytes.length, digest, filename);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        if (contentType == null || contentType.trim().isEmpty()) {
+            contentType = MimeTypeDetector.detectMimeType(fileBytes);
+        }
+
+        RequestBody body = cacheableBody(RequestBody.create(fileBytes, MediaType.parse(contentType)), digest);
+        return uploadFileWithTwoStepProcessAsync(filename, body, contentType)
+            .thenApply(fileObject -> remember(fileObject, digest, body));
+    }
+
+    /**
+     * 获取上传缓存
+     *
+     * @return 上传缓存，未启用时为 null
+     */
+    public UploadCache getUploadCache() {
+        return uploadCache;
+    }
+
+    /**
+     * 获取单文件上传的延迟统计，用于自动选择内联或上传
+     *
+     * @return 上传延迟统计
+     */
+    public UploadLatencyTracker getUploadLatency() {
+        return uploadLatency;
+    }
+
+    /**
+     * 实际执行两步上传流程，请求体长度必须已知
      * Step 1: 获取上传签名
      * Step 2: PUT 上传文件到签名 URL
      */
-    private FileObject uploadFileWithTwoStepProcess(String filename, byte[] fileBytes, String contentType) throws SpeedPixException {
+    private FileObject uploadFileWithTwoStepProcess(String filename, RequestBody body, String contentType)
+        throws SpeedPixException {
         try {
+            long fileSize = body.contentLength();
+            long started = System.nanoTime();
             // Step 1: 获取上传签名
-            FileUploadSignResponse signResponse = getUploadSignature(filename, contentType, fileBytes.length);
+            FileUploadSignResponse signResponse = getUploadSignature(filename, contentType, fileSize);
+            long signed = System.nanoTime();
 
             if (signResponse.getData() == null || signResponse.getData().getUploadUrl() == null) {
                 throw new SpeedPixException("获取上传签名失败：响应数据为空");
@@ -128,10 +372,11 @@ public class FilesService {
             String uploadUrl = signResponse.getData().getUploadUrl();
 
             // Step 2: 使用 PUT 方法上传文件
-            uploadFileToPutUrl(uploadUrl, fileBytes, contentType);
+            uploadFileToPutUrl(uploadUrl, body, contentType, fileSize);
+            uploadLatency.record(signed - started, System.nanoTime() - signed, fileSize);
 
             // Step 3: 构造并返回 FileObject
-            return createFileObjectFromSignResponse(signResponse, filename, contentType, fileBytes.length);
+            return createFileObjectFromSignResponse(signResponse, filename, contentType, fileSize);
 
         } catch (Exception e) {
             throw new SpeedPixException("文件上传失败: " + e.getMessage(), e);
@@ -139,32 +384,110 @@ public class FilesService {
     }
 
     /**
-     * 获取上传签名
+     * 异步执行两步上传流程，请求体长度必须已知
      */
-    private FileUploadSignResponse getUploadSignature(String filename, String contentType, long fileSize) throws SpeedPixException {
+    private CompletableFuture<FileObject> uploadFileWithTwoStepProcessAsync(String filename, RequestBody body,
+        String contentType) {
+        long fileSize;
         try {
-            Map<String, Object> signRequest = new HashMap<>();
-            signRequest.put("originalFilename", filename);
-            signRequest.put("contentType", contentType);
-            signRequest.put("size", fileSize);
-
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonBody = mapper.writeValueAsString(signRequest);
+            fileSize = body.contentLength();
+        } catch (IOException e) {
+            return SpeedPixClient.failedFuture(new SpeedPixException("读取文件失败: " + e.getMessage(), e));
+        }
+        long started = System.nanoTime();
+        // Step 1: 获取上传签名
+        return client.postAsync(SIGN_PATH, signRequest(filename, contentType, fileSize),
+                FileUploadSignResponse.class, null)
+            .thenCompose(signResponse -> {
+                if (signResponse.getData() == null || signResponse.getData().getUploadUrl() == null) {
+                    throw new CompletionException(new SpeedPixException("获取上传签名失败：响应数据为空"));
+                }
+                long signed = System.nanoTime();
+
+                // Step 2: 使用 PUT 方法上传文件
+                return client.getTransport().enqueue(putRequest(signResponse.getData().getUploadUrl(), body,
+                        contentType, fileSize))
+                    .handle((response, error) -> {
+                        if (error != null) {
+                            throw new CompletionException(new SpeedPixException(
+                                "上传文件到签名URL失败: " + error.getMessage(), error));
+                        }
+                        try (Response r = response) {
+                            if (!r.isSuccessful()) {
+                                String errorBody = r.body() != null ? r.body().string() : "无错误详情";
+                                throw new CompletionException(new SpeedPixException(
+                                    "上传文件失败，HTTP状态码: " + r.code() + ", 错误详情: " + errorBody));
+                            }
+                        } catch (IOException e) {
+                            throw new CompletionException(new SpeedPixException(
+                                "上传文件到签名URL失败: " + e.getMessage(), e));
+                        }
+
+                        uploadLatency.record(signed - started, System.nanoTime() - signed, fileSize);
+                        // Step 3: 构造并返回 FileObject
+                        return createFileObjectFromSignResponse(signResponse, filename, contentType,
+                            fileSize);
+                    });
+            });
+    }
 
-            RequestBody requestBody = RequestBody.create(jsonBody, MediaType.parse("application/json"));
+    /**
+     * 分片上传文件，完成后构造 FileObject
+     */
+    private CompletableFuture<FileObject> uploadMultipartAsync(Path path, String filename, String contentType,
+        long size) {
+        return multipartUploader.uploadAsync(path, filename, contentType, size)
+            .thenApply(response -> createFileObjectFromSignResponse(response, filename, contentType, size));
+    }
 
-            Map<String, String> headers = new HashMap<>();
-            headers.put("Content-Type", "application/json");
+    private static <T> T join(CompletableFuture<T> future) throws SpeedPixException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = SpeedPixClient.unwrap(e);
+            if (cause instanceof SpeedPixException) {
+                throw (SpeedPixException)cause;
+            }
+            throw new SpeedPixException("文件上传失败: " + cause.getMessage(), cause);
+        }
+    }
 
-            Response response = client.executeRequest("POST", "/scc/sp_create_temp_file_upload_sign", headers, requestBody);
+    /**
+     * 构造上传签名请求体
+     */
+    private Map<String, Object> signRequest(String filename, String contentType, long fileSize) {
+        Map<String, Object> signRequest = new HashMap<>();
+        signRequest.put("originalFilename", filename);
+        signRequest.put("contentType", contentType);
+        signRequest.put("size", fileSize);
+        return signRequest;
+    }
 
-            if (!response.isSuccessful()) {
-                throw new SpeedPixException("获取上传签名失败，HTTP状态码: " + response.code());
-            }
+    /**
+     * 构造 PUT 上传请求
+     */
+    private Request putRequest(String uploadUrl, RequestBody body, String contentType, long fileSize) {
+        return new Request.Builder()
+                .url(uploadUrl)
+                .put(body)
+                .addHeader("Content-Type", contentType)
+                .addHeader("Content-Length", String.valueOf(fileSize))
+                .build();
+    }
 
-            String responseBody = response.body().string();
-            return mapper.readValue(responseBody, FileUploadSignResponse.class);
+    /**
+     * 构造流式文件请求体，大小取自文件元数据
+     */
+    private RequestBody fileRequestBody(Path path, String contentType) throws IOException {
+        return new FileRequestBody(path, MediaType.parse(contentType), Files.size(path));
+    }
 
+    /**
+     * 获取上传签名
+     */
+    private FileUploadSignResponse getUploadSignature(String filename, String contentType, long fileSize) throws SpeedPixException {
+        try {
+            return client.post(SIGN_PATH, signRequest(filename, contentType, fileSize), FileUploadSignResponse.class);
         } catch (Exception e) {
             throw new SpeedPixException("获取上传签名失败: " + e.getMessage(), e);
         }
@@ -173,22 +496,16 @@ public class FilesService {
     /**
      * 使用 PUT 方法上传文件到签名 URL
      */
-    private void uploadFileToPutUrl(String uploadUrl, byte[] fileBytes, String contentType) throws SpeedPixException {
+    private void uploadFileToPutUrl(String uploadUrl, RequestBody body, String contentType, long fileSize)
+        throws SpeedPixException {
         try {
-            RequestBody fileBody = RequestBody.create(fileBytes, MediaType.parse(contentType));
-
-            Request.Builder requestBuilder = new Request.Builder()
-                    .url(uploadUrl)
-                    .put(fileBody)
-                    .addHeader("Content-Type", contentType)
-                    .addHeader("Content-Length", String.valueOf(fileBytes.length));
-
-            OkHttpClient httpClient = new OkHttpClient();
-            Response response = httpClient.newCall(requestBuilder.build()).execute();
-
-            if (!response.isSuccessful()) {
-                String errorBody = response.body() != null ? response.body().string() : "无错误详情";
-                throw new SpeedPixException("上传文件失败，HTTP状态码: " + response.code() + ", 错误详情: " + errorBody);
+            // 复用客户端的共享连接池，避免每次上传都重新握手
+            Request request = putRequest(uploadUrl, body, contentType, fileSize);
+            try (Response response = client.getHttpClient().newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    String errorBody = response.body() != null ? response.body().string() : "无错误详情";
+                    throw new SpeedPixException("上传文件失败，HTTP状态码: " + response.code() + ", 错误详情: " + errorBody);
+                }
             }
 
         } catch (Exception e) {
@@ -223,13 +540,25 @@ public class FilesService {
         return fileObject;
     }
 
+    /**
+     * 从文件头和文件名检测内容类型，只读取文件开头的少量字节
+     */
+    private String detectContentType(Path path, String filename) throws IOException {
+        return withFilenameFallback(MimeTypeDetector.detectMimeType(path), filename);
+    }
+
     /**
      * 从 InputStream 和文件名检测内容类型
      */
     private String detectContentTypeFromStream(byte[] fileBytes, String filename) {
         // 首先尝试从文件内容检测
-        String detectedType = MimeTypeDetector.detectMimeType(fileBytes);
+        return withFilenameFallback(MimeTypeDetector.detectMimeType(fileBytes), filename);
+    }
 
+    /**
+     * 文件内容无法识别时按文件名猜测
+     */
+    private static String withFilenameFallback(String detectedType, String filename) {
         // 如果检测为通用类型，尝试从文件名猜测
         if ("application/octet-stream".equals(detectedType) && filename != null) {
             String guessedType = MimeTypeDetector.guessMimeTypeFromFilename(filename);
@@ -242,15 +571,83 @@ public class FilesService {
     }
 
     /**
-     * 将输入流转换为字节数组
+     * 将输入流读入暂存区，启用上传缓存时同时计算 SHA-256
+     */
+    private StreamSpool spool(InputStream inputStream) throws IOException {
+        return StreamSpool.builder()
+            .memoryThreshold(spoolMemoryThreshold)
+            .digestAlgorithm(uploadCache != null ? "SHA-256" : null)
+            .spool(inputStream);
+    }
+
+    private static String spoolDigest(StreamSpool spool) {
+        return spool.getDigest() != null ? Hex.encodeHexString(spool.getDigest()) : null;
+    }
+
+    /**
+     * 缓存中有同样大小的条目时才计算内容哈希，否则返回 null，哈希留到上传时顺带计算
+     */
+    private String prefilteredDigest(long size, DigestSource source) throws IOException {
+        if (uploadCache == null || !uploadCache.mayContain(size)) {
+            return null;
+        }
+        return source.sha256Hex();
+    }
+
+    private String bytesDigest(byte[] fileBytes) {
+        return uploadCache != null && uploadCache.mayContain(fileBytes.length) ? DigestUtils.sha256Hex(fileBytes) : null;
+    }
+
+    /**
+     * 查找上传缓存，命中时返回以本次文件名命名的副本
      */
-    private byte[] inputStreamToByteArray(InputStream inputStream) throws IOException {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        int nRead;
-        byte[] data = new byte[16384];
-        while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-            buffer.write(data, 0, nRead);
+    private FileObject lookupCache(long size, String digest, String filename) {
+        if (uploadCache == null) {
+            return null;
+        }
+        FileObject cached = uploadCache.lookup(size, digest);
+        if (cached != null) {
+            cached.setName(filename);
+        }
+        return cached;
+    }
+
+    /**
+     * 启用上传缓存且哈希未知时，包装请求体在发送过程中计算哈希
+     */
+    private RequestBody cacheableBody(RequestBody body, String digest) {
+        return uploadCache != null && digest == null ? new HashingRequestBody(body) : body;
+    }
+
+    /**
+     * 将上传结果写入缓存
+     */
+    private FileObject remember(FileObject fileObject, String digest, RequestBody body) {
+        if (uploadCache == null) {
+            return fileObject;
+        }
+        String sha256 = digest;
+        if (sha256 == null && body instanceof HashingRequestBody) {
+            sha256 = ((HashingRequestBody)body).getSha256Hex();
+        }
+        if (sha256 != null) {
+            uploadCache.put(fileObject.getSize(), sha256, fileObject);
+        }
+        return fileObject;
+    }
+
+    /**
+     * 按需计算内容哈希
+     */
+    private interface DigestSource {
+        String sha256Hex() throws IOException;
+    }
+
+    private static void closeQuietly(StreamSpool spool) {
+        try {
+            spool.close();
+        } catch (IOException ignored) {
+            // 临时文件删除失败不影响上传结果
         }
-        return buffer.toByteArray();
     }
 }
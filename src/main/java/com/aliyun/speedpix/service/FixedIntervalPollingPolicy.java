@@ -0,0 +1,21 @@
+package com.aliyun.speedpix.service;
+
+/**
+ * 固定间隔轮询策略
+ */
+public class FixedIntervalPollingPolicy implements PollingPolicy {
+
+    private final long intervalMillis;
+
+    /**
+     * @param pollingInterval 轮询间隔（秒）
+     */
+    public FixedIntervalPollingPolicy(double pollingInterval) {
+        this.intervalMillis = (long)(pollingInterval * 1000);
+    }
+
+    @Override
+    public long nextDelayMillis(PollingState state) {
+        return intervalMillis;
+    }
+}
@@ -0,0 +1,224 @@
+package com.aliyun.speedpix.service;
+
+import java.nio.file.Path;
+
+/**
+ * 分片上传配置
+ *
+ * 大于阈值的 File / Path 上传拆分为多个分片，通过共享连接池并行签名和上传，单个分片失败时只重试该分片。
+ * 配置了状态目录时，已完成分片会持久化到该目录，中断后再次上传同一文件会跳过已完成的分片。
+ *
+ * 网关的分片上传接口路径可配置，默认值为：
+ * <ul>
+ *   <li>{@value #DEFAULT_INIT_PATH}：初始化上传会话，返回 uploadId、objectKey 和访问地址；</li>
+ *   <li>{@value #DEFAULT_SIGN_PART_PATH}：为单个分片签发 PUT 地址；</li>
+ *   <li>{@value #DEFAULT_COMPLETE_PATH}：提交各分片的 ETag，合并为最终对象。</li>
+ * </ul>
+ */
+public class MultipartUploadConfig {
+
+    public static final String DEFAULT_INIT_PATH = "/scc/sp_create_multipart_upload";
+    public static final String DEFAULT_SIGN_PART_PATH = "/scc/sp_sign_multipart_upload_part";
+    public static final String DEFAULT_COMPLETE_PATH = "/scc/sp_complete_multipart_upload";
+
+    private final long threshold;
+    private final long partSize;
+    private final int parallelism;
+    private final int maxPartAttempts;
+    private final long partRetryBackoffMillis;
+    private final Path stateDirectory;
+    private final String initPath;
+    private final String signPartPath;
+    private final String completePath;
+
+    private MultipartUploadConfig(Builder builder) {
+        this.threshold = builder.threshold;
+        this.partSize = builder.partSize;
+        this.parallelism = builder.parallelism;
+        this.maxPartAttempts = builder.maxPartAttempts;
+        this.partRetryBackoffMillis = builder.partRetryBackoffMillis;
+        this.stateDirectory = builder.stateDirectory;
+        this.initPath = builder.initPath;
+        this.signPartPath = builder.signPartPath;
+        this.completePath = builder.completePath;
+    }
+
+    /**
+     * 使用默认参数创建配置
+     *
+     * @return MultipartUploadConfig实例
+     */
+    public static MultipartUploadConfig defaults() {
+        return builder().build();
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getMaxPartAttempts() {
+        return maxPartAttempts;
+    }
+
+    public long getPartRetryBackoffMillis() {
+        return partRetryBackoffMillis;
+    }
+
+    public Path getStateDirectory() {
+        return stateDirectory;
+    }
+
+    public String getInitPath() {
+        return initPath;
+    }
+
+    public String getSignPartPath() {
+        return signPartPath;
+    }
+
+    public String getCompletePath() {
+        return completePath;
+    }
+
+    /**
+     * 创建Builder实例
+     *
+     * @return Builder实例
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * MultipartUploadConfig Builder
+     */
+    public static class Builder {
+        private long threshold = 64L * 1024 * 1024;
+        private long partSize = 16L * 1024 * 1024;
+        private int parallelism = 4;
+        private int maxPartAttempts = 3;
+        private long partRetryBackoffMillis = 500;
+        private Path stateDirectory;
+        private String initPath = DEFAULT_INIT_PATH;
+        private String signPartPath = DEFAULT_SIGN_PART_PATH;
+        private String completePath = DEFAULT_COMPLETE_PATH;
+
+        /**
+         * 设置启用分片上传的文件大小阈值
+         * @param threshold 字节数 (默认: 64MB)
+         * @return Builder实例
+         */
+        public Builder threshold(long threshold) {
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * 设置分片大小
+         * @param partSize 字节数 (默认: 16MB)
+         * @return Builder实例
+         */
+        public Builder partSize(long partSize) {
+            if (partSize <= 0) {
+                throw new IllegalArgumentException("partSize must be positive");
+            }
+            this.partSize = partSize;
+            return this;
+        }
+
+        /**
+         * 设置同时上传的分片数
+         * @param parallelism 并行度 (默认: 4)
+         * @return Builder实例
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * 设置单个分片的最大尝试次数（含首次）
+         * @param maxPartAttempts 尝试次数 (默认: 3)
+         * @return Builder实例
+         */
+        public Builder maxPartAttempts(int maxPartAttempts) {
+            if (maxPartAttempts <= 0) {
+                throw new IllegalArgumentException("maxPartAttempts must be positive");
+            }
+            this.maxPartAttempts = maxPartAttempts;
+            return this;
+        }
+
+        /**
+         * 设置分片重试的初始退避时间，之后每次重试翻倍
+         * @param partRetryBackoffMillis 毫秒数 (默认: 500)，为 0 时立即重试
+         * @return Builder实例
+         */
+        public Builder partRetryBackoffMillis(long partRetryBackoffMillis) {
+            if (partRetryBackoffMillis < 0) {
+                throw new IllegalArgumentException("partRetryBackoffMillis must not be negative");
+            }
+            this.partRetryBackoffMillis = partRetryBackoffMillis;
+            return this;
+        }
+
+        /**
+         * 设置分片状态目录，用于中断后续传
+         * @param stateDirectory 目录 (默认: 不持久化)
+         * @return Builder实例
+         */
+        public Builder stateDirectory(Path stateDirectory) {
+            this.stateDirectory = stateDirectory;
+            return this;
+        }
+
+        /**
+         * 设置初始化分片上传的接口路径
+         * @param initPath 接口路径
+         * @return Builder实例
+         */
+        public Builder initPath(String initPath) {
+            this.initPath = initPath;
+            return this;
+        }
+
+        /**
+         * 设置分片签名的接口路径
+         * @param signPartPath 接口路径
+         * @return Builder实例
+         */
+        public Builder signPartPath(String signPartPath) {
+            this.signPartPath = signPartPath;
+            return this;
+        }
+
+        /**
+         * 设置完成分片上传的接口路径
+         * @param completePath 接口路径
+         * @return Builder实例
+         */
+        public Builder completePath(String completePath) {
+            this.completePath = completePath;
+            return this;
+        }
+
+        /**
+         * 构建MultipartUploadConfig实例
+         * @return MultipartUploadConfig实例
+         */
+        public MultipartUploadConfig build() {
+            return new MultipartUploadConfig(this);
+        }
+    }
+}
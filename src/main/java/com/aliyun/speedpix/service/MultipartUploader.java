@@ -0,0 +1,469 @@
+package com.aliyun.speedpix.service;
+
+import com.aliyun.speedpix.SpeedPixClient;
+import com.aliyun.speedpix.exception.SpeedPixException;
+import com.aliyun.speedpix.http.FileRequestBody;
+import com.aliyun.speedpix.model.FileUploadSignResponse;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分片上传器
+ *
+ * 上传流程：初始化会话 → 各分片签名并 PUT（有界并行，失败的分片单独重试）→ 提交各分片 ETag 完成合并。
+ * 配置了状态目录时，每个分片完成后立即写入状态文件，上传成功后删除；
+ * 状态文件以文件路径、大小、修改时间和分片大小为键，文件变化后不会误用旧状态。续传时服务端拒绝该会话
+ * （签名或完成接口返回 4xx 或网关错误码）则删除状态并新建会话重新上传一次；网络错误、5xx 或分片重试耗尽时保留状态，
+ * 下次上传从已完成的分片继续。
+ */
+class MultipartUploader {
+
+    // 分片重试的退避计时，只负责在到期时发出下一次请求
+    private static final ScheduledExecutorService RETRY_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "speedpix-multipart-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SpeedPixClient client;
+    private final MultipartUploadConfig config;
+
+    MultipartUploader(SpeedPixClient client, MultipartUploadConfig config) {
+        this.client = client;
+        this.config = config;
+    }
+
+    /**
+     * 是否对该大小的文件使用分片上传
+     */
+    boolean accepts(long size) {
+        return size >= config.getThreshold() && size > config.getPartSize();
+    }
+
+    /**
+     * 分片上传文件，返回合并后的对象信息
+     */
+    CompletableFuture<FileUploadSignResponse> uploadAsync(Path path, String filename, String contentType, long size) {
+        Path stateFile;
+        UploadState resumed;
+        try {
+            stateFile = stateFile(path, size);
+            resumed = loadState(stateFile, size);
+        } catch (IOException e) {
+            return SpeedPixClient.failedFuture(new SpeedPixException("读取文件失败: " + e.getMessage(), e));
+        }
+
+        CompletableFuture<FileUploadSignResponse> upload;
+        if (resumed == null) {
+            upload = uploadNew(path, filename, contentType, size, stateFile);
+        } else {
+            upload = uploadParts(path, contentType, resumed, stateFile)
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    Throwable cause = SpeedPixClient.unwrap(error);
+                    if (!(cause instanceof SessionRejectedException)) {
+                        // 暂时性失败保留状态，下次从已完成的分片继续
+                        return SpeedPixClient.<FileUploadSignResponse>failedFuture(cause);
+                    }
+                    // 续传的会话已在服务端失效：丢弃状态，新建会话重新上传一次
+                    synchronized (resumed) {
+                        deleteState(stateFile);
+                    }
+                    return uploadNew(path, filename, contentType, size, stateFile);
+                })
+                .thenCompose(future -> future);
+        }
+        return upload.thenApply(response -> {
+            deleteState(stateFile);
+            return response;
+        });
+    }
+
+    private CompletableFuture<FileUploadSignResponse> uploadNew(Path path, String filename, String contentType,
+        long size, Path stateFile) {
+        return initiate(filename, contentType, size).thenCompose(state -> {
+            saveState(stateFile, state);
+            return uploadParts(path, contentType, state, stateFile);
+        });
+    }
+
+    private CompletableFuture<FileUploadSignResponse> uploadParts(Path path, String contentType, UploadState state,
+        Path stateFile) {
+        return new PartScheduler(path, contentType, state, stateFile).start()
+            .thenCompose(ignored -> complete(state));
+    }
+
+    private CompletableFuture<UploadState> initiate(String filename, String contentType, long size) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("originalFilename", filename);
+        request.put("contentType", contentType);
+        request.put("size", size);
+        request.put("partSize", config.getPartSize());
+        request.put("partCount", partCount(size));
+
+        return client.postAsync(config.getInitPath(), request, FileUploadSignResponse.class, null)
+            .thenApply(response -> {
+                FileUploadSignResponse.Data data = response.getData();
+                if (data == null || data.getUploadId() == null) {
+                    throw new CompletionException(new SpeedPixException("初始化分片上传失败：响应数据为空"));
+                }
+                UploadState state = new UploadState();
+                state.uploadId = data.getUploadId();
+                state.objectKey = data.getObjectKey();
+                state.path = data.getPath();
+                state.accessUrl = data.getAccessUrl();
+                state.expireTime = data.getExpireTime();
+                state.size = size;
+                state.partSize = config.getPartSize();
+                return state;
+            });
+    }
+
+    private CompletableFuture<String> uploadPart(Path path, String contentType, UploadState state, int partNumber,
+        int attempt) {
+        return signPart(state, partNumber)
+            .thenCompose(uploadUrl -> putPart(uploadUrl, path, contentType, state, partNumber))
+            .handle((etag, error) -> {
+                if (error == null) {
+                    return CompletableFuture.completedFuture(etag);
+                }
+                Throwable cause = SpeedPixClient.unwrap(error);
+                // 会话被拒绝时重试同一会话没有意义
+                if (attempt < config.getMaxPartAttempts() && !(cause instanceof SessionRejectedException)) {
+                    return delay(config.getPartRetryBackoffMillis() << Math.min(attempt - 1, 16))
+                        .thenCompose(ignored -> uploadPart(path, contentType, state, partNumber, attempt + 1));
+                }
+                return SpeedPixClient.<String>failedFuture(cause instanceof SpeedPixException ? cause
+                    : new SpeedPixException("分片 " + partNumber + " 上传失败: " + cause.getMessage(), cause));
+            })
+            .thenCompose(future -> future);
+    }
+
+    private static CompletableFuture<Void> delay(long millis) {
+        if (millis <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> timer = new CompletableFuture<>();
+        RETRY_TIMER.schedule(() -> timer.complete(null), millis, TimeUnit.MILLISECONDS);
+        return timer;
+    }
+
+    private CompletableFuture<String> signPart(UploadState state, int partNumber) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("uploadId", state.uploadId);
+        request.put("objectKey", state.objectKey);
+        request.put("partNumber", partNumber);
+
+        return sessionCall(config.getSignPartPath(), request)
+            .thenApply(response -> {
+                if (response.getData() == null || response.getData().getUploadUrl() == null) {
+                    throw new CompletionException(new SpeedPixException(
+                        "获取分片 " + partNumber + " 上传签名失败：响应数据为空"));
+                }
+                return response.getData().getUploadUrl();
+            });
+    }
+
+    private CompletableFuture<String> putPart(String uploadUrl, Path path, String contentType, UploadState state,
+        int partNumber) {
+        long offset = (partNumber - 1) * state.partSize;
+        long length = Math.min(state.partSize, state.size - offset);
+        Request request = new Request.Builder()
+            .url(uploadUrl)
+            .put(new FileRequestBody(path, MediaType.parse(contentType), offset, length))
+            .addHeader("Content-Type", contentType)
+            .build();
+
+        return client.getTransport().enqueue(request).thenApply(response -> {
+            try (Response r = response) {
+                if (!r.isSuccessful()) {
+                    throw new CompletionException(new SpeedPixException(
+                        "分片 " + partNumber + " 上传失败，HTTP状态码: " + r.code()));
+                }
+                String etag = r.header("ETag");
+                if (etag == null) {
+                    throw new CompletionException(new SpeedPixException(
+                        "分片 " + partNumber + " 上传响应缺少 ETag"));
+                }
+                return etag;
+            }
+        });
+    }
+
+    private CompletableFuture<FileUploadSignResponse> complete(UploadState state) {
+        List<Map<String, Object>> parts = new ArrayList<>();
+        synchronized (state) {
+            for (Map.Entry<Integer, String> entry : state.parts.entrySet()) {
+                Map<String, Object> part = new HashMap<>();
+                part.put("partNumber", entry.getKey());
+                part.put("etag", entry.getValue());
+                parts.add(part);
+            }
+        }
+        Map<String, Object> request = new HashMap<>();
+        request.put("uploadId", state.uploadId);
+        request.put("objectKey", state.objectKey);
+        request.put("parts", parts);
+
+        return sessionCall(config.getCompletePath(), request)
+            .thenApply(response -> {
+                // 完成接口未返回的字段沿用初始化时的值
+                FileUploadSignResponse.Data data = response.getData() != null
+                    ? response.getData() : new FileUploadSignResponse.Data();
+                if (data.getObjectKey() == null) {
+                    data.setObjectKey(state.objectKey);
+                }
+                if (data.getPath() == null) {
+                    data.setPath(state.path);
+                }
+                if (data.getAccessUrl() == null) {
+                    data.setAccessUrl(state.accessUrl);
+                }
+                if (data.getExpireTime() == null) {
+                    data.setExpireTime(state.expireTime);
+                }
+                data.setUploadId(state.uploadId);
+                response.setData(data);
+                return response;
+            });
+    }
+
+    /**
+     * 调用针对已有会话的接口（分片签名、完成），服务端拒绝该会话时以 {@link SessionRejectedException} 失败
+     */
+    private CompletableFuture<FileUploadSignResponse> sessionCall(String path, Map<String, Object> request) {
+        return client.postAsync(path, request, FileUploadSignResponse.class, null)
+            .handle((response, error) -> {
+                if (error != null) {
+                    Throwable cause = SpeedPixClient.unwrap(error);
+                    if (cause instanceof SpeedPixException && isRejection(((SpeedPixException)cause).getStatusCode())) {
+                        throw new CompletionException(new SessionRejectedException(cause.getMessage(),
+                            ((SpeedPixException)cause).getErrorCode()));
+                    }
+                    throw new CompletionException(cause);
+                }
+                if (response.hasError()) {
+                    throw new CompletionException(new SessionRejectedException(response.getError(),
+                        response.getSubErrorCode() != null ? response.getSubErrorCode() : response.getErrorCode()));
+                }
+                return response;
+            });
+    }
+
+    /**
+     * 4xx 表示服务端拒绝了请求本身（会话不存在、已完成或分片不匹配），请求超时和限流除外
+     */
+    private static boolean isRejection(int statusCode) {
+        return statusCode >= 400 && statusCode < 500 && statusCode != 408 && statusCode != 429;
+    }
+
+    private long partCount(long size) {
+        return (size + config.getPartSize() - 1) / config.getPartSize();
+    }
+
+    private Path stateFile(Path path, long size) throws IOException {
+        if (config.getStateDirectory() == null) {
+            return null;
+        }
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        String key = path.toAbsolutePath().normalize() + "|" + size + "|" + lastModified + "|" + config.getPartSize();
+        return config.getStateDirectory().resolve("multipart-" + DigestUtils.sha256Hex(key) + ".json");
+    }
+
+    /**
+     * 读取可续传的状态，状态不存在、损坏或上传会话已过期时返回 null
+     */
+    private UploadState loadState(Path stateFile, long size) {
+        if (stateFile == null || !Files.exists(stateFile)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            UploadState state = client.getJsonEngine().read(in, UploadState.class);
+            if (state.uploadId == null || state.size != size || state.partSize != config.getPartSize()
+                || state.isExpired()) {
+                return null;
+            }
+            return state;
+        } catch (IOException | RuntimeException e) {
+            // 状态损坏时重新开始上传
+            return null;
+        }
+    }
+
+    private void saveState(Path stateFile, UploadState state) {
+        if (stateFile == null) {
+            return;
+        }
+        synchronized (state) {
+            try {
+                Files.createDirectories(stateFile.getParent());
+                Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    client.getJsonEngine().write(out, state);
+                }
+                Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // 状态写入失败只影响续传，不影响本次上传
+            }
+        }
+    }
+
+    private void deleteState(Path stateFile) {
+        if (stateFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(stateFile);
+        } catch (IOException e) {
+            // 残留的状态文件在下次上传时因会话过期或文件变化而被忽略
+        }
+    }
+
+    /**
+     * 有界并行的分片调度：最多 parallelism 个分片同时在途，任一分片重试耗尽后整体失败，不再发出新分片
+     */
+    private class PartScheduler {
+        private final Path path;
+        private final String contentType;
+        private final UploadState state;
+        private final Path stateFile;
+        private final Queue<Integer> pending = new ConcurrentLinkedQueue<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private AtomicInteger remaining;
+
+        PartScheduler(Path path, String contentType, UploadState state, Path stateFile) {
+            this.path = path;
+            this.contentType = contentType;
+            this.state = state;
+            this.stateFile = stateFile;
+        }
+
+        CompletableFuture<Void> start() {
+            long partCount = (state.size + state.partSize - 1) / state.partSize;
+            synchronized (state) {
+                for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                    if (!state.parts.containsKey(partNumber)) {
+                        pending.add(partNumber);
+                    }
+                }
+            }
+            if (pending.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            remaining = new AtomicInteger(pending.size());
+            int workers = Math.min(config.getParallelism(), pending.size());
+            for (int i = 0; i < workers; i++) {
+                next();
+            }
+            return done;
+        }
+
+        private void next() {
+            if (done.isDone()) {
+                return;
+            }
+            Integer partNumber = pending.poll();
+            if (partNumber == null) {
+                return;
+            }
+            uploadPart(path, contentType, state, partNumber, 1).whenComplete((etag, error) -> {
+                if (error != null) {
+                    done.completeExceptionally(SpeedPixClient.unwrap(error));
+                    return;
+                }
+                synchronized (state) {
+                    // 上传已失败时不再写入状态，避免覆盖重新开始后的会话
+                    if (done.isDone()) {
+                        return;
+                    }
+                    state.parts.put(partNumber, etag);
+                    saveState(stateFile, state);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    done.complete(null);
+                } else {
+                    next();
+                }
+            });
+        }
+    }
+
+    /**
+     * 服务端拒绝了上传会话，续传时据此放弃旧会话
+     */
+    static class SessionRejectedException extends SpeedPixException {
+        SessionRejectedException(String message, String errorCode) {
+            super("上传会话已被服务端拒绝: " + message, errorCode);
+        }
+    }
+
+    /**
+     * 持久化的分片上传状态
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class UploadState {
+        @JsonProperty("uploadId")
+        String uploadId;
+
+        @JsonProperty("objectKey")
+        String objectKey;
+
+        @JsonProperty("path")
+        String path;
+
+        @JsonProperty("accessUrl")
+        String accessUrl;
+
+        @JsonProperty("expireTime")
+        Object expireTime;
+
+        @JsonProperty("size")
+        long size;
+
+        @JsonProperty("partSize")
+        long partSize;
+
+        // 分片号 -> ETag
+        @JsonProperty("parts")
+        TreeMap<Integer, String> parts = new TreeMap<>();
+
+        /**
+         * 会话是否已过期，expireTime 支持时间戳和 ISO-8601 格式，无法识别时视为未过期
+         */
+        boolean isExpired() {
+            if (expireTime == null) {
+                return false;
+            }
+            String value = expireTime instanceof Number
+                ? String.valueOf(((Number)expireTime).longValue()) : expireTime.toString();
+            long expiresAt = UploadCache.parseExpireTime(value);
+            return expiresAt > 0 && expiresAt <= System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.aliyun.speedpix.service;
+
+import com.aliyun.speedpix.SpeedPixClient;
+import com.aliyun.speedpix.exception.SpeedPixException;
+import com.aliyun.speedpix.model.Prediction;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 轮询引擎
+ *
+ * 由客户端持有，用一个调度线程和按下次轮询时间排序的优先队列复用所有在途预测任务的状态查询，
+ * 每个任务的查询时间由 {@link PollingPolicy} 决定。
+ * 同一任务的多个等待者共享一次轮询，同时发出的 comfy_get_progress 请求数受 maxConcurrentPolls 限制，
+ * 任务进入终态后完成所有等待者。
+ */
+public class PollingEngine implements Closeable {
+
+    private final PredictionsService predictionsService;
+    private final int maxConcurrentPolls;
+    private final PollingPolicy defaultPolicy;
+
+    private final Object lock = new Object();
+    private final PriorityQueue<PendingTask<?>> queue = new PriorityQueue<>(
+        (a, b) -> Long.compare(a.nextPollAt, b.nextPollAt));
+    private final Map<String, PendingTask<?>> pending = new HashMap<>();
+    private int inFlight;
+    private long totalPollCount;
+    private boolean closed;
+    private Thread thread;
+
+    /**
+     * @param predictionsService 用于查询任务状态的预测服务
+     * @param maxConcurrentPolls 同时在途的状态查询数上限
+     * @param defaultPolicy 默认轮询策略
+     */
+    public PollingEngine(PredictionsService predictionsService, int maxConcurrentPolls,
+        PollingPolicy defaultPolicy) {
+        if (maxConcurrentPolls <= 0) {
+            throw new IllegalArgumentException("maxConcurrentPolls must be positive");
+        }
+        this.predictionsService = predictionsService;
+        this.maxConcurrentPolls = maxConcurrentPolls;
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    /**
+     * 等待预测任务进入终态（使用默认轮询策略）
+     *
+     * @param <T> 结果类型
+     * @param prediction 预测任务，完成时原地更新其状态、输出和轮询次数
+     * @return 完成后的预测任务
+     */
+    public <T> CompletableFuture<Prediction<T>> await(Prediction<T> prediction) {
+        return await(prediction, defaultPolicy);
+    }
+
+    /**
+     * 按固定间隔等待预测任务进入终态
+     *
+     * @param <T> 结果类型
+     * @param prediction 预测任务，完成时原地更新其状态、输出和轮询次数
+     * @param pollingInterval 轮询间隔（秒）
+     * @return 完成后的预测任务
+     */
+    public <T> CompletableFuture<Prediction<T>> await(Prediction<T> prediction, double pollingInterval) {
+        return await(prediction, new FixedIntervalPollingPolicy(pollingInterval));
+    }
+
+    /**
+     * 按指定轮询策略等待预测任务进入终态
+     *
+     * @param <T> 结果类型
+     * @param prediction 预测任务，完成时原地更新其状态、输出和轮询次数
+     * @param policy 轮询策略，为 null 时使用默认策略
+     * @return 完成后的预测任务
+     */
+    public <T> CompletableFuture<Prediction<T>> await(Prediction<T> prediction, PollingPolicy policy) {
+        if (prediction.isFinished()) {
+            return CompletableFuture.completedFuture(prediction);
+        }
+        if (prediction.getId() == null) {
+            return SpeedPixClient.failedFuture(new SpeedPixException("Cannot wait for prediction without ID"));
+        }
+
+        CompletableFuture<Prediction<T>> future = new CompletableFuture<>();
+        String key = prediction.getId() + "#" + (prediction.getTypeClass() != null
+            ? prediction.getTypeClass().getName() : "");
+
+        synchronized (lock) {
+            if (closed) {
+                return SpeedPixClient.failedFuture(new SpeedPixException("PollingEngine is closed"));
+            }
+            @SuppressWarnings("unchecked")
+            PendingTask<T> task = (PendingTask<T>)pending.get(key);
+            if (task == null) {
+                task = new PendingTask<>(key, prediction, policy != null ? policy : defaultPolicy);
+                task.scheduleNext();
+                pending.put(key, task);
+                queue.add(task);
+                ensureStarted();
+                lock.notifyAll();
+            }
+            task.waiters.add(new Waiter<>(prediction, future));
+        }
+        return future;
+    }
+
+    /**
+     * 等待所有预测任务进入终态
+     *
+     * @param <T> 结果类型
+     * @param predictions 预测任务集合
+     * @return 按输入顺序排列的完成后预测任务
+     */
+    public <T> CompletableFuture<List<Prediction<T>>> awaitAll(Collection<Prediction<T>> predictions) {
+        List<CompletableFuture<Prediction<T>>> futures = new ArrayList<>(predictions.size());
+        for (Prediction<T> prediction : predictions) {
+            futures.add(await(prediction));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<Prediction<T>> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<Prediction<T>> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        });
+    }
+
+    /**
+     * 等待任一预测任务进入终态
+     *
+     * @param <T> 结果类型
+     * @param predictions 预测任务集合
+     * @return 最先完成的预测任务
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<Prediction<T>> awaitAny(Collection<Prediction<T>> predictions) {
+        if (predictions.isEmpty()) {
+            return SpeedPixClient.failedFuture(new IllegalArgumentException("predictions must not be empty"));
+        }
+        List<CompletableFuture<Prediction<T>>> futures = new ArrayList<>(predictions.size());
+        for (Prediction<T> prediction : predictions) {
+            futures.add(await(prediction));
+        }
+        return CompletableFuture.anyOf(futures.toArray(new CompletableFuture[0]))
+            .thenApply(result -> (Prediction<T>)result);
+    }
+
+    /**
+     * 获取当前等待中的任务数
+     *
+     * @return 等待中的任务数
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * 获取引擎启动以来发出的状态查询总数
+     *
+     * @return 状态查询总数
+     */
+    public long getTotalPollCount() {
+        synchronized (lock) {
+            return totalPollCount;
+        }
+    }
+
+    /**
+     * 停止调度线程，所有等待者以异常完成
+     */
+    @Override
+    public void close() {
+        List<PendingTask<?>> remaining;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            remaining = new ArrayList<>(pending.values());
+            pending.clear();
+            queue.clear();
+            lock.notifyAll();
+        }
+        for (PendingTask<?> task : remaining) {
+            task.fail(new SpeedPixException("PollingEngine is closed"));
+        }
+    }
+
+    private void ensureStarted() {
+        if (thread == null) {
+            thread = new Thread(this::runLoop, "speedpix-polling");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void runLoop() {
+        try {
+            while (true) {
+                PendingTask<?> task = nextDueTask();
+                if (task == null) {
+                    return;
+                }
+                poll(task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 阻塞直到队首任务到期且有空闲并发名额，返回 null 表示引擎已关闭
+     */
+    private PendingTask<?> nextDueTask() throws InterruptedException {
+        synchronized (lock) {
+            while (!closed) {
+                PendingTask<?> task = queue.peek();
+                if (task == null || inFlight >= maxConcurrentPolls) {
+                    lock.wait();
+                    continue;
+                }
+                long delay = task.nextPollAt - System.nanoTime();
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(lock, delay);
+                    continue;
+                }
+                queue.poll();
+                if (task.removeCancelledWaiters()) {
+                    pending.remove(task.key);
+                    continue;
+                }
+                inFlight++;
+                totalPollCount++;
+                task.pollCount++;
+                return task;
+            }
+            return null;
+        }
+    }
+
+    private <T> void poll(PendingTask<T> task) {
+        predictionsService.getAsync(task.taskId, task.typeClass).whenComplete((updated, error) -> {
+            boolean finished = error != null || updated.isFinished();
+            synchronized (lock) {
+                inFlight--;
+                if (finished) {
+                    pending.remove(task.key);
+                } else if (!closed) {
+                    task.progress = updated.getProgress();
+                    task.etaRelative = updated.getEtaRelative();
+                    task.scheduleNext();
+                    queue.add(task);
+                }
+                lock.notifyAll();
+            }
+            if (error != null) {
+                task.fail(SpeedPixClient.unwrap(error));
+            } else if (finished) {
+                task.complete(updated);
+            }
+        });
+    }
+
+    /**
+     * 等待中的任务，同一任务的多个等待者共享一次轮询
+     */
+    private static class PendingTask<T> {
+        final String key;
+        final String taskId;
+        final Class<T> typeClass;
+        final PollingPolicy policy;
+        final long createdAtMillis;
+        final Double estimatedDurationInSeconds;
+        final List<Waiter<T>> waiters = new ArrayList<>();
+        long nextPollAt;
+        int pollCount;
+        Double progress;
+        Double etaRelative;
+
+        PendingTask(String key, Prediction<T> prediction, PollingPolicy policy) {
+            this.key = key;
+            this.taskId = prediction.getId();
+            this.typeClass = prediction.getTypeClass();
+            this.policy = policy;
+            this.createdAtMillis = prediction.getCreatedAtMillis() > 0 ? prediction.getCreatedAtMillis()
+                : System.currentTimeMillis();
+            this.estimatedDurationInSeconds = prediction.getEstimatedDurationInSeconds();
+            this.progress = prediction.getProgress();
+            this.etaRelative = prediction.getEtaRelative();
+        }
+
+        /**
+         * 按轮询策略计算下一次查询时间
+         */
+        void scheduleNext() {
+            PollingState state = new PollingState(pollCount, System.currentTimeMillis() - createdAtMillis,
+                estimatedDurationInSeconds, progress, etaRelative);
+            long delayMillis = Math.max(0, policy.nextDelayMillis(state));
+            nextPollAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+
+        /**
+         * 移除已取消的等待者，返回是否已无等待者
+         */
+        boolean removeCancelledWaiters() {
+            waiters.removeIf(waiter -> waiter.future.isDone());
+            return waiters.isEmpty();
+        }
+
+        /**
+         * 完成所有等待者，调用前任务须已从等待表移除，此后不会再有新的等待者加入
+         */
+        void complete(Prediction<T> updated) {
+            for (Waiter<T> waiter : waiters) {
+                waiter.prediction.updateFrom(updated);
+                waiter.prediction.setPollCount(pollCount);
+                waiter.future.complete(waiter.prediction);
+            }
+        }
+
+        void fail(Throwable error) {
+            for (Waiter<T> waiter : waiters) {
+                waiter.future.completeExceptionally(error);
+            }
+        }
+    }
+
+    private static class Waiter<T> {
+        final Prediction<T> prediction;
+        final CompletableFuture<Prediction<T>> future;
+
+        Waiter(Prediction<T> prediction, CompletableFuture<Prediction<T>> future) {
+            this.prediction = prediction;
+            this.future = future;
+        }
+    }
+}
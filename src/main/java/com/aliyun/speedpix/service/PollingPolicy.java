@@ -0,0 +1,17 @@
+package com.aliyun.speedpix.service;
+
+/**
+ * 轮询策略，决定轮询引擎下一次查询任务状态前等待多久
+ *
+ * 实现需要是线程安全的，同一个策略实例会被所有在途任务共享。
+ */
+public interface PollingPolicy {
+
+    /**
+     * 计算距下一次状态查询的等待时间
+     *
+     * @param state 任务当前的轮询状态
+     * @return 等待时间（毫秒）
+     */
+    long nextDelayMillis(PollingState state);
+}
@@ -0,0 +1,57 @@
+package com.aliyun.speedpix.service;
+
+/**
+ * 轮询状态快照，供 {@link PollingPolicy} 计算下一次查询时间
+ */
+public class PollingState {
+
+    private final int pollCount;
+    private final long elapsedMillis;
+    private final Double estimatedDurationInSeconds;
+    private final Double progress;
+    private final Double etaRelative;
+
+    public PollingState(int pollCount, long elapsedMillis, Double estimatedDurationInSeconds, Double progress,
+        Double etaRelative) {
+        this.pollCount = pollCount;
+        this.elapsedMillis = elapsedMillis;
+        this.estimatedDurationInSeconds = estimatedDurationInSeconds;
+        this.progress = progress;
+        this.etaRelative = etaRelative;
+    }
+
+    /**
+     * 已经发出的状态查询次数
+     */
+    public int getPollCount() {
+        return pollCount;
+    }
+
+    /**
+     * 自任务提交以来经过的时间（毫秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 创建任务时服务端给出的预计耗时（秒），未知时为 null
+     */
+    public Double getEstimatedDurationInSeconds() {
+        return estimatedDurationInSeconds;
+    }
+
+    /**
+     * 最近一次查询得到的进度（0~1），未知时为 null
+     */
+    public Double getProgress() {
+        return progress;
+    }
+
+    /**
+     * 最近一次查询得到的剩余时间估计（秒），未知时为 null
+     */
+    public Double getEtaRelative() {
+        return etaRelative;
+    }
+}
@@ -2,22 +2,77 @@ package com.aliyun.speedpix.service;
 
 import com.aliyun.speedpix.SpeedPixClient;
 import com.aliyun.speedpix.exception.SpeedPixException;
+import com.aliyun.speedpix.http.OutputPrefetcher;
 import com.aliyun.speedpix.model.*;
 import com.aliyun.speedpix.util.JsonEncodingUtils;
-import com.aliyun.speedpix.util.OutputConverterUtils;
+import com.fasterxml.jackson.databind.JavaType;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 预测任务服务类
  */
 public class PredictionsService {
 
+    private static final String PROMPT_PATH = "/scc/comfy_prompt";
+    private static final String PROGRESS_PATH = "/scc/comfy_get_progress";
+    private static final String RESULT_PATH = "/scc/comfy_get_result";
+
+    /**
+     * 进度达到该值后，下一次查询会同时发出结果查询
+     */
+    public static final double DEFAULT_SPECULATIVE_PROGRESS_THRESHOLD = 0.9;
+
+    private static final int MAX_TRACKED_TASKS = 4096;
+
     private final SpeedPixClient client;
+    private final double speculativeProgressThreshold;
+    private final JsonEncodingUtils.EncodeOptions encodeOptions;
+
+    // 已知处于终态的任务（任务ID -> 状态），再次获取时直接查询结果
+    private final Map<String, String> knownTerminal = boundedMap(MAX_TRACKED_TASKS);
+    // 进度接近完成的任务，下一次查询时推测性地并行获取结果
+    private final Map<String, Boolean> nearlyDone = boundedMap(MAX_TRACKED_TASKS);
 
     public PredictionsService(SpeedPixClient client) {
+        this(client, DEFAULT_SPECULATIVE_PROGRESS_THRESHOLD);
+    }
+
+    /**
+     * @param client 客户端
+     * @param speculativeProgressThreshold 推测性获取结果的进度阈值，大于 1 表示关闭推测
+     */
+    public PredictionsService(SpeedPixClient client, double speculativeProgressThreshold) {
+        this(client, speculativeProgressThreshold, JsonEncodingUtils.EncodeOptions.defaults());
+    }
+
+    /**
+     * @param client 客户端
+     * @param speculativeProgressThreshold 推测性获取结果的进度阈值，大于 1 表示关闭推测
+     * @param encodeOptions 创建任务时输入文件的编码选项
+     */
+    public PredictionsService(SpeedPixClient client, double speculativeProgressThreshold,
+        JsonEncodingUtils.EncodeOptions encodeOptions) {
+        if (encodeOptions == null) {
+            throw new IllegalArgumentException("encodeOptions is required");
+        }
         this.client = client;
+        this.speculativeProgressThreshold = speculativeProgressThreshold;
+        this.encodeOptions = encodeOptions;
+    }
+
+    private static <K, V> Map<K, V> boundedMap(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
     }
 
     /**
@@ -29,38 +84,167 @@ public class PredictionsService {
 
     /**
      * 创建预测任务
+     *
+     * 输入中的文件以有限并发度同时上传，全部完成后再提交任务。文件输入使用 {@link FileInput}、{@link StreamInput}、
+     * {@link BytesInput} 或 File / Path / InputStream 对象；普通字符串默认不会被当作文件路径。
      */
     public <T> Prediction<T> create(ComfyPromptRequest request, String resourceConfigId, Class<T> targetClass)
         throws SpeedPixException {
-        // 验证请求参数
+        return create(request, resourceConfigId, targetClass, encodeOptions.getStrategy());
+    }
+
+    /**
+     * 使用指定的文件编码策略创建预测任务
+     *
+     * URL 策略先上传文件再提交地址；BASE64 策略把文件内联到请求体中；AUTO 策略内联小文件、上传大文件，
+     * 省去小文件上传的签名和 PUT 两次往返。
+     *
+     * @param <T> 返回结果的类型
+     * @param request ComfyPrompt请求对象
+     * @param resourceConfigId 资源配置ID
+     * @param targetClass 目标结果类型
+     * @param strategy 文件编码策略
+     * @return 预测任务
+     * @throws SpeedPixException 编码或请求失败
+     */
+    public <T> Prediction<T> create(ComfyPromptRequest request, String resourceConfigId, Class<T> targetClass,
+        JsonEncodingUtils.FileEncodingStrategy strategy) throws SpeedPixException {
+        validate(request);
+        ComfyPromptRequest encoded = join(encodeInputsAsync(request, strategy));
+
+        // 发送请求到正确的 SpeedPix API 端点，含内联文件时请求体流式发送
+        JsonEncodingUtils.InlineContent inline = JsonEncodingUtils.inlineContent(encoded.getInputs());
+        ComfyPromptResponse response = inline == JsonEncodingUtils.InlineContent.NONE
+            ? client.post(PROMPT_PATH, encoded, ComfyPromptResponse.class, resourceConfigHeaders(resourceConfigId))
+            : client.postStreaming(PROMPT_PATH, encoded, ComfyPromptResponse.class,
+                resourceConfigHeaders(resourceConfigId), inline == JsonEncodingUtils.InlineContent.ONE_SHOT);
+
+        return toPrediction(encoded, response, targetClass);
+    }
+
+    /**
+     * 异步创建预测任务
+     *
+     * 请求通过 OkHttp enqueue 发送，不占用调用线程；输入中的文件以有限并发度同时上传，最后一个上传完成后立即提交任务。
+     *
+     * @param <T> 返回结果的类型
+     * @param request ComfyPrompt请求对象
+     * @param targetClass 目标结果类型
+     * @return 预测任务的 CompletableFuture
+     */
+    public <T> CompletableFuture<Prediction<T>> createAsync(ComfyPromptRequest request, Class<T> targetClass) {
+        return createAsync(request, "default", targetClass);
+    }
+
+    /**
+     * 异步创建预测任务
+     *
+     * @param <T> 返回结果的类型
+     * @param request ComfyPrompt请求对象
+     * @param resourceConfigId 资源配置ID
+     * @param targetClass 目标结果类型
+     * @return 预测任务的 CompletableFuture
+     */
+    public <T> CompletableFuture<Prediction<T>> createAsync(ComfyPromptRequest request, String resourceConfigId,
+        Class<T> targetClass) {
+        return createAsync(request, resourceConfigId, targetClass, encodeOptions.getStrategy());
+    }
+
+    /**
+     * 使用指定的文件编码策略异步创建预测任务
+     *
+     * @param <T> 返回结果的类型
+     * @param request ComfyPrompt请求对象
+     * @param resourceConfigId 资源配置ID
+     * @param targetClass 目标结果类型
+     * @param strategy 文件编码策略
+     * @return 预测任务的 CompletableFuture
+     * @see #create(ComfyPromptRequest, String, Class, JsonEncodingUtils.FileEncodingStrategy)
+     */
+    public <T> CompletableFuture<Prediction<T>> createAsync(ComfyPromptRequest request, String resourceConfigId,
+        Class<T> targetClass, JsonEncodingUtils.FileEncodingStrategy strategy) {
+        try {
+            validate(request);
+        } catch (SpeedPixException e) {
+            return SpeedPixClient.failedFuture(e);
+        }
+
+        return encodeInputsAsync(request, strategy)
+            .thenCompose(encoded -> submit(encoded, resourceConfigId)
+                .thenApply(response -> {
+                    try {
+                        return toPrediction(encoded, response, targetClass);
+                    } catch (SpeedPixException e) {
+                        throw new CompletionException(e);
+                    }
+                }));
+    }
+
+    /**
+     * 异步提交已编码的请求，含内联文件时请求体流式发送
+     */
+    private CompletableFuture<ComfyPromptResponse> submit(ComfyPromptRequest encoded, String resourceConfigId) {
+        JsonEncodingUtils.InlineContent inline = JsonEncodingUtils.inlineContent(encoded.getInputs());
+        if (inline == JsonEncodingUtils.InlineContent.NONE) {
+            return client.postAsync(PROMPT_PATH, encoded, ComfyPromptResponse.class,
+                resourceConfigHeaders(resourceConfigId));
+        }
+        return client.postStreamingAsync(PROMPT_PATH, encoded, ComfyPromptResponse.class,
+            resourceConfigHeaders(resourceConfigId), inline == JsonEncodingUtils.InlineContent.ONE_SHOT);
+    }
+
+    /**
+     * 验证请求参数
+     */
+    private void validate(ComfyPromptRequest request) throws SpeedPixException {
         if (request == null) {
             throw new SpeedPixException("ComfyPromptRequest is required");
         }
         if (request.getWorkflowId() == null || request.getWorkflowId().trim().isEmpty()) {
             throw new SpeedPixException("workflowId is required");
         }
+    }
 
-        // 编码输入，处理文件上传
-        if (request.getInputs() != null) {
-            try {
-                Map<String, Object> encodedInput = JsonEncodingUtils.encodeJson(request.getInputs(),
-                    JsonEncodingUtils.FileEncodingStrategy.URL, client.files());
-                request.setInputs(encodedInput);
-            } catch (Exception e) {
-                throw new SpeedPixException("Failed to encode input", e);
-            }
+    /**
+     * 编码输入，并行上传其中的文件
+     *
+     * 返回替换了输入的请求副本，调用方的请求和输入不会被修改，同一个请求可以反复提交。
+     */
+    private CompletableFuture<ComfyPromptRequest> encodeInputsAsync(ComfyPromptRequest request,
+        JsonEncodingUtils.FileEncodingStrategy strategy) {
+        if (request.getInputs() == null) {
+            return CompletableFuture.completedFuture(request);
         }
+        JsonEncodingUtils.EncodeOptions options = strategy == null || strategy == encodeOptions.getStrategy()
+            ? encodeOptions : encodeOptions.toBuilder().strategy(strategy).build();
+        CompletableFuture<ComfyPromptRequest> encoded = new CompletableFuture<>();
+        JsonEncodingUtils.encodeJsonAsync(request.getInputs(), client.files(), options).whenComplete((encodedInput, error) -> {
+                if (error != null) {
+                    encoded.completeExceptionally(
+                        new SpeedPixException("Failed to encode input", SpeedPixClient.unwrap(error)));
+                    return;
+                }
+                encoded.complete(encodedInput == request.getInputs() ? request : request.withInputs(encodedInput));
+            });
+        return encoded;
+    }
 
-        // 设置资源配置头
+    /**
+     * 设置资源配置头
+     */
+    private Map<String, String> resourceConfigHeaders(String resourceConfigId) {
         Map<String, String> headers = new HashMap<>();
         if (resourceConfigId != null && !resourceConfigId.trim().isEmpty()) {
             headers.put("X-SP-RESOURCE-CONFIG-ID", resourceConfigId);
         }
+        return headers;
+    }
 
-        // 发送请求到正确的 SpeedPix API 端点
-        String path = "/scc/comfy_prompt";
-        ComfyPromptResponse response = client.post(path, request, ComfyPromptResponse.class, headers);
-
+    /**
+     * 检查创建响应并构建 Prediction 对象
+     */
+    private <T> Prediction<T> toPrediction(ComfyPromptRequest request, ComfyPromptResponse response,
+        Class<T> targetClass) throws SpeedPixException {
         // 检查响应
         if (response.hasError()) {
             throw new SpeedPixException(
@@ -78,6 +262,8 @@ public class PredictionsService {
         Prediction<T> prediction = new Prediction<T>();
         prediction.setId(response.getData().getTaskId());
         prediction.setStatus(response.getData().getStatus());
+        prediction.setEstimatedDurationInSeconds(response.getData().getEstimatedDurationInSeconds());
+        prediction.setCreatedAtMillis(System.currentTimeMillis());
         prediction.setInput(request.getInputs());
         prediction.setClient((Object)client);
 
@@ -128,16 +314,170 @@ public class PredictionsService {
 
     /**
      * 获取预测任务状态
+     *
+     * 已知处于终态的任务直接获取结果；进度接近完成的任务会同时发出进度和结果查询，完成时只需一次往返。
      */
     public <T> Prediction<T> get(String predictionId, Class<T> targetClass) throws SpeedPixException {
-        // 首先尝试获取进度
-        String progressPath = "/scc/comfy_get_progress";
-        Map<String, Object> progressRequest = new HashMap<>();
-        progressRequest.put("taskId", predictionId);
+        return join(getAsync(predictionId, targetClass));
+    }
+
+    /**
+     * 异步获取预测任务状态
+     *
+     * @param <T> 返回结果的类型
+     * @param predictionId 预测任务ID
+     * @param targetClass 目标结果类型
+     * @return 预测任务的 CompletableFuture
+     */
+    public <T> CompletableFuture<Prediction<T>> getAsync(String predictionId, Class<T> targetClass) {
+        if (knownTerminal.containsKey(predictionId)) {
+            return getResultAsync(predictionId, targetClass);
+        }
+
+        // 上次查询时进度已接近完成：结果查询与进度查询并行发出
+        CompletableFuture<TypedComfyResultResponse<T>> speculative = nearlyDone.containsKey(predictionId)
+            ? fetchResult(predictionId, targetClass)
+            : null;
 
-        ComfyProgressResponse progressResponse = client.post(progressPath, progressRequest,
-            ComfyProgressResponse.class);
+        return client.postAsync(PROGRESS_PATH, taskRequest(predictionId), ComfyProgressResponse.class, null)
+            .thenCompose(progressResponse -> {
+                Prediction<T> prediction;
+                try {
+                    prediction = toPrediction(progressResponse);
+                } catch (SpeedPixException e) {
+                    discard(speculative);
+                    return SpeedPixClient.failedFuture(e);
+                }
+                if (!isTerminal(progressResponse)) {
+                    discard(speculative);
+                    Double progress = prediction.getProgress();
+                    if (progress != null && progress >= speculativeProgressThreshold) {
+                        nearlyDone.put(predictionId, Boolean.TRUE);
+                    }
+                    return CompletableFuture.completedFuture(prediction);
+                }
 
+                nearlyDone.remove(predictionId);
+                knownTerminal.put(predictionId, prediction.getStatus());
+                CompletableFuture<TypedComfyResultResponse<T>> result = speculative != null
+                    ? speculative.handle((response, error) -> error == null && isComplete(response) ? response : null)
+                        .thenCompose(response -> response != null ? CompletableFuture.completedFuture(response)
+                            : fetchResult(predictionId, targetClass))
+                    : fetchResult(predictionId, targetClass);
+                return result.thenApply(resultResponse -> {
+                    try {
+                        applyResult(prediction, resultResponse);
+                        return prediction;
+                    } catch (SpeedPixException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+            });
+    }
+
+    /**
+     * 直接获取已完成任务的结果，跳过进度查询
+     *
+     * 适用于已知任务处于终态的场景（例如回调通知或重复获取已完成的任务），只需一次往返。
+     *
+     * @param <T> 返回结果的类型
+     * @param predictionId 预测任务ID
+     * @param targetClass 目标结果类型
+     * @return 预测任务
+     * @throws SpeedPixException 任务未完成或结果获取失败
+     */
+    public <T> Prediction<T> getResult(String predictionId, Class<T> targetClass) throws SpeedPixException {
+        return join(getResultAsync(predictionId, targetClass));
+    }
+
+    /**
+     * 异步直接获取已完成任务的结果，跳过进度查询
+     *
+     * @param <T> 返回结果的类型
+     * @param predictionId 预测任务ID
+     * @param targetClass 目标结果类型
+     * @return 预测任务的 CompletableFuture
+     */
+    public <T> CompletableFuture<Prediction<T>> getResultAsync(String predictionId, Class<T> targetClass) {
+        return fetchResult(predictionId, targetClass)
+            .thenApply(resultResponse -> {
+                try {
+                    Prediction<T> prediction = new Prediction<T>();
+                    prediction.setId(predictionId);
+                    prediction.setClient((Object)client);
+                    // 结果未携带状态且此前未观察到终态时，状态保持为空，不推断任务已完成
+                    String status = knownTerminal.get(predictionId);
+                    if (resultResponse.getData() != null && resultResponse.getData().getStatus() != null) {
+                        status = resultResponse.getData().getStatus();
+                    }
+                    prediction.setStatus(status);
+                    applyResult(prediction, resultResponse);
+                    if (status != null && prediction.getTaskStatus().isFinished()) {
+                        knownTerminal.put(predictionId, status);
+                    }
+                    return prediction;
+                } catch (SpeedPixException e) {
+                    throw new CompletionException(e);
+                }
+            });
+    }
+
+    /**
+     * 查询结果，响应流按 TypedComfyResultResponse&lt;T&gt; 一次性反序列化，result 直接绑定为目标类型
+     */
+    private <T> CompletableFuture<TypedComfyResultResponse<T>> fetchResult(String predictionId, Class<T> targetClass) {
+        JavaType resultType = client.getJsonEngine().parametricType(TypedComfyResultResponse.class,
+            targetClass != null ? targetClass : Object.class);
+        return client.postAsync(RESULT_PATH, taskRequest(predictionId), resultType, null);
+    }
+
+    /**
+     * 结果响应是否可以直接使用（推测性查询可能早于任务完成）
+     */
+    private boolean isComplete(TypedComfyResultResponse<?> response) {
+        if (response == null || response.hasError() || response.getData() == null) {
+            return false;
+        }
+        if (response.getData().getStatus() == null) {
+            return true;
+        }
+        TaskStatus status = response.getData().getTaskStatus();
+        return status == TaskStatus.SUCCEEDED || status == TaskStatus.FAILED;
+    }
+
+    private void discard(CompletableFuture<?> speculative) {
+        if (speculative != null) {
+            speculative.cancel(false);
+        }
+    }
+
+    private <T> T join(CompletableFuture<T> future) throws SpeedPixException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = SpeedPixClient.unwrap(e);
+            if (cause instanceof SpeedPixException) {
+                throw (SpeedPixException)cause;
+            }
+            throw new SpeedPixException("Request failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private Map<String, Object> taskRequest(String predictionId) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("taskId", predictionId);
+        return request;
+    }
+
+    private boolean isTerminal(ComfyProgressResponse progressResponse) {
+        TaskStatus status = progressResponse.getData().getTaskStatus();
+        return status == TaskStatus.SUCCEEDED || status == TaskStatus.FAILED;
+    }
+
+    /**
+     * 从进度响应构建 Prediction 对象
+     */
+    private <T> Prediction<T> toPrediction(ComfyProgressResponse progressResponse) throws SpeedPixException {
         if (progressResponse.getData() == null) {
             throw new SpeedPixException("Invalid response: missing data");
         }
@@ -148,30 +488,31 @@ public class PredictionsService {
         Prediction<T> prediction = new Prediction<T>();
         prediction.setId(progressData.getTaskId());
         prediction.setStatus(progressData.getStatus());
+        prediction.setProgress(progressData.getProgress());
+        prediction.setEtaRelative(progressData.getEtaRelative());
         prediction.setClient((Object)client);
+        return prediction;
+    }
 
-        // 如果任务已完成，尝试获取结果
-        if (progressData.getTaskStatus() == TaskStatus.SUCCEEDED || progressData.getTaskStatus() == TaskStatus.FAILED) {
-            String resultPath = "/scc/comfy_get_result";
-            Map<String, Object> resultRequest = new HashMap<>();
-            resultRequest.put("taskId", predictionId);
-
-            ComfyResultResponse resultResponse = client.post(resultPath, resultRequest, ComfyResultResponse.class);
-
-            if (!resultResponse.hasError() && resultResponse.getData() != null) {
-                ComfyResultResponseData resultData = resultResponse.getData();
-                prediction.setOutput(OutputConverterUtils.convertTo(resultData.getOutput(), targetClass));
-            } else {
-                throw new SpeedPixException(
-                    resultResponse.getError(),
-                    resultResponse.getSubErrorCode() != null ? resultResponse.getSubErrorCode()
-                        : resultResponse.getErrorCode(),
-                    resultResponse.getApiInvokeId()
-                );
+    /**
+     * 将已绑定为目标类型的结果写入 Prediction；任务成功且启用了预取时，在后台开始下载结果中的文件
+     */
+    private <T> void applyResult(Prediction<T> prediction, TypedComfyResultResponse<T> resultResponse)
+        throws SpeedPixException {
+        if (!resultResponse.hasError() && resultResponse.getData() != null) {
+            prediction.setOutput(resultResponse.getData().getResult());
+            OutputPrefetcher prefetcher = client.getOutputPrefetcher();
+            if (prefetcher != null && prediction.getTaskStatus() == TaskStatus.SUCCEEDED) {
+                prefetcher.prefetch(prediction.getId(), prediction.getOutput());
             }
+        } else {
+            throw new SpeedPixException(
+                resultResponse.getError(),
+                resultResponse.getSubErrorCode() != null ? resultResponse.getSubErrorCode()
+                    : resultResponse.getErrorCode(),
+                resultResponse.getApiInvokeId()
+            );
         }
-
-        return prediction;
     }
 
     /**
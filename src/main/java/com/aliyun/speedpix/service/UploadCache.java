@@ -0,0 +1,450 @@
+package com.aliyun.speedpix.service;
+
+import com.aliyun.speedpix.model.FileObject;
+import com.aliyun.speedpix.util.JsonEngine;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按内容寻址的上传缓存
+ *
+ * 以 SHA-256 和文件大小为键记录已上传文件的 {@link FileObject}，同一内容再次上传时直接返回，
+ * 直到距离 expireTime 不足 expiryMargin 为止。文件大小作为廉价的预过滤条件：
+ * 缓存中没有同样大小的条目时跳过哈希计算，哈希在上传过程中顺带算出后再写入缓存。
+ *
+ * 缓存条目保存在内存 LRU 中；配置了索引文件时，写入后由后台线程合并写盘（最多延迟 1 秒），
+ * 写盘不持有缓存锁，重启后自动加载。关闭客户端时会调用 {@link #flush()} 写出尚未落盘的条目。
+ * 无法解析 expireTime 的上传结果不缓存。
+ */
+public class UploadCache {
+
+    private static final int DIGEST_CHUNK_SIZE = 64 * 1024;
+    private static final long INDEX_WRITE_DELAY_MILLIS = 1000;
+
+    // 磁盘索引的后台写入，同一时间窗口内的多次写入合并为一次
+    private static final ScheduledExecutorService INDEX_WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "speedpix-upload-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxEntries;
+    private final long expiryMarginMillis;
+    private final Path indexFile;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, Entry> entries;
+    // 文件大小 -> 该大小的条目数，用于预过滤
+    private final Map<Long, Integer> sizes = new HashMap<>();
+    // 串行化索引写入，保证后写入的快照不会被先取的快照覆盖
+    private final Object writeLock = new Object();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    private UploadCache(Builder builder) {
+        this.maxEntries = builder.maxEntries;
+        this.expiryMarginMillis = builder.expiryMarginSeconds * 1000;
+        this.indexFile = builder.indexFile;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    forgetSize(eldest.getValue().size);
+                    return true;
+                }
+                return false;
+            }
+        };
+        loadIndex();
+    }
+
+    /**
+     * 缓存中是否可能有该大小的文件，为 false 时无需计算哈希
+     *
+     * @param size 文件大小
+     * @return 是否存在同样大小的条目
+     */
+    public boolean mayContain(long size) {
+        synchronized (lock) {
+            return sizes.containsKey(size);
+        }
+    }
+
+    /**
+     * 查找缓存的上传结果，同时计入命中/未命中统计
+     *
+     * @param size 文件大小
+     * @param sha256Hex 内容的 SHA-256（十六进制小写），为 null 表示已被大小预过滤排除
+     * @return 上传结果的副本，未命中或即将过期时为 null
+     */
+    public FileObject lookup(long size, String sha256Hex) {
+        if (sha256Hex != null) {
+            String key = key(size, sha256Hex);
+            synchronized (lock) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    if (entry.expiresAtMillis - expiryMarginMillis > System.currentTimeMillis()) {
+                        hits.incrementAndGet();
+                        bytesSaved.addAndGet(size);
+                        return entry.toFileObject();
+                    }
+                    entries.remove(key);
+                    forgetSize(entry.size);
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 记录上传结果
+     *
+     * @param size 文件大小
+     * @param sha256Hex 内容的 SHA-256（十六进制小写）
+     * @param fileObject 上传结果
+     */
+    public void put(long size, String sha256Hex, FileObject fileObject) {
+        long expiresAt = parseExpireTime(fileObject.getExpireTime());
+        if (expiresAt <= 0 || expiresAt - expiryMarginMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        Entry entry = Entry.of(size, sha256Hex, expiresAt, fileObject);
+        synchronized (lock) {
+            Entry previous = entries.put(key(size, sha256Hex), entry);
+            if (previous != null) {
+                forgetSize(previous.size);
+            }
+            sizes.merge(size, 1, Integer::sum);
+        }
+        scheduleWrite();
+    }
+
+    /**
+     * 清空缓存和磁盘索引，统计数据保留
+     */
+    public void clear() {
+        synchronized (lock) {
+            entries.clear();
+            sizes.clear();
+        }
+        flush();
+    }
+
+    /**
+     * 立即把缓存写入磁盘索引，未配置索引文件时不做任何事
+     */
+    public void flush() {
+        if (indexFile == null) {
+            return;
+        }
+        // 先清除标记：写入期间的新条目会重新安排一次写入
+        writeScheduled.set(false);
+        synchronized (writeLock) {
+            saveIndex(snapshot());
+        }
+    }
+
+    /**
+     * 获取缓存条目数
+     *
+     * @return 条目数
+     */
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * 获取因命中缓存而省去上传的字节数
+     *
+     * @return 字节数
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    /**
+     * 获取命中率
+     *
+     * @return 命中率，尚无查询时为 0
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double)hitCount / total;
+    }
+
+    /**
+     * 计算文件的 SHA-256
+     */
+    static String sha256Hex(Path path) throws IOException {
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_CHUNK_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * 解析 expireTime：秒级或毫秒级时间戳、ISO-8601 时间，无法解析时返回 -1
+     */
+    static long parseExpireTime(String expireTime) {
+        if (expireTime == null || expireTime.trim().isEmpty()) {
+            return -1;
+        }
+        String value = expireTime.trim();
+        try {
+            long timestamp = Long.parseLong(value);
+            // 小于 1e11 视为秒级时间戳
+            return timestamp < 100_000_000_000L ? timestamp * 1000 : timestamp;
+        } catch (NumberFormatException e) {
+            // 不是时间戳，继续尝试 ISO-8601
+        }
+        try {
+            return Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // 继续尝试带时区偏移的格式
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static String key(long size, String sha256Hex) {
+        return size + ":" + sha256Hex;
+    }
+
+    private void forgetSize(long size) {
+        sizes.computeIfPresent(size, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void scheduleWrite() {
+        if (indexFile != null && writeScheduled.compareAndSet(false, true)) {
+            INDEX_WRITER.schedule(this::flush, INDEX_WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Index snapshot() {
+        Index index = new Index();
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            for (Entry entry : entries.values()) {
+                if (entry.expiresAtMillis - expiryMarginMillis > now) {
+                    index.entries.add(entry);
+                }
+            }
+        }
+        return index;
+    }
+
+    private void loadIndex() {
+        if (indexFile == null || !Files.exists(indexFile)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(indexFile)) {
+            Index index = JsonEngine.defaultEngine().read(in, Index.class);
+            long now = System.currentTimeMillis();
+            synchronized (lock) {
+                for (Entry entry : index.entries) {
+                    if (entry.sha256 != null && entry.expiresAtMillis - expiryMarginMillis > now) {
+                        entries.put(key(entry.size, entry.sha256), entry);
+                        sizes.merge(entry.size, 1, Integer::sum);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // 索引损坏时从空缓存开始，下次写入时覆盖
+        }
+    }
+
+    /**
+     * 写入磁盘索引，调用方须持有 writeLock
+     */
+    private void saveIndex(Index index) {
+        try {
+            if (indexFile.getParent() != null) {
+                Files.createDirectories(indexFile.getParent());
+            }
+            Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                JsonEngine.defaultEngine().write(out, index);
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 索引写入失败只影响重启后的命中，不影响本次上传
+        }
+    }
+
+    /**
+     * 创建Builder实例
+     *
+     * @return Builder实例
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 磁盘索引
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Index {
+        @JsonProperty("entries")
+        List<Entry> entries = new ArrayList<>();
+    }
+
+    /**
+     * 缓存条目，只保存访问上传结果所需的字段
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Entry {
+        @JsonProperty("size")
+        long size;
+
+        @JsonProperty("sha256")
+        String sha256;
+
+        @JsonProperty("expiresAtMillis")
+        long expiresAtMillis;
+
+        @JsonProperty("path")
+        String path;
+
+        @JsonProperty("expireTime")
+        String expireTime;
+
+        @JsonProperty("accessUrl")
+        String accessUrl;
+
+        @JsonProperty("objectKey")
+        String objectKey;
+
+        @JsonProperty("name")
+        String name;
+
+        @JsonProperty("contentType")
+        String contentType;
+
+        static Entry of(long size, String sha256, long expiresAtMillis, FileObject fileObject) {
+            Entry entry = new Entry();
+            entry.size = size;
+            entry.sha256 = sha256;
+            entry.expiresAtMillis = expiresAtMillis;
+            entry.path = fileObject.getPath();
+            entry.expireTime = fileObject.getExpireTime();
+            entry.accessUrl = fileObject.getAccessUrl();
+            entry.objectKey = fileObject.getObjectKey();
+            entry.name = fileObject.getName();
+            entry.contentType = fileObject.getContentType();
+            return entry;
+        }
+
+        FileObject toFileObject() {
+            FileObject fileObject = new FileObject();
+            fileObject.setPath(path);
+            fileObject.setExpireTime(expireTime);
+            fileObject.setAccessUrl(accessUrl);
+            fileObject.setObjectKey(objectKey);
+            fileObject.setName(name);
+            fileObject.setContentType(contentType);
+            fileObject.setSize(size);
+            return fileObject;
+        }
+    }
+
+    /**
+     * UploadCache Builder
+     */
+    public static class Builder {
+        private int maxEntries = 10_000;
+        private long expiryMarginSeconds = 300;
+        private Path indexFile;
+
+        /**
+         * 设置内存中最多保留的条目数，超过后淘汰最久未使用的条目
+         * @param maxEntries 条目数 (默认: 10000)
+         * @return Builder实例
+         */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("maxEntries must be positive");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * 设置过期余量：距离 expireTime 不足该时长的条目视为已过期，重新上传
+         * @param expiryMarginSeconds 秒数 (默认: 300)
+         * @return Builder实例
+         */
+        public Builder expiryMarginSeconds(long expiryMarginSeconds) {
+            this.expiryMarginSeconds = expiryMarginSeconds;
+            return this;
+        }
+
+        /**
+         * 设置磁盘索引文件，重启后保留缓存
+         * @param indexFile 索引文件路径 (默认: 不持久化)
+         * @return Builder实例
+         */
+        public Builder indexFile(Path indexFile) {
+            this.indexFile = indexFile;
+            return this;
+        }
+
+        /**
+         * 构建UploadCache实例
+         * @return UploadCache实例
+         */
+        public UploadCache build() {
+            return new UploadCache(this);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.aliyun.speedpix.service;
+
+/**
+ * 统计上传的往返延迟和传输速率
+ *
+ * 每次单文件上传记录一次签名请求耗时和 PUT 耗时，按指数加权平均平滑。
+ * 用于估算内联 Base64 与先上传再引用的平衡点：上传多出签名和 PUT 两次往返，
+ * 内联多出约三分之一的编码膨胀，文件小于 3 × 上传额外耗时 × 传输速率时内联更快。
+ */
+public class UploadLatencyTracker {
+
+    // 平滑系数，新样本的权重
+    private static final double ALPHA = 0.2;
+    // 小于该值的 PUT 主要受往返延迟影响，不用于估算传输速率
+    private static final long MIN_THROUGHPUT_SAMPLE = 64 * 1024;
+
+    private double roundTripNanos = -1;
+    private double bytesPerNano = -1;
+    private long samples;
+
+    /**
+     * 记录一次单文件上传
+     *
+     * @param signNanos 签名请求耗时
+     * @param putNanos PUT 上传耗时
+     * @param size 上传的字节数
+     */
+    public synchronized void record(long signNanos, long putNanos, long size) {
+        roundTripNanos = smooth(roundTripNanos, signNanos);
+        // PUT 耗时中扣除一次往返，剩余部分视为传输时间
+        long transferNanos = putNanos - (long)roundTripNanos;
+        if (size >= MIN_THROUGHPUT_SAMPLE && transferNanos > 0) {
+            bytesPerNano = smooth(bytesPerNano, (double)size / transferNanos);
+        }
+        samples++;
+    }
+
+    private static double smooth(double current, double sample) {
+        return current < 0 ? sample : current + ALPHA * (sample - current);
+    }
+
+    /**
+     * 获取平滑后的往返延迟
+     *
+     * @return 毫秒，尚无样本时为 -1
+     */
+    public synchronized double getRoundTripMillis() {
+        return roundTripNanos < 0 ? -1 : roundTripNanos / 1_000_000d;
+    }
+
+    /**
+     * 获取平滑后的传输速率
+     *
+     * @return 字节/秒，尚无足够大的样本时为 -1
+     */
+    public synchronized double getBytesPerSecond() {
+        return bytesPerNano < 0 ? -1 : bytesPerNano * 1_000_000_000d;
+    }
+
+    /**
+     * 获取已记录的上传次数
+     *
+     * @return 样本数
+     */
+    public synchronized long getSampleCount() {
+        return samples;
+    }
+
+    /**
+     * 按测得的延迟和速率估算内联阈值
+     *
+     * @param fallback 样本不足时使用的阈值
+     * @param max 阈值上限，小于等于 0 表示不限制
+     * @return 不超过该字节数的文件内联更快
+     */
+    public synchronized long suggestInlineThreshold(long fallback, long max) {
+        long threshold = fallback;
+        if (roundTripNanos >= 0 && bytesPerNano > 0) {
+            // 上传额外两次往返；内联额外传输 size / 3 字节
+            threshold = (long)(3 * 2 * roundTripNanos * bytesPerNano);
+        }
+        return max > 0 ? Math.min(threshold, max) : threshold;
+    }
+}
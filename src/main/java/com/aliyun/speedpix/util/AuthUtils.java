@@ -11,6 +11,8 @@ import java.util.*;
 
 /**
  * 阿里云 API 网关认证工具类
+ *
+ * 每次调用都会重新初始化 HMAC 密钥和日期格式；客户端内部使用可复用的 {@link RequestSigner}。
  */
 public class AuthUtils {
 
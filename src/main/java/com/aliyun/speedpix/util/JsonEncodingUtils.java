@@ -1,36 +1,92 @@
 package com.aliyun.speedpix.util;
 
+import com.aliyun.speedpix.SpeedPixClient;
 import com.aliyun.speedpix.exception.SpeedPixException;
+import com.aliyun.speedpix.model.BytesInput;
+import com.aliyun.speedpix.model.FileInput;
+import com.aliyun.speedpix.model.FileObject;
+import com.aliyun.speedpix.model.FileUploadOptions;
+import com.aliyun.speedpix.model.InlineFile;
+import com.aliyun.speedpix.model.StreamInput;
 import com.aliyun.speedpix.service.FilesService;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.commons.codec.binary.Base64;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * JSON 编码工具类，处理文件上传和编码
  */
 public class JsonEncodingUtils {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final int MAX_BASE64_FILE_SIZE = 1024 * 1024; // 1MB
+    /**
+     * 默认的 Base64 内联文件大小上限
+     */
+    public static final long DEFAULT_MAX_INLINE_SIZE = 1024 * 1024; // 1MB
+
+    /**
+     * 默认同时上传的输入文件数
+     */
+    public static final int DEFAULT_UPLOAD_PARALLELISM = 4;
+
+    // 默认的输入上传线程池：暂存输入流和计算哈希都是阻塞操作，不能放在调用线程或 OkHttp 回调线程上
+    private static final ExecutorService DEFAULT_UPLOAD_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "speedpix-input-upload");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * 文件编码策略
      */
     public enum FileEncodingStrategy {
         BASE64,
-        URL
+        URL,
+        /** 不超过内联阈值的文件按 Base64 内联，更大或长度未知的文件上传 */
+        AUTO
     }
 
     /**
-     * 编码对象，处理文件上传
+     * AUTO 策略默认的内联阈值
+     */
+    public static final long DEFAULT_AUTO_INLINE_THRESHOLD = 64 * 1024;
+
+    /**
+     * 输入中内联文件的情况
+     */
+    public enum InlineContent {
+        /** 没有内联文件 */
+        NONE,
+        /** 所有内联文件都可以重复序列化 */
+        REPEATABLE,
+        /** 含有只能序列化一次的输入流 */
+        ONE_SHOT
+    }
+
+    /**
+     * 编码对象，处理文件上传（严格模式，普通字符串原样保留）
      *
      * @param obj 需要编码的对象Map
      * @param strategy 文件编码策略
@@ -42,114 +98,273 @@ public class JsonEncodingUtils {
     public static Map<String, Object> encodeJson(Map<String, Object> obj, FileEncodingStrategy strategy,
         FilesService filesService)
         throws IOException, SpeedPixException {
+        return encodeJson(obj, strategy, filesService, false);
+    }
+
+    /**
+     * 编码对象，处理文件上传
+     *
+     * @param obj 需要编码的对象Map
+     * @param strategy 文件编码策略
+     * @param filesService 文件服务实例
+     * @param detectStringPaths 是否把指向已存在文件的字符串当作文件上传（旧版行为）
+     * @return 编码后的对象Map
+     * @throws IOException 文件操作异常
+     * @throws SpeedPixException SpeedPix业务异常
+     */
+    public static Map<String, Object> encodeJson(Map<String, Object> obj, FileEncodingStrategy strategy,
+        FilesService filesService, boolean detectStringPaths)
+        throws IOException, SpeedPixException {
+        return encodeJson(obj, filesService, EncodeOptions.builder()
+            .strategy(strategy)
+            .detectStringPaths(detectStringPaths)
+            .build());
+    }
+
+    /**
+     * 编码对象，处理文件上传
+     *
+     * @param obj 需要编码的对象Map
+     * @param filesService 文件服务实例
+     * @param options 编码选项
+     * @return 编码后的对象Map
+     * @throws IOException 文件操作异常
+     * @throws SpeedPixException SpeedPix业务异常
+     */
+    public static Map<String, Object> encodeJson(Map<String, Object> obj, FilesService filesService,
+        EncodeOptions options)
+        throws IOException, SpeedPixException {
+        try {
+            return encodeJsonAsync(obj, filesService, options).join();
+        } catch (CompletionException e) {
+            Throwable cause = SpeedPixClient.unwrap(e);
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof SpeedPixException) {
+                throw (SpeedPixException)cause;
+            }
+            throw new SpeedPixException("文件上传失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 异步编码对象，处理文件上传
+     *
+     * 先递归遍历输入中的 Map、Collection 和对象数组，找出所有文件引用，再以有限并发度同时上传；
+     * 任一上传失败时立即以该错误结束，不再发起剩余的上传。
+     *
+     * 编码是写时复制的：只复制包含文件引用的容器（Map 复制为保持键顺序的 LinkedHashMap，Collection 复制为 List），
+     * 其余子树原样复用，调用方传入的结构不会被修改；没有文件引用时直接返回 obj 本身。
+     *
+     * 文件引用包括 {@link FileInput}、{@link StreamInput}、{@link BytesInput} 以及 File、Path、InputStream 对象。
+     * 普通字符串默认原样保留，不访问文件系统；开启 detectStringPaths 时恢复旧版行为，
+     * 对每个字符串检查是否为已存在的文件路径。
+     *
+     * BASE64 策略下文件引用被替换为 {@link InlineFile}，在序列化请求体时才读取并编码，不在内存中保存编码结果；
+     * AUTO 策略下只内联长度已知且不超过内联阈值的文件，其余照常上传。
+     *
+     * @param obj 需要编码的对象Map
+     * @param filesService 文件服务实例
+     * @param options 编码选项
+     * @return 编码后的对象Map的 CompletableFuture
+     */
+    public static CompletableFuture<Map<String, Object>> encodeJsonAsync(Map<String, Object> obj,
+        FilesService filesService, EncodeOptions options) {
         if (obj == null) {
-            return null;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Encoder encoder = new Encoder(filesService, options);
+        boolean found;
+        try {
+            found = encoder.discover(obj);
+        } catch (IOException | SpeedPixException e) {
+            return SpeedPixClient.failedFuture(e);
         }
 
-        Map<String, Object> result = new HashMap<>();
-        for (Map.Entry<String, Object> entry : obj.entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            result.put(key, encodeValue(value, strategy, filesService));
+        if (!found) {
+            return CompletableFuture.completedFuture(obj);
+        }
+        CompletableFuture<Void> uploaded = encoder.uploads.isEmpty()
+            ? CompletableFuture.completedFuture(null)
+            : new UploadScheduler(encoder.uploads, options.getUploadParallelism(),
+                options.getUploadExecutor() != null ? options.getUploadExecutor() : DEFAULT_UPLOAD_EXECUTOR).start();
+        return uploaded.thenApply(ignored -> encoder.rewrite(obj));
+    }
+
+    /**
+     * 检查编码结果中的内联文件，决定请求体能否预先缓冲和重发
+     *
+     * @param value 编码后的值
+     * @return 内联文件的情况
+     */
+    public static InlineContent inlineContent(Object value) {
+        if (value instanceof InlineFile) {
+            return ((InlineFile)value).isRepeatable() ? InlineContent.REPEATABLE : InlineContent.ONE_SHOT;
+        }
+        Iterable<?> children;
+        if (value instanceof Map) {
+            children = ((Map<?, ?>)value).values();
+        } else if (value instanceof Collection) {
+            children = (Collection<?>)value;
+        } else if (value instanceof Object[]) {
+            children = Arrays.asList((Object[])value);
+        } else {
+            return InlineContent.NONE;
+        }
+        InlineContent result = InlineContent.NONE;
+        for (Object child : children) {
+            InlineContent content = inlineContent(child);
+            if (content == InlineContent.ONE_SHOT) {
+                return content;
+            }
+            if (content == InlineContent.REPEATABLE) {
+                result = content;
+            }
         }
         return result;
     }
 
-    private static Object encodeValue(Object obj, FileEncodingStrategy strategy, FilesService filesService)
-        throws IOException, SpeedPixException {
-        if (obj == null) {
+    /**
+     * 识别需要上传的文件引用，不是文件引用时返回 null
+     */
+    private static FileReference uploadReference(Object obj, FilesService filesService, boolean detectStringPaths) {
+        if (obj instanceof FileInput) {
+            Path path = ((FileInput)obj).getPath();
+            return FileReference.upload(() -> filesService.createAsync(path));
+        }
+        if (obj instanceof StreamInput) {
+            StreamInput input = (StreamInput)obj;
+            return FileReference.upload(() -> filesService.createAsync(input.getInputStream(),
+                input.toUploadOptions()));
+        }
+        if (obj instanceof BytesInput) {
+            BytesInput input = (BytesInput)obj;
+            return FileReference.upload(() -> filesService.createAsync(input.getBytes(), input.getFilename(),
+                input.getContentType()));
+        }
+        if (obj instanceof String) {
+            Path path = detectStringPaths ? existingFile((String)obj) : null;
+            if (path != null) {
+                return FileReference.upload(() -> filesService.createAsync(path));
+            }
             return null;
         }
+        if (obj instanceof Path) {
+            Path path = (Path)obj;
+            if (Files.exists(path) && Files.isRegularFile(path)) {
+                return FileReference.upload(() -> filesService.createAsync(path));
+            }
+            return FileReference.of(obj.toString());
+        }
+        if (obj instanceof File) {
+            File file = (File)obj;
+            if (file.exists() && file.isFile()) {
+                return FileReference.upload(() -> filesService.createAsync(file));
+            }
+            return FileReference.of(file.getAbsolutePath());
+        }
+        if (obj instanceof InputStream) {
+            InputStream inputStream = (InputStream)obj;
+            return FileReference.upload(() -> filesService.createAsync(inputStream,
+                new FileUploadOptions("file", null)));
+        }
+        return null;
+    }
 
-        // 处理 Iterable (List, Set, etc.)
-        if (obj instanceof Iterable) {
-            // 这里简化处理，实际项目中可能需要更复杂的逻辑
-            return obj;
+    /**
+     * 将文件引用替换为延迟编码的 Base64 内联文件，不是文件引用时返回 null
+     */
+    private static FileReference inlineReference(Object obj, boolean detectStringPaths, long maxSize)
+        throws IOException {
+        // 处理显式文件输入
+        if (obj instanceof FileInput) {
+            return FileReference.of(InlineFile.of(((FileInput)obj).getPath(), maxSize));
+        }
+        if (obj instanceof StreamInput) {
+            return FileReference.of(InlineFile.of(((StreamInput)obj).getInputStream(), maxSize));
+        }
+        if (obj instanceof BytesInput) {
+            return FileReference.of(InlineFile.of(((BytesInput)obj).getBytes(), maxSize));
         }
 
-        // 处理文件路径字符串
+        // 处理文件路径字符串（仅旧版路径探测模式）
         if (obj instanceof String) {
-            String str = (String)obj;
-            Path path = Paths.get(str);
-            if (Files.exists(path) && Files.isRegularFile(path)) {
+            Path path = detectStringPaths ? existingFile((String)obj) : null;
+            if (path != null) {
                 try {
-                    return encodeFile(path, strategy, filesService);
+                    return FileReference.of(InlineFile.of(path, maxSize));
                 } catch (IOException e) {
-                    // 如果文件处理失败，返回原字符串
-                    return obj;
+                    // 如果文件处理失败，保留原字符串
+                    return null;
                 }
             }
-            return obj;
+            return null;
         }
 
         // 处理 Path 对象
         if (obj instanceof Path) {
             Path path = (Path)obj;
             if (Files.exists(path) && Files.isRegularFile(path)) {
-                return encodeFile(path, strategy, filesService);
+                return FileReference.of(InlineFile.of(path, maxSize));
             }
-            return obj.toString();
+            return FileReference.of(obj.toString());
         }
 
         // 处理 File 对象
         if (obj instanceof File) {
             File file = (File)obj;
             if (file.exists() && file.isFile()) {
-                return encodeFile(file.toPath(), strategy, filesService);
+                return FileReference.of(InlineFile.of(file.toPath(), maxSize));
             }
-            return file.getAbsolutePath();
+            return FileReference.of(file.getAbsolutePath());
         }
 
         // 处理 InputStream
         if (obj instanceof InputStream) {
-            if (strategy == FileEncodingStrategy.BASE64) {
-                return encodeInputStreamToBase64((InputStream)obj);
-            } else {
-                // 使用带 FileUploadOptions 的方法避免歧义性
-                return filesService.create((InputStream)obj,
-                    new com.aliyun.speedpix.model.FileUploadOptions("file", null))
-                    .getAccessUrl();
-            }
+            return FileReference.of(InlineFile.of((InputStream)obj, maxSize));
         }
 
-        return obj;
+        return null;
     }
 
     /**
-     * 编码文件
+     * 获取文件引用的长度，不是文件引用、文件不存在或长度未知（输入流）时返回 -1
      */
-    private static Object encodeFile(Path path, FileEncodingStrategy strategy, FilesService filesService)
-        throws IOException, SpeedPixException {
-        if (strategy == FileEncodingStrategy.BASE64) {
-            long fileSize = Files.size(path);
-            if (fileSize > MAX_BASE64_FILE_SIZE) {
-                throw new IOException("文件过大，base64 编码仅支持小于 1MB 的文件");
-            }
-            byte[] fileBytes = Files.readAllBytes(path);
-            return Base64.encodeBase64String(fileBytes);
-        } else {
-            return filesService.create(path).getAccessUrl();
+    private static long knownSize(Object obj, boolean detectStringPaths) {
+        Path path = null;
+        if (obj instanceof BytesInput) {
+            return ((BytesInput)obj).getBytes().length;
+        } else if (obj instanceof FileInput) {
+            path = ((FileInput)obj).getPath();
+        } else if (obj instanceof Path) {
+            path = (Path)obj;
+        } else if (obj instanceof File) {
+            path = ((File)obj).toPath();
+        } else if (obj instanceof String && detectStringPaths) {
+            path = existingFile((String)obj);
+        }
+        if (path == null || !Files.isRegularFile(path)) {
+            return -1;
+        }
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1;
         }
     }
 
     /**
-     * 将 InputStream 编码为 Base64
+     * 字符串是已存在的普通文件路径时返回该路径，否则返回 null
      */
-    private static String encodeInputStreamToBase64(InputStream inputStream) throws IOException {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        int nRead;
-        byte[] data = new byte[16384];
-
-        while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-            buffer.write(data, 0, nRead);
-        }
-
-        byte[] bytes = buffer.toByteArray();
-        if (bytes.length > MAX_BASE64_FILE_SIZE) {
-            throw new IOException("文件过大，base64 编码仅支持小于 1MB 的文件");
+    private static Path existingFile(String str) {
+        try {
+            Path path = Paths.get(str);
+            return Files.isRegularFile(path) ? path : null;
+        } catch (InvalidPathException e) {
+            return null;
         }
-
-        return Base64.encodeBase64String(bytes);
     }
 
     /**
@@ -160,7 +375,7 @@ public class JsonEncodingUtils {
      * @throws JsonProcessingException JSON处理异常
      */
     public static String toJsonString(Object obj) throws JsonProcessingException {
-        return objectMapper.writeValueAsString(obj);
+        return JsonEngine.defaultEngine().getObjectMapper().writeValueAsString(obj);
     }
 
     /**
@@ -173,6 +388,420 @@ public class JsonEncodingUtils {
      * @throws JsonProcessingException JSON处理异常
      */
     public static <T> T fromJsonString(String json, Class<T> clazz) throws JsonProcessingException {
-        return objectMapper.readValue(json, clazz);
+        return JsonEngine.defaultEngine().reader(clazz).readValue(json);
+    }
+
+    /**
+     * 输入中的一个文件引用及其编码结果
+     */
+    private static final class FileReference {
+        final Supplier<CompletableFuture<FileObject>> upload;
+        volatile Object value;
+
+        private FileReference(Supplier<CompletableFuture<FileObject>> upload, Object value) {
+            this.upload = upload;
+            this.value = value;
+        }
+
+        static FileReference upload(Supplier<CompletableFuture<FileObject>> upload) {
+            return new FileReference(upload, null);
+        }
+
+        static FileReference of(Object value) {
+            return new FileReference(null, value);
+        }
+    }
+
+    /**
+     * 写时复制的输入编码器
+     *
+     * 第一遍遍历记录每个文件引用和包含它的容器（按对象标识），同一个对象多处引用时只上传一次；
+     * 上传完成后第二遍只沿着记录过的容器向下复制，其余子树原样返回。
+     */
+    private static final class Encoder {
+        private final FilesService filesService;
+        private final EncodeOptions options;
+        private final Map<Object, FileReference> references = new IdentityHashMap<>();
+        private final Set<Object> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<FileReference> uploads = new ArrayList<>();
+
+        private final long autoInlineThreshold;
+
+        Encoder(FilesService filesService, EncodeOptions options) {
+            this.filesService = filesService;
+            this.options = options;
+            this.autoInlineThreshold = options.getStrategy() == FileEncodingStrategy.AUTO
+                ? options.effectiveAutoInlineThreshold(filesService) : -1;
+        }
+
+        /**
+         * 遍历值，返回其中是否有需要替换的文件引用
+         */
+        boolean discover(Object value) throws IOException, SpeedPixException {
+            if (value == null) {
+                return false;
+            }
+            if (references.containsKey(value) || dirty.contains(value)) {
+                return true;
+            }
+            if (value instanceof Map) {
+                return mark(value, discoverAll(((Map<?, ?>)value).values()));
+            }
+            if (value instanceof Collection) {
+                return mark(value, discoverAll((Collection<?>)value));
+            }
+            if (value instanceof Object[]) {
+                return mark(value, discoverAll(Arrays.asList((Object[])value)));
+            }
+            FileReference reference = inline(value)
+                ? inlineReference(value, options.isDetectStringPaths(), options.getMaxInlineSize())
+                : uploadReference(value, filesService, options.isDetectStringPaths());
+            if (reference == null) {
+                return false;
+            }
+            references.put(value, reference);
+            if (reference.upload != null) {
+                uploads.add(reference);
+            }
+            return true;
+        }
+
+        /**
+         * 文件引用是否内联；AUTO 策略下只内联长度已知且不超过阈值的文件
+         */
+        private boolean inline(Object value) {
+            switch (options.getStrategy()) {
+                case BASE64:
+                    return true;
+                case AUTO:
+                    long size = knownSize(value, options.isDetectStringPaths());
+                    return size >= 0 && size <= autoInlineThreshold;
+                default:
+                    return false;
+            }
+        }
+
+        private boolean discoverAll(Collection<?> values) throws IOException, SpeedPixException {
+            boolean found = false;
+            for (Object child : values) {
+                found |= discover(child);
+            }
+            return found;
+        }
+
+        private boolean mark(Object container, boolean found) {
+            if (found) {
+                dirty.add(container);
+            }
+            return found;
+        }
+
+        /**
+         * 用编码结果替换文件引用，只复制包含文件引用的容器
+         */
+        @SuppressWarnings("unchecked")
+        <T> T rewrite(T value) {
+            if (value == null) {
+                return null;
+            }
+            FileReference reference = references.get(value);
+            if (reference != null) {
+                return (T)reference.value;
+            }
+            if (!dirty.contains(value)) {
+                return value;
+            }
+            if (value instanceof Map) {
+                Map<Object, Object> copy = new LinkedHashMap<>();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                    copy.put(entry.getKey(), rewrite(entry.getValue()));
+                }
+                return (T)copy;
+            }
+            if (value instanceof Collection) {
+                List<Object> copy = new ArrayList<>(((Collection<?>)value).size());
+                for (Object child : (Collection<?>)value) {
+                    copy.add(rewrite(child));
+                }
+                return (T)copy;
+            }
+            Object[] array = (Object[])value;
+            Object[] copy = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                copy[i] = rewrite(array[i]);
+            }
+            return (T)copy;
+        }
+    }
+
+    /**
+     * 以有限并发度依次发起上传，任一失败即结束；每个上传在上传线程池中发起
+     */
+    private static final class UploadScheduler {
+        private final Queue<FileReference> pending;
+        private final int parallelism;
+        private final Executor executor;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicInteger remaining;
+
+        UploadScheduler(List<FileReference> uploads, int parallelism, Executor executor) {
+            this.pending = new ConcurrentLinkedQueue<>(uploads);
+            this.parallelism = Math.max(1, parallelism);
+            this.executor = executor;
+            this.remaining = new AtomicInteger(uploads.size());
+        }
+
+        CompletableFuture<Void> start() {
+            int workers = Math.min(parallelism, pending.size());
+            for (int i = 0; i < workers; i++) {
+                next();
+            }
+            return done;
+        }
+
+        private void next() {
+            if (done.isDone()) {
+                return;
+            }
+            FileReference reference = pending.poll();
+            if (reference == null) {
+                return;
+            }
+            try {
+                executor.execute(() -> upload(reference));
+            } catch (RejectedExecutionException e) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        private void upload(FileReference reference) {
+            if (done.isDone()) {
+                return;
+            }
+            CompletableFuture<FileObject> upload;
+            try {
+                upload = reference.upload.get();
+            } catch (RuntimeException e) {
+                // 上传在返回 future 之前就失败（如读取输入流出错），同样结束整个编码
+                done.completeExceptionally(e);
+                return;
+            }
+            upload.whenComplete((fileObject, error) -> {
+                if (error != null) {
+                    done.completeExceptionally(SpeedPixClient.unwrap(error));
+                    return;
+                }
+                reference.value = fileObject.getAccessUrl();
+                if (remaining.decrementAndGet() == 0) {
+                    done.complete(null);
+                } else {
+                    next();
+                }
+            });
+        }
+    }
+
+    /**
+     * 输入编码选项
+     */
+    public static final class EncodeOptions {
+        private final FileEncodingStrategy strategy;
+        private final int uploadParallelism;
+        private final boolean detectStringPaths;
+        private final long maxInlineSize;
+        private final long autoInlineThreshold;
+        private final boolean adaptiveInlineThreshold;
+        private final Executor uploadExecutor;
+
+        private EncodeOptions(Builder builder) {
+            this.strategy = builder.strategy;
+            this.uploadParallelism = builder.uploadParallelism;
+            this.detectStringPaths = builder.detectStringPaths;
+            this.maxInlineSize = builder.maxInlineSize;
+            this.autoInlineThreshold = builder.autoInlineThreshold;
+            this.adaptiveInlineThreshold = builder.adaptiveInlineThreshold;
+            this.uploadExecutor = builder.uploadExecutor;
+        }
+
+        /**
+         * 使用默认参数创建选项
+         *
+         * @return EncodeOptions实例
+         */
+        public static EncodeOptions defaults() {
+            return builder().build();
+        }
+
+        public FileEncodingStrategy getStrategy() {
+            return strategy;
+        }
+
+        public int getUploadParallelism() {
+            return uploadParallelism;
+        }
+
+        public boolean isDetectStringPaths() {
+            return detectStringPaths;
+        }
+
+        public long getMaxInlineSize() {
+            return maxInlineSize;
+        }
+
+        public long getAutoInlineThreshold() {
+            return autoInlineThreshold;
+        }
+
+        public boolean isAdaptiveInlineThreshold() {
+            return adaptiveInlineThreshold;
+        }
+
+        /**
+         * 获取发起输入上传的线程池
+         *
+         * @return 线程池，为 null 时使用内置的共享线程池
+         */
+        public Executor getUploadExecutor() {
+            return uploadExecutor;
+        }
+
+        /**
+         * 计算 AUTO 策略实际使用的内联阈值，不超过内联大小上限
+         *
+         * @param filesService 文件服务，开启自适应时从中读取上传延迟统计
+         * @return 不超过该字节数的文件内联
+         */
+        public long effectiveAutoInlineThreshold(FilesService filesService) {
+            if (adaptiveInlineThreshold && filesService != null) {
+                return filesService.getUploadLatency().suggestInlineThreshold(autoInlineThreshold, maxInlineSize);
+            }
+            return maxInlineSize > 0 ? Math.min(autoInlineThreshold, maxInlineSize) : autoInlineThreshold;
+        }
+
+        /**
+         * 创建以当前选项为初始值的Builder
+         *
+         * @return Builder实例
+         */
+        public Builder toBuilder() {
+            return builder()
+                .strategy(strategy)
+                .uploadParallelism(uploadParallelism)
+                .detectStringPaths(detectStringPaths)
+                .maxInlineSize(maxInlineSize)
+                .autoInlineThreshold(autoInlineThreshold)
+                .adaptiveInlineThreshold(adaptiveInlineThreshold)
+                .uploadExecutor(uploadExecutor);
+        }
+
+        /**
+         * 创建Builder实例
+         *
+         * @return Builder实例
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * EncodeOptions Builder
+         */
+        public static class Builder {
+            private FileEncodingStrategy strategy = FileEncodingStrategy.URL;
+            private int uploadParallelism = DEFAULT_UPLOAD_PARALLELISM;
+            private boolean detectStringPaths;
+            private long maxInlineSize = DEFAULT_MAX_INLINE_SIZE;
+            private long autoInlineThreshold = DEFAULT_AUTO_INLINE_THRESHOLD;
+            private boolean adaptiveInlineThreshold;
+            private Executor uploadExecutor;
+
+            /**
+             * 设置文件编码策略
+             * @param strategy 编码策略 (默认: URL)
+             * @return Builder实例
+             */
+            public Builder strategy(FileEncodingStrategy strategy) {
+                if (strategy == null) {
+                    throw new IllegalArgumentException("strategy is required");
+                }
+                this.strategy = strategy;
+                return this;
+            }
+
+            /**
+             * 设置同时上传的文件数
+             * @param uploadParallelism 并行度 (默认: 4)
+             * @return Builder实例
+             */
+            public Builder uploadParallelism(int uploadParallelism) {
+                if (uploadParallelism <= 0) {
+                    throw new IllegalArgumentException("uploadParallelism must be positive");
+                }
+                this.uploadParallelism = uploadParallelism;
+                return this;
+            }
+
+            /**
+             * 设置是否把指向已存在文件的字符串当作文件（旧版行为）
+             * @param detectStringPaths 是否探测 (默认: false)
+             * @return Builder实例
+             */
+            public Builder detectStringPaths(boolean detectStringPaths) {
+                this.detectStringPaths = detectStringPaths;
+                return this;
+            }
+
+            /**
+             * 设置 Base64 内联文件的大小上限。内联内容在发送时流式编码，该上限是请求体大小的策略限制，
+             * 而不是内存保护
+             * @param maxInlineSize 字节数，小于等于 0 表示不限制 (默认: 1MB)
+             * @return Builder实例
+             */
+            public Builder maxInlineSize(long maxInlineSize) {
+                this.maxInlineSize = maxInlineSize;
+                return this;
+            }
+
+            /**
+             * 设置 AUTO 策略的内联阈值，不超过该大小的文件按 Base64 内联，省去上传的两次往返
+             * @param autoInlineThreshold 字节数 (默认: 64KB)
+             * @return Builder实例
+             */
+            public Builder autoInlineThreshold(long autoInlineThreshold) {
+                if (autoInlineThreshold < 0) {
+                    throw new IllegalArgumentException("autoInlineThreshold must not be negative");
+                }
+                this.autoInlineThreshold = autoInlineThreshold;
+                return this;
+            }
+
+            /**
+             * 设置 AUTO 策略是否按测得的上传延迟和速率调整内联阈值，尚无上传样本时使用 autoInlineThreshold
+             * @param adaptiveInlineThreshold 是否自适应 (默认: false)
+             * @return Builder实例
+             */
+            public Builder adaptiveInlineThreshold(boolean adaptiveInlineThreshold) {
+                this.adaptiveInlineThreshold = adaptiveInlineThreshold;
+                return this;
+            }
+
+            /**
+             * 设置发起输入上传的线程池。暂存输入流和计算哈希在该线程池中进行，签名和 PUT 仍通过 OkHttp 异步执行
+             * @param uploadExecutor 线程池 (默认: 内置的共享守护线程池)
+             * @return Builder实例
+             */
+            public Builder uploadExecutor(Executor uploadExecutor) {
+                this.uploadExecutor = uploadExecutor;
+                return this;
+            }
+
+            /**
+             * 构建EncodeOptions实例
+             * @return EncodeOptions实例
+             */
+            public EncodeOptions build() {
+                return new EncodeOptions(this);
+            }
+        }
     }
 }
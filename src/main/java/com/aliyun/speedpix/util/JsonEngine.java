@@ -0,0 +1,275 @@
+package com.aliyun.speedpix.util;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JSON 引擎
+ *
+ * 每个客户端持有一个，封装唯一的 {@link ObjectMapper}，并按 Class / JavaType 缓存
+ * {@link ObjectReader} 和 {@link ObjectWriter}，避免热路径上重复查找序列化器。
+ * 可选注册字节码加速模块（Blackbird / Afterburner），两者均通过反射加载，不在类路径上时忽略。
+ */
+public class JsonEngine {
+
+    private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+    private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+    private static volatile JsonEngine defaultEngine;
+
+    private final ObjectMapper objectMapper;
+    private final String acceleratorModule;
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<JavaType, ObjectReader> typeReaders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private JsonEngine(ObjectMapper objectMapper, String acceleratorModule) {
+        this.objectMapper = objectMapper;
+        this.acceleratorModule = acceleratorModule;
+    }
+
+    /**
+     * 获取进程级默认 JSON 引擎，供不依赖客户端的工具类使用
+     *
+     * @return 默认JsonEngine实例
+     */
+    public static JsonEngine defaultEngine() {
+        JsonEngine engine = defaultEngine;
+        if (engine == null) {
+            synchronized (JsonEngine.class) {
+                engine = defaultEngine;
+                if (engine == null) {
+                    engine = builder().build();
+                    defaultEngine = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * 获取底层 ObjectMapper
+     *
+     * 引擎创建后不应再修改其配置或注册模块，否则已缓存的 reader/writer 不会感知。
+     *
+     * @return ObjectMapper实例
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * 获取已注册的加速模块类名
+     *
+     * @return 加速模块类名，未启用时为 null
+     */
+    public String getAcceleratorModule() {
+        return acceleratorModule;
+    }
+
+    /**
+     * 获取指定类型的 ObjectReader（缓存）
+     *
+     * @param type 目标类型
+     * @return ObjectReader实例
+     */
+    public ObjectReader reader(Class<?> type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    /**
+     * 获取指定参数化类型的 ObjectReader（缓存）
+     *
+     * @param type 目标类型
+     * @return ObjectReader实例
+     */
+    public ObjectReader reader(JavaType type) {
+        return typeReaders.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    /**
+     * 获取指定类型的 ObjectWriter（缓存）
+     *
+     * @param type 值类型
+     * @return ObjectWriter实例
+     */
+    public ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+
+    /**
+     * 构造参数化类型，例如 TypedComfyResultResponse&lt;ResultDTO&gt;
+     *
+     * @param rawType 原始类型
+     * @param parameterTypes 类型参数
+     * @return JavaType实例
+     */
+    public JavaType parametricType(Class<?> rawType, Class<?>... parameterTypes) {
+        return objectMapper.getTypeFactory().constructParametricType(rawType, parameterTypes);
+    }
+
+    /**
+     * 从输入流反序列化
+     *
+     * @param <T> 目标类型
+     * @param in 输入流
+     * @param type 目标类型
+     * @return 反序列化结果
+     * @throws IOException 读取或解析失败
+     */
+    public <T> T read(InputStream in, Class<T> type) throws IOException {
+        return reader(type).readValue(in);
+    }
+
+    /**
+     * 从输入流按参数化类型反序列化
+     *
+     * @param <T> 目标类型
+     * @param in 输入流
+     * @param type 目标类型
+     * @return 反序列化结果
+     * @throws IOException 读取或解析失败
+     */
+    public <T> T read(InputStream in, JavaType type) throws IOException {
+        return reader(type).readValue(in);
+    }
+
+    /**
+     * 从字符串反序列化
+     *
+     * @param <T> 目标类型
+     * @param json JSON字符串
+     * @param type 目标类型
+     * @return 反序列化结果
+     * @throws IOException 解析失败
+     */
+    public <T> T read(String json, Class<T> type) throws IOException {
+        return reader(type).readValue(json);
+    }
+
+    /**
+     * 序列化到输出流
+     *
+     * @param out 输出流
+     * @param value 待序列化的值，不能为 null
+     * @throws IOException 写入失败
+     */
+    public void write(OutputStream out, Object value) throws IOException {
+        writer(value.getClass()).writeValue(out, value);
+    }
+
+    /**
+     * 序列化为字符串
+     *
+     * @param value 待序列化的值
+     * @return JSON字符串
+     * @throws IOException 序列化失败
+     */
+    public String writeAsString(Object value) throws IOException {
+        if (value == null) {
+            return "null";
+        }
+        return writer(value.getClass()).writeValueAsString(value);
+    }
+
+    /**
+     * 类型转换，例如 Map 转为用户定义的数据结构
+     *
+     * @param <T> 目标类型
+     * @param value 原始值
+     * @param type 目标类型
+     * @return 转换结果
+     */
+    public <T> T convert(Object value, Class<T> type) {
+        return objectMapper.convertValue(value, type);
+    }
+
+    /**
+     * 创建Builder实例
+     *
+     * @return Builder实例
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * JsonEngine Builder
+     */
+    public static class Builder {
+        private ObjectMapper objectMapper;
+        private boolean accelerated;
+        private final List<Module> modules = new ArrayList<>();
+
+        /**
+         * 使用外部调优好的 ObjectMapper，引擎会复制一份再注册模块，不修改传入的实例
+         * @param objectMapper 外部 ObjectMapper
+         * @return Builder实例
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        /**
+         * 启用字节码加速模块：Java 9+ 优先 Blackbird，Java 8 优先 Afterburner，需自行引入对应依赖
+         * @param accelerated 是否启用 (默认: false)
+         * @return Builder实例
+         */
+        public Builder accelerated(boolean accelerated) {
+            this.accelerated = accelerated;
+            return this;
+        }
+
+        /**
+         * 注册额外的 Jackson 模块
+         * @param module Jackson 模块
+         * @return Builder实例
+         */
+        public Builder module(Module module) {
+            this.modules.add(module);
+            return this;
+        }
+
+        /**
+         * 构建JsonEngine实例
+         * @return JsonEngine实例
+         */
+        public JsonEngine build() {
+            ObjectMapper mapper = objectMapper != null ? objectMapper.copy() : new ObjectMapper();
+            String accelerator = accelerated ? registerAccelerator(mapper) : null;
+            for (Module module : modules) {
+                mapper.registerModule(module);
+            }
+            return new JsonEngine(mapper, accelerator);
+        }
+
+        private static String registerAccelerator(ObjectMapper mapper) {
+            boolean java8 = System.getProperty("java.specification.version", "").startsWith("1.");
+            String[] candidates = java8
+                ? new String[]{AFTERBURNER_MODULE, BLACKBIRD_MODULE}
+                : new String[]{BLACKBIRD_MODULE, AFTERBURNER_MODULE};
+            for (String className : candidates) {
+                try {
+                    Module module = (Module)Class.forName(className).getDeclaredConstructor().newInstance();
+                    mapper.registerModule(module);
+                    return className;
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    // 未引入该模块或与当前 Jackson 版本不兼容，尝试下一个
+                }
+            }
+            return null;
+        }
+    }
+}
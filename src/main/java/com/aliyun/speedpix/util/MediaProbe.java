@@ -0,0 +1,540 @@
+package com.aliyun.speedpix.util;
+
+import com.aliyun.speedpix.model.MediaInfo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 媒体文件头解析
+ *
+ * 只读取解析所需的字节：图片读取文件头中的尺寸字段；MP4 按顶层 box 跳转到 moov，moov 位于文件末尾时
+ * 只额外读取 moov；WAV 按 chunk 跳转到 fmt 和 data；MP3 跳过 ID3 标签后解析第一个帧头和 Xing 头。
+ */
+public final class MediaProbe {
+
+    /**
+     * 第一次读取的文件头长度
+     */
+    public static final int HEADER_SIZE = 16 * 1024;
+
+    // moov box 的读取上限，超过时不解析
+    private static final int MAX_MOOV_SIZE = 16 * 1024 * 1024;
+    // 遍历 box、chunk 和 JPEG 段的最大数量，防止损坏的文件导致长时间循环
+    private static final int MAX_ELEMENTS = 1024;
+
+    private static final int[] MP3_SAMPLE_RATES = {44100, 48000, 32000};
+    // Layer III 比特率（kbps），按 MPEG-1 和 MPEG-2/2.5 区分
+    private static final int[] MP3_BITRATES_V1 = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] MP3_BITRATES_V2 = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+
+    private MediaProbe() {
+    }
+
+    /**
+     * 按位置读取文件内容的数据源
+     */
+    public interface Source {
+
+        /**
+         * 读取从 position 开始的 length 字节
+         *
+         * @param position 起始位置
+         * @param length 读取长度
+         * @return 读取的内容，到达文件末尾时比 length 短
+         * @throws IOException 读取失败
+         */
+        byte[] read(long position, int length) throws IOException;
+
+        /**
+         * 获取文件大小，在第一次读取之后可用
+         *
+         * @return 字节数，未知时为 -1
+         */
+        long size();
+    }
+
+    /**
+     * 解析媒体元信息
+     *
+     * @param source 数据源，首先读取开头的 {@link #HEADER_SIZE} 字节
+     * @return 元信息，无法识别的格式只包含 MIME 类型和文件大小
+     * @throws IOException 读取失败
+     */
+    public static MediaInfo probe(Source source) throws IOException {
+        byte[] head = source.read(0, HEADER_SIZE);
+        String mimeType = MimeTypeDetector.detectMimeType(head, head.length);
+        MediaInfo.Builder info = MediaInfo.builder()
+            .mimeType(mimeType)
+            .format(formatName(mimeType))
+            .fileSize(source.size());
+
+        switch (mimeType) {
+            case "image/png":
+                png(head, info);
+                break;
+            case "image/gif":
+                gif(head, info);
+                break;
+            case "image/webp":
+                webp(head, info);
+                break;
+            case "image/jpeg":
+                jpeg(source, info);
+                break;
+            case "video/mp4":
+            case "video/quicktime":
+            case "video/3gpp":
+            case "video/3gpp2":
+            case "audio/mp4":
+                isoBaseMedia(source, info);
+                break;
+            case "audio/wav":
+                wav(source, info);
+                break;
+            case "audio/mpeg":
+                mp3(source, info);
+                break;
+            default:
+                break;
+        }
+        return info.build();
+    }
+
+    /**
+     * 由 MIME 类型得到格式简称
+     */
+    static String formatName(String mimeType) {
+        switch (mimeType) {
+            case "application/octet-stream":
+                return null;
+            case "video/quicktime":
+                return "mov";
+            case "audio/mpeg":
+                return "mp3";
+            case "audio/mp4":
+                return "m4a";
+            case "video/x-msvideo":
+                return "avi";
+            case "video/x-matroska":
+                return "mkv";
+            case "image/svg+xml":
+                return "svg";
+            default:
+                return mimeType.substring(mimeType.indexOf('/') + 1);
+        }
+    }
+
+    /**
+     * PNG：IHDR 固定位于签名之后
+     */
+    private static void png(byte[] head, MediaInfo.Builder info) {
+        if (head.length >= 24 && fourcc(head, 12).equals("IHDR")) {
+            info.width((int) u32be(head, 16)).height((int) u32be(head, 20));
+        }
+    }
+
+    private static void gif(byte[] head, MediaInfo.Builder info) {
+        if (head.length >= 10) {
+            info.width(u16le(head, 6)).height(u16le(head, 8));
+        }
+    }
+
+    /**
+     * WebP：按第一个 chunk 区分扩展格式（VP8X）、有损（VP8）和无损（VP8L）
+     */
+    private static void webp(byte[] head, MediaInfo.Builder info) {
+        if (head.length < 30) {
+            return;
+        }
+        switch (fourcc(head, 12)) {
+            case "VP8X":
+                info.width(u24le(head, 24) + 1).height(u24le(head, 27) + 1);
+                break;
+            case "VP8 ":
+                // 关键帧起始码 9d 01 2a 之后是 14 位宽高
+                if ((head[23] & 0xFF) == 0x9D && (head[24] & 0xFF) == 0x01 && (head[25] & 0xFF) == 0x2A) {
+                    info.width(u16le(head, 26) & 0x3FFF).height(u16le(head, 28) & 0x3FFF);
+                }
+                break;
+            case "VP8L":
+                if ((head[20] & 0xFF) == 0x2F) {
+                    long bits = u32le(head, 21);
+                    info.width((int) (bits & 0x3FFF) + 1).height((int) ((bits >> 14) & 0x3FFF) + 1);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * JPEG：逐段跳过，直到 SOF 段；EXIF 缩略图较大时 SOF 可能位于文件头之后
+     */
+    private static void jpeg(Source source, MediaInfo.Builder info) throws IOException {
+        long position = 2;
+        for (int i = 0; i < MAX_ELEMENTS; i++) {
+            byte[] segment = source.read(position, 9);
+            if (segment.length < 4 || (segment[0] & 0xFF) != 0xFF) {
+                return;
+            }
+            int marker = segment[1] & 0xFF;
+            if (marker == 0xFF) {
+                // 填充字节
+                position++;
+                continue;
+            }
+            if (marker == 0x01 || marker == 0xD8 || marker >= 0xD0 && marker <= 0xD7) {
+                // 没有长度字段的标记
+                position += 2;
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                // 到达扫描数据或文件结束
+                return;
+            }
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                if (segment.length >= 9) {
+                    info.height(u16be(segment, 5)).width(u16be(segment, 7));
+                }
+                return;
+            }
+            position += 2 + u16be(segment, 2);
+        }
+    }
+
+    /**
+     * ISO BMFF：跳过顶层 box（包括 mdat）找到 moov，再解析其中的 mvhd 和各 trak
+     */
+    private static void isoBaseMedia(Source source, MediaInfo.Builder info) throws IOException {
+        long size = source.size();
+        long position = 0;
+        for (int i = 0; i < MAX_ELEMENTS; i++) {
+            byte[] header = source.read(position, 16);
+            if (header.length < 8) {
+                return;
+            }
+            long boxSize = u32be(header, 0);
+            int headerSize = 8;
+            if (boxSize == 1) {
+                if (header.length < 16) {
+                    return;
+                }
+                boxSize = u64be(header, 8);
+                headerSize = 16;
+            } else if (boxSize == 0) {
+                // 延伸到文件末尾
+                if (size < 0) {
+                    return;
+                }
+                boxSize = size - position;
+            }
+            if (boxSize < headerSize) {
+                return;
+            }
+            if (fourcc(header, 4).equals("moov")) {
+                if (boxSize - headerSize > MAX_MOOV_SIZE) {
+                    return;
+                }
+                byte[] moov = source.read(position + headerSize, (int) (boxSize - headerSize));
+                movie(moov, size, info);
+                return;
+            }
+            position += boxSize;
+        }
+    }
+
+    private static void movie(byte[] moov, long fileSize, MediaInfo.Builder info) {
+        Movie movie = new Movie();
+        walk(moov, 0, moov.length, movie, null);
+
+        Track video = null;
+        Track audio = null;
+        for (Track track : movie.tracks) {
+            if (video == null && "vide".equals(track.handler)) {
+                video = track;
+            } else if (audio == null && "soun".equals(track.handler)) {
+                audio = track;
+            }
+        }
+
+        long duration = movie.timescale > 0 ? movie.duration * 1000 / movie.timescale : 0;
+        info.duration(duration);
+        if (video != null) {
+            info.codec(video.codec)
+                .width(video.width > 0 ? video.width : video.entryWidth)
+                .height(video.height > 0 ? video.height : video.entryHeight);
+            if (video.duration > 0 && video.timescale > 0) {
+                double frameRate = (double) video.sampleCount * video.timescale / video.duration;
+                info.frameRate(Math.round(frameRate * 100) / 100.0);
+            }
+        }
+        if (audio != null) {
+            info.hasAudio(true)
+                .sampleRate(audio.sampleRate)
+                .channels(audio.channels);
+            if (video == null) {
+                info.codec(audio.codec);
+            }
+        }
+        if (fileSize > 0 && duration > 0) {
+            info.bitrate((int) (fileSize * 8000 / duration));
+        }
+    }
+
+    /**
+     * 遍历 [start, end) 内的子 box，只进入与元信息相关的容器
+     */
+    private static void walk(byte[] data, int start, int end, Movie movie, Track track) {
+        int position = start;
+        for (int i = 0; i < MAX_ELEMENTS && position + 8 <= end; i++) {
+            long boxSize = u32be(data, position);
+            int headerSize = 8;
+            if (boxSize == 1) {
+                if (position + 16 > end) {
+                    return;
+                }
+                boxSize = u64be(data, position + 8);
+                headerSize = 16;
+            } else if (boxSize == 0) {
+                boxSize = end - position;
+            }
+            if (boxSize < headerSize || boxSize > end - position) {
+                return;
+            }
+            int boxEnd = position + (int) boxSize;
+            int body = position + headerSize;
+            switch (fourcc(data, position + 4)) {
+                case "mvhd":
+                    if (fullBox(data, body, boxEnd, 20, 32)) {
+                        boolean v1 = data[body] == 1;
+                        movie.timescale = u32be(data, body + (v1 ? 20 : 12));
+                        movie.duration = v1 ? u64be(data, body + 24) : u32be(data, body + 16);
+                    }
+                    break;
+                case "trak":
+                    Track child = new Track();
+                    walk(data, body, boxEnd, movie, child);
+                    movie.tracks.add(child);
+                    break;
+                case "mdia":
+                case "minf":
+                case "stbl":
+                    if (track != null) {
+                        walk(data, body, boxEnd, movie, track);
+                    }
+                    break;
+                case "tkhd":
+                    if (track != null && fullBox(data, body, boxEnd, 84, 96)) {
+                        int offset = body + (data[body] == 1 ? 88 : 76);
+                        // 16.16 定点数
+                        track.width = (int) (u32be(data, offset) >>> 16);
+                        track.height = (int) (u32be(data, offset + 4) >>> 16);
+                    }
+                    break;
+                case "mdhd":
+                    if (track != null && fullBox(data, body, boxEnd, 20, 32)) {
+                        boolean v1 = data[body] == 1;
+                        track.timescale = u32be(data, body + (v1 ? 20 : 12));
+                        track.duration = v1 ? u64be(data, body + 24) : u32be(data, body + 16);
+                    }
+                    break;
+                case "hdlr":
+                    if (track != null && body + 12 <= boxEnd) {
+                        track.handler = fourcc(data, body + 8);
+                    }
+                    break;
+                case "stsd":
+                    if (track != null) {
+                        sampleEntry(data, body + 8, boxEnd, track);
+                    }
+                    break;
+                case "stts":
+                    if (track != null && body + 8 <= boxEnd) {
+                        long entries = u32be(data, body + 4);
+                        long samples = 0;
+                        for (int e = 0, offset = body + 8; e < entries && offset + 8 <= boxEnd; e++, offset += 8) {
+                            samples += u32be(data, offset);
+                        }
+                        track.sampleCount = samples;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            position = boxEnd;
+        }
+    }
+
+    /**
+     * 第一个样本描述：类型即编解码器；视频条目含宽高，音频条目含声道数和采样率
+     */
+    private static void sampleEntry(byte[] data, int entry, int end, Track track) {
+        if (entry + 8 > end) {
+            return;
+        }
+        track.codec = fourcc(data, entry + 4).trim();
+        if (entry + 36 <= end) {
+            track.entryWidth = u16be(data, entry + 32);
+            track.entryHeight = u16be(data, entry + 34);
+            track.channels = u16be(data, entry + 24);
+            track.sampleRate = (int) (u32be(data, entry + 32) >>> 16);
+        }
+    }
+
+    /**
+     * 按版本检查 full box 的长度是否足够
+     */
+    private static boolean fullBox(byte[] data, int body, int end, int v0Length, int v1Length) {
+        return body < end && body + (data[body] == 1 ? v1Length : v0Length) <= end;
+    }
+
+    /**
+     * WAV：fmt chunk 给出声道数、采样率和字节率，data chunk 的大小换算为时长
+     */
+    private static void wav(Source source, MediaInfo.Builder info) throws IOException {
+        long size = source.size();
+        long position = 12;
+        long byteRate = 0;
+        for (int i = 0; i < MAX_ELEMENTS; i++) {
+            byte[] chunk = source.read(position, 24);
+            if (chunk.length < 8) {
+                return;
+            }
+            long chunkSize = u32le(chunk, 4);
+            String id = fourcc(chunk, 0);
+            if (id.equals("fmt ") && chunk.length >= 24) {
+                int audioFormat = u16le(chunk, 8);
+                byteRate = u32le(chunk, 16);
+                info.codec(audioFormat == 3 ? "pcm_float" : audioFormat == 1 || audioFormat == 0xFFFE ? "pcm" : null)
+                    .channels(u16le(chunk, 10))
+                    .sampleRate((int) u32le(chunk, 12))
+                    .bitrate((int) (byteRate * 8));
+            } else if (id.equals("data")) {
+                // 流式写出的 WAV 可能没有回填 data 大小
+                if (size > 0 && (chunkSize == 0 || chunkSize == 0xFFFFFFFFL || position + 8 + chunkSize > size)) {
+                    chunkSize = size - position - 8;
+                }
+                if (byteRate > 0) {
+                    info.duration(chunkSize * 1000 / byteRate);
+                }
+                return;
+            }
+            // chunk 按偶数字节对齐
+            position += 8 + chunkSize + (chunkSize & 1);
+        }
+    }
+
+    /**
+     * MP3：跳过 ID3v2 标签，解析第一个 Layer III 帧头；有 Xing/Info 头时按帧数计算时长，否则按固定比特率估算
+     */
+    private static void mp3(Source source, MediaInfo.Builder info) throws IOException {
+        long size = source.size();
+        long position = 0;
+        byte[] tag = source.read(0, 10);
+        if (tag.length >= 10 && tag[0] == 'I' && tag[1] == 'D' && tag[2] == '3') {
+            // 标签大小为 synchsafe 整数，每字节 7 位；标志位 0x10 表示带 10 字节页脚
+            long tagSize = (tag[6] & 0x7F) << 21 | (tag[7] & 0x7F) << 14 | (tag[8] & 0x7F) << 7 | tag[9] & 0x7F;
+            position = 10 + tagSize + ((tag[5] & 0x10) != 0 ? 10 : 0);
+        }
+
+        // 帧头 4 字节 + 最长 32 字节的 side info + Xing 头的标识、标志、帧数和字节数
+        byte[] frame = source.read(position, 4 + 32 + 16);
+        if (frame.length < 4 || (frame[0] & 0xFF) != 0xFF || (frame[1] & 0xE0) != 0xE0) {
+            return;
+        }
+        int version = (frame[1] >> 3) & 0x3;
+        int layer = (frame[1] >> 1) & 0x3;
+        int bitrateIndex = (frame[2] >> 4) & 0xF;
+        int sampleRateIndex = (frame[2] >> 2) & 0x3;
+        if (version == 1 || layer != 1 || bitrateIndex == 0xF || sampleRateIndex == 3) {
+            // 保留值，或不是 Layer III
+            return;
+        }
+        boolean mpeg1 = version == 3;
+        boolean mono = ((frame[3] >> 6) & 0x3) == 3;
+        // MPEG-2 采样率减半，MPEG-2.5 再减半
+        int sampleRate = MP3_SAMPLE_RATES[sampleRateIndex] >> (mpeg1 ? 0 : version == 2 ? 1 : 2);
+        int bitrate = (mpeg1 ? MP3_BITRATES_V1 : MP3_BITRATES_V2)[bitrateIndex] * 1000;
+        info.codec("mp3").sampleRate(sampleRate).channels(mono ? 1 : 2);
+
+        long audioBytes = size > position ? size - position : 0;
+        int xing = 4 + (mpeg1 ? (mono ? 17 : 32) : (mono ? 9 : 17));
+        if (frame.length >= xing + 12) {
+            String id = fourcc(frame, xing);
+            long flags = u32be(frame, xing + 4);
+            if ((id.equals("Xing") || id.equals("Info")) && (flags & 0x1) != 0) {
+                long frames = u32be(frame, xing + 8);
+                long duration = frames * (mpeg1 ? 1152 : 576) * 1000 / sampleRate;
+                if ((flags & 0x2) != 0 && frame.length >= xing + 16) {
+                    audioBytes = u32be(frame, xing + 12);
+                }
+                info.duration(duration);
+                if (duration > 0 && audioBytes > 0) {
+                    info.bitrate((int) (audioBytes * 8000 / duration));
+                }
+                return;
+            }
+        }
+        info.bitrate(bitrate);
+        if (bitrate > 0 && audioBytes > 0) {
+            info.duration(audioBytes * 8000 / bitrate);
+        }
+    }
+
+    private static String fourcc(byte[] data, int offset) {
+        return new String(data, offset, 4, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int u16be(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 8 | data[offset + 1] & 0xFF;
+    }
+
+    private static long u32be(byte[] data, int offset) {
+        return ((long) u16be(data, offset) << 16) | u16be(data, offset + 2);
+    }
+
+    private static long u64be(byte[] data, int offset) {
+        return u32be(data, offset) << 32 | u32be(data, offset + 4);
+    }
+
+    private static int u16le(byte[] data, int offset) {
+        return data[offset] & 0xFF | (data[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int u24le(byte[] data, int offset) {
+        return u16le(data, offset) | (data[offset + 2] & 0xFF) << 16;
+    }
+
+    private static long u32le(byte[] data, int offset) {
+        return u16le(data, offset) | (long) u16le(data, offset + 2) << 16;
+    }
+
+    /**
+     * moov 中收集的信息
+     */
+    private static final class Movie {
+        long timescale;
+        long duration;
+        final List<Track> tracks = new ArrayList<>();
+    }
+
+    /**
+     * 单个 trak 中收集的信息
+     */
+    private static final class Track {
+        String handler;
+        String codec;
+        int width;
+        int height;
+        int entryWidth;
+        int entryHeight;
+        int channels;
+        int sampleRate;
+        long timescale;
+        long duration;
+        long sampleCount;
+    }
+}
@@ -2,13 +2,141 @@ package com.aliyun.speedpix.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * MIME 类型检测工具
  * 基于文件的魔术字节（Magic Numbers）检测文件类型
+ *
+ * 签名按首字节建立索引，检测时只比较首字节对应的少量签名；RIFF、ISO BMFF（ftyp）和 EBML
+ * 等容器格式再按子类型细分。检测和扩展名查找都不分配对象，可以在上传热路径上反复调用。
  */
 public class MimeTypeDetector {
 
+    /**
+     * 检测需要读取的文件头长度
+     */
+    public static final int HEADER_SIZE = 64;
+
+    private static final String OCTET_STREAM = "application/octet-stream";
+    // SVG 文本检测扫描的最大长度
+    private static final int TEXT_SCAN_SIZE = 100;
+
+    private static final byte[] FTYP = ascii("ftyp");
+    private static final byte[] WEBM = ascii("webm");
+    private static final byte[] MATROSKA = ascii("matroska");
+    private static final byte[] SVG_TAG = ascii("<svg");
+    private static final byte[] XML_DECL = ascii("<?xml");
+    private static final byte[] SVG = ascii("svg");
+
+    // 按偏移 0 处首字节索引的签名
+    private static final Signature[][] BY_FIRST_BYTE = new Signature[256][];
+    // 偏移不为 0 的签名
+    private static final Signature[] OFFSET_SIGNATURES;
+
+    // ISO BMFF 主品牌到类型的映射，未列出的品牌按 MP4 处理
+    private static final Brand[] BRANDS = {
+        new Brand("avif", "image/avif"),
+        new Brand("avis", "image/avif"),
+        new Brand("heic", "image/heic"),
+        new Brand("heix", "image/heic"),
+        new Brand("heim", "image/heic"),
+        new Brand("heis", "image/heic"),
+        new Brand("hevc", "image/heic-sequence"),
+        new Brand("hevx", "image/heic-sequence"),
+        new Brand("mif1", "image/heif"),
+        new Brand("msf1", "image/heif-sequence"),
+        new Brand("qt  ", "video/quicktime"),
+        new Brand("M4A ", "audio/mp4"),
+        new Brand("M4B ", "audio/mp4"),
+        new Brand("3gp4", "video/3gpp"),
+        new Brand("3gp5", "video/3gpp"),
+        new Brand("3g2a", "video/3gpp2"),
+    };
+
+    private static final ExtensionTable EXTENSIONS = new ExtensionTable(
+        "jpg", "image/jpeg",
+        "jpeg", "image/jpeg",
+        "png", "image/png",
+        "gif", "image/gif",
+        "webp", "image/webp",
+        "bmp", "image/bmp",
+        "svg", "image/svg+xml",
+        "tif", "image/tiff",
+        "tiff", "image/tiff",
+        "avif", "image/avif",
+        "heic", "image/heic",
+        "heif", "image/heif",
+        "mp4", "video/mp4",
+        "m4v", "video/mp4",
+        "mov", "video/quicktime",
+        "webm", "video/webm",
+        "mkv", "video/x-matroska",
+        "avi", "video/x-msvideo",
+        "wav", "audio/wav",
+        "mp3", "audio/mpeg",
+        "m4a", "audio/mp4",
+        "flac", "audio/flac",
+        "ogg", "audio/ogg",
+        "oga", "audio/ogg",
+        "opus", "audio/ogg",
+        "pdf", "application/pdf",
+        "zip", "application/zip",
+        "txt", "text/plain",
+        "json", "application/json",
+        "xml", "application/xml"
+    );
+
+    static {
+        List<Signature> offsetSignatures = new ArrayList<>();
+        for (Signature signature : new Signature[] {
+            new Signature(0, new int[] {0xFF, 0xD8, 0xFF}, "image/jpeg"),
+            new Signature(0, new int[] {0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A}, "image/png"),
+            new Signature(0, ascii("GIF8"), "image/gif"),
+            new Signature(0, ascii("RIFF"), MimeTypeDetector::riffType),
+            new Signature(0, ascii("%PDF"), "application/pdf"),
+            new Signature(0, new int[] {0x50, 0x4B, 0x03, 0x04}, "application/zip"),
+            new Signature(0, new int[] {0x50, 0x4B, 0x05, 0x06}, "application/zip"),
+            new Signature(0, new int[] {0x50, 0x4B, 0x07, 0x08}, "application/zip"),
+            new Signature(0, new int[] {0x49, 0x49, 0x2A, 0x00}, "image/tiff"),
+            new Signature(0, new int[] {0x4D, 0x4D, 0x00, 0x2A}, "image/tiff"),
+            new Signature(0, ascii("fLaC"), "audio/flac"),
+            new Signature(0, ascii("OggS"), "audio/ogg"),
+            new Signature(0, ascii("ID3"), "audio/mpeg"),
+            new Signature(0, new int[] {0x1A, 0x45, 0xDF, 0xA3}, MimeTypeDetector::ebmlType),
+            // MPEG 音频帧同步字，排除 layer 位为 00 的 AAC ADTS
+            new Signature(0, new int[] {0xFF}, MimeTypeDetector::mpegAudioType),
+            new Signature(0, ascii("BM"), "image/bmp"),
+            new Signature(4, FTYP, MimeTypeDetector::isoBaseMediaType),
+            // 没有 ftyp 的旧版 QuickTime 文件
+            new Signature(4, ascii("moov"), "video/quicktime"),
+            new Signature(4, ascii("mdat"), "video/quicktime"),
+            new Signature(4, ascii("wide"), "video/quicktime"),
+        }) {
+            if (signature.offset != 0) {
+                offsetSignatures.add(signature);
+                continue;
+            }
+            int first = signature.magic[0] & 0xFF;
+            Signature[] existing = BY_FIRST_BYTE[first];
+            Signature[] updated = existing == null ? new Signature[1] : Arrays.copyOf(existing, existing.length + 1);
+            updated[updated.length - 1] = signature;
+            BY_FIRST_BYTE[first] = updated;
+        }
+        OFFSET_SIGNATURES = offsetSignatures.toArray(new Signature[0]);
+    }
+
+    // 每个线程复用的文件头缓冲区
+    private static final ThreadLocal<ByteBuffer> HEADER_BUFFER =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(HEADER_SIZE));
+
     /**
      * 从 InputStream 检测 MIME 类型
      *
@@ -17,27 +145,28 @@ public class MimeTypeDetector {
      */
     public static String detectMimeType(InputStream inputStream) {
         if (inputStream == null) {
-            return "application/octet-stream";
+            return OCTET_STREAM;
         }
 
         try {
             // 标记流，以便稍后重置
-            inputStream.mark(32);
+            inputStream.mark(HEADER_SIZE);
 
-            // 读取前 32 字节用于检测
-            byte[] buffer = new byte[32];
-            int bytesRead = inputStream.read(buffer);
+            // 读取文件头用于检测
+            byte[] buffer = HEADER_BUFFER.get().array();
+            int bytesRead = 0;
+            int n;
+            while (bytesRead < buffer.length && (n = inputStream.read(buffer, bytesRead,
+                buffer.length - bytesRead)) > 0) {
+                bytesRead += n;
+            }
 
             // 重置流到标记位置
             inputStream.reset();
 
-            if (bytesRead < 2) {
-                return "application/octet-stream";
-            }
-
-            return detectMimeTypeFromBytes(buffer, bytesRead);
+            return detectMimeType(buffer, bytesRead);
         } catch (IOException e) {
-            return "application/octet-stream";
+            return OCTET_STREAM;
         }
     }
 
@@ -48,114 +177,189 @@ public class MimeTypeDetector {
      * @return 检测到的 MIME 类型
      */
     public static String detectMimeType(byte[] bytes) {
-        if (bytes == null || bytes.length == 0) {
-            return "application/octet-stream";
+        if (bytes == null) {
+            return OCTET_STREAM;
         }
 
-        return detectMimeTypeFromBytes(bytes, bytes.length);
+        return detectMimeType(bytes, bytes.length);
+    }
+
+    /**
+     * 从文件检测 MIME 类型，只通过 FileChannel 读取文件开头的 {@link #HEADER_SIZE} 字节
+     *
+     * @param path 文件路径
+     * @return 检测到的 MIME 类型
+     * @throws IOException 读取失败
+     */
+    public static String detectMimeType(Path path) throws IOException {
+        ByteBuffer header = HEADER_BUFFER.get();
+        header.clear();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // 读满文件头或到达文件末尾
+            }
+        }
+        return detectMimeType(header.array(), header.position());
     }
 
     /**
      * 基于魔术字节检测 MIME 类型
+     *
+     * @param buffer 文件头
+     * @param length 有效字节数
+     * @return 检测到的 MIME 类型
      */
-    private static String detectMimeTypeFromBytes(byte[] buffer, int length) {
+    public static String detectMimeType(byte[] buffer, int length) {
         if (length < 2) {
-            return "application/octet-stream";
-        }
-
-        // JPEG 检测 (FF D8 FF)
-        if (length >= 3 &&
-            (buffer[0] & 0xFF) == 0xFF &&
-            (buffer[1] & 0xFF) == 0xD8 &&
-            (buffer[2] & 0xFF) == 0xFF) {
-            return "image/jpeg";
-        }
-
-        // PNG 检测 (89 50 4E 47 0D 0A 1A 0A)
-        if (length >= 8 &&
-            (buffer[0] & 0xFF) == 0x89 &&
-            (buffer[1] & 0xFF) == 0x50 &&
-            (buffer[2] & 0xFF) == 0x4E &&
-            (buffer[3] & 0xFF) == 0x47 &&
-            (buffer[4] & 0xFF) == 0x0D &&
-            (buffer[5] & 0xFF) == 0x0A &&
-            (buffer[6] & 0xFF) == 0x1A &&
-            (buffer[7] & 0xFF) == 0x0A) {
-            return "image/png";
-        }
-
-        // GIF 检测 (47 49 46 38)
-        if (length >= 4 &&
-            (buffer[0] & 0xFF) == 0x47 &&
-            (buffer[1] & 0xFF) == 0x49 &&
-            (buffer[2] & 0xFF) == 0x46 &&
-            (buffer[3] & 0xFF) == 0x38) {
-            return "image/gif";
-        }
-
-        // WebP 检测 (52 49 46 46 ... 57 45 42 50)
-        if (length >= 12 &&
-            (buffer[0] & 0xFF) == 0x52 &&
-            (buffer[1] & 0xFF) == 0x49 &&
-            (buffer[2] & 0xFF) == 0x46 &&
-            (buffer[3] & 0xFF) == 0x46 &&
-            (buffer[8] & 0xFF) == 0x57 &&
-            (buffer[9] & 0xFF) == 0x45 &&
-            (buffer[10] & 0xFF) == 0x42 &&
-            (buffer[11] & 0xFF) == 0x50) {
-            return "image/webp";
+            return OCTET_STREAM;
         }
 
-        // MP4 检测 (... 66 74 79 70)
-        if (length >= 8) {
-            for (int i = 0; i <= length - 4; i++) {
-                if ((buffer[i] & 0xFF) == 0x66 &&
-                    (buffer[i + 1] & 0xFF) == 0x74 &&
-                    (buffer[i + 2] & 0xFF) == 0x79 &&
-                    (buffer[i + 3] & 0xFF) == 0x70) {
-                    return "video/mp4";
+        Signature[] candidates = BY_FIRST_BYTE[buffer[0] & 0xFF];
+        if (candidates != null) {
+            for (Signature signature : candidates) {
+                String type = signature.match(buffer, length);
+                if (type != null) {
+                    return type;
                 }
             }
         }
+        for (Signature signature : OFFSET_SIGNATURES) {
+            String type = signature.match(buffer, length);
+            if (type != null) {
+                return type;
+            }
+        }
 
-        // PDF 检测 (25 50 44 46)
-        if (length >= 4 &&
-            (buffer[0] & 0xFF) == 0x25 &&
-            (buffer[1] & 0xFF) == 0x50 &&
-            (buffer[2] & 0xFF) == 0x44 &&
-            (buffer[3] & 0xFF) == 0x46) {
-            return "application/pdf";
+        // SVG 检测 (文本形式)
+        int scan = Math.min(length, TEXT_SCAN_SIZE);
+        if (length >= 5 && (indexOfIgnoreCase(buffer, scan, SVG_TAG) >= 0
+            || indexOfIgnoreCase(buffer, scan, XML_DECL) >= 0 && indexOfIgnoreCase(buffer, scan, SVG) >= 0)) {
+            return "image/svg+xml";
         }
 
-        // ZIP 检测 (50 4B 03 04 或 50 4B 05 06 或 50 4B 07 08)
-        if (length >= 4 &&
-            (buffer[0] & 0xFF) == 0x50 &&
-            (buffer[1] & 0xFF) == 0x4B &&
-            ((buffer[2] & 0xFF) == 0x03 || (buffer[2] & 0xFF) == 0x05 || (buffer[2] & 0xFF) == 0x07)) {
-            return "application/zip";
+        // 检查是否可能是文本文件
+        if (isPossibleTextContent(buffer, length)) {
+            return "text/plain";
         }
 
-        // BMP 检测 (42 4D)
-        if (length >= 2 &&
-            (buffer[0] & 0xFF) == 0x42 &&
-            (buffer[1] & 0xFF) == 0x4D) {
-            return "image/bmp";
+        return OCTET_STREAM;
+    }
+
+    /**
+     * RIFF 容器按格式标识细分：WebP、WAV、AVI
+     */
+    private static String riffType(byte[] buffer, int length) {
+        if (length < 12) {
+            return null;
         }
+        if (matches(buffer, length, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        if (matches(buffer, length, 8, 'W', 'A', 'V', 'E')) {
+            return "audio/wav";
+        }
+        if (matches(buffer, length, 8, 'A', 'V', 'I', ' ')) {
+            return "video/x-msvideo";
+        }
+        return null;
+    }
 
-        // SVG 检测 (文本形式)
-        if (length >= 5) {
-            String start = new String(buffer, 0, Math.min(length, 100)).toLowerCase();
-            if (start.contains("<svg") || start.contains("<?xml") && start.contains("svg")) {
-                return "image/svg+xml";
+    /**
+     * ISO BMFF 按主品牌细分；通用品牌（mif1 等）再查看兼容品牌
+     */
+    private static String isoBaseMediaType(byte[] buffer, int length) {
+        if (length < 12) {
+            return "video/mp4";
+        }
+        String type = brandType(buffer, 8);
+        if (type == null) {
+            return "video/mp4";
+        }
+        if (type.startsWith("image/heif")) {
+            // 兼容品牌从偏移 16 开始，到 ftyp box 结束
+            int boxEnd = Math.min(length, readInt(buffer, 0));
+            for (int i = 16; i + 4 <= boxEnd; i += 4) {
+                String compatible = brandType(buffer, i);
+                if (compatible != null && (compatible.startsWith("image/avif") || compatible.startsWith("image/heic"))) {
+                    return compatible;
+                }
             }
         }
+        return type;
+    }
 
-        // 检查是否可能是文本文件
-        if (isPossibleTextContent(buffer, length)) {
-            return "text/plain";
+    private static String brandType(byte[] buffer, int offset) {
+        for (Brand brand : BRANDS) {
+            if (buffer[offset] == brand.code[0] && buffer[offset + 1] == brand.code[1]
+                && buffer[offset + 2] == brand.code[2] && buffer[offset + 3] == brand.code[3]) {
+                return brand.mimeType;
+            }
         }
+        return null;
+    }
 
-        return "application/octet-stream";
+    /**
+     * EBML 容器按文档类型区分 WebM 和 Matroska
+     */
+    private static String ebmlType(byte[] buffer, int length) {
+        if (indexOf(buffer, length, WEBM) >= 0) {
+            return "video/webm";
+        }
+        if (indexOf(buffer, length, MATROSKA) >= 0) {
+            return "video/x-matroska";
+        }
+        return "video/webm";
+    }
+
+    /**
+     * MPEG 音频帧头：11 位同步字，layer 位不为 00
+     */
+    private static String mpegAudioType(byte[] buffer, int length) {
+        int b = buffer[1] & 0xFF;
+        return (b & 0xE0) == 0xE0 && (b & 0x06) != 0 ? "audio/mpeg" : null;
+    }
+
+    private static boolean matches(byte[] buffer, int length, int offset, char a, char b, char c, char d) {
+        return offset + 4 <= length && buffer[offset] == a && buffer[offset + 1] == b
+            && buffer[offset + 2] == c && buffer[offset + 3] == d;
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xFF) << 24 | (buffer[offset + 1] & 0xFF) << 16
+            | (buffer[offset + 2] & 0xFF) << 8 | (buffer[offset + 3] & 0xFF);
+    }
+
+    private static int indexOf(byte[] buffer, int length, byte[] pattern) {
+        outer:
+        for (int i = 0; i + pattern.length <= length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (buffer[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 不区分大小写查找 ASCII 小写模式
+     */
+    private static int indexOfIgnoreCase(byte[] buffer, int length, byte[] pattern) {
+        outer:
+        for (int i = 0; i + pattern.length <= length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                int b = buffer[i + j];
+                if (b >= 'A' && b <= 'Z') {
+                    b += 'a' - 'A';
+                }
+                if (b != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
     }
 
     /**
@@ -189,36 +393,134 @@ public class MimeTypeDetector {
      */
     public static String guessMimeTypeFromFilename(String filename) {
         if (filename == null || filename.isEmpty()) {
-            return "application/octet-stream";
+            return OCTET_STREAM;
         }
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0) {
+            return OCTET_STREAM;
+        }
+        String type = EXTENSIONS.get(filename, dot + 1);
+        return type != null ? type : OCTET_STREAM;
+    }
 
-        String extension = filename.toLowerCase();
-        if (extension.endsWith(".jpg") || extension.endsWith(".jpeg")) {
-            return "image/jpeg";
-        } else if (extension.endsWith(".png")) {
-            return "image/png";
-        } else if (extension.endsWith(".gif")) {
-            return "image/gif";
-        } else if (extension.endsWith(".webp")) {
-            return "image/webp";
-        } else if (extension.endsWith(".bmp")) {
-            return "image/bmp";
-        } else if (extension.endsWith(".svg")) {
-            return "image/svg+xml";
-        } else if (extension.endsWith(".mp4")) {
-            return "video/mp4";
-        } else if (extension.endsWith(".pdf")) {
-            return "application/pdf";
-        } else if (extension.endsWith(".zip")) {
-            return "application/zip";
-        } else if (extension.endsWith(".txt")) {
-            return "text/plain";
-        } else if (extension.endsWith(".json")) {
-            return "application/json";
-        } else if (extension.endsWith(".xml")) {
-            return "application/xml";
-        } else {
-            return "application/octet-stream";
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 子类型检测，返回 null 表示不匹配
+     */
+    private interface Refiner {
+        String refine(byte[] buffer, int length);
+    }
+
+    /**
+     * 固定偏移处的魔术字节签名
+     */
+    private static final class Signature {
+        final int offset;
+        final byte[] magic;
+        final String mimeType;
+        final Refiner refiner;
+
+        Signature(int offset, int[] magic, String mimeType) {
+            this(offset, toBytes(magic), mimeType, null);
+        }
+
+        Signature(int offset, int[] magic, Refiner refiner) {
+            this(offset, toBytes(magic), null, refiner);
+        }
+
+        Signature(int offset, byte[] magic, String mimeType) {
+            this(offset, magic, mimeType, null);
+        }
+
+        Signature(int offset, byte[] magic, Refiner refiner) {
+            this(offset, magic, null, refiner);
+        }
+
+        private Signature(int offset, byte[] magic, String mimeType, Refiner refiner) {
+            this.offset = offset;
+            this.magic = magic;
+            this.mimeType = mimeType;
+            this.refiner = refiner;
+        }
+
+        String match(byte[] buffer, int length) {
+            if (offset + magic.length > length) {
+                return null;
+            }
+            for (int i = 0; i < magic.length; i++) {
+                if (buffer[offset + i] != magic[i]) {
+                    return null;
+                }
+            }
+            return refiner != null ? refiner.refine(buffer, length) : mimeType;
+        }
+
+        private static byte[] toBytes(int[] values) {
+            byte[] bytes = new byte[values.length];
+            for (int i = 0; i < values.length; i++) {
+                bytes[i] = (byte)values[i];
+            }
+            return bytes;
+        }
+    }
+
+    private static final class Brand {
+        final byte[] code;
+        final String mimeType;
+
+        Brand(String code, String mimeType) {
+            this.code = ascii(code);
+            this.mimeType = mimeType;
+        }
+    }
+
+    /**
+     * 扩展名开放寻址表，查找时按字符计算不区分大小写的哈希，不创建子串
+     */
+    private static final class ExtensionTable {
+        private final String[] keys;
+        private final String[] values;
+        private final int mask;
+
+        ExtensionTable(String... entries) {
+            int capacity = Integer.highestOneBit(entries.length) * 2;
+            keys = new String[capacity];
+            values = new String[capacity];
+            mask = capacity - 1;
+            for (int i = 0; i < entries.length; i += 2) {
+                int slot = hash(entries[i], 0) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = entries[i];
+                values[slot] = entries[i + 1];
+            }
+        }
+
+        String get(String filename, int start) {
+            int length = filename.length() - start;
+            for (int slot = hash(filename, start) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                String key = keys[slot];
+                if (key.length() == length && filename.regionMatches(true, start, key, 0, length)) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        private static int hash(String value, int start) {
+            int h = 0;
+            for (int i = start; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+                h = 31 * h + c;
+            }
+            return h ^ (h >>> 16);
         }
     }
 }
@@ -0,0 +1,106 @@
+package com.aliyun.speedpix.util;
+
+import com.aliyun.speedpix.http.HttpTransport;
+import com.aliyun.speedpix.http.OutputCache;
+import com.aliyun.speedpix.http.OutputDownloader;
+import com.aliyun.speedpix.model.FileOutput;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+
+/**
+ * Jackson 模块：反序列化 {@link FileOutput} 及其子类时，将其绑定到客户端的传输层
+ *
+ * 这样预测结果中的每个 FileOutput 都复用客户端的连接池和输出缓存，而不是使用独立的 HTTP 客户端；
+ * 客户端启用了分段下载时，同时绑定分段下载器。
+ */
+public class OutputBindingModule extends SimpleModule {
+    private static final long serialVersionUID = 1L;
+
+    private final transient HttpTransport transport;
+    private final transient OutputDownloader downloader;
+    private final transient OutputCache cache;
+
+    public OutputBindingModule(HttpTransport transport) {
+        this(transport, null, null);
+    }
+
+    public OutputBindingModule(HttpTransport transport, OutputDownloader downloader) {
+        this(transport, downloader, null);
+    }
+
+    /**
+     * @param transport 客户端的传输层
+     * @param downloader 分段下载器，为 null 时不启用分段下载
+     * @param cache 输出缓存，为 null 时使用默认缓存
+     */
+    public OutputBindingModule(HttpTransport transport, OutputDownloader downloader, OutputCache cache) {
+        super("SpeedPixOutputBinding");
+        this.transport = transport;
+        this.downloader = downloader;
+        this.cache = cache;
+        setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription beanDesc,
+                JsonDeserializer<?> deserializer) {
+                if (FileOutput.class.isAssignableFrom(beanDesc.getBeanClass())) {
+                    return new BindingDeserializer(deserializer, OutputBindingModule.this.transport,
+                        OutputBindingModule.this.downloader, OutputBindingModule.this.cache);
+                }
+                return deserializer;
+            }
+        });
+    }
+
+    /**
+     * 在委托反序列化完成后绑定传输层、分段下载器和输出缓存
+     */
+    private static class BindingDeserializer extends DelegatingDeserializer {
+        private static final long serialVersionUID = 1L;
+
+        private final transient HttpTransport transport;
+        private final transient OutputDownloader downloader;
+        private final transient OutputCache cache;
+
+        BindingDeserializer(JsonDeserializer<?> delegate, HttpTransport transport, OutputDownloader downloader,
+            OutputCache cache) {
+            super(delegate);
+            this.transport = transport;
+            this.downloader = downloader;
+            this.cache = cache;
+        }
+
+        @Override
+        protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+            return new BindingDeserializer(newDelegatee, transport, downloader, cache);
+        }
+
+        @Override
+        public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return bind(_delegatee.deserialize(p, ctxt));
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser p, DeserializationContext ctxt,
+            TypeDeserializer typeDeserializer) throws IOException {
+            return bind(_delegatee.deserializeWithType(p, ctxt, typeDeserializer));
+        }
+
+        private Object bind(Object value) {
+            if (value instanceof FileOutput) {
+                ((FileOutput)value).bindTransport(transport);
+                ((FileOutput)value).bindDownloader(downloader);
+                ((FileOutput)value).bindCache(cache);
+            }
+            return value;
+        }
+    }
+}
@@ -8,12 +8,10 @@ import java.util.Map;
  * 输出转换工具类
  *
  * 提供将 Map&lt;String, Object&gt; 数据转换为用户定义数据结构的功能。
- * 使用 Jackson ObjectMapper 进行类型转换。
+ * 使用进程级默认 {@link JsonEngine} 进行类型转换。
  */
 public class OutputConverterUtils {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
     /**
      * 将 Map 数据转换为指定类型的对象
      *
@@ -26,7 +24,23 @@ public class OutputConverterUtils {
         if (data == null) {
             return null;
         }
-        return objectMapper.convertValue(data, targetClass);
+        return JsonEngine.defaultEngine().convert(data, targetClass);
+    }
+
+    /**
+     * 使用指定的 ObjectMapper 将 Map 数据转换为指定类型的对象
+     *
+     * @param data 原始数据 Map
+     * @param targetClass 目标类型
+     * @param mapper 用于转换的 ObjectMapper（例如客户端的 ObjectMapper，以便绑定传输层）
+     * @param <T> 目标类型泛型
+     * @return 转换后的对象，如果 data 为 null 则返回 null
+     */
+    public static <T> T convertTo(Map<String, Object> data, Class<T> targetClass, ObjectMapper mapper) {
+        if (data == null) {
+            return null;
+        }
+        return mapper.convertValue(data, targetClass);
     }
 
     /**
@@ -45,6 +59,6 @@ public class OutputConverterUtils {
      * @return ObjectMapper 实例
      */
     public static ObjectMapper getObjectMapper() {
-        return objectMapper;
+        return JsonEngine.defaultEngine().getObjectMapper();
     }
 }
@@ -0,0 +1,196 @@
+package com.aliyun.speedpix.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 阿里云 API 网关请求签名器
+ *
+ * 由客户端持有并在所有请求间复用，签名结果与 {@link AuthUtils#generateAuthHeaders} 一致：
+ * <ul>
+ *   <li>密钥只初始化一次，每个线程使用克隆出的 {@link Mac}，无需加锁；</li>
+ *   <li>date 头按秒缓存格式化结果；</li>
+ *   <li>nonce 由 {@link ThreadLocalRandom} 生成，不争用 SecureRandom；</li>
+ *   <li>签名字符串中与请求无关的部分预先拼好。</li>
+ * </ul>
+ */
+public class RequestSigner {
+
+    public static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private static final String SIGNATURE_METHOD = "HmacSHA256";
+    private static final String SIGNATURE_HEADERS = "x-ca-timestamp,x-ca-key,x-ca-nonce,x-ca-signature-method";
+    private static final DateTimeFormatter DATE_FORMATTER =
+        DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+
+    // 签名字符串中的 Accept / Content-Type 段
+    private static final String CONTENT_TYPE_SEGMENT = "\n" + CONTENT_TYPE + "\n";
+
+    private final String appKey;
+    private final SecretKeySpec key;
+    private final Mac prototype;
+    private final ThreadLocal<Mac> macs;
+    // date 之后、nonce 之前的固定部分
+    private final String keySegment;
+
+    private volatile CachedDate cachedDate;
+
+    /**
+     * @param appKey 应用Key
+     * @param appSecret 应用Secret
+     */
+    public RequestSigner(String appKey, String appSecret) {
+        this.appKey = appKey;
+        this.keySegment = "\nx-ca-key:" + appKey + "\nx-ca-nonce:";
+        this.key = new SecretKeySpec(appSecret.getBytes(StandardCharsets.UTF_8), SIGNATURE_METHOD);
+        try {
+            this.prototype = Mac.getInstance(SIGNATURE_METHOD);
+            this.prototype.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialize " + SIGNATURE_METHOD, e);
+        }
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * 生成认证头
+     *
+     * @param httpMethod HTTP请求方法
+     * @param path 请求路径
+     * @param requestBody 请求体内容，为空时不计算 content-md5
+     * @return 包含认证信息的请求头Map
+     */
+    public Map<String, String> sign(String httpMethod, String path, String requestBody) {
+        String contentMd5 = null;
+        if (requestBody != null && !requestBody.isEmpty()) {
+            contentMd5 = contentMd5(requestBody.getBytes(StandardCharsets.UTF_8), 0, -1);
+        }
+        return signWithMd5(httpMethod, path, contentMd5);
+    }
+
+    /**
+     * 使用已计算好的请求体 MD5 生成认证头
+     *
+     * @param httpMethod HTTP请求方法
+     * @param path 请求路径
+     * @param contentMd5 Base64 编码的请求体 MD5，为 null 时表示无请求体
+     * @return 包含认证信息的请求头Map
+     */
+    public Map<String, String> signWithMd5(String httpMethod, String path, String contentMd5) {
+        long timestamp = System.currentTimeMillis();
+        String date = date(timestamp);
+        String timestampStr = Long.toString(timestamp);
+        String nonce = nonce();
+
+        StringBuilder stringToSign = new StringBuilder(256 + path.length())
+            .append(httpMethod)
+            .append(CONTENT_TYPE_SEGMENT)
+            .append(contentMd5 != null ? contentMd5 : "")
+            .append(CONTENT_TYPE_SEGMENT)
+            .append(date)
+            .append(keySegment)
+            .append(nonce)
+            .append("\nx-ca-signature-method:" + SIGNATURE_METHOD + "\nx-ca-timestamp:")
+            .append(timestampStr)
+            .append('\n')
+            .append(path);
+        byte[] hmac = macs.get().doFinal(stringToSign.toString().getBytes(StandardCharsets.UTF_8));
+
+        Map<String, String> headers = new HashMap<>(16);
+        headers.put("date", date);
+        headers.put("x-ca-key", appKey);
+        headers.put("x-ca-timestamp", timestampStr);
+        headers.put("x-ca-nonce", nonce);
+        headers.put("x-ca-signature-method", SIGNATURE_METHOD);
+        headers.put("x-ca-signature-headers", SIGNATURE_HEADERS);
+        headers.put("Content-Type", CONTENT_TYPE);
+        headers.put("Accept", CONTENT_TYPE);
+        if (contentMd5 != null) {
+            headers.put("content-md5", contentMd5);
+        }
+        headers.put("x-ca-signature", Base64.getEncoder().encodeToString(hmac));
+        return headers;
+    }
+
+    /**
+     * 计算 Base64 编码的 MD5
+     *
+     * @param bytes 数据
+     * @param offset 起始位置
+     * @param length 长度，-1 表示到数组末尾
+     * @return Base64 编码的 MD5
+     */
+    public static String contentMd5(byte[] bytes, int offset, int length) {
+        MessageDigest md5 = md5();
+        md5.update(bytes, offset, length < 0 ? bytes.length - offset : length);
+        return Base64.getEncoder().encodeToString(md5.digest());
+    }
+
+    /**
+     * 创建 MD5 摘要实例
+     *
+     * @return MessageDigest实例
+     */
+    public static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac)prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // 个别 Provider 不支持克隆，退回到重新初始化
+            try {
+                Mac mac = Mac.getInstance(SIGNATURE_METHOD, prototype.getProvider());
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Failed to initialize " + SIGNATURE_METHOD, ex);
+            }
+        }
+    }
+
+    private String date(long timestamp) {
+        long second = timestamp / 1000;
+        CachedDate cached = cachedDate;
+        if (cached == null || cached.second != second) {
+            cached = new CachedDate(second, DATE_FORMATTER.format(Instant.ofEpochSecond(second)) + " GMT+00:00");
+            cachedDate = cached;
+        }
+        return cached.value;
+    }
+
+    private static String nonce() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 按 UUID v4 格式设置版本和变体位，与原有 nonce 格式一致
+        long msb = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+
+    private static final class CachedDate {
+        final long second;
+        final String value;
+
+        CachedDate(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.service.AdaptivePollingPolicy;
+import com.aliyun.speedpix.service.FixedIntervalPollingPolicy;
+import com.aliyun.speedpix.service.PollingState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 轮询策略测试
+ */
+public class AdaptivePollingPolicyTest {
+
+    private final AdaptivePollingPolicy policy = AdaptivePollingPolicy.builder()
+        .jitter(0)
+        .build();
+
+    @Test
+    public void testFarFromCompletionWaitsPartOfEta() {
+        // 剩余 20 秒：等待一半剩余时间
+        assertEquals(10_000, policy.nextDelayMillis(new PollingState(1, 1_000, null, 0.2, 20.0)));
+        // 剩余 3 秒：只等到逼近窗口起点
+        assertEquals(1_000, policy.nextDelayMillis(new PollingState(1, 1_000, null, 0.2, 3.0)));
+    }
+
+    @Test
+    public void testFinalApproachUsesMinInterval() {
+        assertEquals(250, policy.nextDelayMillis(new PollingState(3, 9_000, null, 0.9, 1.0)));
+    }
+
+    @Test
+    public void testEstimatedDurationBeforeFirstProgress() {
+        // 创建时预计 30 秒，已过去 10 秒
+        assertEquals(10_000, policy.nextDelayMillis(new PollingState(0, 10_000, 30.0, null, null)));
+    }
+
+    @Test
+    public void testOverdueBacksOff() {
+        long shortOverdue = policy.nextDelayMillis(new PollingState(5, 12_000, 10.0, null, null));
+        long longOverdue = policy.nextDelayMillis(new PollingState(9, 40_000, 10.0, null, null));
+        assertTrue(shortOverdue > 250);
+        assertTrue(longOverdue > shortOverdue);
+        assertEquals(15_000, policy.nextDelayMillis(new PollingState(20, 600_000, 10.0, null, null)));
+    }
+
+    @Test
+    public void testOverdueIntervalGrowsWithOverdueTime() {
+        // 间隔与超时时长成正比：超时 250ms 时为 250 + 250 * 0.5，超时 2250ms 时为 250 + 2250 * 0.5
+        assertEquals(375, policy.nextDelayMillis(new PollingState(5, 10_250, 10.0, null, null)));
+        assertEquals(1_375, policy.nextDelayMillis(new PollingState(6, 12_250, 10.0, null, null)));
+
+        // 每次按返回的间隔查询时，相邻两次间隔按 backoffMultiplier 倍增长，直到最大间隔
+        long elapsed = 10_250;
+        long previous = policy.nextDelayMillis(new PollingState(5, elapsed, 10.0, null, null));
+        for (int pollCount = 6; previous < 10_000; pollCount++) {
+            elapsed += previous;
+            long delay = policy.nextDelayMillis(new PollingState(pollCount, elapsed, 10.0, null, null));
+            assertEquals(previous * 1.5, delay, 1.0, "poll " + pollCount);
+            previous = delay;
+        }
+        assertEquals(15_000, policy.nextDelayMillis(new PollingState(20, elapsed + previous, 10.0, null, null)));
+    }
+
+    @Test
+    public void testNoEstimateBacksOffExponentially() {
+        assertEquals(1_000, policy.nextDelayMillis(new PollingState(0, 0, null, null, null)));
+        assertEquals(1_500, policy.nextDelayMillis(new PollingState(1, 1_000, null, null, null)));
+        assertEquals(15_000, policy.nextDelayMillis(new PollingState(30, 60_000, null, null, null)));
+    }
+
+    @Test
+    public void testJitterStaysWithinBounds() {
+        AdaptivePollingPolicy jittered = AdaptivePollingPolicy.builder().jitter(0.1).build();
+        for (int i = 0; i < 100; i++) {
+            long delay = jittered.nextDelayMillis(new PollingState(0, 0, null, null, null));
+            assertTrue(delay >= 900 && delay <= 1_100, "delay=" + delay);
+        }
+    }
+
+    @Test
+    public void testFixedInterval() {
+        assertEquals(2_500, new FixedIntervalPollingPolicy(2.5)
+            .nextDelayMillis(new PollingState(7, 100_000, null, 0.5, 3.0)));
+    }
+}
@@ -0,0 +1,78 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.ComfyPromptRequest;
+import com.aliyun.speedpix.model.FileObject;
+import com.aliyun.speedpix.model.Prediction;
+import com.aliyun.speedpix.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 异步 API 测试
+ */
+public class AsyncApiTest {
+
+    private StubGateway gateway;
+    private SpeedPixClient client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        client = gateway.newClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        gateway.close();
+    }
+
+    @Test
+    public void testRunAsync() throws Exception {
+        // 测试异步运行直到任务完成
+        ComfyPromptRequest request = ComfyPromptRequest.builder("workflow").build();
+
+        Prediction<Map> prediction = client.runAsync(request, "default", 0.01, Map.class)
+            .get(10, TimeUnit.SECONDS);
+
+        assertEquals(TaskStatus.SUCCEEDED, prediction.getTaskStatus());
+        assertNotNull(prediction.getOutput());
+        assertEquals(1, gateway.requestCount("/scc/comfy_get_result"));
+    }
+
+    @Test
+    public void testManyRunAsyncInFlight() throws Exception {
+        // 测试大量任务同时在途
+        List<CompletableFuture<Prediction<Map>>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(client.runAsync(ComfyPromptRequest.builder("workflow").build(), "default", 0.01, Map.class));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        for (CompletableFuture<Prediction<Map>> future : futures) {
+            assertTrue(future.get().isFinished());
+        }
+    }
+
+    @Test
+    public void testFilesCreateAsync() throws Exception {
+        // 测试异步上传
+        byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+
+        FileObject fileObject = client.files().createAsync(content, "hello.txt", null).get(10, TimeUnit.SECONDS);
+
+        assertNotNull(fileObject.getAccessUrl());
+        assertEquals(5L, fileObject.getSize());
+        assertEquals(content.length, gateway.uploadedBytes());
+    }
+}
@@ -0,0 +1,86 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.http.BufferPool;
+import com.aliyun.speedpix.http.BufferPool.PooledBuffer;
+import com.aliyun.speedpix.http.DirectBufferPool;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓冲区池测试
+ */
+public class BufferPoolTest {
+
+    @Test
+    public void testReleasedBufferIsReused() {
+        BufferPool pool = new BufferPool(2, 16, 1024);
+        PooledBuffer buffer = pool.acquire();
+        buffer.write(new byte[]{1, 2, 3}, 0, 3);
+        buffer.release();
+        buffer.release();
+
+        assertEquals(1, pool.getPooledCount());
+        PooledBuffer reused = pool.acquire();
+        assertSame(buffer, reused);
+        assertEquals(0, reused.size());
+        assertEquals(0, pool.getPooledCount());
+    }
+
+    @Test
+    public void testOversizedBufferIsDropped() {
+        BufferPool pool = new BufferPool(2, 16, 1024);
+        PooledBuffer buffer = pool.acquire();
+        buffer.write(new byte[4096], 0, 4096);
+        buffer.release();
+
+        assertEquals(0, pool.getPooledCount());
+    }
+
+    @Test
+    public void testPoolSizeIsBounded() {
+        BufferPool pool = new BufferPool(2, 16, 1024);
+        PooledBuffer a = pool.acquire();
+        PooledBuffer b = pool.acquire();
+        PooledBuffer c = pool.acquire();
+        a.release();
+        b.release();
+        c.release();
+
+        assertEquals(2, pool.getPooledCount());
+    }
+
+    @Test
+    public void testDirectBufferIsReusedAndCleared() {
+        DirectBufferPool pool = new DirectBufferPool(2, 1024);
+        ByteBuffer buffer = pool.acquire();
+        assertTrue(buffer.isDirect());
+        buffer.put(new byte[100]).flip();
+        pool.release(buffer);
+
+        ByteBuffer reused = pool.acquire();
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(1024, reused.limit());
+        assertEquals(1, pool.getAllocatedCount());
+    }
+
+    @Test
+    public void testDirectPoolIgnoresForeignBuffersAndIsBounded() {
+        DirectBufferPool pool = new DirectBufferPool(2, 1024);
+        pool.release(ByteBuffer.allocate(1024));
+        pool.release(ByteBuffer.allocateDirect(512));
+        assertEquals(0, pool.getPooledCount());
+
+        ByteBuffer a = pool.acquire();
+        ByteBuffer b = pool.acquire();
+        ByteBuffer c = pool.acquire();
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertEquals(2, pool.getPooledCount());
+        assertEquals(3, pool.getAllocatedCount());
+    }
+}
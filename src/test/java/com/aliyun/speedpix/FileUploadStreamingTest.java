@@ -0,0 +1,228 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.ComfyPromptRequest;
+import com.aliyun.speedpix.model.FileInput;
+import com.aliyun.speedpix.model.FileObject;
+import com.aliyun.speedpix.model.FileUploadOptions;
+import com.aliyun.speedpix.service.PredictionsService;
+import com.aliyun.speedpix.util.JsonEncodingUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文件流式上传测试
+ */
+public class FileUploadStreamingTest {
+
+    private static final long LARGE_FILE_SIZE = 2L * 1024 * 1024 * 1024;
+    private static final long MAX_HEAP_GROWTH = 128L * 1024 * 1024;
+
+    private StubGateway gateway;
+    private SpeedPixClient client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        client = gateway.newClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        gateway.close();
+    }
+
+    @Test
+    public void testMultiGigabyteFileUploadKeepsHeapFlat() throws Exception {
+        // 稀疏文件不占用磁盘空间，上传时按实际大小读取和发送
+        Path file = Files.createTempFile("speedpix-large", ".mp4");
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(LARGE_FILE_SIZE);
+            }
+
+            HeapSampler sampler = HeapSampler.start();
+            FileObject fileObject;
+            try {
+                fileObject = client.files().create(file);
+            } finally {
+                sampler.stop();
+            }
+
+            assertEquals(LARGE_FILE_SIZE, fileObject.getSize());
+            assertEquals("video/mp4", fileObject.getContentType());
+            assertEquals(LARGE_FILE_SIZE, gateway.uploadedBytes());
+            assertTrue(sampler.growth() < MAX_HEAP_GROWTH,
+                "heap grew by " + sampler.growth() + " bytes while uploading " + LARGE_FILE_SIZE + " bytes");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testUnknownLengthStreamIsSpooledAndStreamed() throws Exception {
+        // 长度未知的输入流超过暂存阈值后转存临时文件，上传时从文件流式发送
+        long streamSize = 512L * 1024 * 1024;
+        InputStream in = new GeneratedInputStream(streamSize);
+
+        HeapSampler sampler = HeapSampler.start();
+        FileObject fileObject;
+        try {
+            fileObject = client.files().create(in, FileUploadOptions.builder().filename("clip.mov"));
+        } finally {
+            sampler.stop();
+        }
+
+        assertEquals(streamSize, fileObject.getSize());
+        assertEquals(streamSize, gateway.uploadedBytes());
+        assertTrue(sampler.growth() < MAX_HEAP_GROWTH,
+            "heap grew by " + sampler.growth() + " bytes while uploading " + streamSize + " bytes");
+    }
+
+    @Test
+    public void testLargeBase64InlineFileKeepsHeapFlat() throws Exception {
+        // 关闭内联上限，Base64 内容在发送请求体时边读边编码
+        long fileSize = 256L * 1024 * 1024;
+        Path file = Files.createTempFile("speedpix-inline", ".png");
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(fileSize);
+            }
+            gateway.discardPromptBodies(true);
+            PredictionsService predictions = new PredictionsService(client,
+                PredictionsService.DEFAULT_SPECULATIVE_PROGRESS_THRESHOLD,
+                JsonEncodingUtils.EncodeOptions.builder()
+                    .strategy(JsonEncodingUtils.FileEncodingStrategy.BASE64)
+                    .maxInlineSize(0)
+                    .build());
+
+            HeapSampler sampler = HeapSampler.start();
+            try {
+                predictions.create(ComfyPromptRequest.builder("workflow")
+                    .inputs(Collections.singletonMap("image", FileInput.of(file)))
+                    .build(), Map.class);
+            } finally {
+                sampler.stop();
+            }
+
+            long encodedSize = (fileSize + 2) / 3 * 4;
+            assertTrue(gateway.lastPromptBodySize() > encodedSize);
+            assertTrue(gateway.lastPromptBodySize() < encodedSize + 1024);
+            assertTrue(sampler.growth() < MAX_HEAP_GROWTH,
+                "heap grew by " + sampler.growth() + " bytes while inlining " + fileSize + " bytes");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testContentTypeDetectedFromFileHeader() throws Exception {
+        // 文件名没有扩展名时按文件头识别内容类型
+        Path file = Files.createTempFile("speedpix-image", "");
+        try {
+            byte[] png = new byte[4096];
+            byte[] magic = {(byte)0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A};
+            System.arraycopy(magic, 0, png, 0, magic.length);
+            Files.write(file, png);
+
+            FileObject fileObject = client.files().createAsync(file).get(10, TimeUnit.SECONDS);
+
+            assertEquals("image/png", fileObject.getContentType());
+            assertEquals(png.length, fileObject.getSize());
+            assertEquals(png.length, gateway.uploadedBytes());
+            assertEquals("image/png", gateway.lastUploadContentType());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 后台采样堆内存占用峰值
+     */
+    private static final class HeapSampler {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final long baseline;
+        private final AtomicLong peak;
+        private final Thread thread;
+
+        private HeapSampler() {
+            System.gc();
+            baseline = memory.getHeapMemoryUsage().getUsed();
+            peak = new AtomicLong(baseline);
+            thread = new Thread(() -> {
+                while (running.get()) {
+                    peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            thread.setDaemon(true);
+        }
+
+        static HeapSampler start() {
+            HeapSampler sampler = new HeapSampler();
+            sampler.thread.start();
+            return sampler;
+        }
+
+        void stop() throws InterruptedException {
+            running.set(false);
+            thread.join();
+        }
+
+        long growth() {
+            return peak.get() - baseline;
+        }
+    }
+
+    /**
+     * 按需生成数据的输入流，不预先分配内容
+     */
+    private static final class GeneratedInputStream extends InputStream {
+        private long remaining;
+
+        GeneratedInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining <= 0) {
+                return -1;
+            }
+            remaining--;
+            return (int)(remaining & 0x7F);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = (int)Math.min(len, remaining);
+            Arrays.fill(b, off, off + n, (byte)(remaining & 0x7F));
+            remaining -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.exception.SpeedPixException;
+import com.aliyun.speedpix.model.BytesInput;
+import com.aliyun.speedpix.model.ComfyPromptRequest;
+import com.aliyun.speedpix.model.FileInput;
+import com.aliyun.speedpix.model.InlineFile;
+import com.aliyun.speedpix.model.Prediction;
+import com.aliyun.speedpix.model.StreamInput;
+import com.aliyun.speedpix.service.PredictionsService;
+import com.aliyun.speedpix.service.UploadLatencyTracker;
+import com.aliyun.speedpix.util.JsonEncodingUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 创建任务时输入文件并行上传测试
+ */
+public class InputUploadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    private StubGateway gateway;
+    private SpeedPixClient client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        gateway.close();
+    }
+
+    @Test
+    public void testInputFilesAreUploadedConcurrently() throws Exception {
+        client = newClient(4);
+        // 限速让上传互相重叠
+        gateway.setUploadBytesPerSecond(1024 * 1024);
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("image", file("image.png", 100_000).toFile());
+        inputs.put("prompt", "a cat");
+        inputs.put("mask", file("mask.png", 200_000));
+        inputs.put("control", FileInput.of(file("control.png", 300_000).toString()));
+        inputs.put("steps", 20);
+
+        Prediction<Map> prediction = client.predictions()
+            .createAsync(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class)
+            .get(30, TimeUnit.SECONDS);
+
+        assertNotNull(prediction.getId());
+        assertEquals(3, gateway.requestCount("/upload"));
+        assertTrue(gateway.maxConcurrentUploads() > 1, "uploads were sequential");
+
+        Map<?, ?> sentInputs = (Map<?, ?>)MAPPER.readValue(gateway.lastPromptBody(), Map.class).get("inputs");
+        List<Object> keys = new ArrayList<>(sentInputs.keySet());
+        assertEquals(new ArrayList<>(inputs.keySet()), keys);
+        assertEquals(100_000L, uploadedSize(sentInputs.get("image")));
+        assertEquals(200_000L, uploadedSize(sentInputs.get("mask")));
+        assertEquals(300_000L, uploadedSize(sentInputs.get("control")));
+        assertEquals("a cat", sentInputs.get("prompt"));
+        assertEquals(20, sentInputs.get("steps"));
+    }
+
+    @Test
+    public void testParallelismIsBounded() throws Exception {
+        client = newClient(2);
+        gateway.setUploadBytesPerSecond(1024 * 1024);
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        for (int i = 0; i < 6; i++) {
+            inputs.put("input" + i, file("input" + i + ".bin", 100_000));
+        }
+
+        client.predictions().create(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class);
+
+        assertEquals(6, gateway.requestCount("/upload"));
+        assertEquals(2, gateway.maxConcurrentUploads());
+    }
+
+    @Test
+    public void testStreamInputIsUploaded() throws Exception {
+        client = newClient(4);
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("image", new ByteArrayInputStream(new byte[12_345]));
+
+        client.predictions().create(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class);
+
+        Map<?, ?> sentInputs = (Map<?, ?>)MAPPER.readValue(gateway.lastPromptBody(), Map.class).get("inputs");
+        assertEquals(12_345L, uploadedSize(sentInputs.get("image")));
+    }
+
+    @Test
+    public void testFirstFailureStopsRemainingUploads() throws Exception {
+        client = newClient(1);
+        gateway.failNextUploads(1);
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        for (int i = 0; i < 4; i++) {
+            inputs.put("input" + i, file("input" + i + ".bin", 1000));
+        }
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.predictions()
+            .createAsync(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class)
+            .get(10, TimeUnit.SECONDS));
+
+        assertTrue(e.getCause() instanceof SpeedPixException);
+        assertEquals(1, gateway.requestCount("/upload"));
+        assertEquals(0, gateway.requestCount("/scc/comfy_prompt"));
+    }
+
+    @Test
+    public void testUploadThatThrowsFailsInsteadOfHanging() throws Exception {
+        client = newClient(1);
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("image", file("image.png", 1000));
+        // 第二个上传在返回 future 之前抛出异常，且由第一个上传的完成回调发起
+        inputs.put("mask", new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("stream is broken");
+            }
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.predictions()
+            .createAsync(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class)
+            .get(10, TimeUnit.SECONDS));
+
+        assertTrue(e.getCause() instanceof SpeedPixException);
+        assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+        assertEquals(0, gateway.requestCount("/scc/comfy_prompt"));
+    }
+
+    @Test
+    public void testUploadsStartOnUploadExecutor() throws Exception {
+        client = newClient(4);
+        ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "test-upload"));
+        List<String> readers = Collections.synchronizedList(new ArrayList<>());
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            inputs.put("input" + i, new ByteArrayInputStream(new byte[1000]) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    readers.add(Thread.currentThread().getName());
+                    return super.read(b, off, len);
+                }
+            });
+        }
+        PredictionsService predictions = new PredictionsService(client,
+            PredictionsService.DEFAULT_SPECULATIVE_PROGRESS_THRESHOLD,
+            JsonEncodingUtils.EncodeOptions.builder().uploadParallelism(1).uploadExecutor(executor).build());
+
+        try {
+            predictions.create(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class);
+        } finally {
+            executor.shutdown();
+        }
+
+        // 输入流的暂存不在调用线程或 OkHttp 回调线程上进行
+        assertEquals(3, gateway.requestCount("/upload"));
+        assertFalse(readers.isEmpty());
+        for (String reader : readers) {
+            assertEquals("test-upload", reader);
+        }
+    }
+
+    @Test
+    public void testSyncCreateReportsUploadFailure() throws Exception {
+        client = newClient(4);
+        gateway.failNextUploads(1);
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("image", file("image.png", 1000));
+
+        SpeedPixException e = assertThrows(SpeedPixException.class, () -> client.predictions()
+            .create(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class));
+
+        assertEquals("Failed to encode input", e.getMessage());
+        assertEquals(0, gateway.requestCount("/scc/comfy_prompt"));
+    }
+
+    @Test
+    public void testNestedFilesAreUploaded() throws Exception {
+        client = newClient(4);
+        Path first = file("a.png", 1000);
+        Path second = file("b.png", 2000);
+        Map<String, Object> options = new LinkedHashMap<>();
+        options.put("reference", file("c.png", 3000).toFile());
+        options.put("strength", 0.5);
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("images", Arrays.asList(first, second));
+        inputs.put("options", options);
+        inputs.put("masks", new Object[] {file("d.png", 4000), "plain"});
+
+        client.predictions().create(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class);
+
+        Map<?, ?> sentInputs = (Map<?, ?>)MAPPER.readValue(gateway.lastPromptBody(), Map.class).get("inputs");
+        List<?> images = (List<?>)sentInputs.get("images");
+        assertEquals(1000L, uploadedSize(images.get(0)));
+        assertEquals(2000L, uploadedSize(images.get(1)));
+        Map<?, ?> sentOptions = (Map<?, ?>)sentInputs.get("options");
+        assertEquals(3000L, uploadedSize(sentOptions.get("reference")));
+        assertEquals(0.5, sentOptions.get("strength"));
+        List<?> masks = (List<?>)sentInputs.get("masks");
+        assertEquals(4000L, uploadedSize(masks.get(0)));
+        assertEquals("plain", masks.get(1));
+        assertEquals(4, gateway.requestCount("/upload"));
+    }
+
+    @Test
+    public void testRequestTemplateIsNotMutated() throws Exception {
+        client = newClient(4);
+        Path image = file("image.png", 1000);
+        List<Object> batch = new ArrayList<>(Arrays.asList(image, "keep"));
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("batch", batch);
+        inputs.put("image", image);
+        ComfyPromptRequest request = ComfyPromptRequest.builder("workflow").inputs(inputs).build();
+
+        Prediction<Map> first = client.predictions().create(request, Map.class);
+        Prediction<Map> second = client.predictions().createAsync(request, Map.class).get(10, TimeUnit.SECONDS);
+
+        assertSame(inputs, request.getInputs());
+        assertSame(image, inputs.get("image"));
+        assertSame(batch, inputs.get("batch"));
+        assertSame(image, batch.get(0));
+        // 同一个 Path 对象在一次提交中只上传一次
+        assertEquals(2, gateway.requestCount("/upload"));
+        assertNotEquals(first.getInput().get("image"), second.getInput().get("image"));
+        assertEquals(first.getInput().get("image"), ((List<?>)first.getInput().get("batch")).get(0));
+    }
+
+    @Test
+    public void testUnchangedSubtreesAreReused() throws Exception {
+        client = newClient(4);
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("steps", 20);
+        List<Object> tags = Arrays.asList("a", "b");
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("settings", settings);
+        inputs.put("tags", tags);
+
+        Map<String, Object> unchanged = JsonEncodingUtils.encodeJson(inputs,
+            JsonEncodingUtils.FileEncodingStrategy.URL, client.files());
+        assertSame(inputs, unchanged);
+
+        inputs.put("image", file("image.png", 1000));
+        Map<String, Object> encoded = JsonEncodingUtils.encodeJson(inputs,
+            JsonEncodingUtils.FileEncodingStrategy.URL, client.files());
+        assertNotSame(inputs, encoded);
+        assertSame(settings, encoded.get("settings"));
+        assertSame(tags, encoded.get("tags"));
+        assertTrue(String.valueOf(encoded.get("image")).contains("/files/"));
+        assertEquals(Arrays.asList("settings", "tags", "image"), new ArrayList<>(encoded.keySet()));
+    }
+
+    @Test
+    public void testBase64EncodesNestedFiles() throws Exception {
+        client = newClient(4);
+        Path image = tempDir.resolve("tiny.png");
+        Files.write(image, new byte[] {1, 2, 3});
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("images", Collections.singletonList(Collections.singletonMap("data", image)));
+
+        Map<String, Object> encoded = JsonEncodingUtils.encodeJson(inputs,
+            JsonEncodingUtils.FileEncodingStrategy.BASE64, client.files());
+
+        List<?> images = (List<?>)encoded.get("images");
+        assertTrue(((Map<?, ?>)images.get(0)).get("data") instanceof InlineFile);
+        assertEquals("{\"images\":[{\"data\":\"AQID\"}]}", client.getJsonEngine().writeAsString(encoded));
+        assertEquals(0, gateway.requestCount("/upload"));
+        assertSame(image, ((Map<?, ?>)((List<?>)inputs.get("images")).get(0)).get("data"));
+    }
+
+    @Test
+    public void testBase64InputsAreStreamedIntoPromptBody() throws Exception {
+        client = newClient(4);
+        byte[] image = new byte[100_000];
+        new Random(7).nextBytes(image);
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("image", FileInput.of(Files.write(tempDir.resolve("image.png"), image)));
+        inputs.put("mask", StreamInput.of(new ByteArrayInputStream(new byte[] {4, 5, 6}), "mask.png"));
+        inputs.put("depth", BytesInput.of(new byte[] {7, 8}, "depth.png"));
+        inputs.put("prompt", "a cat");
+        PredictionsService predictions = new PredictionsService(client,
+            PredictionsService.DEFAULT_SPECULATIVE_PROGRESS_THRESHOLD,
+            JsonEncodingUtils.EncodeOptions.builder().strategy(JsonEncodingUtils.FileEncodingStrategy.BASE64).build());
+        int signedBefore = gateway.signedBodies();
+
+        Prediction<Map> prediction = predictions.create(
+            ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class);
+
+        assertNotNull(prediction.getId());
+        assertEquals(0, gateway.requestCount("/upload"));
+        // 流式请求体不携带 content-md5
+        assertEquals(signedBefore, gateway.signedBodies());
+        Map<?, ?> sentInputs = (Map<?, ?>)MAPPER.readValue(gateway.lastPromptBody(), Map.class).get("inputs");
+        assertArrayEquals(image, Base64.decodeBase64((String)sentInputs.get("image")));
+        assertEquals("BAUG", sentInputs.get("mask"));
+        assertEquals("Bwg=", sentInputs.get("depth"));
+        assertEquals("a cat", sentInputs.get("prompt"));
+    }
+
+    @Test
+    public void testAutoStrategyInlinesSmallFilesAndUploadsLargeOnes() throws Exception {
+        client = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .autoInlineThreshold(1024)
+            .build();
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("mask", FileInput.of(file("mask.png", 1000)));
+        inputs.put("image", FileInput.of(file("image.png", 5000)));
+        inputs.put("thumb", BytesInput.of(new byte[] {1, 2, 3}, "thumb.png"));
+        inputs.put("depth", StreamInput.of(new ByteArrayInputStream(new byte[10]), "depth.png"));
+
+        client.predictions().create(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), "default",
+            Map.class, JsonEncodingUtils.FileEncodingStrategy.AUTO);
+
+        // 长度未知的输入流总是上传
+        assertEquals(2, gateway.requestCount("/upload"));
+        Map<?, ?> sentInputs = (Map<?, ?>)MAPPER.readValue(gateway.lastPromptBody(), Map.class).get("inputs");
+        assertEquals(1000, Base64.decodeBase64((String)sentInputs.get("mask")).length);
+        assertEquals("AQID", sentInputs.get("thumb"));
+        assertEquals(5000L, uploadedSize(sentInputs.get("image")));
+        assertEquals(10L, uploadedSize(sentInputs.get("depth")));
+    }
+
+    @Test
+    public void testAdaptiveInlineThresholdFollowsUploadLatency() throws Exception {
+        UploadLatencyTracker tracker = new UploadLatencyTracker();
+        assertEquals(64 * 1024, tracker.suggestInlineThreshold(64 * 1024, 0));
+
+        // 往返 10ms，1MB 传输 10ms：内联不超过 3 × 20ms × 100MB/s ≈ 6MB 的文件更快
+        long millis = TimeUnit.MILLISECONDS.toNanos(10);
+        tracker.record(millis, 2 * millis, 1024 * 1024);
+        assertEquals(10, tracker.getRoundTripMillis(), 1e-6);
+        assertEquals(6L * 1024 * 1024, tracker.suggestInlineThreshold(64 * 1024, 0));
+        assertEquals(1024 * 1024, tracker.suggestInlineThreshold(64 * 1024, 1024 * 1024));
+
+        // 小文件只更新往返延迟
+        tracker.record(millis, millis, 100);
+        assertEquals(2, tracker.getSampleCount());
+
+        client = newClient(4);
+        client.files().create(new byte[100_000], "warmup.bin", null);
+        JsonEncodingUtils.EncodeOptions options = JsonEncodingUtils.EncodeOptions.builder()
+            .strategy(JsonEncodingUtils.FileEncodingStrategy.AUTO)
+            .adaptiveInlineThreshold(true)
+            .build();
+        assertEquals(1, client.files().getUploadLatency().getSampleCount());
+        assertTrue(client.files().getUploadLatency().getRoundTripMillis() > 0);
+        assertTrue(options.effectiveAutoInlineThreshold(client.files()) <= JsonEncodingUtils.DEFAULT_MAX_INLINE_SIZE);
+    }
+
+    @Test
+    public void testInlineSizeLimitIsEnforced() throws Exception {
+        client = newClient(4);
+        JsonEncodingUtils.EncodeOptions options = JsonEncodingUtils.EncodeOptions.builder()
+            .strategy(JsonEncodingUtils.FileEncodingStrategy.BASE64)
+            .maxInlineSize(2)
+            .build();
+        PredictionsService predictions = new PredictionsService(client,
+            PredictionsService.DEFAULT_SPECULATIVE_PROGRESS_THRESHOLD, options);
+
+        SpeedPixException tooLarge = assertThrows(SpeedPixException.class, () -> predictions.create(
+            ComfyPromptRequest.builder("workflow")
+                .inputs(Collections.singletonMap("image", BytesInput.of(new byte[3], "image.png")))
+                .build(), Map.class));
+        assertEquals("Failed to encode input", tooLarge.getMessage());
+
+        // 长度未知的输入流在发送过程中超限
+        assertThrows(SpeedPixException.class, () -> predictions.create(
+            ComfyPromptRequest.builder("workflow")
+                .inputs(Collections.singletonMap("image",
+                    StreamInput.of(new ByteArrayInputStream(new byte[3]), "image.png")))
+                .build(), Map.class));
+        assertEquals(0, gateway.requestCount("/scc/comfy_prompt"));
+    }
+
+    @Test
+    public void testExplicitInputsAreUploaded() throws Exception {
+        client = newClient(4);
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("image", FileInput.of(file("image.png", 1000)));
+        inputs.put("mask", StreamInput.of(new ByteArrayInputStream(new byte[2000]), "mask.png"));
+        inputs.put("depth", BytesInput.of(new byte[3000], "depth.png", "image/png"));
+
+        client.predictions().create(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class);
+
+        Map<?, ?> sentInputs = (Map<?, ?>)MAPPER.readValue(gateway.lastPromptBody(), Map.class).get("inputs");
+        assertEquals(1000L, uploadedSize(sentInputs.get("image")));
+        assertEquals(2000L, uploadedSize(sentInputs.get("mask")));
+        assertEquals(3000L, uploadedSize(sentInputs.get("depth")));
+    }
+
+    @Test
+    public void testPlainStringsAreNotTreatedAsPaths() throws Exception {
+        client = newClient(4);
+        String path = file("prompt.txt", 1000).toString();
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("prompt", path);
+
+        client.predictions().create(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class);
+
+        Map<?, ?> sentInputs = (Map<?, ?>)MAPPER.readValue(gateway.lastPromptBody(), Map.class).get("inputs");
+        assertEquals(path, sentInputs.get("prompt"));
+        assertEquals(0, gateway.requestCount("/upload"));
+    }
+
+    @Test
+    public void testLegacyStringPathDetection() throws Exception {
+        client = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .detectStringPaths(true)
+            .build();
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("image", file("image.png", 1000).toString());
+        inputs.put("prompt", "a cat\0");
+
+        client.predictions().create(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class);
+
+        Map<?, ?> sentInputs = (Map<?, ?>)MAPPER.readValue(gateway.lastPromptBody(), Map.class).get("inputs");
+        assertEquals(1000L, uploadedSize(sentInputs.get("image")));
+        assertEquals("a cat\0", sentInputs.get("prompt"));
+    }
+
+    @Test
+    public void testMissingExplicitFileFails() {
+        client = newClient(4);
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("image", FileInput.of(tempDir.resolve("missing.png")));
+
+        assertThrows(SpeedPixException.class, () -> client.predictions()
+            .create(ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class));
+        assertEquals(0, gateway.requestCount("/scc/comfy_prompt"));
+    }
+
+    private Long uploadedSize(Object accessUrl) {
+        String url = String.valueOf(accessUrl);
+        return gateway.uploadedSize(url.substring(url.lastIndexOf('/') + 1));
+    }
+
+    private Path file(String name, int size) throws Exception {
+        Path path = tempDir.resolve(name);
+        Files.write(path, new byte[size]);
+        return path;
+    }
+
+    private SpeedPixClient newClient(int parallelism) {
+        return SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .inputUploadParallelism(parallelism)
+            .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.ComfyPromptRequest;
+import com.aliyun.speedpix.model.ComfyProgressResponse;
+import com.aliyun.speedpix.model.TypedComfyResultResponse;
+import com.aliyun.speedpix.util.JsonEngine;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON 热路径基准测试：请求序列化、进度响应和结果响应解码
+ *
+ * 对比每次新建 ObjectMapper（原上传签名的做法）、共享 ObjectMapper、缓存 reader/writer 的 JsonEngine
+ * 以及启用 Blackbird 的 JsonEngine。运行方式：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.aliyun.speedpix.JsonEngineBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class JsonEngineBenchmark {
+
+    private final ObjectMapper sharedMapper = new ObjectMapper();
+    private final JsonEngine engine = JsonEngine.builder().build();
+    private final JsonEngine accelerated = JsonEngine.builder().accelerated(true).build();
+
+    private ComfyPromptRequest request;
+    private byte[] progressPayload;
+    private byte[] resultPayload;
+    private JavaType resultType;
+    private JavaType acceleratedResultType;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> inputs = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            inputs.put("node-" + i, "value-" + i);
+        }
+        request = ComfyPromptRequest.builder("workflow-id").aliasId("main").inputs(inputs).build();
+        progressPayload = ("{\"data\":{\"taskId\":\"task-1\",\"status\":\"running\",\"progress\":0.42,"
+            + "\"etaRelative\":12.5}}").getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder result = new StringBuilder("{\"data\":{\"taskId\":\"task-1\",\"status\":\"succeeded\","
+            + "\"result\":{\"images\":[");
+        for (int i = 0; i < 20; i++) {
+            result.append(i > 0 ? "," : "").append("{\"url\":\"https://example.com/out-").append(i)
+                .append(".png\",\"width\":1024,\"height\":1024,\"format\":\"png\"}");
+        }
+        resultPayload = result.append("],\"seed\":42}}}").toString().getBytes(StandardCharsets.UTF_8);
+        resultType = engine.parametricType(TypedComfyResultResponse.class, ImageResult.class);
+        acceleratedResultType = accelerated.parametricType(TypedComfyResultResponse.class, ImageResult.class);
+    }
+
+    @Benchmark
+    public byte[] writeRequestNewMapper() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ObjectMapper().writeValue(out, request);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeRequestSharedMapper() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sharedMapper.writeValue(out, request);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeRequestEngine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine.write(out, request);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeRequestAccelerated() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        accelerated.write(out, request);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public ComfyProgressResponse readProgressSharedMapper() throws Exception {
+        return sharedMapper.readValue(new ByteArrayInputStream(progressPayload), ComfyProgressResponse.class);
+    }
+
+    @Benchmark
+    public ComfyProgressResponse readProgressEngine() throws Exception {
+        return engine.read(new ByteArrayInputStream(progressPayload), ComfyProgressResponse.class);
+    }
+
+    @Benchmark
+    public ComfyProgressResponse readProgressAccelerated() throws Exception {
+        return accelerated.read(new ByteArrayInputStream(progressPayload), ComfyProgressResponse.class);
+    }
+
+    @Benchmark
+    public Object readResultSharedMapper() throws Exception {
+        return sharedMapper.readValue(new ByteArrayInputStream(resultPayload), resultType);
+    }
+
+    @Benchmark
+    public Object readResultEngine() throws Exception {
+        return engine.read(new ByteArrayInputStream(resultPayload), resultType);
+    }
+
+    @Benchmark
+    public Object readResultAccelerated() throws Exception {
+        return accelerated.read(new ByteArrayInputStream(resultPayload), acceleratedResultType);
+    }
+
+    public static class ImageResult {
+        public List<Map<String, Object>> images;
+        public int seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(JsonEngineBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
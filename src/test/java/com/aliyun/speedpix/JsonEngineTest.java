@@ -0,0 +1,75 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.TypedComfyResultResponse;
+import com.aliyun.speedpix.util.JsonEngine;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JSON 引擎测试
+ */
+public class JsonEngineTest {
+
+    @Test
+    public void testReadersAndWritersAreCached() {
+        JsonEngine engine = JsonEngine.builder().build();
+        JavaType type = engine.parametricType(TypedComfyResultResponse.class, Map.class);
+
+        assertSame(engine.reader(Map.class), engine.reader(Map.class));
+        assertSame(engine.reader(type), engine.reader(engine.parametricType(TypedComfyResultResponse.class, Map.class)));
+        assertSame(engine.writer(Map.class), engine.writer(Map.class));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        JsonEngine engine = JsonEngine.builder().build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine.write(out, Collections.singletonMap("taskId", "task-1"));
+
+        Map<?, ?> value = engine.read(new ByteArrayInputStream(out.toByteArray()), Map.class);
+        assertEquals("task-1", value.get("taskId"));
+        assertEquals("{\"taskId\":\"task-1\"}", engine.writeAsString(value));
+    }
+
+    @Test
+    public void testInjectedMapperIsCopied() throws Exception {
+        ObjectMapper tuned = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        SpeedPixClient client = SpeedPixClient.builder()
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .objectMapper(tuned)
+            .build();
+        try {
+            ObjectMapper used = client.getObjectMapper();
+            assertNotSame(tuned, used);
+            assertFalse(used.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+            assertTrue(tuned.getRegisteredModuleIds().isEmpty());
+            assertFalse(used.getRegisteredModuleIds().isEmpty());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testAcceleratorRegisteredWhenAvailable() throws Exception {
+        JsonEngine engine = JsonEngine.builder().accelerated(true).build();
+        assertNotNull(engine.getAcceleratorModule());
+        assertNull(JsonEngine.builder().build().getAcceleratorModule());
+
+        String json = "{\"data\":{\"taskId\":\"t\",\"status\":\"succeeded\",\"result\":{\"a\":1}}}";
+        TypedComfyResultResponse<Map<String, Object>> response = engine.read(
+            new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+            engine.parametricType(TypedComfyResultResponse.class, Map.class));
+        assertEquals(1, response.getData().getResult().get("a"));
+    }
+}
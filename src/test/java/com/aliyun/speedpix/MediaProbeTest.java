@@ -0,0 +1,273 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.http.HttpTransport;
+import com.aliyun.speedpix.model.AudioOutput;
+import com.aliyun.speedpix.model.FileOutput;
+import com.aliyun.speedpix.model.ImageOutput;
+import com.aliyun.speedpix.model.MediaInfo;
+import com.aliyun.speedpix.model.VideoOutput;
+import com.aliyun.speedpix.util.MediaProbe;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 媒体元信息探测测试
+ */
+public class MediaProbeTest {
+
+    private static final int PAYLOAD_SIZE = 2 * 1024 * 1024;
+
+    private StubGateway gateway;
+    private HttpTransport transport;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        transport = HttpTransport.builder().build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transport.close();
+        gateway.close();
+    }
+
+    @Test
+    public void testProbePngReadsOnlyHeader() throws Exception {
+        byte[] png = concat(
+            new byte[] {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A},
+            be(13), ascii("IHDR"), be(640), be(480), new byte[] {8, 6, 0, 0, 0},
+            new byte[PAYLOAD_SIZE]);
+        ImageOutput output = bind(new ImageOutput(gateway.serveFile("image.png", png), 0, 0, null, 0));
+
+        output.probe();
+
+        assertEquals(640, output.getWidth());
+        assertEquals(480, output.getHeight());
+        assertEquals("png", output.getFormat());
+        assertEquals(1, gateway.rangeRequests());
+        assertTrue(gateway.downloadedBytes() <= MediaProbe.HEADER_SIZE);
+    }
+
+    @Test
+    public void testProbeJpegSkipsLargeExifSegment() throws Exception {
+        // SOF 位于 40KB 的 APP1 段之后，超出第一次读取的文件头
+        byte[] exif = new byte[40 * 1024];
+        byte[] jpeg = concat(
+            new byte[] {(byte) 0xFF, (byte) 0xD8},
+            new byte[] {(byte) 0xFF, (byte) 0xE1}, be16(exif.length + 2), exif,
+            new byte[] {(byte) 0xFF, (byte) 0xDB}, be16(67), new byte[65],
+            new byte[] {(byte) 0xFF, (byte) 0xC0}, be16(17), new byte[] {8}, be16(1080), be16(1920), new byte[10],
+            new byte[] {(byte) 0xFF, (byte) 0xDA}, new byte[PAYLOAD_SIZE]);
+        ImageOutput output = bind(new ImageOutput(gateway.serveFile("photo.jpg", jpeg), 0, 0, null, 0));
+
+        output.probe();
+
+        assertEquals(1920, output.getWidth());
+        assertEquals(1080, output.getHeight());
+        assertEquals("jpeg", output.getFormat());
+        assertEquals(2, gateway.rangeRequests());
+        assertTrue(gateway.downloadedBytes() < 64 * 1024);
+    }
+
+    @Test
+    public void testProbeWebp() throws Exception {
+        byte[] extended = riff("WEBP", ascii("VP8X"), le(10), new byte[] {0x10, 0, 0, 0},
+            le24(1023), le24(767), new byte[PAYLOAD_SIZE]);
+        byte[] lossless = riff("WEBP", ascii("VP8L"), le(PAYLOAD_SIZE), new byte[] {0x2F},
+            le((199) | (99 << 14)), new byte[PAYLOAD_SIZE]);
+
+        MediaInfo first = bind(new FileOutput(gateway.serveFile("a.webp", extended))).probeMedia();
+        MediaInfo second = bind(new FileOutput(gateway.serveFile("b.webp", lossless))).probeMedia();
+
+        assertEquals("image/webp", first.getMimeType());
+        assertEquals(1024, first.getWidth());
+        assertEquals(768, first.getHeight());
+        assertEquals(200, second.getWidth());
+        assertEquals(100, second.getHeight());
+        assertEquals(lossless.length, second.getFileSize());
+    }
+
+    @Test
+    public void testProbeMp4WithMoovAtEnd() throws Exception {
+        byte[] mp4 = concat(
+            box("ftyp", ascii("isom"), be(512), ascii("isom"), ascii("avc1")),
+            box("mdat", new byte[PAYLOAD_SIZE]),
+            box("moov",
+                box("mvhd", fullBoxV0(1000, 5000, 80)),
+                track(tkhd(1280, 720), 30000, 150000, "vide",
+                    sampleEntry("avc1", concat(new byte[16], be16(1280), be16(720), new byte[50])),
+                    150),
+                track(tkhd(0, 0), 44100, 220500, "soun",
+                    sampleEntry("mp4a", concat(new byte[8], be16(2), be16(16), new byte[4], be(44100 << 16))),
+                    216)));
+        VideoOutput output = bind(new VideoOutput(gateway.serveFile("clip.mp4", mp4),
+            0, 0, 0, null, null, 0, 0, 0, false));
+
+        output.probe();
+
+        assertEquals(1280, output.getWidth());
+        assertEquals(720, output.getHeight());
+        assertEquals(5000, output.getDuration());
+        assertEquals("mp4", output.getFormat());
+        assertEquals("avc1", output.getCodec());
+        assertEquals(30.0, output.getFrameRate(), 0.001);
+        assertEquals(mp4.length, output.getFileSize());
+        assertEquals((int) (mp4.length * 8000L / 5000), output.getBitrate());
+        assertTrue(output.hasAudio());
+        // 文件头之外只读取 moov 所在的一块
+        assertEquals(2, gateway.rangeRequests());
+        assertTrue(gateway.downloadedBytes() < 64 * 1024);
+    }
+
+    @Test
+    public void testProbeWav() throws Exception {
+        byte[] wav = riff("WAVE",
+            ascii("fmt "), le(16), le16(1), le16(2), le(44100), le(176400), le16(4), le16(16),
+            ascii("LIST"), le(25), new byte[26],
+            ascii("data"), le(352800), new byte[352800]);
+        AudioOutput output = bind(new AudioOutput(gateway.serveFile("voice.wav", wav), 0, null, 0, 0, 0, 0));
+
+        output.probe();
+
+        assertEquals(2000, output.getDuration());
+        assertEquals("wav", output.getFormat());
+        assertEquals("pcm", output.getCodec());
+        assertEquals(1411200, output.getBitrate());
+        assertEquals(44100, output.getSampleRate());
+        assertEquals(2, output.getChannels());
+        assertEquals(wav.length, output.getFileSize());
+        assertEquals(1, gateway.rangeRequests());
+    }
+
+    @Test
+    public void testProbeMp3() throws Exception {
+        // ID3v2 标签之后是 128kbps、44.1kHz 立体声的固定比特率帧
+        byte[] tag = concat(ascii("ID3"), new byte[] {3, 0, 0, 0, 0, 15, 80}, new byte[2000]);
+        byte[] cbr = concat(tag, new byte[] {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x64}, new byte[160000 - 4]);
+        // 带 Xing 头的可变比特率文件
+        byte[] xing = concat(new byte[] {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x64}, new byte[32],
+            ascii("Xing"), be(3), be(383), be(100000), new byte[100000]);
+
+        AudioOutput constant = bind(new AudioOutput(gateway.serveFile("a.mp3", cbr), 0, null, 0, 0, 0, 0)).probe();
+        AudioOutput variable = bind(new AudioOutput(gateway.serveFile("b.mp3", xing), 0, null, 0, 0, 0, 0)).probe();
+
+        assertEquals("mp3", constant.getFormat());
+        assertEquals("mp3", constant.getCodec());
+        assertEquals(128000, constant.getBitrate());
+        assertEquals(44100, constant.getSampleRate());
+        assertEquals(2, constant.getChannels());
+        assertEquals(10000, constant.getDuration());
+
+        long duration = 383L * 1152 * 1000 / 44100;
+        assertEquals(duration, variable.getDuration());
+        assertEquals((int) (100000L * 8000 / duration), variable.getBitrate());
+    }
+
+    @Test
+    public void testProbeWithoutRangeSupportReadsPrefix() throws Exception {
+        gateway.setRangeSupport(false);
+        byte[] gif = concat(ascii("GIF89a"), le16(320), le16(240), new byte[PAYLOAD_SIZE]);
+
+        MediaInfo info = bind(new FileOutput(gateway.serveFile("anim.gif", gif))).probeMedia();
+
+        assertEquals("gif", info.getFormat());
+        assertEquals(320, info.getWidth());
+        assertEquals(240, info.getHeight());
+        assertEquals(gif.length, info.getFileSize());
+    }
+
+    @Test
+    public void testProbeUnknownFormatKeepsServerValues() throws Exception {
+        byte[] data = concat(ascii("%PDF-1.7"), new byte[1000]);
+        ImageOutput output = bind(new ImageOutput(gateway.serveFile("doc.bin", data), 10, 20, "png", 0));
+
+        output.probe();
+
+        assertEquals(10, output.getWidth());
+        assertEquals(20, output.getHeight());
+        assertEquals("pdf", output.getFormat());
+        assertEquals(data.length, output.probeMedia().getFileSize());
+    }
+
+    private <T extends FileOutput> T bind(T output) {
+        output.bindTransport(transport);
+        return output;
+    }
+
+    private static byte[] track(byte[] tkhd, int timescale, int duration, String handler, byte[] entry, int samples) {
+        return box("trak", tkhd,
+            box("mdia",
+                box("mdhd", fullBoxV0(timescale, duration, 4)),
+                box("hdlr", new byte[8], ascii(handler), new byte[13]),
+                box("minf",
+                    box("stbl",
+                        box("stsd", be(0), be(1), entry),
+                        box("stts", be(0), be(1), be(samples), be(1000))))));
+    }
+
+    private static byte[] tkhd(int width, int height) {
+        return box("tkhd", new byte[76], be(width << 16), be(height << 16));
+    }
+
+    /**
+     * 版本 0 的 mvhd/mdhd：创建和修改时间之后是 timescale 和 duration
+     */
+    private static byte[] fullBoxV0(int timescale, int duration, int trailing) {
+        return concat(new byte[12], be(timescale), be(duration), new byte[trailing]);
+    }
+
+    private static byte[] sampleEntry(String type, byte[] fields) {
+        return box(type, concat(new byte[8], fields));
+    }
+
+    private static byte[] box(String type, byte[]... parts) {
+        byte[] body = concat(parts);
+        return concat(be(body.length + 8), ascii(type), body);
+    }
+
+    private static byte[] riff(String form, byte[]... parts) {
+        byte[] body = concat(parts);
+        return concat(ascii("RIFF"), le(body.length + 4), ascii(form), body);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] be(int value) {
+        return ByteBuffer.allocate(4).putInt(value).array();
+    }
+
+    private static byte[] be16(int value) {
+        return ByteBuffer.allocate(2).putShort((short) value).array();
+    }
+
+    private static byte[] le(int value) {
+        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+    }
+
+    private static byte[] le16(int value) {
+        return ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN).putShort((short) value).array();
+    }
+
+    private static byte[] le24(int value) {
+        return new byte[] {(byte) value, (byte) (value >> 8), (byte) (value >> 16)};
+    }
+}
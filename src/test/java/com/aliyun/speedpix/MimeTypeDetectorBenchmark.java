@@ -0,0 +1,215 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.util.MimeTypeDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MIME 类型检测基准测试：对比原来的 if 链检测与按首字节索引的签名表
+ *
+ * 每次调用检测一组常见媒体文件头和文件名，其中一半是原实现不认识的格式，会走到 SVG 和文本检测。
+ * 启用 GC profiler，gc.alloc.rate.norm 即每组检测分配的字节数。运行方式：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.aliyun.speedpix.MimeTypeDetectorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class MimeTypeDetectorBenchmark {
+
+    private final byte[][] headers = {
+        header(0xFF, 0xD8, 0xFF, 0xE0),
+        header(0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A),
+        MimeTypeDetectorTest.ftyp("isom", "iso2", "mp41"),
+        MimeTypeDetectorTest.ftyp("heic", "mif1", "heic"),
+        MimeTypeDetectorTest.ftyp("avif", "mif1", "miaf"),
+        MimeTypeDetectorTest.ebml("webm"),
+        header(0xFF, 0xFB, 0x90, 0x64),
+        "fLaC\0\0\0\"".getBytes(StandardCharsets.ISO_8859_1),
+        "OggS\0\u0002\0\0".getBytes(StandardCharsets.ISO_8859_1),
+        header(0x49, 0x49, 0x2A, 0x00, 0x08, 0x00),
+    };
+
+    private final String[] filenames = {
+        "photo.jpg", "mask.PNG", "clip.mp4", "IMG_0001.HEIC", "image.avif",
+        "clip.webm", "song.mp3", "voice.wav", "clip.mov", "README",
+    };
+
+    public MimeTypeDetectorBenchmark() {
+        // 补齐到检测读取的文件头长度
+        for (int i = 0; i < headers.length; i++) {
+            headers[i] = Arrays.copyOf(headers[i], MimeTypeDetector.HEADER_SIZE);
+        }
+    }
+
+    @Benchmark
+    public void legacyDetect(Blackhole blackhole) {
+        for (byte[] header : headers) {
+            blackhole.consume(LegacyDetector.detectMimeTypeFromBytes(header, header.length));
+        }
+    }
+
+    @Benchmark
+    public void tableDetect(Blackhole blackhole) {
+        for (byte[] header : headers) {
+            blackhole.consume(MimeTypeDetector.detectMimeType(header, header.length));
+        }
+    }
+
+    @Benchmark
+    public void legacyGuess(Blackhole blackhole) {
+        for (String filename : filenames) {
+            blackhole.consume(LegacyDetector.guessMimeTypeFromFilename(filename));
+        }
+    }
+
+    @Benchmark
+    public void tableGuess(Blackhole blackhole) {
+        for (String filename : filenames) {
+            blackhole.consume(MimeTypeDetector.guessMimeTypeFromFilename(filename));
+        }
+    }
+
+    private static byte[] header(int... bytes) {
+        byte[] header = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            header[i] = (byte)bytes[i];
+        }
+        return header;
+    }
+
+    /**
+     * 原来的 if 链实现，仅用于对比
+     */
+    private static final class LegacyDetector {
+
+        static String detectMimeTypeFromBytes(byte[] buffer, int length) {
+            if (length < 2) {
+                return "application/octet-stream";
+            }
+            if (length >= 3 && (buffer[0] & 0xFF) == 0xFF && (buffer[1] & 0xFF) == 0xD8
+                && (buffer[2] & 0xFF) == 0xFF) {
+                return "image/jpeg";
+            }
+            if (length >= 8 && (buffer[0] & 0xFF) == 0x89 && (buffer[1] & 0xFF) == 0x50
+                && (buffer[2] & 0xFF) == 0x4E && (buffer[3] & 0xFF) == 0x47 && (buffer[4] & 0xFF) == 0x0D
+                && (buffer[5] & 0xFF) == 0x0A && (buffer[6] & 0xFF) == 0x1A && (buffer[7] & 0xFF) == 0x0A) {
+                return "image/png";
+            }
+            if (length >= 4 && (buffer[0] & 0xFF) == 0x47 && (buffer[1] & 0xFF) == 0x49
+                && (buffer[2] & 0xFF) == 0x46 && (buffer[3] & 0xFF) == 0x38) {
+                return "image/gif";
+            }
+            if (length >= 12 && (buffer[0] & 0xFF) == 0x52 && (buffer[1] & 0xFF) == 0x49
+                && (buffer[2] & 0xFF) == 0x46 && (buffer[3] & 0xFF) == 0x46 && (buffer[8] & 0xFF) == 0x57
+                && (buffer[9] & 0xFF) == 0x45 && (buffer[10] & 0xFF) == 0x42 && (buffer[11] & 0xFF) == 0x50) {
+                return "image/webp";
+            }
+            if (length >= 8) {
+                for (int i = 0; i <= length - 4; i++) {
+                    if ((buffer[i] & 0xFF) == 0x66 && (buffer[i + 1] & 0xFF) == 0x74
+                        && (buffer[i + 2] & 0xFF) == 0x79 && (buffer[i + 3] & 0xFF) == 0x70) {
+                        return "video/mp4";
+                    }
+                }
+            }
+            if (length >= 4 && (buffer[0] & 0xFF) == 0x25 && (buffer[1] & 0xFF) == 0x50
+                && (buffer[2] & 0xFF) == 0x44 && (buffer[3] & 0xFF) == 0x46) {
+                return "application/pdf";
+            }
+            if (length >= 4 && (buffer[0] & 0xFF) == 0x50 && (buffer[1] & 0xFF) == 0x4B
+                && ((buffer[2] & 0xFF) == 0x03 || (buffer[2] & 0xFF) == 0x05 || (buffer[2] & 0xFF) == 0x07)) {
+                return "application/zip";
+            }
+            if (length >= 2 && (buffer[0] & 0xFF) == 0x42 && (buffer[1] & 0xFF) == 0x4D) {
+                return "image/bmp";
+            }
+            if (length >= 5) {
+                String start = new String(buffer, 0, Math.min(length, 100)).toLowerCase();
+                if (start.contains("<svg") || start.contains("<?xml") && start.contains("svg")) {
+                    return "image/svg+xml";
+                }
+            }
+            if (isPossibleTextContent(buffer, length)) {
+                return "text/plain";
+            }
+            return "application/octet-stream";
+        }
+
+        static boolean isPossibleTextContent(byte[] buffer, int length) {
+            int printableCount = 0;
+            int totalCount = Math.min(length, 1024);
+            for (int i = 0; i < totalCount; i++) {
+                int b = buffer[i] & 0xFF;
+                if ((b >= 32 && b <= 126) || b == 9 || b == 10 || b == 13) {
+                    printableCount++;
+                } else if (b == 0) {
+                    return false;
+                }
+            }
+            return (double)printableCount / totalCount > 0.8;
+        }
+
+        static String guessMimeTypeFromFilename(String filename) {
+            if (filename == null || filename.isEmpty()) {
+                return "application/octet-stream";
+            }
+            String extension = filename.toLowerCase();
+            if (extension.endsWith(".jpg") || extension.endsWith(".jpeg")) {
+                return "image/jpeg";
+            } else if (extension.endsWith(".png")) {
+                return "image/png";
+            } else if (extension.endsWith(".gif")) {
+                return "image/gif";
+            } else if (extension.endsWith(".webp")) {
+                return "image/webp";
+            } else if (extension.endsWith(".bmp")) {
+                return "image/bmp";
+            } else if (extension.endsWith(".svg")) {
+                return "image/svg+xml";
+            } else if (extension.endsWith(".mp4")) {
+                return "video/mp4";
+            } else if (extension.endsWith(".pdf")) {
+                return "application/pdf";
+            } else if (extension.endsWith(".zip")) {
+                return "application/zip";
+            } else if (extension.endsWith(".txt")) {
+                return "text/plain";
+            } else if (extension.endsWith(".json")) {
+                return "application/json";
+            } else if (extension.endsWith(".xml")) {
+                return "application/xml";
+            } else {
+                return "application/octet-stream";
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(MimeTypeDetectorBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
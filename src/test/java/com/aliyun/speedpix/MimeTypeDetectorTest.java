@@ -0,0 +1,143 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.util.MimeTypeDetector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MIME 类型检测测试
+ */
+public class MimeTypeDetectorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testClassicFormats() {
+        assertEquals("image/jpeg", detect(0xFF, 0xD8, 0xFF, 0xE0));
+        assertEquals("image/png", detect(0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A));
+        assertEquals("image/gif", detect("GIF89a"));
+        assertEquals("image/webp", detect("RIFF\0\0\0\0WEBPVP8 "));
+        assertEquals("application/pdf", detect("%PDF-1.7"));
+        assertEquals("application/zip", detect(0x50, 0x4B, 0x03, 0x04));
+        assertEquals("image/bmp", detect(0x42, 0x4D, 0x00, 0x00));
+        assertEquals("video/mp4", detect(ftyp("isom", "iso2", "mp41")));
+    }
+
+    @Test
+    public void testModernMediaFormats() {
+        assertEquals("image/avif", detect(ftyp("avif", "mif1", "miaf")));
+        assertEquals("image/avif", detect(ftyp("mif1", "avif", "miaf")));
+        assertEquals("image/heic", detect(ftyp("heic", "mif1", "heic")));
+        assertEquals("image/heic", detect(ftyp("mif1", "heic")));
+        assertEquals("image/heif", detect(ftyp("mif1", "miaf")));
+        assertEquals("video/quicktime", detect(ftyp("qt  ", "qt  ")));
+        assertEquals("video/quicktime", detect("\0\0\0\u0008wide\0\0\0\0mdat"));
+        assertEquals("audio/mp4", detect(ftyp("M4A ", "isom")));
+        assertEquals("image/tiff", detect(0x49, 0x49, 0x2A, 0x00, 0x08, 0x00));
+        assertEquals("image/tiff", detect(0x4D, 0x4D, 0x00, 0x2A, 0x00, 0x08));
+        assertEquals("audio/wav", detect("RIFF\0\0\0\0WAVEfmt "));
+        assertEquals("audio/mpeg", detect("ID3\u0004\0\0\0\0"));
+        assertEquals("audio/mpeg", detect(0xFF, 0xFB, 0x90, 0x64));
+        assertEquals("audio/flac", detect("fLaC\0\0\0\""));
+        assertEquals("audio/ogg", detect("OggS\0\u0002\0\0"));
+        assertEquals("video/webm", detect(ebml("webm")));
+        assertEquals("video/x-matroska", detect(ebml("matroska")));
+    }
+
+    @Test
+    public void testTextAndUnknownContent() {
+        assertEquals("image/svg+xml", detect("<?xml version=\"1.0\"?><SVG xmlns=\"http://www.w3.org/2000/svg\">"));
+        assertEquals("image/svg+xml", detect("<svg width=\"10\"/>"));
+        assertEquals("text/plain", detect("hello world, plain text"));
+        assertEquals("application/octet-stream", detect(0x00, 0x01, 0x02, 0x03));
+        // AAC ADTS 的 layer 位为 00，不是 MP3
+        assertEquals("application/octet-stream", detect(0xFF, 0xF1, 0x00, 0x00));
+        assertEquals("application/octet-stream", MimeTypeDetector.detectMimeType(new byte[0]));
+        assertEquals("application/octet-stream", MimeTypeDetector.detectMimeType((byte[])null));
+    }
+
+    @Test
+    public void testPathAndStreamReadOnlyTheHeader() throws Exception {
+        byte[] content = new byte[1024 * 1024];
+        byte[] header = ftyp("heic", "mif1", "heic");
+        System.arraycopy(header, 0, content, 0, header.length);
+        Path file = Files.write(tempDir.resolve("photo"), content);
+        assertEquals("image/heic", MimeTypeDetector.detectMimeType(file));
+
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(content));
+        assertEquals("image/heic", MimeTypeDetector.detectMimeType(in));
+        // 检测后流被重置到开头
+        assertEquals(header[0], (byte)in.read());
+
+        Path empty = Files.write(tempDir.resolve("empty"), new byte[0]);
+        assertEquals("application/octet-stream", MimeTypeDetector.detectMimeType(empty));
+    }
+
+    @Test
+    public void testGuessFromFilename() {
+        assertEquals("image/jpeg", MimeTypeDetector.guessMimeTypeFromFilename("photo.JPG"));
+        assertEquals("image/jpeg", MimeTypeDetector.guessMimeTypeFromFilename("a.b.jpeg"));
+        assertEquals("image/avif", MimeTypeDetector.guessMimeTypeFromFilename("image.avif"));
+        assertEquals("image/heic", MimeTypeDetector.guessMimeTypeFromFilename("IMG_0001.HEIC"));
+        assertEquals("image/tiff", MimeTypeDetector.guessMimeTypeFromFilename("scan.tif"));
+        assertEquals("video/quicktime", MimeTypeDetector.guessMimeTypeFromFilename("clip.mov"));
+        assertEquals("video/webm", MimeTypeDetector.guessMimeTypeFromFilename("clip.webm"));
+        assertEquals("audio/wav", MimeTypeDetector.guessMimeTypeFromFilename("voice.wav"));
+        assertEquals("audio/mpeg", MimeTypeDetector.guessMimeTypeFromFilename("song.mp3"));
+        assertEquals("audio/flac", MimeTypeDetector.guessMimeTypeFromFilename("song.flac"));
+        assertEquals("audio/ogg", MimeTypeDetector.guessMimeTypeFromFilename("song.ogg"));
+        assertEquals("application/json", MimeTypeDetector.guessMimeTypeFromFilename("data.json"));
+        assertEquals("application/octet-stream", MimeTypeDetector.guessMimeTypeFromFilename("README"));
+        assertEquals("application/octet-stream", MimeTypeDetector.guessMimeTypeFromFilename("file."));
+        assertEquals("application/octet-stream", MimeTypeDetector.guessMimeTypeFromFilename("archive.jpgx"));
+        assertEquals("application/octet-stream", MimeTypeDetector.guessMimeTypeFromFilename(null));
+    }
+
+    private static String detect(int... bytes) {
+        byte[] buffer = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            buffer[i] = (byte)bytes[i];
+        }
+        return MimeTypeDetector.detectMimeType(buffer);
+    }
+
+    private static String detect(String header) {
+        return MimeTypeDetector.detectMimeType(header.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String detect(byte[] header) {
+        return MimeTypeDetector.detectMimeType(header);
+    }
+
+    /**
+     * 构造 ftyp box：主品牌、版本号和兼容品牌
+     */
+    static byte[] ftyp(String majorBrand, String... compatibleBrands) {
+        int size = 16 + 4 * compatibleBrands.length;
+        StringBuilder box = new StringBuilder();
+        box.append("\0\0\0").append((char)size).append("ftyp").append(majorBrand).append("\0\0\0\0");
+        for (String brand : compatibleBrands) {
+            box.append(brand);
+        }
+        return box.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 构造带 DocType 的 EBML 头
+     */
+    static byte[] ebml(String docType) {
+        String header = "\u001AEß£\u0093B\u0086\u0081\u0001B\u0082"
+            + (char)(0x80 | docType.length()) + docType;
+        return header.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,113 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.FileObject;
+import com.aliyun.speedpix.service.MultipartUploadConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传吞吐基准测试：对比单次 PUT 与分片并行上传
+ *
+ * 本地网关替身限制每个上传连接的接收速率，模拟单连接带宽受限的对象存储。运行方式：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.aliyun.speedpix.MultipartUploadBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MultipartUploadBenchmark {
+
+    @Param({"16"})
+    public int fileSizeMb;
+
+    @Param({"8"})
+    public int connectionMbPerSecond;
+
+    @Param({"4", "8"})
+    public int parallelism;
+
+    private StubGateway gateway;
+    private SpeedPixClient singlePut;
+    private SpeedPixClient multipart;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        gateway.setUploadBytesPerSecond(connectionMbPerSecond * 1024L * 1024);
+        file = Files.createTempFile("speedpix-bench", ".bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(fileSizeMb * 1024L * 1024);
+        }
+        singlePut = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("bench-app-key")
+            .appSecret("bench-app-secret")
+            .build();
+        multipart = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("bench-app-key")
+            .appSecret("bench-app-secret")
+            .maxRequestsPerHost(parallelism * 2)
+            .multipartUpload(MultipartUploadConfig.builder()
+                .threshold(0)
+                .partSize(2L * 1024 * 1024)
+                .parallelism(parallelism)
+                .build())
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        singlePut.close();
+        multipart.close();
+        gateway.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * 单连接一次 PUT
+     */
+    @Benchmark
+    public FileObject singlePut() throws Exception {
+        return singlePut.files().create(file);
+    }
+
+    /**
+     * 分片并行上传
+     */
+    @Benchmark
+    public FileObject multipart() throws Exception {
+        return multipart.files().create(file);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(MultipartUploadBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,244 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.exception.SpeedPixException;
+import com.aliyun.speedpix.model.FileObject;
+import com.aliyun.speedpix.service.MultipartUploadConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分片上传测试
+ */
+public class MultipartUploadTest {
+
+    private static final int PART_SIZE = 1024 * 1024;
+    private static final int FILE_SIZE = 10 * PART_SIZE + 12345;
+    private static final int PART_COUNT = 11;
+
+    @TempDir
+    Path tempDir;
+
+    private StubGateway gateway;
+    private SpeedPixClient client;
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        file = tempDir.resolve("video.mp4");
+        byte[] data = new byte[FILE_SIZE];
+        new Random(7).nextBytes(data);
+        Files.write(file, data);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        gateway.close();
+    }
+
+    @Test
+    public void testLargeFileUploadsPartsInParallel() throws Exception {
+        client = newClient(MultipartUploadConfig.builder().threshold(PART_SIZE).partSize(PART_SIZE).parallelism(4));
+        gateway.setUploadBytesPerSecond(20L * 1024 * 1024);
+
+        FileObject fileObject = client.files().create(file);
+
+        assertEquals(FILE_SIZE, fileObject.getSize());
+        assertEquals("video/mp4", fileObject.getContentType());
+        assertTrue(fileObject.getAccessUrl().contains("/files/"));
+        assertNotNull(fileObject.getExpireTime());
+        assertEquals(PART_COUNT, gateway.requestCount("/multipart"));
+        assertEquals(0, gateway.requestCount("/upload"));
+        assertEquals(FILE_SIZE, gateway.uploadedBytes());
+        assertEquals(1, gateway.requestCount("/scc/sp_complete_multipart_upload"));
+        assertEquals(0, gateway.openMultipartSessions());
+        int concurrency = gateway.maxConcurrentPartUploads();
+        assertTrue(concurrency > 1 && concurrency <= 4, "concurrent part uploads: " + concurrency);
+    }
+
+    @Test
+    public void testFailedPartsAreRetriedIndividually() throws Exception {
+        client = newClient(MultipartUploadConfig.builder().threshold(PART_SIZE).partSize(PART_SIZE).maxPartAttempts(3));
+        gateway.failNextPartUploads(3);
+
+        FileObject fileObject = client.files().createAsync(file).get(30, TimeUnit.SECONDS);
+
+        assertEquals(FILE_SIZE, fileObject.getSize());
+        assertEquals(PART_COUNT + 3, gateway.requestCount("/multipart"));
+        assertEquals(1, gateway.requestCount("/scc/sp_create_multipart_upload"));
+        assertEquals(0, gateway.openMultipartSessions());
+    }
+
+    @Test
+    public void testInterruptedUploadResumesFromPersistedParts() throws Exception {
+        Path stateDir = tempDir.resolve("state");
+        client = newClient(MultipartUploadConfig.builder()
+            .threshold(PART_SIZE)
+            .partSize(PART_SIZE)
+            .parallelism(1)
+            .maxPartAttempts(2)
+            .stateDirectory(stateDir));
+
+        // 第 7 个分片始终失败：前 6 个分片完成并持久化后上传中断
+        gateway.setFailingPartNumber(7);
+        SpeedPixException error = assertThrows(SpeedPixException.class, () -> client.files().create(file));
+        assertTrue(error.getMessage().contains("7"), error.getMessage());
+        assertEquals(6 + 2, gateway.requestCount("/multipart"));
+        assertEquals(1, countFiles(stateDir));
+
+        // 恢复后只上传剩余分片，沿用同一个上传会话
+        gateway.setFailingPartNumber(0);
+        FileObject fileObject = client.files().create(file);
+
+        assertEquals(FILE_SIZE, fileObject.getSize());
+        assertEquals(6 + 2 + (PART_COUNT - 6), gateway.requestCount("/multipart"));
+        assertEquals(1, gateway.requestCount("/scc/sp_create_multipart_upload"));
+        assertEquals(0, gateway.openMultipartSessions());
+        assertEquals(0, countFiles(stateDir));
+    }
+
+    @Test
+    public void testDeadResumedSessionStartsOver() throws Exception {
+        Path stateDir = tempDir.resolve("state");
+        client = newClient(MultipartUploadConfig.builder()
+            .threshold(PART_SIZE)
+            .partSize(PART_SIZE)
+            .parallelism(1)
+            .maxPartAttempts(2)
+            .partRetryBackoffMillis(10)
+            .stateDirectory(stateDir));
+
+        gateway.setFailingPartNumber(7);
+        assertThrows(SpeedPixException.class, () -> client.files().create(file));
+        assertEquals(1, countFiles(stateDir));
+
+        // 会话在服务端失效后，续传失败一次即删除状态并新建会话
+        gateway.setFailingPartNumber(0);
+        gateway.expireMultipartSessions();
+        FileObject fileObject = client.files().create(file);
+
+        assertEquals(FILE_SIZE, fileObject.getSize());
+        assertEquals(2, gateway.requestCount("/scc/sp_create_multipart_upload"));
+        assertEquals(0, gateway.openMultipartSessions());
+        assertEquals(0, countFiles(stateDir));
+    }
+
+    @Test
+    public void testTransientFailureOfResumedUploadKeepsState() throws Exception {
+        Path stateDir = tempDir.resolve("state");
+        client = newClient(MultipartUploadConfig.builder()
+            .threshold(PART_SIZE)
+            .partSize(PART_SIZE)
+            .parallelism(1)
+            .maxPartAttempts(2)
+            .partRetryBackoffMillis(10)
+            .stateDirectory(stateDir));
+
+        gateway.setFailingPartNumber(7);
+        assertThrows(SpeedPixException.class, () -> client.files().create(file));
+        assertEquals(6 + 2, gateway.requestCount("/multipart"));
+
+        // 续传时分片 9 重试耗尽：会话仍有效，保留状态而不是新建会话
+        gateway.setFailingPartNumber(9);
+        SpeedPixException error = assertThrows(SpeedPixException.class, () -> client.files().create(file));
+        assertTrue(error.getMessage().contains("9"), error.getMessage());
+        assertEquals(8 + 2 + 2, gateway.requestCount("/multipart"));
+        assertEquals(1, gateway.requestCount("/scc/sp_create_multipart_upload"));
+        assertEquals(1, countFiles(stateDir));
+
+        // 再次上传跳过已完成的 8 个分片
+        gateway.setFailingPartNumber(0);
+        FileObject fileObject = client.files().create(file);
+
+        assertEquals(FILE_SIZE, fileObject.getSize());
+        assertEquals(12 + (PART_COUNT - 8), gateway.requestCount("/multipart"));
+        assertEquals(1, gateway.requestCount("/scc/sp_create_multipart_upload"));
+        assertEquals(0, gateway.openMultipartSessions());
+        assertEquals(0, countFiles(stateDir));
+    }
+
+    @Test
+    public void testExpiredIsoSessionIsNotResumed() throws Exception {
+        Path stateDir = tempDir.resolve("state");
+        client = newClient(MultipartUploadConfig.builder()
+            .threshold(PART_SIZE)
+            .partSize(PART_SIZE)
+            .parallelism(1)
+            .maxPartAttempts(1)
+            .stateDirectory(stateDir));
+
+        gateway.setMultipartExpireTime("\"2000-01-01T00:00:00Z\"");
+        gateway.setFailingPartNumber(7);
+        assertThrows(SpeedPixException.class, () -> client.files().create(file));
+        assertEquals(7, gateway.requestCount("/multipart"));
+
+        // ISO-8601 格式的过期时间同样生效：不再尝试续传，直接新建会话上传全部分片
+        gateway.setFailingPartNumber(0);
+        client.files().create(file);
+
+        assertEquals(7 + PART_COUNT, gateway.requestCount("/multipart"));
+        assertEquals(2, gateway.requestCount("/scc/sp_create_multipart_upload"));
+        assertEquals(0, countFiles(stateDir));
+    }
+
+    @Test
+    public void testPartRetriesBackOff() throws Exception {
+        client = newClient(MultipartUploadConfig.builder()
+            .threshold(PART_SIZE)
+            .partSize(PART_SIZE)
+            .parallelism(1)
+            .maxPartAttempts(3)
+            .partRetryBackoffMillis(100));
+        gateway.failNextPartUploads(2);
+
+        long start = System.nanoTime();
+        client.files().create(file);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 两次重试分别等待 100ms 和 200ms
+        assertTrue(elapsedMillis >= 300, "elapsed=" + elapsedMillis);
+        assertEquals(PART_COUNT + 2, gateway.requestCount("/multipart"));
+    }
+
+    @Test
+    public void testFileBelowThresholdUsesSinglePut() throws Exception {
+        client = newClient(MultipartUploadConfig.builder().threshold(64L * 1024 * 1024).partSize(PART_SIZE));
+
+        FileObject fileObject = client.files().create(file);
+
+        assertEquals(FILE_SIZE, fileObject.getSize());
+        assertEquals(1, gateway.requestCount("/upload"));
+        assertEquals(0, gateway.requestCount("/multipart"));
+    }
+
+    private SpeedPixClient newClient(MultipartUploadConfig.Builder multipart) {
+        return SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .multipartUpload(multipart.build())
+            .build();
+    }
+
+    private static long countFiles(Path dir) throws Exception {
+        if (!Files.exists(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
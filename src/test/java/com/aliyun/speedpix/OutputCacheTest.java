@@ -0,0 +1,270 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.http.OutputCache;
+import com.aliyun.speedpix.model.ImageOutput;
+import com.aliyun.speedpix.model.Prediction;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文件输出内容缓存测试
+ */
+public class OutputCacheTest {
+
+    private static final int KB = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private StubGateway gateway;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gateway.close();
+    }
+
+    @Test
+    public void testOutputsWithSameUrlShareOneDownload() throws Exception {
+        byte[] content = random(100 * KB, 1);
+        String url = gateway.serveFile("a.png", content);
+        gateway.setResultJson("{\"first\":{\"url\":\"" + url + "\"},\"second\":{\"url\":\"" + url + "\"}}");
+        OutputCache cache = OutputCache.builder().maxMemoryBytes(1024 * KB).build();
+
+        try (SpeedPixClient client = client(cache)) {
+            Prediction<TwoImages> prediction = client.predictions().getResult("task-1", TwoImages.class);
+            byte[] first = prediction.getOutput().first.read();
+            byte[] second = prediction.getOutput().second.read();
+
+            assertArrayEquals(content, first);
+            assertSame(first, second);
+        }
+
+        assertEquals(1, gateway.requestCount("/files"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(100 * KB, cache.getMemoryBytes());
+    }
+
+    @Test
+    public void testObjectKeyIsPreferredOverUrl() throws Exception {
+        byte[] content = random(10 * KB, 2);
+        String url = gateway.serveFile("a.png", content);
+        // 同一对象的两个不同签名 URL
+        gateway.setResultJson("{\"first\":{\"url\":\"" + url + "?sig=1\",\"object_key\":\"out/a.png\"},"
+            + "\"second\":{\"url\":\"" + url + "?sig=2\",\"object_key\":\"out/a.png\"}}");
+        OutputCache cache = OutputCache.builder().build();
+
+        try (SpeedPixClient client = client(cache)) {
+            TwoImages output = client.predictions().getResult("task-1", TwoImages.class).getOutput();
+            assertArrayEquals(content, output.first.read());
+            assertArrayEquals(content, output.second.read());
+        }
+
+        assertEquals(1, gateway.requestCount("/files"));
+    }
+
+    @Test
+    public void testMemoryBudgetEvictsLeastRecentlyUsed() throws Exception {
+        OutputCache cache = OutputCache.builder().maxMemoryBytes(250 * KB).build();
+        byte[] a = random(100 * KB, 1);
+        byte[] b = random(100 * KB, 2);
+        byte[] c = random(100 * KB, 3);
+
+        cache.put("a", a);
+        cache.put("b", b);
+        assertSame(a, cache.get("a", () -> fail("a is cached")));
+        cache.put("c", c);
+
+        // b 最久未使用，被淘汰
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(200 * KB, cache.getMemoryBytes());
+        assertSame(a, cache.get("a", () -> fail("a is cached")));
+        assertSame(c, cache.get("c", () -> fail("c is cached")));
+        byte[] reloaded = random(100 * KB, 2);
+        assertSame(reloaded, cache.get("b", () -> reloaded));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testEvictedEntriesAreServedFromDiskTier() throws Exception {
+        Path directory = tempDir.resolve("cache");
+        OutputCache cache = OutputCache.builder()
+            .maxMemoryBytes(150 * KB)
+            .maxEntryBytes(100 * KB)
+            .diskDirectory(directory)
+            .build();
+        byte[] a = random(100 * KB, 1);
+        byte[] b = random(100 * KB, 2);
+        byte[] large = random(300 * KB, 3);
+
+        cache.put("a", a);
+        cache.put("b", b);
+        cache.put("large", large);
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(400 * KB, cache.getDiskBytes());
+        assertEquals(3, cache.size());
+
+        // 大文件不进入内存层，以内存映射返回
+        ByteBuffer mapped = cache.getBuffer("large", () -> fail("large is on disk"));
+        assertTrue(mapped.isDirect());
+        assertTrue(mapped.isReadOnly());
+        byte[] copy = new byte[mapped.remaining()];
+        mapped.get(copy);
+        assertArrayEquals(large, copy);
+
+        assertArrayEquals(a, cache.get("a", () -> fail("a is on disk")));
+        assertEquals(2, cache.getDiskHitCount());
+        assertEquals(0, cache.getMissCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testDiskBudgetDeletesOldestFiles() throws Exception {
+        Path directory = tempDir.resolve("cache");
+        OutputCache cache = OutputCache.builder()
+            .maxMemoryBytes(0)
+            .diskDirectory(directory)
+            .maxDiskBytes(250 * KB)
+            .build();
+
+        cache.put("a", random(100 * KB, 1));
+        cache.put("b", random(100 * KB, 2));
+        cache.put("c", random(100 * KB, 3));
+
+        assertEquals(200 * KB, cache.getDiskBytes());
+        assertEquals(2, cache.size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public void testDiskTierSurvivesRestart() throws Exception {
+        Path directory = tempDir.resolve("cache");
+        OutputCache first = OutputCache.builder().maxMemoryBytes(0).diskDirectory(directory).build();
+        byte[] a = random(100 * KB, 1);
+        byte[] b = random(100 * KB, 2);
+        first.put("a", a);
+        first.put("b", b);
+        // a 最近被访问，重启后应比 b 晚淘汰
+        Files.setLastModifiedTime(directory.resolve(DigestUtils.sha256Hex("b") + ".bin"), FileTime.fromMillis(1000));
+        Files.createTempFile(directory, "output", ".tmp");
+
+        OutputCache restored = OutputCache.builder().maxMemoryBytes(0).diskDirectory(directory).build();
+        assertEquals(2, restored.size());
+        assertEquals(200 * KB, restored.getDiskBytes());
+        assertArrayEquals(a, restored.get("a", () -> fail("a is on disk")));
+        assertEquals(1, restored.getDiskHitCount());
+
+        // 预算变小时，构建时删除最久未访问的文件
+        OutputCache smaller = OutputCache.builder()
+            .maxMemoryBytes(0)
+            .diskDirectory(directory)
+            .maxDiskBytes(150 * KB)
+            .build();
+        assertEquals(100 * KB, smaller.getDiskBytes());
+        assertArrayEquals(a, smaller.get("a", () -> fail("a is on disk")));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testConcurrentReadsShareOneDownload() throws Exception {
+        byte[] content = random(512 * KB, 4);
+        gateway.setDownloadBytesPerSecond(1024 * KB);
+        String url = gateway.serveFile("a.png", content);
+        gateway.setResultJson("{\"first\":{\"url\":\"" + url + "\"},\"second\":{\"url\":\"" + url + "\"}}");
+        OutputCache cache = OutputCache.builder().build();
+
+        try (SpeedPixClient client = client(cache)) {
+            TwoImages output = client.predictions().getResult("task-1", TwoImages.class).getOutput();
+            CompletableFuture<byte[]> first = output.first.readAsync();
+            CompletableFuture<byte[]> second = output.second.readAsync();
+
+            assertArrayEquals(content, first.get(10, TimeUnit.SECONDS));
+            assertSame(first.get(), second.get(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, gateway.requestCount("/files"));
+    }
+
+    @Test
+    public void testFailedDownloadIsNotCached() throws Exception {
+        OutputCache cache = OutputCache.builder().build();
+        String url = gateway.baseUrl() + "/files/missing.png";
+        gateway.setResultJson("{\"first\":{\"url\":\"" + url + "\"},\"second\":{\"url\":\"" + url + "\"}}");
+
+        try (SpeedPixClient client = client(cache)) {
+            TwoImages output = client.predictions().getResult("task-1", TwoImages.class).getOutput();
+            assertThrows(IOException.class, output.first::read);
+            assertThrows(IOException.class, output.second::read);
+        }
+
+        assertEquals(2, gateway.requestCount("/files"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testWaitersReloadWhenLoaderDeclinesToCache() throws Exception {
+        OutputCache cache = OutputCache.builder().maxEntryBytes(4 * KB).build();
+        assertTrue(cache.canHold(4 * KB));
+        assertFalse(cache.canHold(4 * KB + 1));
+
+        // 先发起的加载放弃缓存时，等待同一键的调用使用自己的 loader
+        CompletableFuture<byte[]> declined = new CompletableFuture<>();
+        CompletableFuture<byte[]> first = cache.getAsync("a", () -> declined);
+        CompletableFuture<byte[]> second = cache.getAsync("a", () -> CompletableFuture.completedFuture(new byte[8]));
+        declined.complete(null);
+
+        assertNull(first.get(10, TimeUnit.SECONDS));
+        assertEquals(8, second.get(10, TimeUnit.SECONDS).length);
+        assertEquals(1, cache.size());
+    }
+
+    private SpeedPixClient client(OutputCache cache) {
+        return SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .outputCache(cache)
+            .build();
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] content = new byte[size];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+
+    public static class TwoImages {
+        public ImageOutput first;
+        public ImageOutput second;
+    }
+}
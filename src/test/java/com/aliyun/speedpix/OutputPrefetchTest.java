@@ -0,0 +1,224 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.http.OutputCache;
+import com.aliyun.speedpix.http.OutputPrefetchConfig;
+import com.aliyun.speedpix.http.OutputPrefetcher;
+import com.aliyun.speedpix.model.FileOutput;
+import com.aliyun.speedpix.model.ImageOutput;
+import com.aliyun.speedpix.model.Prediction;
+import com.aliyun.speedpix.model.VideoOutput;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 结果文件预取测试
+ */
+public class OutputPrefetchTest {
+
+    private static final String FILES = "/files";
+
+    private StubGateway gateway;
+    private byte[] content;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        gateway.setPollsUntilDone(1);
+        content = new byte[256 * 1024];
+        new Random(25).nextBytes(content);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gateway.close();
+    }
+
+    @Test
+    public void testPrefetchesEveryOutputWithBoundedConcurrency() throws Exception {
+        gateway.setDownloadBytesPerSecond(1024 * 1024);
+        gateway.setResultJson("{\"images\":[" + image("a.png") + "," + image("b.png") + "," + image("c.png") + "],"
+            + "\"video\":" + image("d.mp4") + ",\"extras\":{\"mask\":" + image("e.png") + "},\"seed\":42}");
+
+        try (SpeedPixClient client = client(OutputPrefetchConfig.builder().parallelism(2).build())) {
+            Prediction<Outputs> prediction = client.predictions().get("task-1", Outputs.class);
+            int maxActive = awaitIdle(client.getOutputPrefetcher());
+
+            assertEquals(5, gateway.requestCount(FILES));
+            assertEquals(2, maxActive);
+
+            Outputs outputs = prediction.getOutput();
+            for (ImageOutput image : outputs.images) {
+                assertArrayEquals(content, image.read());
+            }
+            assertArrayEquals(content, outputs.video.read());
+            assertArrayEquals(content, outputs.extras.get("mask").read());
+            assertEquals(5, gateway.requestCount(FILES));
+        }
+    }
+
+    @Test
+    public void testReadJoinsInFlightPrefetch() throws Exception {
+        gateway.setDownloadBytesPerSecond(512 * 1024);
+        gateway.setResultJson("{\"images\":[" + image("a.png") + "]}");
+
+        try (SpeedPixClient client = client(OutputPrefetchConfig.defaults())) {
+            Prediction<Outputs> prediction = client.predictions().getResult("task-1", Outputs.class);
+            assertEquals(1, client.getOutputPrefetcher().getActiveCount());
+
+            assertArrayEquals(content, prediction.getOutput().images.get(0).read());
+            assertEquals(1, gateway.requestCount(FILES));
+        }
+    }
+
+    @Test
+    public void testSkipsOutputsTheCacheCannotHold() throws Exception {
+        // 内存模式下超出缓存单条上限的文件只读取响应头，不读入内存
+        gateway.setResultJson("{\"images\":[" + image("a.png") + "]}");
+        OutputCache cache = OutputCache.builder().maxEntryBytes(content.length - 1).build();
+
+        try (SpeedPixClient client = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .outputCache(cache)
+            .outputPrefetch(OutputPrefetchConfig.defaults())
+            .build()) {
+            ImageOutput image = client.predictions().get("task-1", Outputs.class).getOutput().images.get(0);
+            awaitIdle(client.getOutputPrefetcher());
+            assertEquals(0, cache.size());
+
+            assertArrayEquals(content, image.read());
+            assertEquals(2, gateway.requestCount(FILES));
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testPrefetchToDirectory() throws Exception {
+        String url = gateway.serveFile("a.png", content);
+        gateway.setResultJson("{\"images\":[{\"url\":\"" + url + "?v=1\"},{\"url\":\"" + url + "?v=2\"}]}");
+
+        try (SpeedPixClient client = client(OutputPrefetchConfig.builder().directory(tempDir).build())) {
+            List<ImageOutput> images = client.predictions().get("task-1", Outputs.class).getOutput().images;
+
+            Path first = images.get(0).getLocalCopy().get(10, TimeUnit.SECONDS);
+            Path second = images.get(1).getLocalCopy().get(10, TimeUnit.SECONDS);
+            assertEquals(tempDir.resolve("task-1").resolve(fileName("a", url + "?v=1", ".png")), first);
+            assertEquals(tempDir.resolve("task-1").resolve(fileName("a", url + "?v=2", ".png")), second);
+            assertArrayEquals(content, Files.readAllBytes(second));
+
+            // 读取和保存使用本地文件，不再下载
+            assertArrayEquals(content, images.get(0).read());
+            images.get(1).save(tempDir.resolve("copy.png"));
+            assertArrayEquals(content, Files.readAllBytes(tempDir.resolve("copy.png")));
+            assertEquals(2, gateway.requestCount(FILES));
+
+            // 再次获取同一任务时复用已保存的文件
+            List<ImageOutput> again = client.predictions().get("task-1", Outputs.class).getOutput().images;
+            assertEquals(first, again.get(0).getLocalCopy().get(10, TimeUnit.SECONDS));
+            assertEquals(2, gateway.requestCount(FILES));
+        }
+    }
+
+    @Test
+    public void testSameObjectKeepsItsFileName() throws Exception {
+        // 同一对象的不同签名 URL 在多次预取中得到同一个本地文件
+        String url = gateway.serveFile("a.png", content);
+        gateway.setResultJson("{\"images\":[{\"url\":\"" + url + "?sig=1\",\"object_key\":\"out/a.png\"}]}");
+
+        try (SpeedPixClient client = client(OutputPrefetchConfig.builder().directory(tempDir).build())) {
+            ImageOutput image = client.predictions().get("task-1", Outputs.class).getOutput().images.get(0);
+            Path first = image.getLocalCopy().get(10, TimeUnit.SECONDS);
+            assertEquals(tempDir.resolve("task-1").resolve(fileName("a", "out/a.png", ".png")), first);
+
+            gateway.setResultJson("{\"images\":[{\"url\":\"" + url + "?sig=2\",\"object_key\":\"out/a.png\"}]}");
+            ImageOutput again = client.predictions().get("task-1", Outputs.class).getOutput().images.get(0);
+            assertEquals(first, again.getLocalCopy().get(10, TimeUnit.SECONDS));
+            assertEquals(1, gateway.requestCount(FILES));
+        }
+    }
+
+    @Test
+    public void testFailedPrefetchFallsBackToDownload() throws Exception {
+        String url = gateway.baseUrl() + "/files/late.png";
+        gateway.setResultJson("{\"images\":[{\"url\":\"" + url + "\"}]}");
+
+        try (SpeedPixClient client = client(OutputPrefetchConfig.builder().directory(tempDir).build())) {
+            ImageOutput image = client.predictions().getResult("task-1", Outputs.class).getOutput().images.get(0);
+            awaitIdle(client.getOutputPrefetcher());
+            assertTrue(image.getLocalCopy().isCompletedExceptionally());
+
+            gateway.serveFile("late.png", content);
+            assertArrayEquals(content, image.read());
+            assertFalse(Files.exists(tempDir.resolve("task-1").resolve(fileName("late", url, ".png"))));
+        }
+    }
+
+    @Test
+    public void testPrefetchIsOffByDefault() throws Exception {
+        gateway.setResultJson("{\"images\":[" + image("a.png") + "]}");
+
+        try (SpeedPixClient client = client(null)) {
+            client.predictions().get("task-1", Outputs.class);
+
+            assertNull(client.getOutputPrefetcher());
+            assertEquals(0, gateway.requestCount(FILES));
+        }
+    }
+
+    private static String fileName(String stem, String cacheKey, String extension) {
+        return stem + "-" + DigestUtils.sha256Hex(cacheKey).substring(0, 12) + extension;
+    }
+
+    private String image(String name) {
+        return "{\"url\":\"" + gateway.serveFile(name, content) + "\"}";
+    }
+
+    private SpeedPixClient client(OutputPrefetchConfig prefetch) {
+        return SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            // 每个测试使用独立的缓存，避免命中其他测试留下的内容
+            .outputCache(OutputCache.builder().build())
+            .outputPrefetch(prefetch)
+            .build();
+    }
+
+    /**
+     * 等待预取全部结束，返回期间观察到的最大同时下载数
+     */
+    private static int awaitIdle(OutputPrefetcher prefetcher) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        int maxActive = 0;
+        while ((prefetcher.getActiveCount() > 0 || prefetcher.getPendingCount() > 0)
+            && System.nanoTime() < deadline) {
+            maxActive = Math.max(maxActive, prefetcher.getActiveCount());
+            Thread.sleep(10);
+        }
+        assertEquals(0, prefetcher.getActiveCount());
+        return maxActive;
+    }
+
+    public static class Outputs {
+        public List<ImageOutput> images;
+        public VideoOutput video;
+        public Map<String, FileOutput> extras;
+        public int seed;
+    }
+}
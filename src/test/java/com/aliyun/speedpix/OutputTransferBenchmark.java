@@ -0,0 +1,154 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.http.HttpTransport;
+import com.aliyun.speedpix.model.FileOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 输出传输基准测试：对比 writeTo(OutputStream) 与经由直接缓冲区池的 writeTo(WritableByteChannel)
+ *
+ * 本地网关替身不限速提供文件，目标为丢弃数据的空目标或本地文件。启用 GC profiler，
+ * gc.alloc.rate.norm 即每次传输分配的字节数。运行方式：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.aliyun.speedpix.OutputTransferBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class OutputTransferBenchmark {
+
+    @Param({"4"})
+    public int fileSizeMb;
+
+    @Param({"discard", "file"})
+    public String target;
+
+    private StubGateway gateway;
+    private HttpTransport transport;
+    private FileOutput output;
+    private Path file;
+    private FileChannel fileChannel;
+    private OutputStream stream;
+    private WritableByteChannel channel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        byte[] content = new byte[fileSizeMb * 1024 * 1024];
+        new Random(1).nextBytes(content);
+        transport = HttpTransport.builder().build();
+        output = new FileOutput(gateway.serveFile("image.png", content));
+        output.bindTransport(transport);
+
+        if ("file".equals(target)) {
+            file = Files.createTempFile("speedpix-bench", ".bin");
+            fileChannel = FileChannel.open(file, StandardOpenOption.WRITE);
+            stream = Channels.newOutputStream(fileChannel);
+            channel = fileChannel;
+        } else {
+            stream = new DiscardingStream();
+            channel = new DiscardingChannel();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void rewind() throws IOException {
+        if (fileChannel != null) {
+            fileChannel.position(0);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (fileChannel != null) {
+            fileChannel.close();
+            Files.deleteIfExists(file);
+        }
+        transport.close();
+        gateway.close();
+    }
+
+    /**
+     * 原有实现：每次调用分配 8KB 堆内缓冲区
+     */
+    @Benchmark
+    public void streamWriteTo() throws IOException {
+        output.writeTo(stream);
+    }
+
+    /**
+     * 经由共享直接缓冲区池写入通道
+     */
+    @Benchmark
+    public long channelWriteTo() throws IOException {
+        return output.writeTo(channel);
+    }
+
+    private static final class DiscardingStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    private static final class DiscardingChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int remaining = src.remaining();
+            src.position(src.limit());
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(OutputTransferBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
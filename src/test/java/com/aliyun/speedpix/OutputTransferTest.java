@@ -0,0 +1,193 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.http.DirectBufferPool;
+import com.aliyun.speedpix.http.HttpTransport;
+import com.aliyun.speedpix.http.NonBlockingSink;
+import com.aliyun.speedpix.model.FileOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文件输出通道传输测试
+ */
+public class OutputTransferTest {
+
+    private StubGateway gateway;
+    private HttpTransport transport;
+    private ExecutorService container;
+    private byte[] content;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        transport = HttpTransport.builder().build();
+        container = Executors.newSingleThreadExecutor();
+        content = new byte[300 * 1024 + 17];
+        new Random(23).nextBytes(content);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        container.shutdownNow();
+        transport.close();
+        gateway.close();
+    }
+
+    @Test
+    public void testWriteToChannelReusesPooledBuffers() throws Exception {
+        FileOutput output = output("image.png");
+        DirectBufferPool pool = DirectBufferPool.defaultPool();
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        assertEquals(content.length, output.writeTo(Channels.newChannel(first)));
+        long allocated = pool.getAllocatedCount();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        assertEquals(content.length, output.writeTo(Channels.newChannel(second)));
+
+        assertArrayEquals(content, first.toByteArray());
+        assertArrayEquals(content, second.toByteArray());
+        assertEquals(allocated, pool.getAllocatedCount());
+    }
+
+    @Test
+    public void testTransferToDownloadsOnlyTheRequestedRange() throws Exception {
+        FileOutput output = output("image.png");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(5000, output.transferTo(1000, 5000, Channels.newChannel(out)));
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 6000), out.toByteArray());
+        assertEquals(1, gateway.rangeRequests());
+
+        // 超出文件末尾
+        out.reset();
+        assertEquals(17, output.transferTo(300 * 1024, 1000, Channels.newChannel(out)));
+        assertEquals(0, output.transferTo(content.length, 1000, Channels.newChannel(out)));
+    }
+
+    @Test
+    public void testTransferToWithoutRangeSupportSkipsPrefix() throws Exception {
+        gateway.setRangeSupport(false);
+        FileOutput output = output("image.png");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(5000, output.transferTo(1000, 5000, Channels.newChannel(out)));
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 6000), out.toByteArray());
+        assertEquals(0, output.transferTo(content.length + 1, 10, Channels.newChannel(out)));
+    }
+
+    @Test
+    public void testWriteToAsyncRespectsBackPressure() throws Exception {
+        FileOutput output = output("image.png");
+        ContainerSink sink = new ContainerSink(10_000);
+
+        long written = output.writeToAsync(sink).get(10, TimeUnit.SECONDS);
+
+        assertEquals(content.length, written);
+        assertArrayEquals(content, sink.out.toByteArray());
+        // 每次写入后目标都暂时不可写，由容器线程回调继续
+        assertTrue(sink.notReady.get() > content.length / 10_000 / 2, "sink was never saturated");
+    }
+
+    @Test
+    public void testCancelStopsTransferAndReturnsBuffer() throws Exception {
+        gateway.setDownloadBytesPerSecond(256 * 1024);
+        FileOutput output = output("image.png");
+        ContainerSink sink = new ContainerSink(1000);
+        sink.stalled = true;
+
+        CompletableFuture<Long> transfer = output.writeToAsync(sink);
+        assertTrue(sink.firstWrite.get(10, TimeUnit.SECONDS));
+        int pooled = DirectBufferPool.defaultPool().getPooledCount();
+        transfer.cancel(false);
+
+        assertTrue(transfer.isCancelled());
+        // 缓冲区在传输线程退出后归还
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (DirectBufferPool.defaultPool().getPooledCount() == pooled && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(pooled + 1, DirectBufferPool.defaultPool().getPooledCount());
+        assertTrue(sink.out.size() < content.length);
+    }
+
+    @Test
+    public void testWriteToAsyncReportsHttpErrors() {
+        FileOutput output = new FileOutput(gateway.baseUrl() + "/files/missing.png");
+        output.bindTransport(transport);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> output.writeToAsync(new ContainerSink(1000)).get(10, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IOException);
+        assertTrue(error.getCause().getMessage().contains("HTTP 404"));
+    }
+
+    private FileOutput output(String name) {
+        FileOutput output = new FileOutput(gateway.serveFile(name, content));
+        output.bindTransport(transport);
+        return output;
+    }
+
+    /**
+     * 模拟 Servlet 非阻塞输出：每次最多接收 chunk 字节，写入后暂时不可写，稍后在容器线程上回调
+     */
+    private class ContainerSink implements NonBlockingSink {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final AtomicInteger notReady = new AtomicInteger();
+        final CompletableFuture<Boolean> firstWrite = new CompletableFuture<>();
+        final int chunk;
+        volatile boolean ready = true;
+        volatile boolean stalled;
+        volatile Runnable listener;
+
+        ContainerSink(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public boolean isReady() {
+            if (!ready) {
+                notReady.incrementAndGet();
+            }
+            return ready;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer) {
+            assertTrue(ready, "write while not ready");
+            byte[] bytes = new byte[Math.min(chunk, buffer.remaining())];
+            buffer.get(bytes);
+            synchronized (out) {
+                out.write(bytes, 0, bytes.length);
+            }
+            ready = false;
+            firstWrite.complete(true);
+            if (!stalled) {
+                container.execute(() -> {
+                    ready = true;
+                    listener.run();
+                });
+            }
+        }
+
+        @Override
+        public void setReadyListener(Runnable listener) {
+            this.listener = listener;
+        }
+    }
+}
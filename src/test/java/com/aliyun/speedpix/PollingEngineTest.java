@@ -0,0 +1,142 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.ComfyPromptRequest;
+import com.aliyun.speedpix.model.Prediction;
+import com.aliyun.speedpix.model.TaskStatus;
+import com.aliyun.speedpix.service.AdaptivePollingPolicy;
+import com.aliyun.speedpix.service.FixedIntervalPollingPolicy;
+import com.aliyun.speedpix.service.PollingEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 轮询引擎测试
+ */
+public class PollingEngineTest {
+
+    private StubGateway gateway;
+    private SpeedPixClient client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        gateway.setLatencyMillis(20);
+        client = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .maxConcurrentPolls(4)
+            .pollingPolicy(new FixedIntervalPollingPolicy(0.01))
+            .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        gateway.close();
+    }
+
+    @Test
+    public void testAwaitAllWithBoundedConcurrency() throws Exception {
+        // 测试大量任务共享一个调度线程，且并发轮询数受限
+        List<Prediction<Map>> predictions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            predictions.add(client.predictions().create(ComfyPromptRequest.builder("workflow").build(), Map.class));
+        }
+
+        List<Prediction<Map>> results = client.polling().awaitAll(predictions).get(30, TimeUnit.SECONDS);
+
+        assertEquals(40, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertSame(predictions.get(i), results.get(i));
+            assertEquals(TaskStatus.SUCCEEDED, results.get(i).getTaskStatus());
+            assertNotNull(results.get(i).getOutput());
+            assertEquals(2, results.get(i).getPollCount());
+        }
+        assertEquals(80, client.polling().getTotalPollCount());
+        assertTrue(gateway.maxConcurrentProgressRequests() <= 4);
+        assertEquals(0, client.polling().getPendingCount());
+    }
+
+    @Test
+    public void testWaitersOfSameTaskSharePolls() throws Exception {
+        // 测试同一任务的多个等待者共享轮询
+        Prediction<Map> first = client.predictions().create(ComfyPromptRequest.builder("workflow").build(), Map.class);
+        Prediction<Map> second = new Prediction<>(first.getId());
+        second.setTypeClass(Map.class);
+        second.setStatus("running");
+
+        client.awaitAll(Arrays.asList(first, second)).get(10, TimeUnit.SECONDS);
+
+        assertTrue(first.isFinished());
+        assertTrue(second.isFinished());
+        assertEquals(2, gateway.requestCount("/scc/comfy_get_progress"));
+    }
+
+    @Test
+    public void testAdaptivePolicyFollowsEta() throws Exception {
+        // 测试自适应策略按服务端 ETA 安排查询：剩余时间很短时按最小间隔逼近
+        gateway.setPollsUntilDone(3);
+        gateway.setEtaSeconds(0.05);
+        Prediction<Map> prediction = client.predictions().create(ComfyPromptRequest.builder("workflow").build(),
+            Map.class);
+        AdaptivePollingPolicy policy = AdaptivePollingPolicy.builder()
+            .minIntervalMillis(10)
+            .initialIntervalMillis(10)
+            .build();
+
+        long start = System.nanoTime();
+        client.polling().await(prediction, policy).get(10, TimeUnit.SECONDS);
+
+        assertEquals(TaskStatus.SUCCEEDED, prediction.getTaskStatus());
+        assertEquals(3, prediction.getPollCount());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+    }
+
+    @Test
+    public void testAwaitAny() throws Exception {
+        Prediction<Map> prediction = client.predictions().create(ComfyPromptRequest.builder("workflow").build(),
+            Map.class);
+
+        Prediction<Map> done = client.awaitAny(Arrays.asList(prediction)).get(10, TimeUnit.SECONDS);
+
+        assertSame(prediction, done);
+        assertTrue(done.isFinished());
+    }
+
+    @Test
+    public void testWaitForCompletionUsesEngine() throws Exception {
+        // 测试兼容方法 waitForCompletion 交给轮询引擎
+        Prediction<Map> prediction = client.predictions().create(ComfyPromptRequest.builder("workflow").build(),
+            Map.class);
+
+        prediction.waitForCompletion(0.01);
+
+        assertEquals(TaskStatus.SUCCEEDED, prediction.getTaskStatus());
+        assertNull(prediction.getError());
+    }
+
+    @Test
+    public void testCloseFailsPendingWaiters() throws Exception {
+        gateway.setPollsUntilDone(1000);
+        Prediction<Map> prediction = client.predictions().create(ComfyPromptRequest.builder("workflow").build(),
+            Map.class);
+        PollingEngine engine = client.polling();
+
+        CompletableFuture<Prediction<Map>> future = engine.await(prediction, 0.01);
+        engine.close();
+
+        assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,147 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.ComfyProgressResponse;
+import com.aliyun.speedpix.model.ComfyResultResponse;
+import com.aliyun.speedpix.model.Prediction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预测任务状态获取基准测试：对比两次串行往返与已知终态直取结果、推测性并行获取结果
+ *
+ * 本地网关替身为每个请求注入固定延迟，模拟真实网关的往返耗时。运行方式：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.aliyun.speedpix.PredictionFetchBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PredictionFetchBenchmark {
+
+    @Param({"20"})
+    public long latencyMillis;
+
+    private StubGateway gateway;
+    private SpeedPixClient speculative;
+    private SpeedPixClient sequential;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private String finishedTaskId;
+    private String speculativeTaskId;
+    private String sequentialTaskId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        gateway.setPollsUntilDone(2);
+        speculative = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("bench-app-key")
+            .appSecret("bench-app-secret")
+            .speculativeProgressThreshold(0.5)
+            .build();
+        sequential = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("bench-app-key")
+            .appSecret("bench-app-secret")
+            .disableSpeculativeResultFetch()
+            .build();
+
+        finishedTaskId = "finished";
+        speculative.predictions().get(finishedTaskId, Map.class);
+        speculative.predictions().get(finishedTaskId, Map.class);
+        gateway.setLatencyMillis(latencyMillis);
+    }
+
+    /**
+     * 每次调用前准备一个进度为 0.5 的新任务，下一次查询即完成
+     */
+    @Setup(Level.Invocation)
+    public void prepareTask() throws Exception {
+        speculativeTaskId = "bench-" + sequence.incrementAndGet();
+        sequentialTaskId = "bench-" + sequence.incrementAndGet();
+        gateway.setLatencyMillis(0);
+        speculative.predictions().get(speculativeTaskId, Map.class);
+        sequential.predictions().get(sequentialTaskId, Map.class);
+        gateway.setLatencyMillis(latencyMillis);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        speculative.close();
+        sequential.close();
+        gateway.close();
+    }
+
+    /**
+     * 原有方式：进度查询后再串行查询结果
+     */
+    @Benchmark
+    public Object refetchFinishedTwoRoundTrips() throws Exception {
+        Map<String, Object> body = Collections.singletonMap("taskId", finishedTaskId);
+        sequential.post("/scc/comfy_get_progress", body, ComfyProgressResponse.class);
+        return sequential.post("/scc/comfy_get_result", body, ComfyResultResponse.class);
+    }
+
+    /**
+     * 已知终态的任务直接查询结果
+     */
+    @Benchmark
+    public Prediction<Map> refetchFinishedKnownTerminal() throws Exception {
+        return speculative.predictions().get(finishedTaskId, Map.class);
+    }
+
+    /**
+     * getResult 快速路径
+     */
+    @Benchmark
+    public Prediction<Map> getResultFastPath() throws Exception {
+        return speculative.predictions().getResult(finishedTaskId, Map.class);
+    }
+
+    /**
+     * 完成时串行获取结果
+     */
+    @Benchmark
+    public Prediction<Map> completeSequential() throws Exception {
+        return sequential.predictions().get(sequentialTaskId, Map.class);
+    }
+
+    /**
+     * 完成时推测性并行获取结果
+     */
+    @Benchmark
+    public Prediction<Map> completeSpeculative() throws Exception {
+        return speculative.predictions().get(speculativeTaskId, Map.class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(PredictionFetchBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
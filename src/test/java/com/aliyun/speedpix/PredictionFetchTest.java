@@ -0,0 +1,156 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.ImageOutput;
+import com.aliyun.speedpix.model.Prediction;
+import com.aliyun.speedpix.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预测任务状态获取测试
+ */
+public class PredictionFetchTest {
+
+    private static final String PROGRESS = "/scc/comfy_get_progress";
+    private static final String RESULT = "/scc/comfy_get_result";
+
+    private StubGateway gateway;
+    private SpeedPixClient client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        client = gateway.newClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        gateway.close();
+    }
+
+    @Test
+    public void testKnownTerminalTaskSkipsProgress() throws Exception {
+        // 测试已完成的任务再次获取时直接查询结果
+        gateway.setPollsUntilDone(1);
+
+        Prediction<Map> first = client.predictions().get("task-1", Map.class);
+        assertEquals(TaskStatus.SUCCEEDED, first.getTaskStatus());
+        assertEquals(1, gateway.requestCount(PROGRESS));
+        assertEquals(1, gateway.requestCount(RESULT));
+
+        Prediction<Map> again = client.predictions().get("task-1", Map.class);
+        assertEquals(TaskStatus.SUCCEEDED, again.getTaskStatus());
+        assertNotNull(again.getOutput());
+        assertEquals(1, gateway.requestCount(PROGRESS));
+        assertEquals(2, gateway.requestCount(RESULT));
+    }
+
+    @Test
+    public void testGetResultFastPath() throws Exception {
+        Prediction<Map> prediction = client.predictions().getResult("task-7", Map.class);
+
+        assertEquals("task-7", prediction.getId());
+        assertEquals(TaskStatus.SUCCEEDED, prediction.getTaskStatus());
+        assertNotNull(prediction.getOutput().get("images"));
+        assertEquals(0, gateway.requestCount(PROGRESS));
+        assertEquals(1, gateway.requestCount(RESULT));
+    }
+
+    @Test
+    public void testResultWhileRunningIsNotRememberedAsTerminal() throws Exception {
+        // 任务仍在运行时获取到的中间结果不会让之后的查询跳过进度接口
+        gateway.setPollsUntilDone(3);
+        gateway.setResultStatus("running");
+
+        Prediction<Map> partial = client.predictions().getResult("task-1", Map.class);
+        assertEquals(TaskStatus.RUNNING, partial.getTaskStatus());
+
+        Prediction<Map> polled = client.predictions().get("task-1", Map.class);
+        assertFalse(polled.isFinished());
+        assertEquals(1, gateway.requestCount(PROGRESS));
+        assertEquals(1, gateway.requestCount(RESULT));
+    }
+
+    @Test
+    public void testResultWithoutStatusIsNotAssumedSucceeded() throws Exception {
+        gateway.setPollsUntilDone(3);
+        gateway.setResultStatus(null);
+
+        Prediction<Map> prediction = client.predictions().getResult("task-1", Map.class);
+        assertNull(prediction.getStatus());
+        assertNotNull(prediction.getOutput());
+
+        client.predictions().get("task-1", Map.class);
+        assertEquals(1, gateway.requestCount(PROGRESS));
+    }
+
+    @Test
+    public void testResultDecodedIntoTargetType() throws Exception {
+        // 测试结果从响应流直接绑定为目标类型
+        gateway.setResultJson("{\"images\":[{\"url\":\"https://example.com/a.png\",\"width\":64},"
+            + "{\"url\":\"https://example.com/b.png\"}],\"seed\":42}");
+
+        Prediction<ImageResult> prediction = client.predictions().getResult("task-1", ImageResult.class);
+
+        ImageResult result = prediction.getOutput();
+        assertEquals(42, result.seed);
+        assertEquals(2, result.images.size());
+        assertEquals("https://example.com/a.png", result.images.get(0).getUrl());
+        assertEquals(64, result.images.get(0).getWidth());
+        assertEquals("https://example.com/b.png", result.images.get(1).getUrl());
+    }
+
+    @Test
+    public void testSpeculativeResultFetchNearCompletion() throws Exception {
+        // 进度达到 0.9 后，下一次查询并行获取结果，完成时不再串行请求结果
+        gateway.setPollsUntilDone(10);
+        for (int i = 0; i < 9; i++) {
+            assertFalse(client.predictions().get("task-1", Map.class).isFinished());
+        }
+        assertEquals(0, gateway.requestCount(RESULT));
+
+        Prediction<Map> done = client.predictions().get("task-1", Map.class);
+
+        assertEquals(TaskStatus.SUCCEEDED, done.getTaskStatus());
+        assertNotNull(done.getOutput());
+        assertEquals(10, gateway.requestCount(PROGRESS));
+        assertEquals(1, gateway.requestCount(RESULT));
+    }
+
+    @Test
+    public void testSpeculationCanBeDisabled() throws Exception {
+        client.close();
+        client = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .disableSpeculativeResultFetch()
+            .build();
+        gateway.setPollsUntilDone(10);
+        for (int i = 0; i < 9; i++) {
+            client.predictions().get("task-1", Map.class);
+        }
+
+        // 关闭推测后，完成时进度和结果两次查询串行进行
+        gateway.setLatencyMillis(100);
+        long start = System.nanoTime();
+        client.predictions().get("task-1", Map.class);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 200, "elapsed=" + elapsedMillis);
+        assertEquals(1, gateway.requestCount(RESULT));
+        assertEquals(10, gateway.requestCount(PROGRESS));
+    }
+
+    public static class ImageResult {
+        public List<ImageOutput> images;
+        public int seed;
+    }
+}
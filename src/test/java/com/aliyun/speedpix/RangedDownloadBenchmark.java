@@ -0,0 +1,114 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.http.HttpTransport;
+import com.aliyun.speedpix.http.OutputDownloader;
+import com.aliyun.speedpix.http.RangedDownloadConfig;
+import com.aliyun.speedpix.model.FileOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下载吞吐基准测试：对比单连接下载与分段并行下载
+ *
+ * 本地网关替身限制每个下载连接的发送速率，模拟单连接带宽受限的对象存储。运行方式：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.aliyun.speedpix.RangedDownloadBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RangedDownloadBenchmark {
+
+    @Param({"16"})
+    public int fileSizeMb;
+
+    @Param({"8"})
+    public int connectionMbPerSecond;
+
+    @Param({"4", "8"})
+    public int parallelism;
+
+    private StubGateway gateway;
+    private HttpTransport transport;
+    private FileOutput singleStream;
+    private FileOutput ranged;
+    private Path directory;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        gateway.setDownloadBytesPerSecond(connectionMbPerSecond * 1024L * 1024);
+        String url = gateway.serveFile("video.mp4", new byte[fileSizeMb * 1024 * 1024]);
+        transport = HttpTransport.builder().build();
+        directory = Files.createTempDirectory("speedpix-bench");
+        target = directory.resolve("video.mp4");
+
+        singleStream = new FileOutput(url);
+        singleStream.bindTransport(transport);
+        ranged = new FileOutput(url);
+        ranged.bindDownloader(new OutputDownloader(transport, RangedDownloadConfig.builder()
+            .rangeSize(2L * 1024 * 1024)
+            .parallelism(parallelism)
+            .build()));
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteTarget() throws Exception {
+        Files.deleteIfExists(target);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        transport.close();
+        gateway.close();
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * 单连接 GET
+     */
+    @Benchmark
+    public Path singleStream() throws Exception {
+        singleStream.save(target);
+        return target;
+    }
+
+    /**
+     * 分段并行下载
+     */
+    @Benchmark
+    public Path ranged() throws Exception {
+        ranged.save(target);
+        return target;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(RangedDownloadBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,223 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.http.HttpTransport;
+import com.aliyun.speedpix.http.OutputDownloader;
+import com.aliyun.speedpix.http.RangedDownloadConfig;
+import com.aliyun.speedpix.model.FileOutput;
+import com.aliyun.speedpix.model.Prediction;
+import com.aliyun.speedpix.model.VideoOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分段并行下载和可续传保存测试
+ */
+public class RangedDownloadTest {
+
+    private static final int RANGE_SIZE = 64 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private StubGateway gateway;
+    private HttpTransport transport;
+    private byte[] content;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        transport = HttpTransport.builder().build();
+        content = new byte[1024 * 1024 + 123];
+        new Random(20).nextBytes(content);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transport.close();
+        gateway.close();
+    }
+
+    @Test
+    public void testLargeFileIsDownloadedInParallelRanges() throws Exception {
+        // 限速让分段下载互相重叠
+        gateway.setDownloadBytesPerSecond(2 * 1024 * 1024);
+        String url = gateway.serveFile("video.mp4", content);
+        Path target = tempDir.resolve("video.mp4");
+
+        downloader(4, 3).download(url, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals((content.length + RANGE_SIZE - 1) / RANGE_SIZE, gateway.rangeRequests());
+        assertTrue(gateway.maxConcurrentDownloads() > 1, "ranges were sequential");
+    }
+
+    @Test
+    public void testSmallFileNeedsOneRequest() throws Exception {
+        byte[] small = new byte[1000];
+        new Random(1).nextBytes(small);
+        Path target = tempDir.resolve("small.png");
+
+        downloader(4, 3).downloadAsync(gateway.serveFile("small.png", small), target).get(10, TimeUnit.SECONDS);
+
+        assertArrayEquals(small, Files.readAllBytes(target));
+        assertEquals(1, gateway.requestCount("/files"));
+    }
+
+    @Test
+    public void testFallsBackToSingleStreamWithoutRangeSupport() throws Exception {
+        gateway.setRangeSupport(false);
+        Path target = tempDir.resolve("video.mp4");
+
+        downloader(4, 3).download(gateway.serveFile("video.mp4", content), target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(1, gateway.requestCount("/files"));
+        assertEquals(0, gateway.rangeRequests());
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        Path target = tempDir.resolve("empty.bin");
+
+        downloader(4, 3).download(gateway.serveFile("empty.bin", new byte[0]), target);
+
+        assertEquals(0, Files.size(target));
+    }
+
+    @Test
+    public void testFailedRangesAreRetriedIndividually() throws Exception {
+        gateway.failNextRangeRequests(2);
+        gateway.truncateNextRangeResponses(2);
+        Path target = tempDir.resolve("video.mp4");
+
+        downloader(2, 3).download(gateway.serveFile("video.mp4", content), target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        int ranges = (content.length + RANGE_SIZE - 1) / RANGE_SIZE;
+        assertEquals(ranges + 4, gateway.rangeRequests());
+    }
+
+    @Test
+    public void testExhaustedRetriesFailAndRemovePartialFile() throws Exception {
+        gateway.failNextRangeRequests(100);
+        Path target = tempDir.resolve("video.mp4");
+
+        IOException error = assertThrows(IOException.class,
+            () -> downloader(4, 2).download(gateway.serveFile("video.mp4", content), target));
+
+        assertTrue(error.getMessage().contains("HTTP 503"), error.getMessage());
+        assertFalse(Files.exists(target));
+        assertNoPartFiles();
+    }
+
+    @Test
+    public void testExistingTargetIsReplacedOnlyOnSuccess() throws Exception {
+        Path target = Files.write(tempDir.resolve("video.mp4"), new byte[] {1});
+        gateway.failNextRangeRequests(100);
+
+        assertThrows(IOException.class,
+            () -> downloader(4, 2).download(gateway.serveFile("video.mp4", content), target));
+        assertArrayEquals(new byte[] {1}, Files.readAllBytes(target));
+
+        gateway.failNextRangeRequests(0);
+        downloader(4, 2).download(gateway.serveFile("video.mp4", content), target);
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertNoPartFiles();
+    }
+
+    @Test
+    public void testSaveResumesFromPartialLength() throws Exception {
+        gateway.truncateNextDownloads(1);
+        FileOutput output = new FileOutput(gateway.serveFile("video.mp4", content));
+        output.bindTransport(transport);
+        Path target = tempDir.resolve("video.mp4");
+
+        output.save(target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        // 第一次请求只收到一半，续传请求从断点开始并携带 ETag
+        assertEquals(2, gateway.requestCount("/files"));
+        assertEquals(1, gateway.ifRangeHeaders().size());
+        assertNoPartFiles();
+    }
+
+    @Test
+    public void testSaveAsyncResumesAndReplacesTarget() throws Exception {
+        gateway.truncateNextDownloads(2);
+        FileOutput output = new FileOutput(gateway.serveFile("video.mp4", content));
+        output.bindTransport(transport);
+        Path target = Files.write(tempDir.resolve("video.mp4"), new byte[] {1, 2, 3});
+
+        output.saveAsync(target).get(10, TimeUnit.SECONDS);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(3, gateway.requestCount("/files"));
+        assertNoPartFiles();
+    }
+
+    @Test
+    public void testSaveWithoutRangeSupportFailsCleanly() throws Exception {
+        gateway.setRangeSupport(false);
+        gateway.truncateNextDownloads(1);
+        FileOutput output = new FileOutput(gateway.serveFile("video.mp4", content));
+        output.bindTransport(transport);
+        Path target = tempDir.resolve("video.mp4");
+
+        // 不支持 Range 时无法续传，失败后不留下截断的文件
+        assertThrows(IOException.class, () -> output.save(target));
+        assertFalse(Files.exists(target));
+        assertNoPartFiles();
+
+        output.save(target);
+        assertArrayEquals(content, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void testClientBindsDownloaderToOutputs() throws Exception {
+        String url = gateway.serveFile("video.mp4", content);
+        gateway.setResultJson("{\"video\":{\"url\":\"" + url + "\",\"width\":1280}}");
+        Path target = tempDir.resolve("video.mp4");
+
+        try (SpeedPixClient client = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .rangedDownload(RangedDownloadConfig.builder().rangeSize(RANGE_SIZE).build())
+            .build()) {
+            Prediction<VideoResult> prediction = client.predictions().getResult("task-1", VideoResult.class);
+            prediction.getOutput().video.save(target);
+        }
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals((content.length + RANGE_SIZE - 1) / RANGE_SIZE, gateway.rangeRequests());
+    }
+
+    private void assertNoPartFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.filter(file -> file.toString().endsWith(".part")).count());
+        }
+    }
+
+    private OutputDownloader downloader(int parallelism, int maxAttempts) {
+        return new OutputDownloader(transport, RangedDownloadConfig.builder()
+            .rangeSize(RANGE_SIZE)
+            .parallelism(parallelism)
+            .maxRangeAttempts(maxAttempts)
+            .build());
+    }
+
+    public static class VideoResult {
+        public VideoOutput video;
+    }
+}
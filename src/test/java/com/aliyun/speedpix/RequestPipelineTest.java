@@ -0,0 +1,65 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.ComfyPromptRequest;
+import com.aliyun.speedpix.model.Prediction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求序列化与签名管道测试
+ */
+public class RequestPipelineTest {
+
+    private StubGateway gateway;
+    private SpeedPixClient client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        client = gateway.newClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        gateway.close();
+    }
+
+    @Test
+    public void testSyncAndAsyncBodiesAreSignedWithMatchingMd5() throws Exception {
+        // 测试大请求体只序列化一次，content-md5 与实际发送的字节一致
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            large.append("prompt-").append(i);
+        }
+        Map<String, Object> inputs = new HashMap<>();
+        inputs.put("prompt", large.toString());
+
+        Prediction<Map> created = client.predictions().create(
+            ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class);
+        assertNotNull(created.getId());
+        assertTrue(gateway.lastPromptBody().contains(large));
+
+        List<CompletableFuture<Prediction<Map>>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(client.predictions().createAsync(
+                ComfyPromptRequest.builder("workflow").inputs(inputs).build(), Map.class));
+        }
+        for (CompletableFuture<Prediction<Map>> future : futures) {
+            assertNotNull(future.get(10, TimeUnit.SECONDS).getId());
+        }
+
+        assertEquals(21, gateway.signedBodies());
+        assertEquals(0, gateway.md5Mismatches());
+    }
+}
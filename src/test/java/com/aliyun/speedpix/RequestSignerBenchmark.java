@@ -0,0 +1,62 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.util.AuthUtils;
+import com.aliyun.speedpix.util.RequestSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求签名基准测试：对比 AuthUtils 每次重新初始化与复用的 RequestSigner
+ *
+ * 启用 GC profiler，gc.alloc.rate.norm 即每次签名分配的字节数。运行方式：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.aliyun.speedpix.RequestSignerBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(4)
+@Fork(1)
+public class RequestSignerBenchmark {
+
+    private static final String PATH = "/scc/comfy_get_progress";
+    private static final String BODY = "{\"taskId\":\"1234567890abcdef\"}";
+
+    private final RequestSigner signer = new RequestSigner("bench-app-key", "bench-app-secret");
+
+    @Benchmark
+    public Map<String, String> legacyAuthUtils() {
+        return AuthUtils.generateAuthHeaders("POST", PATH, "bench-app-key", "bench-app-secret", BODY, null);
+    }
+
+    @Benchmark
+    public Map<String, String> requestSigner() {
+        return signer.sign("POST", PATH, BODY);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(RequestSignerBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,97 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.util.AuthUtils;
+import com.aliyun.speedpix.util.RequestSigner;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.codec.digest.HmacAlgorithms;
+import org.apache.commons.codec.digest.HmacUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求签名器测试
+ */
+public class RequestSignerTest {
+
+    private static final String APP_KEY = "test-app-key";
+    private static final String APP_SECRET = "test-app-secret";
+
+    private final RequestSigner signer = new RequestSigner(APP_KEY, APP_SECRET);
+
+    @Test
+    public void testSignatureMatchesGatewayAlgorithm() {
+        String body = "{\"taskId\":\"task-1\"}";
+        Map<String, String> headers = signer.sign("POST", "/scc/comfy_get_progress", body);
+
+        String contentMd5 = Base64.encodeBase64String(DigestUtils.md5(body.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(contentMd5, headers.get("content-md5"));
+        assertEquals(expectedSignature("POST", "/scc/comfy_get_progress", contentMd5, headers),
+            headers.get("x-ca-signature"));
+    }
+
+    @Test
+    public void testSignatureWithoutBody() {
+        Map<String, String> headers = signer.signWithMd5("POST", "/scc/comfy_prompt", null);
+
+        assertFalse(headers.containsKey("content-md5"));
+        assertEquals(expectedSignature("POST", "/scc/comfy_prompt", "", headers), headers.get("x-ca-signature"));
+    }
+
+    @Test
+    public void testHeadersMatchLegacyFormat() {
+        Map<String, String> legacy = AuthUtils.generateAuthHeaders("POST", "/p", APP_KEY, APP_SECRET, "{}", null);
+        Map<String, String> headers = signer.sign("POST", "/p", "{}");
+
+        assertEquals(legacy.keySet(), headers.keySet());
+        assertEquals(legacy.get("content-md5"), headers.get("content-md5"));
+        assertTrue(headers.get("date").matches("[A-Z][a-z]{2}, \\d{2} [A-Z][a-z]{2} \\d{4} \\d{2}:\\d{2}:\\d{2} GMT\\+00:00"),
+            headers.get("date"));
+        assertTrue(headers.get("x-ca-nonce").matches("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"),
+            headers.get("x-ca-nonce"));
+    }
+
+    @Test
+    public void testConcurrentSigning() throws Exception {
+        // 多线程共享签名器，每个线程使用自己的 Mac
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Map<String, String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String path = "/path/" + i;
+                futures.add(executor.submit(() -> signer.sign("POST", path, path)));
+            }
+            Set<String> nonces = new HashSet<>();
+            for (int i = 0; i < futures.size(); i++) {
+                Map<String, String> headers = futures.get(i).get();
+                String path = "/path/" + i;
+                assertEquals(expectedSignature("POST", path, headers.get("content-md5"), headers),
+                    headers.get("x-ca-signature"));
+                nonces.add(headers.get("x-ca-nonce"));
+            }
+            assertEquals(200, nonces.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String expectedSignature(String method, String path, String contentMd5,
+        Map<String, String> headers) {
+        String contentType = "application/json; charset=utf-8";
+        String stringToSign = String.join("\n", method, contentType, contentMd5, contentType, headers.get("date"),
+            "x-ca-key:" + APP_KEY, "x-ca-nonce:" + headers.get("x-ca-nonce"), "x-ca-signature-method:HmacSHA256",
+            "x-ca-timestamp:" + headers.get("x-ca-timestamp"), path);
+        return Base64.encodeBase64String(new HmacUtils(HmacAlgorithms.HMAC_SHA_256, APP_SECRET).hmac(stringToSign));
+    }
+}
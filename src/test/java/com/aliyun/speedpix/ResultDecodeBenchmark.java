@@ -0,0 +1,104 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.ComfyResultResponse;
+import com.aliyun.speedpix.model.ImageOutput;
+import com.aliyun.speedpix.model.TypedComfyResultResponse;
+import com.aliyun.speedpix.util.OutputConverterUtils;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 结果解码基准测试：对比 String -> Map -> convertValue 与按参数化类型直接从字节流解码
+ *
+ * 启用 GC profiler，gc.alloc.rate.norm 即每次解码分配的字节数。运行方式：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.aliyun.speedpix.ResultDecodeBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ResultDecodeBenchmark {
+
+    @Param({"10", "200"})
+    public int imageCount;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private JavaType typedResponse;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{\"data\":{\"taskId\":\"task-1\",\"status\":\"succeeded\",\"result\":{")
+            .append("\"images\":[");
+        for (int i = 0; i < imageCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"url\":\"https://speedpix-output.oss-cn-beijing.aliyuncs.com/tmp/outputs/image-").append(i)
+                .append(".png?Expires=1760000000&OSSAccessKeyId=LTAIxxxx&Signature=abcdefghijklmnop\",")
+                .append("\"filename\":\"image-").append(i).append(".png\",\"format\":\"png\",")
+                .append("\"width\":1024,\"height\":1024,\"type\":\"output\"}");
+        }
+        json.append("],\"seed\":42}}}");
+        payload = json.toString().getBytes(StandardCharsets.UTF_8);
+        typedResponse = mapper.getTypeFactory().constructParametricType(TypedComfyResultResponse.class,
+            ImageResult.class);
+    }
+
+    /**
+     * 原有方式：先读成 String，绑定到 Map，再 convertValue 到目标类型
+     */
+    @Benchmark
+    public ImageResult stringMapConvert() throws Exception {
+        String body = new String(payload, StandardCharsets.UTF_8);
+        ComfyResultResponse response = mapper.readValue(body, ComfyResultResponse.class);
+        return OutputConverterUtils.convertTo(response.getData().getOutput(), ImageResult.class, mapper);
+    }
+
+    /**
+     * 按 TypedComfyResultResponse&lt;ImageResult&gt; 直接从字节流解码
+     */
+    @Benchmark
+    public ImageResult streamTyped() throws Exception {
+        TypedComfyResultResponse<ImageResult> response = mapper.readValue(new ByteArrayInputStream(payload),
+            typedResponse);
+        return response.getData().getResult();
+    }
+
+    public static class ImageResult {
+        public List<ImageOutput> images;
+        public int seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(ResultDecodeBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
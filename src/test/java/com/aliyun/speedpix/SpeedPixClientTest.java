@@ -90,6 +90,40 @@ public class SpeedPixClientTest {
         assertNotNull(client.files());
     }
 
+    @Test
+    public void testBuilderTransportOptions() {
+        // 测试连接池和调度器配置
+        SpeedPixClient client = SpeedPixClient.builder()
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .maxRequests(256)
+            .maxRequestsPerHost(48)
+            .maxIdleConnections(8)
+            .readTimeoutSeconds(120)
+            .build();
+
+        assertEquals(256, client.getHttpClient().dispatcher().getMaxRequests());
+        assertEquals(48, client.getHttpClient().dispatcher().getMaxRequestsPerHost());
+        assertEquals(120_000, client.getHttpClient().readTimeoutMillis());
+        assertSame(client.getHttpClient(), client.getTransport().getHttpClient());
+        client.close();
+    }
+
+    @Test
+    public void testBuilderWithExternalHttpClient() {
+        // 测试使用外部 OkHttpClient
+        okhttp3.OkHttpClient external = new okhttp3.OkHttpClient();
+        SpeedPixClient client = SpeedPixClient.builder()
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .httpClient(external)
+            .build();
+
+        assertSame(external, client.getHttpClient());
+        client.close();
+        assertFalse(external.dispatcher().executorService().isShutdown());
+    }
+
     @Test
     public void testBuilderWithDefaults() {
         // 测试Builder模式使用默认值
@@ -0,0 +1,114 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.http.StreamSpool;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 输入流暂存区测试
+ */
+public class StreamSpoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSmallStreamStaysInMemory() throws Exception {
+        byte[] data = randomBytes(10_000);
+
+        try (StreamSpool spool = StreamSpool.builder()
+            .memoryThreshold(64 * 1024)
+            .digestAlgorithm("SHA-256")
+            .tempDirectory(tempDir)
+            .spool(new ByteArrayInputStream(data))) {
+            assertTrue(spool.isInMemory());
+            assertEquals(data.length, spool.getSize());
+            assertArrayEquals(Arrays.copyOf(data, StreamSpool.HEADER_SIZE), spool.getHeader());
+            assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), spool.getDigest());
+
+            ByteBuffer view = spool.asByteBuffer();
+            byte[] copy = new byte[view.remaining()];
+            view.get(copy);
+            assertArrayEquals(data, copy);
+            assertEquals(0, countFiles());
+        }
+    }
+
+    @Test
+    public void testLargeStreamOverflowsToTempFile() throws Exception {
+        byte[] data = randomBytes(300_000);
+
+        StreamSpool spool = StreamSpool.builder()
+            .memoryThreshold(64 * 1024)
+            .digestAlgorithm("SHA-256")
+            .tempDirectory(tempDir)
+            .spool(new ByteArrayInputStream(data));
+        try {
+            assertFalse(spool.isInMemory());
+            assertEquals(data.length, spool.getSize());
+            assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), spool.getDigest());
+            assertEquals(1, countFiles());
+            assertThrows(IllegalStateException.class, spool::asByteBuffer);
+
+            // 请求体可以重复发送
+            for (int i = 0; i < 2; i++) {
+                Buffer sink = new Buffer();
+                spool.requestBody(null).writeTo(sink);
+                assertArrayEquals(data, sink.readByteArray());
+            }
+            try (InputStream in = spool.openStream()) {
+                assertEquals(data[0], (byte)in.read());
+            }
+        } finally {
+            spool.close();
+        }
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    public void testSizeLimitStopsReadingAndCleansUp() throws Exception {
+        byte[] data = randomBytes(200_000);
+
+        assertThrows(StreamSpool.SizeLimitExceededException.class, () -> StreamSpool.builder()
+            .memoryThreshold(16 * 1024)
+            .maxSize(100_000)
+            .tempDirectory(tempDir)
+            .spool(new ByteArrayInputStream(data)));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    public void testEmptyStream() throws Exception {
+        try (StreamSpool spool = StreamSpool.spool(new ByteArrayInputStream(new byte[0]))) {
+            assertTrue(spool.isInMemory());
+            assertEquals(0, spool.getSize());
+            assertEquals(0, spool.getHeader().length);
+            assertNull(spool.getDigest());
+        }
+    }
+
+    private long countFiles() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,633 @@
+package com.aliyun.speedpix;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地网关替身，模拟 SpeedPix 网关和 OSS 上传/下载接口，供测试和基准测试使用
+ */
+class StubGateway implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> pollCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger taskSequence = new AtomicInteger();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicInteger activeProgress = new AtomicInteger();
+    private final AtomicInteger maxActiveProgress = new AtomicInteger();
+    private final AtomicInteger signedBodies = new AtomicInteger();
+    private final AtomicInteger md5Mismatches = new AtomicInteger();
+    private final Map<String, MultipartSession> multipartSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger activePartUploads = new AtomicInteger();
+    private final AtomicInteger maxActivePartUploads = new AtomicInteger();
+    private final AtomicInteger partFailuresToInject = new AtomicInteger();
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private final AtomicInteger maxActiveUploads = new AtomicInteger();
+    private final AtomicInteger uploadFailuresToInject = new AtomicInteger();
+    private final Map<String, Long> uploadSizes = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+    private final AtomicInteger activeDownloads = new AtomicInteger();
+    private final AtomicInteger maxActiveDownloads = new AtomicInteger();
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicLong downloadedBytes = new AtomicLong();
+    private final AtomicInteger rangeFailuresToInject = new AtomicInteger();
+    private final AtomicInteger rangeTruncationsToInject = new AtomicInteger();
+    private final AtomicInteger downloadTruncationsToInject = new AtomicInteger();
+    private final Queue<String> ifRangeHeaders = new ConcurrentLinkedQueue<>();
+
+    private volatile int pollsUntilDone = 2;
+    private volatile long latencyMillis = 0;
+    private volatile Double etaSeconds;
+    private volatile String lastPromptBody;
+    private volatile long lastPromptBodySize;
+    private volatile boolean discardPromptBodies;
+    private volatile String lastUploadContentType;
+    private volatile int failingPartNumber;
+    private volatile long uploadBytesPerSecond;
+    private volatile long downloadBytesPerSecond;
+    private volatile boolean rangeSupport = true;
+    private volatile String resultJson = "{\"images\":[\"https://example.com/out.png\"]}";
+    private volatile String resultStatus = "succeeded";
+    private volatile String multipartExpireTime;
+
+    StubGateway() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-gateway");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/scc/comfy_prompt", exchange -> {
+            if (discardPromptBodies) {
+                // 只统计长度，避免超大请求体占用测试进程的堆
+                lastPromptBody = null;
+                lastPromptBodySize = drain(exchange);
+            } else {
+                lastPromptBody = readBody(exchange);
+                lastPromptBodySize = lastPromptBody.length();
+            }
+            String taskId = "task-" + taskSequence.incrementAndGet();
+            respond(exchange, "/scc/comfy_prompt",
+                "{\"data\":{\"taskId\":\"" + taskId + "\",\"status\":\"waiting\"}}");
+        });
+        server.createContext("/scc/comfy_get_progress", exchange -> {
+            int active = activeProgress.incrementAndGet();
+            maxActiveProgress.accumulateAndGet(active, Math::max);
+            try {
+                String taskId = taskId(exchange);
+                int polls = pollCounts.computeIfAbsent(taskId, k -> new AtomicInteger()).incrementAndGet();
+                String status = polls >= pollsUntilDone ? "succeeded" : "running";
+                respond(exchange, "/scc/comfy_get_progress",
+                    "{\"data\":{\"taskId\":\"" + taskId + "\",\"status\":\"" + status + "\",\"progress\":"
+                        + Math.min(1.0, (double)polls / pollsUntilDone)
+                        + (etaSeconds != null ? ",\"etaRelative\":" + etaSeconds : "") + "}}");
+            } finally {
+                activeProgress.decrementAndGet();
+            }
+        });
+        server.createContext("/scc/comfy_get_result", exchange -> {
+            String taskId = taskId(exchange);
+            respond(exchange, "/scc/comfy_get_result",
+                "{\"data\":{\"taskId\":\"" + taskId + "\","
+                    + (resultStatus != null ? "\"status\":\"" + resultStatus + "\"," : "")
+                    + "\"result\":" + resultJson + "}}");
+        });
+        server.createContext("/scc/sp_create_temp_file_upload_sign", exchange -> {
+            readBody(exchange);
+            String key = "obj-" + taskSequence.incrementAndGet();
+            respond(exchange, "/scc/sp_create_temp_file_upload_sign",
+                "{\"data\":{\"path\":\"tmp/" + key + "\",\"objectKey\":\"" + key + "\","
+                    + "\"uploadUrl\":\"" + baseUrl() + "/upload/" + key + "\","
+                    + "\"accessUrl\":\"" + baseUrl() + "/files/" + key + "\","
+                    + "\"expireTime\":" + (System.currentTimeMillis() / 1000 + 3600) + "}}");
+        });
+        server.createContext("/upload/", exchange -> {
+            count("/upload");
+            int active = activeUploads.incrementAndGet();
+            maxActiveUploads.accumulateAndGet(active, Math::max);
+            try {
+                lastUploadContentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                long size = drainUpload(exchange, null);
+                if (uploadFailuresToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    exchange.sendResponseHeaders(500, -1);
+                    exchange.close();
+                    return;
+                }
+                String[] segments = exchange.getRequestURI().getPath().split("/");
+                uploadSizes.put(segments[segments.length - 1], size);
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            } finally {
+                activeUploads.decrementAndGet();
+            }
+        });
+        server.createContext("/files/", exchange -> {
+            count("/files");
+            int active = activeDownloads.incrementAndGet();
+            maxActiveDownloads.accumulateAndGet(active, Math::max);
+            try {
+                serveFile(exchange);
+            } finally {
+                activeDownloads.decrementAndGet();
+            }
+        });
+        server.createContext("/scc/sp_create_multipart_upload", exchange -> {
+            Map<?, ?> body = MAPPER.readValue(readBody(exchange), HashMap.class);
+            String key = "obj-" + taskSequence.incrementAndGet();
+            String uploadId = "upload-" + key;
+            multipartSessions.put(uploadId, new MultipartSession(((Number)body.get("size")).longValue()));
+            respond(exchange, "/scc/sp_create_multipart_upload",
+                "{\"data\":{\"uploadId\":\"" + uploadId + "\",\"path\":\"tmp/" + key + "\","
+                    + "\"objectKey\":\"" + key + "\",\"accessUrl\":\"" + baseUrl() + "/files/" + key + "\","
+                    + "\"expireTime\":" + (multipartExpireTime != null ? multipartExpireTime
+                        : String.valueOf(System.currentTimeMillis() / 1000 + 3600)) + "}}");
+        });
+        server.createContext("/scc/sp_sign_multipart_upload_part", exchange -> {
+            Map<?, ?> body = MAPPER.readValue(readBody(exchange), HashMap.class);
+            String uploadId = String.valueOf(body.get("uploadId"));
+            if (!multipartSessions.containsKey(uploadId)) {
+                respondError(exchange, "/scc/sp_sign_multipart_upload_part", 404);
+                return;
+            }
+            respond(exchange, "/scc/sp_sign_multipart_upload_part",
+                "{\"data\":{\"uploadUrl\":\"" + baseUrl() + "/multipart/" + uploadId + "/"
+                    + body.get("partNumber") + "\"}}");
+        });
+        server.createContext("/multipart/", exchange -> {
+            count("/multipart");
+            int active = activePartUploads.incrementAndGet();
+            maxActivePartUploads.accumulateAndGet(active, Math::max);
+            try {
+                String[] segments = exchange.getRequestURI().getPath().split("/");
+                MultipartSession session = multipartSessions.get(segments[2]);
+                int partNumber = Integer.parseInt(segments[3]);
+                MessageDigest md5 = DigestUtils.getMd5Digest();
+                long size = drainUpload(exchange, md5);
+                boolean inject = partNumber == failingPartNumber
+                    || partFailuresToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+                if (session == null || inject) {
+                    exchange.sendResponseHeaders(500, -1);
+                    exchange.close();
+                    return;
+                }
+                String etag = "\"" + Hex.encodeHexString(md5.digest()) + "\"";
+                session.partSizes.put(partNumber, size);
+                session.etags.put(partNumber, etag);
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            } finally {
+                activePartUploads.decrementAndGet();
+            }
+        });
+        server.createContext("/scc/sp_complete_multipart_upload", exchange -> {
+            Map<?, ?> body = MAPPER.readValue(readBody(exchange), HashMap.class);
+            String uploadId = String.valueOf(body.get("uploadId"));
+            MultipartSession session = multipartSessions.get(uploadId);
+            long total = 0;
+            int expectedPart = 1;
+            boolean valid = session != null;
+            for (Object item : (Iterable<?>)body.get("parts")) {
+                Map<?, ?> part = (Map<?, ?>)item;
+                int partNumber = ((Number)part.get("partNumber")).intValue();
+                valid &= session != null && partNumber == expectedPart++
+                    && String.valueOf(part.get("etag")).equals(session.etags.get(partNumber));
+                if (valid) {
+                    total += session.partSizes.get(partNumber);
+                }
+            }
+            if (!valid || total != session.size) {
+                respondError(exchange, "/scc/sp_complete_multipart_upload", 400);
+                return;
+            }
+            multipartSessions.remove(uploadId);
+            String key = String.valueOf(body.get("objectKey"));
+            respond(exchange, "/scc/sp_complete_multipart_upload",
+                "{\"data\":{\"path\":\"tmp/" + key + "\",\"objectKey\":\"" + key + "\","
+                    + "\"accessUrl\":\"" + baseUrl() + "/files/" + key + "\"}}");
+        });
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    SpeedPixClient newClient() {
+        return SpeedPixClient.builder()
+            .endpoint(baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .build();
+    }
+
+    void setPollsUntilDone(int pollsUntilDone) {
+        this.pollsUntilDone = pollsUntilDone;
+    }
+
+    void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    void setEtaSeconds(Double etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    void setResultJson(String resultJson) {
+        this.resultJson = resultJson;
+    }
+
+    /**
+     * 设置结果接口返回的任务状态，为 null 时响应中不带状态
+     */
+    void setResultStatus(String resultStatus) {
+        this.resultStatus = resultStatus;
+    }
+
+    int requestCount(String path) {
+        AtomicInteger count = requestCounts.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    int maxConcurrentProgressRequests() {
+        return maxActiveProgress.get();
+    }
+
+    String lastPromptBody() {
+        return lastPromptBody;
+    }
+
+    long lastPromptBodySize() {
+        return lastPromptBodySize;
+    }
+
+    /**
+     * 只统计创建任务请求体的长度，不保存内容
+     */
+    void discardPromptBodies(boolean discard) {
+        this.discardPromptBodies = discard;
+    }
+
+    int signedBodies() {
+        return signedBodies.get();
+    }
+
+    int md5Mismatches() {
+        return md5Mismatches.get();
+    }
+
+    long uploadedBytes() {
+        return uploadedBytes.get();
+    }
+
+    String lastUploadContentType() {
+        return lastUploadContentType;
+    }
+
+    /**
+     * 接下来的 count 次单文件上传返回 500
+     */
+    void failNextUploads(int count) {
+        uploadFailuresToInject.set(count);
+    }
+
+    int maxConcurrentUploads() {
+        return maxActiveUploads.get();
+    }
+
+    /**
+     * 获取通过单文件上传接口上传的对象大小，未上传时为 null
+     */
+    Long uploadedSize(String objectKey) {
+        return uploadSizes.get(objectKey);
+    }
+
+    /**
+     * 接下来的 count 次分片上传返回 500
+     */
+    void failNextPartUploads(int count) {
+        partFailuresToInject.set(count);
+    }
+
+    /**
+     * 指定分片的上传始终返回 500，0 表示不注入
+     */
+    void setFailingPartNumber(int partNumber) {
+        this.failingPartNumber = partNumber;
+    }
+
+    /**
+     * 限制每个上传连接的接收速率，0 表示不限速
+     */
+    void setUploadBytesPerSecond(long uploadBytesPerSecond) {
+        this.uploadBytesPerSecond = uploadBytesPerSecond;
+    }
+
+    /**
+     * 在 /files/ 下提供文件下载，返回下载地址
+     */
+    String serveFile(String name, byte[] content) {
+        etags.put(name, "\"" + Integer.toHexString(Arrays.hashCode(content)) + "\"");
+        files.put(name, content);
+        return baseUrl() + "/files/" + name;
+    }
+
+    /**
+     * 是否响应 Range 请求，关闭后总是返回完整文件
+     */
+    void setRangeSupport(boolean rangeSupport) {
+        this.rangeSupport = rangeSupport;
+    }
+
+    /**
+     * 限制每个下载连接的发送速率，0 表示不限速
+     */
+    void setDownloadBytesPerSecond(long downloadBytesPerSecond) {
+        this.downloadBytesPerSecond = downloadBytesPerSecond;
+    }
+
+    /**
+     * 接下来的 count 次 Range 请求返回 503（不包括第一个分段）
+     */
+    void failNextRangeRequests(int count) {
+        rangeFailuresToInject.set(count);
+    }
+
+    /**
+     * 接下来的 count 次 Range 响应只发送一半内容后断开（不包括第一个分段）
+     */
+    void truncateNextRangeResponses(int count) {
+        rangeTruncationsToInject.set(count);
+    }
+
+    /**
+     * 接下来的 count 次下载响应（包括第一个分段和完整响应）只发送一半内容后断开
+     */
+    void truncateNextDownloads(int count) {
+        downloadTruncationsToInject.set(count);
+    }
+
+    int rangeRequests() {
+        return rangeRequests.get();
+    }
+
+    /**
+     * /files/ 下已发送的响应体字节数
+     */
+    long downloadedBytes() {
+        return downloadedBytes.get();
+    }
+
+    /**
+     * 收到的 If-Range 请求头
+     */
+    List<String> ifRangeHeaders() {
+        return new ArrayList<>(ifRangeHeaders);
+    }
+
+    int maxConcurrentDownloads() {
+        return maxActiveDownloads.get();
+    }
+
+    int maxConcurrentPartUploads() {
+        return maxActivePartUploads.get();
+    }
+
+    int openMultipartSessions() {
+        return multipartSessions.size();
+    }
+
+    /**
+     * 使服务端所有未完成的分片上传会话失效
+     */
+    void expireMultipartSessions() {
+        multipartSessions.clear();
+    }
+
+    /**
+     * 设置初始化分片上传时返回的 expireTime（JSON 值），为 null 时返回一小时后的秒级时间戳
+     */
+    void setMultipartExpireTime(String expireTimeJson) {
+        this.multipartExpireTime = expireTimeJson;
+    }
+
+    HttpServer server() {
+        return server;
+    }
+
+    private void count(String path) {
+        requestCounts.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private String taskId(HttpExchange exchange) throws IOException {
+        Map<?, ?> body = MAPPER.readValue(readBody(exchange), HashMap.class);
+        return String.valueOf(body.get("taskId"));
+    }
+
+    private long drain(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                total += n;
+            }
+            return total;
+        }
+    }
+
+    private String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            byte[] bytes = out.toByteArray();
+            String contentMd5 = exchange.getRequestHeaders().getFirst("content-md5");
+            if (contentMd5 != null) {
+                signedBodies.incrementAndGet();
+                if (!contentMd5.equals(Base64.encodeBase64String(DigestUtils.md5(bytes)))) {
+                    md5Mismatches.incrementAndGet();
+                }
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 读取上传内容，累计上传字节数，按配置限速
+     */
+    private long drainUpload(HttpExchange exchange, MessageDigest digest) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        long startNanos = System.nanoTime();
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                uploadedBytes.addAndGet(read);
+                total += read;
+                if (digest != null) {
+                    digest.update(buffer, 0, read);
+                }
+                long rate = uploadBytesPerSecond;
+                if (rate > 0) {
+                    long aheadNanos = total * 1_000_000_000L / rate - (System.nanoTime() - startNanos);
+                    if (aheadNanos > 0) {
+                        try {
+                            Thread.sleep(aheadNanos / 1_000_000, (int)(aheadNanos % 1_000_000));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException(e);
+                        }
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    private void serveFile(HttpExchange exchange) throws IOException {
+        String[] segments = exchange.getRequestURI().getPath().split("/");
+        byte[] content = files.get(segments[segments.length - 1]);
+        if (content == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        String etag = etags.get(segments[segments.length - 1]);
+        exchange.getResponseHeaders().set("ETag", etag);
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        if (ifRange != null) {
+            ifRangeHeaders.add(ifRange);
+        }
+        int start = 0;
+        int end = content.length - 1;
+        boolean partial = false;
+        // If-Range 不匹配时忽略 Range，返回完整文件
+        if (range != null && rangeSupport && (ifRange == null || ifRange.equals(etag))) {
+            rangeRequests.incrementAndGet();
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            start = Integer.parseInt(bounds[0]);
+            end = bounds.length > 1 ? Math.min(Integer.parseInt(bounds[1]), content.length - 1) : content.length - 1;
+            if (start >= content.length) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+            partial = true;
+            if (start > 0 && rangeFailuresToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range",
+                "bytes " + start + "-" + end + "/" + content.length);
+        }
+        int length = end - start + 1;
+        boolean truncate = partial && start > 0
+            && rangeTruncationsToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0
+            || downloadTruncationsToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(partial ? 206 : 200, length);
+        OutputStream out = exchange.getResponseBody();
+        long startNanos = System.nanoTime();
+        int sent = 0;
+        int limit = truncate ? length / 2 : length;
+        try {
+            while (sent < limit) {
+                int chunk = Math.min(64 * 1024, limit - sent);
+                out.write(content, start + sent, chunk);
+                sent += chunk;
+                downloadedBytes.addAndGet(chunk);
+                long rate = downloadBytesPerSecond;
+                if (rate > 0) {
+                    long aheadNanos = sent * 1_000_000_000L / rate - (System.nanoTime() - startNanos);
+                    if (aheadNanos > 0) {
+                        Thread.sleep(aheadNanos / 1_000_000, (int)(aheadNanos % 1_000_000));
+                    }
+                }
+            }
+            if (truncate) {
+                out.flush();
+                // 不发送剩余内容直接断开连接
+                exchange.close();
+                return;
+            }
+            out.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        } catch (IOException e) {
+            // 客户端提前断开
+            exchange.close();
+        }
+    }
+
+    private void respondError(HttpExchange exchange, String path, int code) throws IOException {
+        count(path);
+        exchange.sendResponseHeaders(code, -1);
+        exchange.close();
+    }
+
+    private void respond(HttpExchange exchange, String path, String json) throws IOException {
+        count(path);
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static final class MultipartSession {
+        final long size;
+        final Map<Integer, Long> partSizes = new ConcurrentHashMap<>();
+        final Map<Integer, String> etags = new ConcurrentHashMap<>();
+
+        MultipartSession(long size) {
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.aliyun.speedpix;
+
+import com.aliyun.speedpix.model.FileObject;
+import com.aliyun.speedpix.model.FileUploadOptions;
+import com.aliyun.speedpix.service.MultipartUploadConfig;
+import com.aliyun.speedpix.service.UploadCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上传缓存测试
+ */
+public class UploadCacheTest {
+
+    private static final String SIGN_PATH = "/scc/sp_create_temp_file_upload_sign";
+
+    @TempDir
+    Path tempDir;
+
+    private StubGateway gateway;
+    private SpeedPixClient client;
+    private Path file;
+    private byte[] data;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        gateway = new StubGateway();
+        data = new byte[256 * 1024];
+        new Random(13).nextBytes(data);
+        file = tempDir.resolve("input.bin");
+        Files.write(file, data);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        gateway.close();
+    }
+
+    @Test
+    public void testIdenticalFileIsUploadedOnce() throws Exception {
+        UploadCache cache = UploadCache.builder().build();
+        client = newClient(cache);
+
+        FileObject first = client.files().create(file);
+        FileObject second = client.files().create(file);
+
+        assertEquals(1, gateway.requestCount(SIGN_PATH));
+        assertEquals(1, gateway.requestCount("/upload"));
+        assertEquals(first.getAccessUrl(), second.getAccessUrl());
+        assertEquals(first.getObjectKey(), second.getObjectKey());
+        assertEquals(data.length, second.getSize());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(data.length, cache.getBytesSaved());
+        assertEquals(0.5, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testStreamsAndBytesShareEntries() throws Exception {
+        UploadCache cache = UploadCache.builder().build();
+        client = newClient(cache);
+
+        FileObject uploaded = client.files().create(new ByteArrayInputStream(data), "a.bin");
+        FileObject fromBytes = client.files().createAsync(data, "b.bin", null).get(10, TimeUnit.SECONDS);
+        FileObject fromFile = client.files().createAsync(file).get(10, TimeUnit.SECONDS);
+        FileObject fromStream = client.files()
+            .createAsync(new ByteArrayInputStream(data), new FileUploadOptions("c.bin", null))
+            .get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, gateway.requestCount("/upload"));
+        assertEquals(uploaded.getAccessUrl(), fromBytes.getAccessUrl());
+        assertEquals(uploaded.getAccessUrl(), fromFile.getAccessUrl());
+        assertEquals(uploaded.getAccessUrl(), fromStream.getAccessUrl());
+        // 命中时使用本次的文件名
+        assertEquals("b.bin", fromBytes.getName());
+        assertEquals("input.bin", fromFile.getName());
+        assertEquals(3, cache.getHitCount());
+    }
+
+    @Test
+    public void testDifferentContentOfSameSizeIsUploaded() throws Exception {
+        UploadCache cache = UploadCache.builder().build();
+        client = newClient(cache);
+
+        byte[] other = data.clone();
+        other[other.length - 1] ^= 1;
+        FileObject first = client.files().create(data, "a.bin", null);
+        FileObject second = client.files().create(other, "a.bin", null);
+        FileObject smaller = client.files().create(new byte[] {1, 2, 3}, "a.bin", null);
+
+        assertEquals(3, gateway.requestCount("/upload"));
+        assertNotEquals(first.getAccessUrl(), second.getAccessUrl());
+        assertNotEquals(first.getAccessUrl(), smaller.getAccessUrl());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testSizePrefilterSkipsLookups() {
+        UploadCache cache = UploadCache.builder().build();
+        FileObject fileObject = fileObject(System.currentTimeMillis() / 1000 + 3600);
+
+        assertFalse(cache.mayContain(100));
+        cache.put(100, "abc", fileObject);
+        assertTrue(cache.mayContain(100));
+        assertFalse(cache.mayContain(101));
+        assertNull(cache.lookup(101, null));
+        assertNotNull(cache.lookup(100, "abc"));
+    }
+
+    @Test
+    public void testEntriesNearExpiryAreUploadedAgain() throws Exception {
+        // 网关签发的地址一小时后过期，余量两小时时不缓存
+        UploadCache cache = UploadCache.builder().expiryMarginSeconds(7200).build();
+        client = newClient(cache);
+
+        client.files().create(file);
+        client.files().create(file);
+
+        assertEquals(2, gateway.requestCount("/upload"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testExpiredEntryIsEvictedOnLookup() {
+        UploadCache cache = UploadCache.builder().expiryMarginSeconds(60).build();
+        cache.put(10, "abc", fileObject(System.currentTimeMillis() / 1000 + 30));
+        assertEquals(0, cache.size());
+
+        cache.put(10, "abc", fileObject(System.currentTimeMillis() / 1000 + 3600));
+        assertEquals(1, cache.size());
+        cache.put(10, "def", fileObject("2000-01-01T00:00:00Z"));
+        assertEquals(1, cache.size());
+        cache.put(10, "ghi", fileObject("not a time"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testIndexSurvivesRestart() throws Exception {
+        Path index = tempDir.resolve("cache/upload-index.json");
+        client = newClient(UploadCache.builder().indexFile(index).build());
+        FileObject first = client.files().create(file);
+        client.close();
+
+        UploadCache restored = UploadCache.builder().indexFile(index).build();
+        assertEquals(1, restored.size());
+        client = newClient(restored);
+        FileObject second = client.files().create(file);
+
+        assertEquals(1, gateway.requestCount("/upload"));
+        assertEquals(first.getAccessUrl(), second.getAccessUrl());
+        assertEquals(1, restored.getHitCount());
+
+        restored.clear();
+        assertEquals(0, UploadCache.builder().indexFile(index).build().size());
+    }
+
+    @Test
+    public void testIndexIsWrittenInBackground() throws Exception {
+        Path index = tempDir.resolve("upload-index.json");
+        UploadCache cache = UploadCache.builder().indexFile(index).build();
+        long expireTime = System.currentTimeMillis() / 1000 + 3600;
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "sha-" + i, fileObject(expireTime));
+        }
+
+        // 多次写入合并为一次后台写盘
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (UploadCache.builder().indexFile(index).build().size() < 100 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(100, UploadCache.builder().indexFile(index).build().size());
+
+        cache.put(100, "sha-100", fileObject(expireTime));
+        cache.flush();
+        assertEquals(101, UploadCache.builder().indexFile(index).build().size());
+    }
+
+    @Test
+    public void testMultipartAsyncUploadIsHashedInBackground() throws Exception {
+        UploadCache cache = UploadCache.builder().build();
+        client = SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .uploadCache(cache)
+            .multipartUpload(MultipartUploadConfig.builder().threshold(64 * 1024).partSize(64 * 1024).build())
+            .build();
+
+        FileObject first = client.files().createAsync(file).get(10, TimeUnit.SECONDS);
+
+        // 上传结果不等待哈希，哈希算出后写入缓存
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.size() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, cache.size());
+
+        // 再次上传时哈希同样在后台计算，命中缓存
+        FileObject second = client.files().createAsync(file).get(10, TimeUnit.SECONDS);
+        assertEquals(first.getObjectKey(), second.getObjectKey());
+        assertEquals(1, gateway.requestCount("/scc/sp_create_multipart_upload"));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        UploadCache cache = UploadCache.builder().maxEntries(2).build();
+        long expireTime = System.currentTimeMillis() / 1000 + 3600;
+        cache.put(1, "a", fileObject(expireTime));
+        cache.put(2, "b", fileObject(expireTime));
+        assertNotNull(cache.lookup(1, "a"));
+        cache.put(3, "c", fileObject(expireTime));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.mayContain(1));
+        assertFalse(cache.mayContain(2));
+        assertNull(cache.lookup(2, "b"));
+    }
+
+    private static FileObject fileObject(long expireTimeSeconds) {
+        return fileObject(String.valueOf(expireTimeSeconds));
+    }
+
+    private static FileObject fileObject(String expireTime) {
+        FileObject fileObject = new FileObject();
+        fileObject.setAccessUrl("https://example.com/files/x");
+        fileObject.setExpireTime(expireTime);
+        return fileObject;
+    }
+
+    private SpeedPixClient newClient(UploadCache cache) {
+        return SpeedPixClient.builder()
+            .endpoint(gateway.baseUrl())
+            .appKey("test-app-key")
+            .appSecret("test-app-secret")
+            .uploadCache(cache)
+            .build();
+    }
+}